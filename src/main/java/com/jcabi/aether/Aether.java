@@ -32,44 +32,39 @@ package com.jcabi.aether;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileFilter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
-import org.apache.commons.io.filefilter.NameFileFilter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.repository.internal.MavenRepositorySystemSession;
-import org.apache.maven.settings.Mirror;
-import org.apache.maven.settings.Settings;
-import org.apache.maven.settings.SettingsUtils;
-import org.apache.maven.settings.TrackableBase;
-import org.apache.maven.settings.building.DefaultSettingsBuilderFactory;
-import org.apache.maven.settings.building.DefaultSettingsBuildingRequest;
-import org.apache.maven.settings.building.SettingsBuilder;
-import org.apache.maven.settings.building.SettingsBuildingException;
-import org.apache.maven.settings.building.SettingsBuildingRequest;
-import org.apache.maven.settings.building.SettingsBuildingResult;
 import org.sonatype.aether.RepositorySystem;
 import org.sonatype.aether.RepositorySystemSession;
 import org.sonatype.aether.artifact.Artifact;
 import org.sonatype.aether.collection.CollectRequest;
 import org.sonatype.aether.graph.Dependency;
 import org.sonatype.aether.graph.DependencyFilter;
+import org.sonatype.aether.graph.DependencyNode;
 import org.sonatype.aether.repository.Authentication;
 import org.sonatype.aether.repository.LocalRepository;
-import org.sonatype.aether.repository.Proxy;
 import org.sonatype.aether.repository.RemoteRepository;
 import org.sonatype.aether.resolution.ArtifactResult;
 import org.sonatype.aether.resolution.DependencyRequest;
 import org.sonatype.aether.resolution.DependencyResolutionException;
 import org.sonatype.aether.resolution.DependencyResult;
 import org.sonatype.aether.util.filter.DependencyFilterUtils;
-import org.sonatype.aether.util.repository.DefaultMirrorSelector;
-import org.sonatype.aether.util.repository.DefaultProxySelector;
 
 /**
  * Resolver of dependencies for one artifact.
@@ -82,6 +77,29 @@ import org.sonatype.aether.util.repository.DefaultProxySelector;
  * org.apache.maven:maven-core:3.0.3
  * </pre>
  *
+ * <p>The instance keeps a repository system and a pool of HTTP
+ * connections (see {@link Connections}), which are shared by all its
+ * resolutions. It is a good idea to keep one instance for as long as
+ * possible, instead of making a new one for every artifact. Connections
+ * and threads of the instance are released only by {@link #close()},
+ * which callers must call when the instance is not needed anymore,
+ * otherwise they keep the JVM alive:
+ *
+ * <pre> Aether aether = new Aether(repositories, localRepo);
+ * try {
+ *   List&lt;Artifact&gt; deps = aether.resolve(artifact, "runtime");
+ * } finally {
+ *   aether.close();
+ * }</pre>
+ *
+ * <p>Groups served by HTTP repositories are remembered in
+ * {@code jcabi-aether-routes.properties} file in the local repository,
+ * and artifacts of these groups are not requested from other
+ * repositories. The file can be edited by hand, with repository IDs as
+ * keys and comma-separated groupIds as values, where {@code com.example.*}
+ * stands for {@code com.example} and all groups inside it. If an artifact
+ * can't be resolved this way, all repositories are asked again.
+ *
  * @author Yegor Bugayenko (yegor@tpc2.com)
  * @version $Id$
  * @since 0.1.6
@@ -95,24 +113,89 @@ import org.sonatype.aether.util.repository.DefaultProxySelector;
  *  and verify the expected HTTP requests have been sent to the mocked server.
  * @todo #69:30min Fix UnsupportedClassVersionError in CL build for Open JDK6.
  */
-@ToString
-@EqualsAndHashCode(of = { "remotes", "lrepo" })
+@ToString(of = { "topology", "lrepo" })
+@EqualsAndHashCode(of = { "topology", "lrepo" })
 @Loggable(Loggable.DEBUG)
 @SuppressWarnings("PMD.ExcessiveImports")
-@Immutable
-public final class Aether {
+public final class Aether implements Closeable {
 
     /**
-     * Remote project repositories.
+     * Protocol of S3 repositories.
+     */
+    private static final String S3 = "s3";
+
+    /**
+     * Remote project repositories, as declared.
      */
     @Immutable.Array
-    private final transient Repository[] remotes;
+    private final transient Repository[] declared;
+
+    /**
+     * Maven settings with mirrors and proxies.
+     */
+    private final transient MavenSettings settings;
+
+    /**
+     * Remote project repositories, with mirrors and proxies.
+     */
+    private final transient AtomicReference<Topology> topology;
+
+    /**
+     * Remote repositories are identified by URLs and credentials, not IDs?
+     */
+    private final transient boolean identities;
 
     /**
      * Location of lrepo repository.
      */
     private final transient String lrepo;
 
+    /**
+     * Repository system, shared by all resolutions, with S3 connectors
+     * only if some repository needs them.
+     */
+    private final transient AtomicReference<RepositorySystem> system;
+
+    /**
+     * Pool of HTTP connections, shared by all resolutions.
+     */
+    private final transient HttpPool pool;
+
+    /**
+     * Cached versions, which survive rebuilds of the repository system.
+     */
+    private final transient MetadataCache versions;
+
+    /**
+     * Cached ranges, which survive rebuilds of the repository system.
+     */
+    private final transient MetadataCache ranges;
+
+    /**
+     * Lock of the local repository, taken by every resolution.
+     */
+    private final transient ReentrantLock lock;
+
+    /**
+     * Background resolutions.
+     */
+    private final transient Prefetcher prefetcher;
+
+    /**
+     * Settings of resolution of SNAPSHOT versions.
+     */
+    private final transient Snapshots snapshots;
+
+    /**
+     * Thread of background refreshes of SNAPSHOT versions.
+     */
+    private final transient ScheduledExecutorService refreshes;
+
+    /**
+     * Events of resolutions of this Aether.
+     */
+    private final transient ResolutionEvents evts;
+
     /**
      * Public ctor, requires information about all remote repositories and one
      * lrepo.
@@ -130,15 +213,131 @@ public final class Aether {
      * @param repo Local repository location (directory path)
      * @since 0.8
      */
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     public Aether(final Collection<RemoteRepository> repos,
         final File repo) {
-        final Collection<Repository> rlist = new LinkedList<Repository>();
-        for (final RemoteRepository remote : this.prepos(this.mrepos(repos))) {
-            rlist.add(new Repository(remote));
-        }
-        this.remotes = rlist.toArray(new Repository[repos.size()]);
+        this(repos, repo, new Connections());
+    }
+
+    /**
+     * Public ctor, requires information about all remote repositories,
+     * one lrepo and settings of HTTP connections.
+     * @param repos Collection of remote repositories
+     * @param repo Local repository location (directory path)
+     * @param conns Settings of HTTP connection pool
+     * @since 1.0
+     */
+    public Aether(final Collection<RemoteRepository> repos,
+        final File repo, final Connections conns) {
+        this(repos, repo, conns, new Transfers());
+    }
+
+    /**
+     * Public ctor, requires information about all remote repositories,
+     * one lrepo, settings of HTTP connections and settings of transfers.
+     * @param repos Collection of remote repositories
+     * @param repo Local repository location (directory path)
+     * @param conns Settings of HTTP connection pool
+     * @param trs Settings of transfers
+     * @since 1.0
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    public Aether(final Collection<RemoteRepository> repos,
+        final File repo, final Connections conns, final Transfers trs) {
+        this(repos, repo, conns, trs, new Snapshots());
+    }
+
+    /**
+     * Public ctor, requires information about all remote repositories,
+     * one lrepo, settings of HTTP connections, settings of transfers and
+     * settings of SNAPSHOT versions.
+     * @param repos Collection of remote repositories
+     * @param repo Local repository location (directory path)
+     * @param conns Settings of HTTP connection pool
+     * @param trs Settings of transfers
+     * @param snaps Settings of SNAPSHOT versions
+     * @since 1.0
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    public Aether(final Collection<RemoteRepository> repos,
+        final File repo, final Connections conns, final Transfers trs,
+        final Snapshots snaps) {
+        this(repos, repo, conns, trs, snaps, false);
+    }
+
+    /**
+     * Ctor.
+     * @param repos Collection of remote repositories
+     * @param repo Local repository location (directory path)
+     * @param conns Settings of HTTP connection pool
+     * @param trs Settings of transfers
+     * @param snaps Settings of SNAPSHOT versions
+     * @param s3 Support S3 repositories, even if there are none now
+     * @since 1.0
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    Aether(final Collection<RemoteRepository> repos,
+        final File repo, final Connections conns, final Transfers trs,
+        final Snapshots snaps, final boolean s3) {
+        this.declared = Aether.declare(repos);
+        this.settings = new MavenSettings();
+        this.topology = new AtomicReference<Topology>(
+            new Topology(repos, this.settings.load())
+        );
+        this.identities = false;
         this.lrepo = repo.getAbsolutePath();
+        this.system = new AtomicReference<RepositorySystem>(
+            new RepositorySystemBuilder(
+                conns, trs, s3 || this.topology.get().has(Aether.S3)
+            ).build()
+        );
+        this.lock = new ReentrantLock();
+        this.prefetcher = new Prefetcher(this.lock);
+        this.pool = new HttpPool(
+            conns, trs, new Routes(new File(repo, Routes.NAME))
+        );
+        this.versions = new MetadataCache();
+        this.ranges = new MetadataCache();
+        this.snapshots = snaps;
+        this.refreshes = Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads("refresh", true, Thread.MIN_PRIORITY)
+        );
+        this.evts = new ResolutionEvents();
+        this.pool.register(this, this.topology.get().repositories());
+    }
+
+    /**
+     * Ctor of an Aether with its own remote repositories, sharing
+     * everything else with another one, see {@link Tenants}.
+     *
+     * <p>Repositories are identified by their URLs and credentials, instead of
+     * their IDs, see {@link Topology#identified()}.
+     *
+     * <p>Events of resolutions are published to subscribers of this
+     * Aether and then to subscribers of the base one.
+     *
+     * @param repos Collection of remote repositories
+     * @param base Aether to share the local repository, repository system,
+     *  connections, caches and settings with
+     * @since 1.0
+     */
+    Aether(final Collection<RemoteRepository> repos, final Aether base) {
+        this.declared = Aether.declare(repos);
+        this.settings = base.settings;
+        this.topology = new AtomicReference<Topology>(
+            new Topology(repos, this.settings.load()).identified()
+        );
+        this.identities = true;
+        this.lrepo = base.lrepo;
+        this.system = base.system;
+        this.lock = base.lock;
+        this.prefetcher = base.prefetcher;
+        this.pool = base.pool;
+        this.versions = base.versions;
+        this.ranges = base.ranges;
+        this.snapshots = base.snapshots;
+        this.refreshes = base.refreshes;
+        this.evts = new ResolutionEvents(base.evts);
+        this.pool.register(this, this.topology.get().repositories());
     }
 
     /**
@@ -150,18 +349,15 @@ public final class Aether {
      */
     public List<Artifact> resolve(final Artifact root,
         final String scope) throws DependencyResolutionException {
-        final DependencyFilter filter =
-            DependencyFilterUtils.classpathFilter(scope);
-        if (filter == null) {
-            throw new IllegalStateException(
-                String.format("failed to create a filter for '%s'", scope)
-            );
-        }
-        return this.resolve(root, scope, filter);
+        return this.resolve(root, scope, Aether.filter(scope));
     }
 
     /**
      * List of transitive dependencies of the artifact.
+     *
+     * <p>Equal artifacts, resolved by any instances of {@link Aether},
+     * are the same objects.
+     *
      * @param root The artifact to work with
      * @param scope The scope to work with ("runtime", "test", etc.)
      * @param filter The dependency filter to work with
@@ -171,71 +367,385 @@ public final class Aether {
     public List<Artifact> resolve(final Artifact root,
         final String scope, final DependencyFilter filter)
         throws DependencyResolutionException {
-        final List<Artifact> deps = new LinkedList<Artifact>();
-        final RepositorySystem system = new RepositorySystemBuilder().build();
-        deps.addAll(
-            this.fetch(
-                system,
-                this.session(system),
-                new DependencyRequest(
-                    this.request(new Dependency(root, scope)),
-                    filter
-                )
-            )
+        return this.resolve(root, scope, filter, Deadline.NEVER);
+    }
+
+    /**
+     * List of transitive dependencies of the artifact, resolved in
+     * the given time.
+     * @param root The artifact to work with
+     * @param scope The scope to work with ("runtime", "test", etc.)
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return The list of dependencies
+     * @throws DependencyResolutionException If can't fetch it, or
+     *  {@link ResolutionTimeoutException} if time is up
+     * @since 1.0
+     */
+    public List<Artifact> resolve(final Artifact root, final String scope,
+        final long timeout, final TimeUnit unit)
+        throws DependencyResolutionException {
+        return this.resolve(root, scope, Aether.filter(scope), timeout, unit);
+    }
+
+    /**
+     * List of transitive dependencies of the artifact, resolved in
+     * the given time.
+     *
+     * <p>When time is up, or the thread is interrupted, waiting for
+     * the lock of the local repository stops, transfers in progress are
+     * aborted and the lock is released. Then
+     * {@link ResolutionTimeoutException} is thrown, or
+     * {@link DependencyResolutionException} if the thread was interrupted,
+     * and the thread stays interrupted.
+     *
+     * @param root The artifact to work with
+     * @param scope The scope to work with ("runtime", "test", etc.)
+     * @param filter The dependency filter to work with
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return The list of dependencies
+     * @throws DependencyResolutionException If can't fetch it, or
+     *  {@link ResolutionTimeoutException} if time is up
+     * @since 1.0
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    public List<Artifact> resolve(final Artifact root, final String scope,
+        final DependencyFilter filter, final long timeout,
+        final TimeUnit unit) throws DependencyResolutionException {
+        return this.resolve(root, scope, filter, new Deadline(timeout, unit));
+    }
+
+    /**
+     * Graph of transitive dependencies of the artifact.
+     * @param root The artifact to work with
+     * @param scope The scope to work with ("runtime", "test", etc.)
+     * @return The graph of dependencies
+     * @throws DependencyResolutionException If can't fetch it
+     * @since 1.0
+     */
+    public DependencyGraph graph(final Artifact root,
+        final String scope) throws DependencyResolutionException {
+        return this.graph(root, scope, Aether.filter(scope));
+    }
+
+    /**
+     * Graph of transitive dependencies of the artifact.
+     *
+     * <p>The graph contains the same dependencies, which
+     * {@link #resolve(Artifact, String, DependencyFilter)} returns, with
+     * their files, and links between them, see {@link DependencyGraph}.
+     *
+     * @param root The artifact to work with
+     * @param scope The scope to work with ("runtime", "test", etc.)
+     * @param filter The dependency filter to work with
+     * @return The graph of dependencies
+     * @throws DependencyResolutionException If can't fetch it
+     * @since 1.0
+     */
+    public DependencyGraph graph(final Artifact root,
+        final String scope, final DependencyFilter filter)
+        throws DependencyResolutionException {
+        return new DependencyGraph(
+            this.dependencies(root, scope, filter, Deadline.NEVER).getRoot(),
+            filter
         );
-        return deps;
     }
 
     /**
-     * Build repositories taking mirrors into consideration.
-     * @param repos Initial list of repositories.
-     * @return List of repositories with mirrored ones.
+     * Download transitive dependencies of the artifacts into the local
+     * repository, in background.
+     *
+     * <p>The method returns immediately. Artifacts are resolved one by one,
+     * in a thread of the lowest priority, and only when no foreground
+     * resolution is running or waiting, see {@link Prefetcher}. Artifacts
+     * already queued, or being resolved in foreground at the moment, are
+     * skipped. Failures are logged and ignored.
+     *
+     * @param artifacts Artifacts to resolve
+     * @param scope The scope to work with ("runtime", "test", etc.)
+     * @since 1.0
      */
-    private Collection<RemoteRepository> mrepos(
-        final Collection<RemoteRepository> repos) {
-        final DefaultMirrorSelector selector = this.mirror(this.settings());
-        final Collection<RemoteRepository> mrepos =
-            new ArrayList<RemoteRepository>(repos.size());
-        for (final RemoteRepository repo : repos) {
-            final RemoteRepository mrepo = selector.getMirror(repo);
-            if (mrepo == null) {
-                mrepos.add(repo);
-            } else {
-                mrepos.add(mrepo);
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void prefetch(final Collection<Artifact> artifacts,
+        final String scope) {
+        for (final Artifact artifact : artifacts) {
+            this.prefetcher.submit(
+                this.key(artifact, scope),
+                new Callable<List<Artifact>>() {
+                    @Override
+                    public List<Artifact> call()
+                        throws DependencyResolutionException {
+                        return Aether.this.resolve(artifact, scope);
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Watch Maven settings files and apply their mirrors and proxies
+     * when they change.
+     *
+     * <p>User, global and interpolated settings files are watched, until
+     * the returned watcher is closed. When any of them changes, settings
+     * are loaded again and the new repositories replace the old ones
+     * at once. Resolutions in progress finish with the old repositories.
+     * The repository system, pool of connections and statistics of
+     * repositories are kept.
+     *
+     * <p>The method requires Java 7 or later, since it uses
+     * {@code java.nio.file.WatchService}, while the rest of the class
+     * works with Java 6.
+     *
+     * @return Watcher to close when changes are not needed anymore
+     * @throws IOException If can't watch the files
+     * @since 1.0
+     */
+    public Closeable watch() throws IOException {
+        return new SettingsWatcher(
+            this.settings.files(),
+            new Runnable() {
+                @Override
+                public void run() {
+                    Aether.this.reload();
+                }
             }
+        );
+    }
+
+    /**
+     * Close connections and stop threads of this Aether.
+     *
+     * <p>Resolutions are not possible after that. Aethers of tenants share
+     * connections and threads with others, so closing them does nothing,
+     * see {@link Tenants#close()}.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void close() {
+        if (!this.identities) {
+            this.prefetcher.close();
+            this.refreshes.shutdownNow();
+            this.pool.close();
+        }
+    }
+
+    /**
+     * Progress of all resolutions of this Aether, as a stream of events.
+     *
+     * <p>Subscribers get events in their own threads, as many as they
+     * request, so they never slow resolutions down; events which
+     * a subscriber doesn't keep up with are dropped, see
+     * {@link ResolutionEvents}.
+     *
+     * <p>Subscribers of an Aether of a tenant get events of this tenant
+     * only, while {@link Tenants#events()} gets events of all of them.
+     *
+     * @return Publisher of events
+     * @since 1.0
+     */
+    public ResolutionEvents events() {
+        return this.evts;
+    }
+
+    /**
+     * Statistics of remote repositories, in the order they are queried
+     * now.
+     *
+     * <p>Repositories are ordered by their average latency, fastest first,
+     * while repositories that keep failing are temporarily moved to the end
+     * of the list. Requests to such repositories fail immediately, until
+     * a trial request succeeds, see {@link RepositoryStats#rejected()}.
+     *
+     * @return Statistics of repositories
+     * @since 1.0
+     */
+    public List<RepositoryStats> statistics() {
+        final List<RemoteRepository> repos =
+            this.pool.health().order(this.topology.get().repositories());
+        final List<RepositoryStats> stats =
+            new ArrayList<RepositoryStats>(repos.size());
+        for (final RemoteRepository repo : repos) {
+            stats.add(this.pool.health().stats(repo.getId()));
         }
-        return mrepos;
+        return stats;
     }
 
     /**
-     * Build repositories with proxy if it is available.
-     * @param repos List of repositories
-     * @return List of repositories with proxy
-     */
-    private Collection<RemoteRepository> prepos(
-        final Collection<RemoteRepository> repos
-    ) {
-        final org.apache.maven.settings.Proxy proxy = this.settings()
-            .getActiveProxy();
-        if (proxy != null) {
-            final DefaultProxySelector selector = new DefaultProxySelector();
-            selector.add(
-                new Proxy(
-                    proxy.getProtocol(),
-                    proxy.getHost(),
-                    proxy.getPort(),
-                    new Authentication(proxy.getUsername(), proxy.getPassword())
-                ), proxy.getNonProxyHosts()
+     * Load settings again and replace the topology.
+     *
+     * <p>The repository system is built again with S3 connectors, if
+     * an S3 repository appears, unless it is shared by tenants, which
+     * has them from the start, see {@link Tenants}. Cached versions and
+     * ranges are kept by this object, not by the repository system, so
+     * they survive.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private void reload() {
+        final Collection<RemoteRepository> repos =
+            new ArrayList<RemoteRepository>(this.declared.length);
+        for (final Repository repo : this.declared) {
+            repos.add(repo.remote());
+        }
+        Topology fresh = new Topology(repos, this.settings.load());
+        if (this.identities) {
+            fresh = fresh.identified();
+        }
+        this.pool.register(this, fresh.repositories());
+        if (!this.identities && fresh.has(Aether.S3)
+            && !this.topology.get().has(Aether.S3)) {
+            this.system.set(
+                new RepositorySystemBuilder(
+                    this.pool.connections(), this.pool.transfers()
+                ).build()
             );
-            for (final RemoteRepository repo : repos) {
-                repo.setProxy(selector.getProxy(repo));
+        }
+        this.topology.set(fresh);
+        Logger.info(this, "settings reloaded, repositories: %s", fresh);
+    }
+
+    /**
+     * List of transitive dependencies of the artifact, resolved before
+     * the deadline.
+     * @param root The artifact to work with
+     * @param scope The scope to work with ("runtime", "test", etc.)
+     * @param filter The dependency filter to work with
+     * @param deadline The deadline
+     * @return The list of dependencies
+     * @throws DependencyResolutionException If can't fetch it
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private List<Artifact> resolve(final Artifact root, final String scope,
+        final DependencyFilter filter, final Deadline deadline)
+        throws DependencyResolutionException {
+        final List<Artifact> deps = new LinkedList<Artifact>();
+        for (final ArtifactResult res : this.dependencies(
+            root, scope, filter, deadline
+        ).getArtifactResults()) {
+            deps.add(ArtifactPool.SHARED.intern(res.getArtifact()));
+        }
+        return deps;
+    }
+
+    /**
+     * Key of a resolution of the artifact in background, which is the
+     * same for all resolutions in the same scope from the same
+     * repositories only, so neither a resolution in another scope nor
+     * one of another tenant is skipped, see {@link Prefetcher}.
+     * @param artifact The artifact
+     * @param scope The scope
+     * @return Key
+     */
+    private String key(final Artifact artifact, final String scope) {
+        final StringBuilder key = new StringBuilder(artifact.toString())
+            .append(' ').append(scope);
+        for (final RemoteRepository remote
+            : this.topology.get().repositories()) {
+            key.append(' ').append(remote.getId());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Resolve transitive dependencies, with routes first and without
+     * them if failed.
+     * @param root The artifact to work with
+     * @param scope The scope to work with ("runtime", "test", etc.)
+     * @param filter The dependency filter to work with
+     * @param deadline The deadline
+     * @return The result
+     * @throws DependencyResolutionException If can't fetch it
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private DependencyResult dependencies(final Artifact root,
+        final String scope, final DependencyFilter filter,
+        final Deadline deadline) throws DependencyResolutionException {
+        final DependencyRequest dreq = new DependencyRequest(
+            this.request(new Dependency(root, scope)),
+            filter
+        );
+        final String key = root.toString();
+        final String queued = this.key(root, scope);
+        this.prefetcher.started(queued);
+        this.evts.publish(
+            new ResolutionEvent(
+                ResolutionEvent.Kind.COLLECTION_STARTED, key, 0L
+            )
+        );
+        final DependencyResult result;
+        try {
+            result = this.routed(root, dreq, deadline);
+        } catch (final DependencyResolutionException ex) {
+            this.evts.publish(
+                new ResolutionEvent(ResolutionEvent.Kind.FAILED, key, 0L)
+            );
+            throw ex;
+        } finally {
+            this.prefetcher.finished(queued);
+        }
+        return result;
+    }
+
+    /**
+     * Resolve transitive dependencies, with routes first and without
+     * them if failed.
+     * @param root The artifact to work with
+     * @param dreq Dependency request
+     * @param deadline The deadline
+     * @return The result
+     * @throws DependencyResolutionException If can't fetch it
+     */
+    private DependencyResult routed(final Artifact root,
+        final DependencyRequest dreq, final Deadline deadline)
+        throws DependencyResolutionException {
+        final long skips = this.pool.routes().skips();
+        final RepositorySystem sys = this.system.get();
+        DependencyResult result;
+        try {
+            result = this.fetch(
+                sys, this.session(sys, false, deadline), dreq, deadline
+            );
+        } catch (final ResolutionTimeoutException ex) {
+            throw ex;
+        } catch (final DependencyResolutionException ex) {
+            if (this.pool.routes().skips() == skips
+                || Thread.currentThread().isInterrupted()) {
+                throw ex;
             }
+            Logger.info(
+                this, "%s not resolved with routes, trying all repositories",
+                root
+            );
+            result = this.fetch(
+                sys, this.session(sys, true, deadline), dreq, deadline
+            );
         }
-        return repos;
+        return result;
+    }
+
+    /**
+     * Copy remote repositories, to keep them as they are now.
+     * @param repos Remote repositories
+     * @return Copies of them
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private static Repository[] declare(
+        final Collection<RemoteRepository> repos) {
+        final Collection<Repository> rlist = new ArrayList<Repository>(
+            repos.size()
+        );
+        for (final RemoteRepository remote : repos) {
+            rlist.add(new Repository(remote));
+        }
+        return rlist.toArray(new Repository[rlist.size()]);
     }
 
     /**
      * Fetch dependencies.
+     * The graph is collected first and its nodes are published, before
+     * any artifact is resolved.
      * Catch of NPE is required because sonatype even when it can't resolve
      * given artifact tries to get its root and execute a method on it,
      * which is not possible and results in NPE. Moreover sonatype library
@@ -243,25 +753,50 @@ public final class Aether {
      * @param system The repository system
      * @param session The session
      * @param dreq Dependency request
-     * @return The list of dependencies
+     * @param deadline The deadline
+     * @return The result
      * @throws DependencyResolutionException If can't fetch it
+     * @checkstyle ParameterNumber (4 lines)
      */
     @SuppressWarnings("PMD.AvoidCatchingGenericException")
-    private List<Artifact> fetch(final RepositorySystem system,
-        final RepositorySystemSession session, final DependencyRequest dreq)
-        throws DependencyResolutionException {
-        final List<Artifact> deps = new LinkedList<Artifact>();
+    private DependencyResult fetch(final RepositorySystem system,
+        final RepositorySystemSession session, final DependencyRequest dreq,
+        final Deadline deadline) throws DependencyResolutionException {
+        final Deadline.Alarm alarm = deadline.alarm();
+        DependencyResult result = null;
+        Exception error = null;
         try {
-            Collection<ArtifactResult> results;
-            synchronized (this.lrepo) {
-                results = system.resolveDependencies(session, dreq)
-                    .getArtifactResults();
-            }
-            for (final ArtifactResult res : results) {
-                deps.add(res.getArtifact());
+            if (this.acquire(deadline)) {
+                try {
+                    final DependencyNode node = system.collectDependencies(
+                        session, dreq.getCollectRequest()
+                    ).getRoot();
+                    node.accept(new EventDependencyVisitor(this.evts));
+                    result = system.resolveDependencies(
+                        session, new DependencyRequest(node, dreq.getFilter())
+                    );
+                } finally {
+                    this.lock.unlock();
+                }
             }
         // @checkstyle IllegalCatch (1 line)
         } catch (final Exception ex) {
+            error = ex;
+        }
+        final boolean rang = alarm.stop();
+        if (result == null && (rang || error == null)) {
+            throw new ResolutionTimeoutException(
+                new DependencyResult(dreq),
+                Logger.format(
+                    "failed to load '%s' in %[nano]s",
+                    dreq.getCollectRequest().getRoot(), deadline.timeout()
+                )
+            );
+        }
+        if (error instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if (result == null) {
             throw new DependencyResolutionException(
                 new DependencyResult(dreq),
                 new IllegalArgumentException(
@@ -273,11 +808,30 @@ public final class Aether {
                             .getRepository()
                             .getBasedir()
                     ),
-                    ex
+                    error
                 )
             );
         }
-        return deps;
+        return result;
+    }
+
+    /**
+     * Take the lock of the local repository before the deadline.
+     *
+     * <p>If the lock is busy, the background resolution, if it holds
+     * the lock, gives way, see {@link Prefetcher#yield()}.
+     * @param deadline The deadline
+     * @return TRUE if taken
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private boolean acquire(final Deadline deadline)
+        throws InterruptedException {
+        boolean taken = this.lock.tryLock();
+        if (!taken) {
+            this.prefetcher.yield();
+            taken = this.lock.tryLock(deadline.left(), TimeUnit.NANOSECONDS);
+        }
+        return taken;
     }
 
     /**
@@ -288,21 +842,28 @@ public final class Aether {
     private CollectRequest request(final Dependency root) {
         final CollectRequest request = new CollectRequest();
         request.setRoot(root);
-        for (final Repository repo : this.remotes) {
-            final RemoteRepository remote = repo.remote();
-            if (!remote.getProtocol().matches("https?|file|s3")) {
-                Logger.warn(
-                    this,
-                    "%s ignored (only S3, HTTP/S, and FILE are supported)",
-                    repo
-                );
-                continue;
-            }
-            request.addRepository(remote);
-        }
+        request.setRepositories(
+            this.pool.health().order(this.topology.get().repositories())
+        );
         return request;
     }
 
+    /**
+     * Classpath filter for the scope.
+     * @param scope The scope ("runtime", "test", etc.)
+     * @return The filter
+     */
+    private static DependencyFilter filter(final String scope) {
+        final DependencyFilter filter =
+            DependencyFilterUtils.classpathFilter(scope);
+        if (filter == null) {
+            throw new IllegalStateException(
+                String.format("failed to create a filter for '%s'", scope)
+            );
+        }
+        return filter;
+    }
+
     /**
      * Convert a list of repositories into a list of strings.
      * @param repos The list of them
@@ -328,108 +889,46 @@ public final class Aether {
 
     /**
      * Create RepositorySystemSession.
+     *
+     * <p>Missing artifacts are not cached in the local repository, since
+     * some of them may be reported missing by {@link Routes}, without
+     * asking remote repositories.
+     *
      * @param system The repository system
+     * @param bypass Ask all repositories, ignoring {@link Routes}
+     * @param deadline Deadline of transfers
      * @return The session
      */
-    private RepositorySystemSession session(final RepositorySystem system) {
+    private RepositorySystemSession session(final RepositorySystem system,
+        final boolean bypass, final Deadline deadline) {
         final LocalRepository local = new LocalRepository(this.lrepo);
         final MavenRepositorySystemSession session =
             new MavenRepositorySystemSession();
         session.setLocalRepositoryManager(
             system.newLocalRepositoryManager(local)
         );
-        session.setTransferListener(new LogTransferListener());
-        return session;
-    }
-
-    /**
-     * Setup mirrors based on maven settings.
-     * @param settings Settings to use.
-     * @return Mirror selector.
-     */
-    private DefaultMirrorSelector mirror(final Settings settings) {
-        final DefaultMirrorSelector selector =
-            new DefaultMirrorSelector();
-        final List<Mirror> mirrors = settings.getMirrors();
-        Logger.warn(
-            this,
-            "mirrors: %s",
-            mirrors
+        session.setTransferListener(
+            new EventTransferListener(
+                new LogTransferListener(deadline), this.evts
+            )
         );
-        if (mirrors != null) {
-            for (final Mirror mirror : mirrors) {
-                selector.add(
-                    mirror.getId(), mirror.getUrl(), mirror.getLayout(), false,
-                    mirror.getMirrorOf(), mirror.getMirrorOfLayouts()
-                );
-            }
-        }
-        return selector;
-    }
-
-    /**
-     * Provide settings from maven.
-     * @return Maven settings.
-     */
-    private Settings settings() {
-        final SettingsBuilder builder =
-            new DefaultSettingsBuilderFactory().newInstance();
-        final SettingsBuildingRequest request =
-            new DefaultSettingsBuildingRequest();
-        final String user =
-            System.getProperty("org.apache.maven.user-settings");
-        if (user == null) {
-            request.setUserSettingsFile(
-                new File(
-                    new File(
-                        System.getProperty("user.home")
-                    ).getAbsoluteFile(),
-                    "/.m2/settings.xml"
-                )
-            );
-        } else {
-            request.setUserSettingsFile(new File(user));
-        }
-        final String global =
-            System.getProperty("org.apache.maven.global-settings");
-        if (global != null) {
-            request.setGlobalSettingsFile(new File(global));
-        }
-        final SettingsBuildingResult result;
-        try {
-            result = builder.build(request);
-        } catch (final SettingsBuildingException ex) {
-            throw new IllegalStateException(ex);
-        }
-        return this.invokers(builder, result);
-    }
-
-    /**
-     * Apply maven invoker settings.
-     * @param builder Settings builder.
-     * @param result User and global settings.
-     * @return User, global and invoker settings.
-     */
-    private Settings invokers(final SettingsBuilder builder,
-        final SettingsBuildingResult result) {
-        Settings main = result.getEffectiveSettings();
-        final File[] files = new File(System.getProperty("user.dir"))
-            .getParentFile().listFiles(
-                (FileFilter) new NameFileFilter("interpolated-settings.xml")
+        session.setRepositoryListener(
+            new EventRepositoryListener(this.evts)
         );
-        if (files.length == 1) {
-            final DefaultSettingsBuildingRequest irequest =
-                new DefaultSettingsBuildingRequest();
-            irequest.setUserSettingsFile(files[0]);
-            try {
-                final Settings isettings = builder.build(irequest)
-                    .getEffectiveSettings();
-                SettingsUtils.merge(isettings, main, TrackableBase.USER_LEVEL);
-                main = isettings;
-            } catch (final SettingsBuildingException ex) {
-                throw new IllegalStateException(ex);
-            }
-        }
-        return main;
+        session.setConfigProperty(HttpPool.KEY, this.pool);
+        session.setConfigProperty(Routes.BYPASS, bypass);
+        session.setConfigProperty(
+            CachedVersionResolver.STALE, this.snapshots.staleness()
+        );
+        session.setConfigProperty(
+            CachedVersionResolver.EXECUTOR, this.refreshes
+        );
+        session.setConfigProperty(CachedVersionResolver.LOCK, this.lock);
+        session.setConfigProperty(CachedVersionResolver.CACHE, this.versions);
+        session.setConfigProperty(
+            CachedVersionRangeResolver.CACHE, this.ranges
+        );
+        session.setNotFoundCachingEnabled(false);
+        return session;
     }
 }
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.aspects.Immutable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Client of {@link AetherDaemon}, which resolves artifacts like
+ * {@link Aether#resolve(Artifact, String)} does, without loading Maven and
+ * Aether implementation.
+ *
+ * <p>The client needs the port and the token of the daemon, given
+ * directly or in the file saved by {@link AetherDaemon#publish(File)}.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@Immutable
+@ToString(of = "port")
+@EqualsAndHashCode(of = { "port", "token" })
+public final class AetherClient {
+
+    /**
+     * Timeout of connecting to the daemon, in milliseconds.
+     */
+    private static final int CONNECT = (int) TimeUnit.SECONDS.toMillis(5L);
+
+    /**
+     * Timeout of reading the response of the daemon, in milliseconds,
+     * long enough for a resolution which downloads artifacts.
+     */
+    private static final int READ = (int) TimeUnit.MINUTES.toMillis(10L);
+
+    /**
+     * TCP port of the daemon on loopback interface.
+     */
+    private final transient int port;
+
+    /**
+     * Token of the daemon.
+     */
+    private final transient String token;
+
+    /**
+     * Ctor.
+     * @param file File with port and token of the daemon
+     * @throws IOException If can't read it
+     */
+    public AetherClient(final File file) throws IOException {
+        this(AetherClient.lines(file));
+    }
+
+    /**
+     * Ctor.
+     * @param prt TCP port of the daemon
+     * @param tkn Token of the daemon
+     */
+    public AetherClient(final int prt, final String tkn) {
+        this.port = prt;
+        this.token = tkn;
+    }
+
+    /**
+     * Ctor.
+     * @param lines Port and token of the daemon
+     */
+    private AetherClient(final String[] lines) {
+        this(Integer.parseInt(lines[0].trim()), lines[1].trim());
+    }
+
+    /**
+     * List of transitive dependencies of the artifact, resolved by
+     * the daemon.
+     * @param root The artifact to work with
+     * @param scope The scope to work with ("runtime", "test", etc.)
+     * @return The list of dependencies, with their files
+     * @throws IOException If the daemon is not available, fails to
+     *  resolve or doesn't respond in time
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public List<Artifact> resolve(final Artifact root, final String scope)
+        throws IOException {
+        final HttpURLConnection conn = HttpURLConnection.class.cast(
+            new URL(
+                String.format(
+                    "http://127.0.0.1:%d%s", this.port, AetherDaemon.PATH
+                )
+            ).openConnection()
+        );
+        final List<Artifact> deps = new LinkedList<Artifact>();
+        try {
+            conn.setConnectTimeout(AetherClient.CONNECT);
+            conn.setReadTimeout(AetherClient.READ);
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setRequestProperty(AetherDaemon.HEADER, this.token);
+            conn.setRequestProperty(
+                "Content-Type", "application/x-www-form-urlencoded"
+            );
+            final OutputStream output = conn.getOutputStream();
+            try {
+                output.write(
+                    String.format(
+                        "artifact=%s&scope=%s",
+                        URLEncoder.encode(root.toString(), AetherDaemon.UTF),
+                        URLEncoder.encode(scope, AetherDaemon.UTF)
+                    ).getBytes(AetherDaemon.UTF)
+                );
+            } finally {
+                output.close();
+            }
+            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException(
+                    String.format(
+                        "failed to resolve %s: %s", root,
+                        AetherClient.read(conn.getErrorStream())
+                    )
+                );
+            }
+            final String body = AetherClient.read(conn.getInputStream());
+            for (final String line : body.split("\n")) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final String[] parts = line.split("\t", 2);
+                Artifact dep = new DefaultArtifact(parts[0]);
+                if (parts.length == 2 && !parts[1].isEmpty()) {
+                    dep = dep.setFile(new File(parts[1]));
+                }
+                deps.add(dep);
+            }
+        } finally {
+            conn.disconnect();
+        }
+        return deps;
+    }
+
+    /**
+     * Read port and token of the daemon.
+     * @param file The file saved by the daemon
+     * @return Lines of it
+     * @throws IOException If fails
+     */
+    private static String[] lines(final File file) throws IOException {
+        final String[] lines = FileUtils.readFileToString(
+            file, AetherDaemon.UTF
+        ).split("\n");
+        if (lines.length < 2) {
+            throw new IOException(
+                String.format("port and token are not in %s", file)
+            );
+        }
+        return lines;
+    }
+
+    /**
+     * Read the stream.
+     * @param stream The stream, maybe NULL
+     * @return Its content
+     * @throws IOException If fails
+     */
+    private static String read(final InputStream stream) throws IOException {
+        String text = "";
+        if (stream != null) {
+            try {
+                text = IOUtils.toString(stream, AetherDaemon.UTF);
+            } finally {
+                stream.close();
+            }
+        }
+        return text;
+    }
+
+}
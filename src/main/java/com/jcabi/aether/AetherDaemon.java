@@ -0,0 +1,448 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.DependencyResolutionException;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Resident resolver, which keeps a warm {@link Aether} and answers
+ * {@link AetherClient} over loopback HTTP.
+ *
+ * <p>Short-lived tools don't pay for loading of Maven and Aether classes,
+ * parsing of settings and wiring of the repository system, and they get
+ * all caches of the daemon, for example:
+ *
+ * <pre> AetherDaemon daemon = new AetherDaemon(aether, 0);
+ * daemon.publish(new File("/home/me/.aether-daemon"));
+ * // in another JVM:
+ * List&lt;Artifact&gt; deps = new AetherClient(
+ *   new File("/home/me/.aether-daemon")
+ * ).resolve(new DefaultArtifact("junit:junit:4.10"), "runtime");</pre>
+ *
+ * <p>The daemon listens on {@code 127.0.0.1} only and answers
+ * {@code POST /resolve} with form parameters {@code artifact} and
+ * {@code scope} by lines of coordinates and files of resolved artifacts,
+ * separated by a tab. Failed resolutions are answered with 500 and
+ * the error message.
+ *
+ * <p>Since resolutions download with credentials of the daemon, every
+ * request must have the random token of the daemon in
+ * {@code X-Aether-Token} header, otherwise it is answered with 403.
+ * Other local users and web pages in a browser don't know the token,
+ * and browsers don't send such headers to other sites without asking
+ * the daemon first, which it never allows. The token is given to clients
+ * directly or in a file, which only its owner can read, see
+ * {@link #publish(File)}.
+ *
+ * <p>The daemon can be started from command line too, see
+ * {@link #main(String...)}.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = { "aether", "server" })
+@EqualsAndHashCode(of = { "aether", "server" })
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class AetherDaemon implements Closeable {
+
+    /**
+     * Path of resolutions.
+     */
+    static final String PATH = "/resolve";
+
+    /**
+     * Encoding.
+     */
+    static final String UTF = "UTF-8";
+
+    /**
+     * HTTP header with the token.
+     */
+    static final String HEADER = "X-Aether-Token";
+
+    /**
+     * Bytes in the token.
+     */
+    private static final int BYTES = 16;
+
+    /**
+     * The aether.
+     */
+    private final transient Aether aether;
+
+    /**
+     * HTTP server.
+     */
+    private final transient HttpServer server;
+
+    /**
+     * Token, which clients must send.
+     */
+    private final transient String secret;
+
+    /**
+     * Threads of the server.
+     */
+    private final transient ExecutorService executor;
+
+    /**
+     * Ctor, with a random token.
+     * @param aeth The aether to resolve with
+     * @param port TCP port on loopback interface, zero to pick any free one
+     * @throws IOException If can't start
+     */
+    public AetherDaemon(final Aether aeth, final int port) throws IOException {
+        this(aeth, port, AetherDaemon.random());
+    }
+
+    /**
+     * Ctor.
+     * @param aeth The aether to resolve with
+     * @param port TCP port on loopback interface, zero to pick any free one
+     * @param token Token, which clients must send
+     * @throws IOException If can't start
+     */
+    public AetherDaemon(final Aether aeth, final int port,
+        final String token) throws IOException {
+        if (token.isEmpty()) {
+            throw new IllegalArgumentException("token can't be empty");
+        }
+        this.aether = aeth;
+        this.secret = token;
+        this.server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port), 0
+        );
+        this.server.createContext(
+            AetherDaemon.PATH, new AetherDaemon.Resolve()
+        );
+        this.executor = Executors.newCachedThreadPool(
+            new VerboseThreads(AetherDaemon.class)
+        );
+        this.server.setExecutor(this.executor);
+        this.server.start();
+        Logger.info(
+            this, "resolving at http://127.0.0.1:%d%s",
+            this.port(), AetherDaemon.PATH
+        );
+    }
+
+    /**
+     * TCP port the daemon listens on.
+     * @return Port
+     */
+    public int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Token, which clients must send.
+     * @return Token
+     */
+    public String token() {
+        return this.secret;
+    }
+
+    /**
+     * Save port and token into a file, which only its owner can read,
+     * for {@link AetherClient#AetherClient(File)}.
+     * @param file The file
+     * @throws IOException If fails
+     */
+    public void publish(final File file) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException(String.format("can't delete %s", file));
+        }
+        if (!file.createNewFile()
+            || !file.setReadable(false, false)
+            || !file.setWritable(false, false)
+            || !file.setReadable(true, true)
+            || !file.setWritable(true, true)) {
+            throw new IOException(
+                String.format("can't make %s private", file)
+            );
+        }
+        FileUtils.writeStringToFile(
+            file,
+            String.format("%d%n%s%n", this.port(), this.secret),
+            AetherDaemon.UTF
+        );
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdown();
+    }
+
+    /**
+     * Start the daemon and keep it running until the JVM stops.
+     *
+     * <p>Arguments are the local repository, the file to save port and
+     * token into, see {@link #publish(File)}, and URLs of remote
+     * repositories, Maven Central if there are none. The file is deleted
+     * when the JVM stops.
+     * @param args Arguments
+     * @throws IOException If fails
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public static void main(final String... args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "usage: %s <local repository> <file> %s",
+                    AetherDaemon.class.getName(),
+                    "[<remote repository URL>...]"
+                )
+            );
+        }
+        final Collection<RemoteRepository> repos =
+            new LinkedList<RemoteRepository>();
+        for (int idx = 2; idx < args.length; ++idx) {
+            repos.add(
+                new RemoteRepository(
+                    String.format("remote%d", idx - 1), "default", args[idx]
+                )
+            );
+        }
+        if (repos.isEmpty()) {
+            repos.add(
+                new RemoteRepository(
+                    "central", "default", "https://repo1.maven.org/maven2/"
+                )
+            );
+        }
+        final Aether aether = new Aether(repos, new File(args[0]));
+        final AetherDaemon daemon = new AetherDaemon(aether, 0);
+        final File file = new File(args[1]);
+        daemon.publish(file);
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(
+                new VerboseRunnable(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            daemon.close();
+                            aether.close();
+                            if (!file.delete()) {
+                                Logger.warn(
+                                    AetherDaemon.class,
+                                    "failed to delete %s", file
+                                );
+                            }
+                        }
+                    },
+                    true, false
+                )
+            )
+        );
+    }
+
+    /**
+     * Make a random token.
+     * @return Token
+     */
+    private static String random() {
+        final byte[] bytes = new byte[AetherDaemon.BYTES];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder token = new StringBuilder(bytes.length * 2);
+        for (final byte data : bytes) {
+            token.append(String.format("%02x", data));
+        }
+        return token.toString();
+    }
+
+    /**
+     * Parse form parameters of the request.
+     * @param query Form parameters, maybe NULL
+     * @return Parameters
+     * @throws IOException If fails
+     */
+    private static Map<String, String> params(final String query)
+        throws IOException {
+        final Map<String, String> params = new HashMap<String, String>(0);
+        if (query != null) {
+            for (final String pair : query.split("&")) {
+                final String[] parts = pair.split("=", 2);
+                if (parts.length == 2) {
+                    params.put(
+                        URLDecoder.decode(parts[0], AetherDaemon.UTF),
+                        URLDecoder.decode(parts[1], AetherDaemon.UTF)
+                    );
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Send response.
+     * @param exchange The exchange
+     * @param code HTTP status
+     * @param body Body of the response
+     * @throws IOException If fails
+     */
+    private static void send(final HttpExchange exchange, final int code,
+        final String body) throws IOException {
+        final byte[] bytes = body.getBytes(AetherDaemon.UTF);
+        exchange.getResponseHeaders().add(
+            "Content-Type", "text/plain; charset=UTF-8"
+        );
+        exchange.sendResponseHeaders(code, bytes.length);
+        final OutputStream output = exchange.getResponseBody();
+        try {
+            output.write(bytes);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Handler of resolutions.
+     */
+    private final class Resolve implements HttpHandler {
+        @Override
+        public void handle(final HttpExchange exchange) throws IOException {
+            final String token = exchange.getRequestHeaders().getFirst(
+                AetherDaemon.HEADER
+            );
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Allow", "POST");
+                AetherDaemon.send(
+                    exchange, HttpURLConnection.HTTP_BAD_METHOD,
+                    "only POST is allowed"
+                );
+            } else if (token == null || !MessageDigest.isEqual(
+                token.getBytes(AetherDaemon.UTF),
+                AetherDaemon.this.secret.getBytes(AetherDaemon.UTF)
+            )) {
+                AetherDaemon.send(
+                    exchange, HttpURLConnection.HTTP_FORBIDDEN,
+                    String.format("valid %s is required", AetherDaemon.HEADER)
+                );
+            } else {
+                this.handle(
+                    exchange,
+                    AetherDaemon.params(
+                        IOUtils.toString(
+                            exchange.getRequestBody(), AetherDaemon.UTF
+                        )
+                    )
+                );
+            }
+        }
+        /**
+         * Handle the request with the right token.
+         * @param exchange The exchange
+         * @param params Form parameters
+         * @throws IOException If fails
+         */
+        private void handle(final HttpExchange exchange,
+            final Map<String, String> params) throws IOException {
+            final String coords = params.get("artifact");
+            final String scope = params.get("scope");
+            if (coords == null || scope == null) {
+                AetherDaemon.send(
+                    exchange, HttpURLConnection.HTTP_BAD_REQUEST,
+                    "'artifact' and 'scope' parameters are required"
+                );
+            } else {
+                this.resolve(exchange, coords, scope);
+            }
+        }
+        /**
+         * Resolve and send the result.
+         * @param exchange The exchange
+         * @param coords Coordinates of the artifact
+         * @param scope The scope
+         * @throws IOException If fails
+         */
+        private void resolve(final HttpExchange exchange, final String coords,
+            final String scope) throws IOException {
+            try {
+                final List<Artifact> deps = AetherDaemon.this.aether.resolve(
+                    new DefaultArtifact(coords), scope
+                );
+                final StringBuilder body = new StringBuilder();
+                for (final Artifact dep : deps) {
+                    body.append(dep).append('\t');
+                    if (dep.getFile() != null) {
+                        body.append(dep.getFile().getAbsolutePath());
+                    }
+                    body.append('\n');
+                }
+                AetherDaemon.send(
+                    exchange, HttpURLConnection.HTTP_OK, body.toString()
+                );
+            } catch (final DependencyResolutionException ex) {
+                AetherDaemon.send(
+                    exchange, HttpURLConnection.HTTP_INTERNAL_ERROR,
+                    ex.getMessage()
+                );
+            } catch (final IllegalArgumentException ex) {
+                AetherDaemon.send(
+                    exchange, HttpURLConnection.HTTP_BAD_REQUEST,
+                    ex.getMessage()
+                );
+            }
+        }
+    }
+
+}
@@ -29,8 +29,8 @@
  */
 package com.jcabi.aether;
 
-import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
+import java.util.concurrent.Callable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.maven.wagon.Wagon;
@@ -38,17 +38,74 @@ import org.kuali.maven.wagon.S3Wagon;
 import org.sonatype.aether.connector.wagon.WagonProvider;
 
 /**
- * Builder of {@link RepositorySystem} class.
+ * Provider of S3 wagons for the wagon connector of
+ * {@link RepositorySystemBuilder}.
+ *
+ * <p>S3 wagons are pooled: a wagon released by the connector stays
+ * connected, with its AWS client and connections, and is used again
+ * for the same repository, see {@link WagonPool}. The provider is not
+ * immutable, since the pool changes with every wagon taken or released,
+ * but it is thread-safe.
+ *
+ * <p>Large objects are downloaded by byte ranges in parallel, see
+ * {@link Transfers#ranged(long)}.
  *
  * @author Yegor Bugayenko (yegor@tpc2.com)
  * @version $Id$
  * @since 0.1.6
  */
-@Immutable
 @ToString
-@EqualsAndHashCode
+@EqualsAndHashCode(of = { "pool", "ranges" })
 public final class AmazonWagonProvider implements WagonProvider {
 
+    /**
+     * Maximum number of idle wagons per repository.
+     */
+    private static final int IDLE = 8;
+
+    /**
+     * Pool of connected S3 wagons.
+     */
+    private final transient WagonPool pool;
+
+    /**
+     * Parallel downloads by ranges.
+     */
+    private final transient S3Ranges ranges;
+
+    /**
+     * Public ctor, with default settings.
+     */
+    public AmazonWagonProvider() {
+        this(new Connections(), new Transfers());
+    }
+
+    /**
+     * Public ctor.
+     * @param conns Settings of connections
+     * @param trs Settings of transfers
+     * @since 1.0
+     */
+    public AmazonWagonProvider(final Connections conns,
+        final Transfers trs) {
+        this(
+            new WagonPool(
+                AmazonWagonProvider.IDLE, new AmazonWagonProvider.S3()
+            ),
+            new S3Ranges(trs.range(), conns.perHost(), trs.endpoint())
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param wpool Pool of S3 wagons
+     * @param rngs Parallel downloads by ranges
+     */
+    AmazonWagonProvider(final WagonPool wpool, final S3Ranges rngs) {
+        this.pool = wpool;
+        this.ranges = rngs;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -57,7 +114,7 @@ public final class AmazonWagonProvider implements WagonProvider {
     public Wagon lookup(final String hint) throws Exception {
         Wagon wagon = null;
         if ("s3".equals(hint)) {
-            wagon = new S3Wagon();
+            wagon = new PooledWagon(this.pool, this.ranges);
         }
         return wagon;
     }
@@ -68,7 +125,19 @@ public final class AmazonWagonProvider implements WagonProvider {
     @Override
     @Loggable(Loggable.DEBUG)
     public void release(final Wagon wagon) {
-        // nothing to do
+        if (wagon instanceof PooledWagon) {
+            ((PooledWagon) wagon).disconnect();
+        }
+    }
+
+    /**
+     * Factory of S3 wagons.
+     */
+    private static final class S3 implements Callable<Wagon> {
+        @Override
+        public Wagon call() {
+            return new S3Wagon();
+        }
     }
 
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import lombok.ToString;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Pool of artifacts, which gives one instance for all equal artifacts.
+ *
+ * <p>Artifacts returned by {@link Aether}, {@link RootArtifact} and
+ * {@link Classpath} go through the {@link #SHARED} pool, so thousands of
+ * resolved classpaths in memory refer to the same instances of equal
+ * artifacts, with their strings and properties. Strings of coordinates
+ * are interned too, so artifacts of one group share their group ID,
+ * for example.
+ *
+ * <p>Artifacts are referred to weakly and disappear from the pool when
+ * nobody else refers to them.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "artifacts")
+final class ArtifactPool {
+
+    /**
+     * Pool shared by all resolutions in the JVM.
+     */
+    public static final ArtifactPool SHARED = new ArtifactPool();
+
+    /**
+     * Artifacts, referring to themselves.
+     */
+    private final transient Map<Artifact, WeakReference<Artifact>> artifacts =
+        new WeakHashMap<Artifact, WeakReference<Artifact>>();
+
+    /**
+     * Get the pooled artifact, equal to this one.
+     * @param artifact The artifact
+     * @return Pooled artifact, or this one if it wasn't in the pool
+     */
+    public Artifact intern(final Artifact artifact) {
+        synchronized (this.artifacts) {
+            final WeakReference<Artifact> ref = this.artifacts.get(artifact);
+            Artifact pooled = null;
+            if (ref != null) {
+                pooled = ref.get();
+            }
+            if (pooled == null) {
+                pooled = ArtifactPool.compact(artifact);
+                this.artifacts.put(
+                    pooled, new WeakReference<Artifact>(pooled)
+                );
+            }
+            return pooled;
+        }
+    }
+
+    /**
+     * Number of artifacts in the pool.
+     * @return Total
+     */
+    public int size() {
+        synchronized (this.artifacts) {
+            return this.artifacts.size();
+        }
+    }
+
+    /**
+     * Make an equal artifact with interned strings.
+     * @param artifact The artifact
+     * @return New artifact
+     */
+    private static Artifact compact(final Artifact artifact) {
+        return new DefaultArtifact(
+            artifact.getGroupId().intern(),
+            artifact.getArtifactId().intern(),
+            artifact.getClassifier().intern(),
+            artifact.getExtension().intern(),
+            artifact.getVersion().intern(),
+            artifact.getProperties(),
+            artifact.getFile()
+        );
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Exponential backoff with full jitter.
+ *
+ * <p>The delay before retry number N (starting from zero) is a random
+ * number between zero and {@code base * 2^N}, but never more than the
+ * cap. Random delays prevent clients from retrying in sync and hitting
+ * a recovering repository all together.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = { "base", "cap" })
+@EqualsAndHashCode(of = { "base", "cap" })
+final class Backoff {
+
+    /**
+     * Maximum power of two.
+     */
+    private static final int MAX_POWER = 30;
+
+    /**
+     * Delay before the first retry, in milliseconds.
+     */
+    private final transient long base;
+
+    /**
+     * Maximum delay, in milliseconds.
+     */
+    private final transient long cap;
+
+    /**
+     * Source of randomness.
+     */
+    private final transient Random random;
+
+    /**
+     * Public ctor, with default delays.
+     */
+    Backoff() {
+        // @checkstyle MagicNumber (1 line)
+        this(100L, TimeUnit.SECONDS.toMillis(10L));
+    }
+
+    /**
+     * Public ctor.
+     * @param first Delay before the first retry, in milliseconds
+     * @param max Maximum delay, in milliseconds
+     */
+    Backoff(final long first, final long max) {
+        if (first < 1L || max < first) {
+            throw new IllegalArgumentException(
+                String.format("invalid backoff: %d to %d msec", first, max)
+            );
+        }
+        this.base = first;
+        this.cap = max;
+        this.random = new Random();
+    }
+
+    /**
+     * Delay before the retry.
+     * @param attempt Number of the retry, starting from zero
+     * @return Milliseconds
+     */
+    public long delay(final int attempt) {
+        final int power = Math.min(Math.max(attempt, 0), Backoff.MAX_POWER);
+        long ceiling = this.cap;
+        if (this.cap >> power >= this.base) {
+            ceiling = this.base << power;
+        }
+        return (long) (this.random.nextDouble() * (ceiling + 1L));
+    }
+
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.maven.repository.internal.DefaultVersionRangeResolver;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.impl.VersionRangeResolver;
+import org.sonatype.aether.resolution.VersionRangeRequest;
+import org.sonatype.aether.resolution.VersionRangeResolutionException;
+import org.sonatype.aether.resolution.VersionRangeResult;
+import org.sonatype.aether.spi.locator.Service;
+import org.sonatype.aether.spi.locator.ServiceLocator;
+
+/**
+ * Resolver of version ranges, which keeps results in memory while
+ * update policies of repositories allow.
+ *
+ * <p>Results are shared by all sessions of the repository system, see
+ * {@link MetadataCache}, or by all repository systems which get the same
+ * cache in {@link #CACHE} property of their sessions, so that results
+ * survive rebuilds of the repository system. Results with errors are not
+ * cached, and plain versions, which are not ranges, are resolved without
+ * metadata, so they are not cached either. Cached results are given to
+ * all callers as they are, and must not be modified.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "origin")
+@EqualsAndHashCode(of = { "origin", "cache" })
+public final class CachedVersionRangeResolver
+    implements VersionRangeResolver, Service {
+
+    /**
+     * Name of session configuration property with the
+     * {@link MetadataCache} to use instead of the own one.
+     */
+    public static final String CACHE = "jcabi.aether.ranges";
+
+    /**
+     * Original resolver.
+     */
+    private final transient VersionRangeResolver origin;
+
+    /**
+     * Cache of results.
+     */
+    private final transient MetadataCache cache;
+
+    /**
+     * Public ctor, for service locator.
+     */
+    public CachedVersionRangeResolver() {
+        this(new DefaultVersionRangeResolver());
+    }
+
+    /**
+     * Ctor.
+     * @param resolver Original resolver
+     */
+    CachedVersionRangeResolver(final VersionRangeResolver resolver) {
+        this.origin = resolver;
+        this.cache = new MetadataCache();
+    }
+
+    @Override
+    public void initService(final ServiceLocator locator) {
+        if (this.origin instanceof Service) {
+            Service.class.cast(this.origin).initService(locator);
+        }
+    }
+
+    @Override
+    public VersionRangeResult resolveVersionRange(
+        final RepositorySystemSession session,
+        final VersionRangeRequest request)
+        throws VersionRangeResolutionException {
+        final String version = request.getArtifact().getVersion();
+        final VersionRangeResult result;
+        if (version.startsWith("[") || version.startsWith("(")) {
+            result = this.cached(session, request);
+        } else {
+            result = this.origin.resolveVersionRange(session, request);
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the range, or take the result from the cache.
+     * @param session The session
+     * @param request The request
+     * @return The result
+     * @throws VersionRangeResolutionException If fails
+     */
+    private VersionRangeResult cached(final RepositorySystemSession session,
+        final VersionRangeRequest request)
+        throws VersionRangeResolutionException {
+        final long now = System.currentTimeMillis();
+        final String key = MetadataCache.key(
+            session, request.getArtifact(), request.getRepositories(),
+            request.getRequestContext()
+        );
+        final MetadataCache results = this.cache(session);
+        VersionRangeResult result = VersionRangeResult.class.cast(
+            results.get(key, now)
+        );
+        if (result == null) {
+            result = this.origin.resolveVersionRange(session, request);
+            if (result.getExceptions().isEmpty()) {
+                results.put(
+                    key, result,
+                    MetadataCache.expires(
+                        session, request.getRepositories(), true, true, now
+                    )
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cache of the session, or the own one.
+     * @param session The session
+     * @return Cache
+     */
+    private MetadataCache cache(final RepositorySystemSession session) {
+        final Object value = session.getConfigProperties().get(
+            CachedVersionRangeResolver.CACHE
+        );
+        MetadataCache results = this.cache;
+        if (value instanceof MetadataCache) {
+            results = MetadataCache.class.cast(value);
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,381 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.maven.repository.internal.DefaultVersionResolver;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.impl.VersionResolver;
+import org.sonatype.aether.resolution.VersionRequest;
+import org.sonatype.aether.resolution.VersionResolutionException;
+import org.sonatype.aether.resolution.VersionResult;
+import org.sonatype.aether.spi.locator.Service;
+import org.sonatype.aether.spi.locator.ServiceLocator;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+
+/**
+ * Resolver of SNAPSHOT, {@code RELEASE} and {@code LATEST} versions, which
+ * keeps results in memory while update policies of repositories allow.
+ *
+ * <p>Results are shared by all sessions of the repository system, see
+ * {@link MetadataCache}, or by all repository systems which get the same
+ * cache in {@link #CACHE} property of their sessions, so that results
+ * survive rebuilds of the repository system. Results with errors are not
+ * cached, and other versions are resolved without metadata, so they are
+ * not cached either. Cached results are given to all callers as they are,
+ * and must not be modified.
+ *
+ * <p>When the session has {@link #STALE} property, expired SNAPSHOT
+ * versions are used for that long after expiration, while they are
+ * resolved again in background, one at a time. A refresh uses its own
+ * copy of the session, without the listener of transfers of its caller,
+ * since the caller may be done with the session by then. If the session
+ * has {@link #LOCK} property, a refresh runs only while the lock is free
+ * and waits for its next chance otherwise, so that it never touches the
+ * local repository together with another resolution and never makes
+ * one wait. Refreshes run in the thread given in {@link #EXECUTOR}
+ * property of the session, which its owner stops, or in a daemon thread
+ * shared by all resolvers without it.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "origin")
+@EqualsAndHashCode(of = { "origin", "cache" })
+@SuppressWarnings("PMD.DoNotUseThreads")
+public final class CachedVersionResolver implements VersionResolver, Service {
+
+    /**
+     * Name of session configuration property with maximum staleness of
+     * SNAPSHOT versions, in milliseconds.
+     */
+    public static final String STALE = "jcabi.aether.snapshots.stale";
+
+    /**
+     * Name of session configuration property with the {@link Lock} of
+     * the local repository, which background refreshes take.
+     */
+    public static final String LOCK = "jcabi.aether.lock";
+
+    /**
+     * Name of session configuration property with the
+     * {@link MetadataCache} to use instead of the own one.
+     */
+    public static final String CACHE = "jcabi.aether.versions";
+
+    /**
+     * Name of session configuration property with the
+     * {@link ScheduledExecutorService} of background refreshes.
+     */
+    public static final String EXECUTOR = "jcabi.aether.refreshes";
+
+    /**
+     * Thread of background refreshes of sessions without their own one.
+     */
+    private static final ScheduledExecutorService SHARED =
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(CachedVersionResolver.class)
+        );
+
+    /**
+     * Delay between attempts to take the lock, in milliseconds.
+     */
+    private static final long DELAY = 100L;
+
+    /**
+     * Original resolver.
+     */
+    private final transient VersionResolver origin;
+
+    /**
+     * Cache of results.
+     */
+    private final transient MetadataCache cache;
+
+    /**
+     * Keys of results being refreshed in background.
+     */
+    private final transient Set<String> pending;
+
+    /**
+     * Public ctor, for service locator.
+     */
+    public CachedVersionResolver() {
+        this(new DefaultVersionResolver());
+    }
+
+    /**
+     * Ctor.
+     * @param resolver Original resolver
+     */
+    CachedVersionResolver(final VersionResolver resolver) {
+        this.origin = resolver;
+        this.cache = new MetadataCache();
+        this.pending = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>(0)
+        );
+    }
+
+    @Override
+    public void initService(final ServiceLocator locator) {
+        if (this.origin instanceof Service) {
+            Service.class.cast(this.origin).initService(locator);
+        }
+    }
+
+    @Override
+    public VersionResult resolveVersion(final RepositorySystemSession session,
+        final VersionRequest request) throws VersionResolutionException {
+        final Artifact artifact = request.getArtifact();
+        final VersionResult result;
+        if (artifact.isSnapshot() || "RELEASE".equals(artifact.getVersion())
+            || "LATEST".equals(artifact.getVersion())) {
+            final long now = System.currentTimeMillis();
+            final String key = MetadataCache.key(
+                session, artifact, request.getRepositories(),
+                request.getRequestContext()
+            );
+            final MetadataCache results = this.cache(session);
+            Object cached = results.get(key, now);
+            if (cached == null && artifact.isSnapshot()) {
+                cached = results.get(
+                    key, now, CachedVersionResolver.stale(session)
+                );
+                if (cached != null) {
+                    this.refresh(session, request, key);
+                }
+            }
+            if (cached == null) {
+                result = this.resolve(session, request, key);
+            } else {
+                result = VersionResult.class.cast(cached);
+            }
+        } else {
+            result = this.origin.resolveVersion(session, request);
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the version and cache the result.
+     * @param session The session
+     * @param request The request
+     * @param key Key of the result
+     * @return The result
+     * @throws VersionResolutionException If fails
+     */
+    private VersionResult resolve(final RepositorySystemSession session,
+        final VersionRequest request, final String key)
+        throws VersionResolutionException {
+        final long now = System.currentTimeMillis();
+        final boolean snapshot = request.getArtifact().isSnapshot();
+        final VersionResult result =
+            this.origin.resolveVersion(session, request);
+        if (result.getExceptions().isEmpty()) {
+            this.cache(session).put(
+                key, result,
+                MetadataCache.expires(
+                    session, request.getRepositories(),
+                    snapshot, !snapshot, now
+                )
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the version in background, unless it's being resolved
+     * already.
+     * @param session The session
+     * @param request The request
+     * @param key Key of the result
+     */
+    private void refresh(final RepositorySystemSession session,
+        final VersionRequest request, final String key) {
+        if (this.pending.add(key)) {
+            final DefaultRepositorySystemSession own =
+                new DefaultRepositorySystemSession(session);
+            own.setTransferListener(new LogTransferListener());
+            CachedVersionResolver.executor(session).submit(
+                new VerboseRunnable(
+                    new CachedVersionResolver.Refresh(
+                        own, request, key,
+                        System.currentTimeMillis()
+                            + CachedVersionResolver.stale(session)
+                    ),
+                    true, false
+                )
+            );
+        }
+    }
+
+    /**
+     * Cache of the session, or the own one.
+     * @param session The session
+     * @return Cache
+     */
+    private MetadataCache cache(final RepositorySystemSession session) {
+        final Object value = session.getConfigProperties().get(
+            CachedVersionResolver.CACHE
+        );
+        MetadataCache results = this.cache;
+        if (value instanceof MetadataCache) {
+            results = MetadataCache.class.cast(value);
+        }
+        return results;
+    }
+
+    /**
+     * Thread of background refreshes of the session, or the shared one.
+     * @param session The session
+     * @return Executor
+     */
+    private static ScheduledExecutorService executor(
+        final RepositorySystemSession session) {
+        final Object value = session.getConfigProperties().get(
+            CachedVersionResolver.EXECUTOR
+        );
+        ScheduledExecutorService executor = CachedVersionResolver.SHARED;
+        if (value instanceof ScheduledExecutorService) {
+            executor = ScheduledExecutorService.class.cast(value);
+        }
+        return executor;
+    }
+
+    /**
+     * Maximum staleness of SNAPSHOT versions, requested by the session.
+     * @param session The session
+     * @return Milliseconds, zero if stale versions are not accepted
+     */
+    private static long stale(final RepositorySystemSession session) {
+        final Object value = session.getConfigProperties().get(
+            CachedVersionResolver.STALE
+        );
+        long stale = 0L;
+        if (value instanceof Number) {
+            stale = Number.class.cast(value).longValue();
+        }
+        return stale;
+    }
+
+    /**
+     * Refresh of one result, when the local repository is free.
+     */
+    private final class Refresh implements Runnable {
+        /**
+         * Own copy of the session.
+         */
+        private final transient RepositorySystemSession session;
+        /**
+         * The request.
+         */
+        private final transient VersionRequest request;
+        /**
+         * Key of the result.
+         */
+        private final transient String key;
+        /**
+         * When the stale result can't be used anymore, in milliseconds.
+         */
+        private final transient long until;
+        /**
+         * Ctor.
+         * @param ssn Own copy of the session
+         * @param req The request
+         * @param name Key of the result
+         * @param time When the stale result expires
+         * @checkstyle ParameterNumber (3 lines)
+         */
+        Refresh(final RepositorySystemSession ssn, final VersionRequest req,
+            final String name, final long time) {
+            this.session = ssn;
+            this.request = req;
+            this.key = name;
+            this.until = time;
+        }
+        @Override
+        public void run() {
+            final Object value = this.session.getConfigProperties()
+                .get(CachedVersionResolver.LOCK);
+            Lock lock = null;
+            if (value instanceof Lock) {
+                lock = Lock.class.cast(value);
+            }
+            if (lock == null || lock.tryLock()) {
+                try {
+                    this.resolve();
+                } finally {
+                    if (lock != null) {
+                        lock.unlock();
+                    }
+                }
+            } else if (System.currentTimeMillis() < this.until) {
+                CachedVersionResolver.executor(this.session).schedule(
+                    new VerboseRunnable(this, true, false),
+                    CachedVersionResolver.DELAY, TimeUnit.MILLISECONDS
+                );
+            } else {
+                CachedVersionResolver.this.pending.remove(this.key);
+            }
+        }
+        /**
+         * Resolve and cache the result.
+         */
+        private void resolve() {
+            try {
+                CachedVersionResolver.this.resolve(
+                    this.session, this.request, this.key
+                );
+            } catch (final VersionResolutionException ex) {
+                Logger.warn(
+                    CachedVersionResolver.this,
+                    "failed to refresh %s: %s",
+                    this.request.getArtifact(), ex.getMessage()
+                );
+            } finally {
+                CachedVersionResolver.this.pending.remove(this.key);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.ToString;
+
+/**
+ * SHA-1 checksums of files, calculated once per version of a file.
+ *
+ * <p>A checksum is calculated again only if the length or the modification
+ * time of the file changes, which is enough for JARs in a local repository,
+ * since they never change once downloaded.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "sums")
+final class Checksums {
+
+    /**
+     * Buffer size for reading files.
+     */
+    private static final int BUFFER = 16 * 1024;
+
+    /**
+     * Checksums, by path, length and modification time of files.
+     */
+    private final transient ConcurrentMap<String, String> sums =
+        new ConcurrentHashMap<String, String>(0);
+
+    /**
+     * SHA-1 of the file.
+     * @param file The file
+     * @return Hex digest
+     * @throws IOException If fails to read
+     */
+    public String sha(final File file) throws IOException {
+        final String key = String.format(
+            "%s:%d:%d", file.getAbsolutePath(), file.length(),
+            file.lastModified()
+        );
+        String sha = this.sums.get(key);
+        if (sha == null) {
+            sha = Checksums.digest(file);
+            this.sums.put(key, sha);
+        }
+        return sha;
+    }
+
+    /**
+     * Calculate SHA-1 of the file.
+     * @param file The file
+     * @return Hex digest
+     * @throws IOException If fails to read
+     */
+    private static String digest(final File file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        final InputStream input = new FileInputStream(file);
+        try {
+            final byte[] buf = new byte[Checksums.BUFFER];
+            while (true) {
+                final int len = input.read(buf);
+                if (len < 0) {
+                    break;
+                }
+                digest.update(buf, 0, len);
+            }
+        } finally {
+            input.close();
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (final byte bte : digest.digest()) {
+            hex.append(String.format("%02x", bte));
+        }
+        return hex.toString();
+    }
+
+}
@@ -0,0 +1,333 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import lombok.ToString;
+
+/**
+ * Index of classes and resources in a classpath.
+ *
+ * <p>Tells which JARs or directories of the classpath provide a class or
+ * a resource, and which classes are provided more than once, without
+ * opening any JARs:
+ *
+ * <pre> ClassIndex index = new Classpath(project, localRepo, "runtime")
+ *   .index();
+ * List&lt;File&gt; jars = index.jars("org/slf4j/Logger.class");</pre>
+ *
+ * <p>Names of entries of every JAR are stored in a file in the directory
+ * of the index, named by SHA-1 checksum of the JAR, and are read from
+ * there, memory-mapped, next time the JAR is found in any classpath. JARs
+ * are opened only once in the life of the directory. Directories of the
+ * classpath are scanned every time, since their content may change.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "path")
+public final class ClassIndex {
+
+    /**
+     * Name of the directory with stored indexes, in local repository.
+     */
+    public static final String DIR = "jcabi-aether-index";
+
+    /**
+     * Suffix of stored indexes.
+     */
+    private static final String SUFFIX = ".idx";
+
+    /**
+     * Suffix of classes.
+     */
+    private static final String CLASS = ".class";
+
+    /**
+     * Encoding of names.
+     */
+    private static final String UTF = "UTF-8";
+
+    /**
+     * Checksums of JARs, shared by all indexes.
+     */
+    private static final Checksums CHECKSUMS = new Checksums();
+
+    /**
+     * JARs and directories of the classpath, in order.
+     */
+    private final transient List<File> path;
+
+    /**
+     * Providers of classes and resources, by their names.
+     */
+    private final transient Map<String, List<File>> entries;
+
+    /**
+     * Public ctor.
+     * @param files JARs and directories of the classpath, for example
+     *  a {@link Classpath}
+     * @param dir Directory with stored indexes of JARs
+     * @throws IOException If fails to read or store something
+     */
+    public ClassIndex(final Collection<File> files, final File dir)
+        throws IOException {
+        this.path = Collections.unmodifiableList(new ArrayList<File>(files));
+        this.entries = new HashMap<String, List<File>>(0);
+        for (final File file : this.path) {
+            final Collection<String> names;
+            if (file.isDirectory()) {
+                names = ClassIndex.scan(file);
+            } else if (file.isFile()) {
+                names = ClassIndex.names(file, dir);
+            } else {
+                names = Collections.emptyList();
+            }
+            for (final String name : names) {
+                this.add(name, file);
+            }
+        }
+    }
+
+    /**
+     * JARs and directories, which provide a class or a resource.
+     * @param name Name of the resource, e.g. "com/example/Foo.class"
+     * @return Its providers, in classpath order, empty if none
+     */
+    public List<File> jars(final String name) {
+        List<File> jars = this.entries.get(name);
+        if (jars == null) {
+            jars = Collections.emptyList();
+        }
+        return Collections.unmodifiableList(jars);
+    }
+
+    /**
+     * Classes provided by more than one JAR or directory.
+     * @return Names of classes and their providers, in classpath order
+     */
+    public Map<String, List<File>> duplicates() {
+        final Map<String, List<File>> dups =
+            new LinkedHashMap<String, List<File>>(0);
+        for (final Map.Entry<String, List<File>> entry
+            : this.entries.entrySet()) {
+            if (entry.getValue().size() > 1
+                && entry.getKey().endsWith(ClassIndex.CLASS)) {
+                dups.put(
+                    entry.getKey(),
+                    Collections.unmodifiableList(entry.getValue())
+                );
+            }
+        }
+        return Collections.unmodifiableMap(dups);
+    }
+
+    /**
+     * Register a provider of the name.
+     * @param name Name of a class or a resource
+     * @param file The provider
+     */
+    private void add(final String name, final File file) {
+        List<File> files = this.entries.get(name);
+        if (files == null) {
+            files = new ArrayList<File>(1);
+            this.entries.put(name, files);
+        }
+        if (!files.contains(file)) {
+            files.add(file);
+        }
+    }
+
+    /**
+     * Names of entries of the JAR, stored or read from it.
+     * @param jar The JAR
+     * @param dir Directory with stored indexes
+     * @return Names of classes and resources
+     * @throws IOException If fails
+     */
+    private static Collection<String> names(final File jar, final File dir)
+        throws IOException {
+        final File stored = new File(
+            dir, String.format(
+                "%s%s", ClassIndex.CHECKSUMS.sha(jar), ClassIndex.SUFFIX
+            )
+        );
+        if (!stored.exists()) {
+            ClassIndex.store(ClassIndex.read(jar), stored);
+            Logger.debug(ClassIndex.class, "%s indexed in %s", jar, stored);
+        }
+        return ClassIndex.load(stored);
+    }
+
+    /**
+     * Read names of entries of the JAR.
+     * @param jar The JAR
+     * @return Names of classes and resources
+     * @throws IOException If fails
+     */
+    private static Collection<String> read(final File jar) throws IOException {
+        final Collection<String> names = new LinkedList<String>();
+        final ZipFile zip = new ZipFile(jar);
+        try {
+            final Enumeration<? extends ZipEntry> all = zip.entries();
+            while (all.hasMoreElements()) {
+                final ZipEntry entry = all.nextElement();
+                if (!entry.isDirectory()) {
+                    names.add(entry.getName());
+                }
+            }
+        } finally {
+            zip.close();
+        }
+        return names;
+    }
+
+    /**
+     * Store names in a file, atomically.
+     *
+     * <p>The file contains the number of names and then every name, as
+     * the length of its UTF-8 bytes and the bytes.
+     *
+     * @param names Names to store
+     * @param file The file
+     * @throws IOException If fails
+     */
+    private static void store(final Collection<String> names,
+        final File file) throws IOException {
+        if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+            throw new IOException(
+                String.format("can't create %s", file.getParentFile())
+            );
+        }
+        final File temp = File.createTempFile(
+            file.getName(), ".tmp", file.getParentFile()
+        );
+        final OutputStream stream = new FileOutputStream(temp);
+        try {
+            final DataOutputStream data = new DataOutputStream(stream);
+            data.writeInt(names.size());
+            for (final String name : names) {
+                final byte[] bytes = name.getBytes(ClassIndex.UTF);
+                data.writeInt(bytes.length);
+                data.write(bytes);
+            }
+            data.flush();
+        } finally {
+            stream.close();
+        }
+        if (!temp.renameTo(file) && !file.exists()) {
+            throw new IOException(
+                String.format("can't rename %s to %s", temp, file)
+            );
+        }
+        if (temp.exists() && !temp.delete()) {
+            Logger.warn(ClassIndex.class, "can't delete %s", temp);
+        }
+    }
+
+    /**
+     * Load names from a stored file.
+     * @param file The file
+     * @return Names of classes and resources
+     * @throws IOException If fails
+     */
+    private static Collection<String> load(final File file)
+        throws IOException {
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final FileChannel channel = stream.getChannel();
+            final MappedByteBuffer buf = channel.map(
+                FileChannel.MapMode.READ_ONLY, 0, channel.size()
+            );
+            final int total = buf.getInt();
+            final Collection<String> names = new ArrayList<String>(total);
+            for (int idx = 0; idx < total; ++idx) {
+                final byte[] bytes = new byte[buf.getInt()];
+                buf.get(bytes);
+                names.add(new String(bytes, ClassIndex.UTF));
+            }
+            return names;
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Names of files in the directory, recursively.
+     * @param dir The directory
+     * @return Names of classes and resources, relative to the directory
+     */
+    private static Collection<String> scan(final File dir) {
+        final Collection<String> names = new LinkedList<String>();
+        final LinkedList<File> todo = new LinkedList<File>();
+        todo.add(dir);
+        final int prefix = dir.getAbsolutePath().length() + 1;
+        while (!todo.isEmpty()) {
+            final File[] files = todo.removeFirst().listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (final File file : files) {
+                if (file.isDirectory()) {
+                    todo.add(file);
+                } else {
+                    names.add(
+                        file.getAbsolutePath().substring(prefix)
+                            .replace(File.separatorChar, '/')
+                    );
+                }
+            }
+        }
+        return names;
+    }
+
+}
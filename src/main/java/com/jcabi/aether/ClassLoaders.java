@@ -0,0 +1,408 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import lombok.ToString;
+
+/**
+ * Factory of class loaders for classpaths, which shares common JARs.
+ *
+ * <p>JARs found in many classpaths, for example Guava or SLF4J, are
+ * loaded by shared parent class loaders, so their classes are loaded once
+ * for all of them; class loaders of classpaths contain only the other
+ * JARs:
+ *
+ * <pre> List&lt;ClassLoader&gt; loaders = new ClassLoaders(parent).loaders(
+ *   Arrays.asList(
+ *     new Classpath(first, localRepo, "runtime"),
+ *     new Classpath(second, localRepo, "runtime")
+ *   )
+ * );</pre>
+ *
+ * <p>JARs are equal if their SHA-1 checksums are equal, so the same
+ * artifact from different local repositories is shared too. Common JARs
+ * found in the same classpaths make a layer, which has its own shared
+ * class loader, so every common JAR is loaded by exactly one of them,
+ * even if classpaths share different sets of JARs, for example
+ * {guava, slf4j} and {guava, commons}. A layer sees the layers found in
+ * all classpaths it is found in, since its JARs may depend on them, and a
+ * classpath sees the layers it has, so no classpath sees JARs it doesn't
+ * have. Since layers are asked first, common JARs must not depend on JARs
+ * which are not common, which is true for most widely used libraries.
+ *
+ * <p>Layers are made from the classpaths of one call of
+ * {@link #loaders(List)}, so all classpaths to share JARs must be given
+ * in one call. Shared class loaders are kept as long as the factory
+ * exists and are reused by later calls, which make the same layers.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = { "min", "shared" })
+public final class ClassLoaders {
+
+    /**
+     * Parent of all class loaders.
+     */
+    private final transient ClassLoader parent;
+
+    /**
+     * Minimum number of classpaths a JAR must be found in to be shared.
+     */
+    private final transient int min;
+
+    /**
+     * Checksums of JARs.
+     */
+    private final transient Checksums checksums;
+
+    /**
+     * Shared class loaders, by sorted checksums of their JARs and keys
+     * of layers they see.
+     */
+    private final transient Map<String, ClassLoader> shared;
+
+    /**
+     * Public ctor, sharing JARs found in two classpaths or more.
+     * @param prnt Parent of all class loaders
+     */
+    public ClassLoaders(final ClassLoader prnt) {
+        this(prnt, 2);
+    }
+
+    /**
+     * Public ctor.
+     * @param prnt Parent of all class loaders
+     * @param count Minimum number of classpaths a JAR must be found in
+     *  to be shared
+     */
+    public ClassLoaders(final ClassLoader prnt, final int count) {
+        if (count < 2) {
+            throw new IllegalArgumentException(
+                String.format("JARs can't be shared by %d classpaths", count)
+            );
+        }
+        this.parent = prnt;
+        this.min = count;
+        this.checksums = new Checksums();
+        this.shared = new HashMap<String, ClassLoader>(0);
+    }
+
+    /**
+     * Make class loaders for classpaths.
+     * @param paths Classpaths, for example {@link Classpath}es
+     * @return Class loaders, in the same order
+     * @throws IOException If fails to read some JAR
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public List<ClassLoader> loaders(
+        final List<? extends Collection<File>> paths) throws IOException {
+        final List<Map<File, String>> sums =
+            new ArrayList<Map<File, String>>(paths.size());
+        final Map<String, SortedSet<Integer>> found =
+            new HashMap<String, SortedSet<Integer>>(0);
+        final Map<String, URL> urls = new HashMap<String, URL>(0);
+        for (final Collection<File> path : paths) {
+            final Map<File, String> jars = this.jars(path);
+            for (final Map.Entry<File, String> jar : jars.entrySet()) {
+                if (!found.containsKey(jar.getValue())) {
+                    found.put(jar.getValue(), new TreeSet<Integer>());
+                    urls.put(jar.getValue(), jar.getKey().toURI().toURL());
+                }
+                found.get(jar.getValue()).add(sums.size());
+            }
+            sums.add(jars);
+        }
+        final Map<Set<Integer>, ClassLoader> layers = this.layers(found, urls);
+        final List<ClassLoader> loaders =
+            new ArrayList<ClassLoader>(paths.size());
+        int idx = 0;
+        for (final Collection<File> path : paths) {
+            final Map<File, String> jars = sums.get(idx);
+            final Collection<URL> own = new ArrayList<URL>(path.size());
+            final Collection<Set<Integer>> mine =
+                new LinkedList<Set<Integer>>();
+            for (final File file : path) {
+                final String sha = jars.get(file);
+                if (sha != null && found.get(sha).size() >= this.min) {
+                    mine.add(found.get(sha));
+                } else {
+                    own.add(file.toURI().toURL());
+                }
+            }
+            ++idx;
+            loaders.add(
+                new URLClassLoader(
+                    own.toArray(new URL[own.size()]),
+                    this.join(ClassLoaders.nearest(mine), layers)
+                )
+            );
+        }
+        return loaders;
+    }
+
+    /**
+     * Checksums of JARs in the classpath.
+     * @param path The classpath
+     * @return Checksums of its JARs, directories are not there
+     * @throws IOException If fails to read some JAR
+     */
+    private Map<File, String> jars(final Collection<File> path)
+        throws IOException {
+        final Map<File, String> jars = new HashMap<File, String>(0);
+        for (final File file : path) {
+            if (file.isFile()) {
+                jars.put(file, this.checksums.sha(file));
+            }
+        }
+        return jars;
+    }
+
+    /**
+     * Get or make shared class loaders of layers.
+     *
+     * <p>Layers with more classpaths go first, so the layers a layer
+     * sees are made before it.
+     * @param found Numbers of classpaths, by checksums of JARs
+     * @param urls JARs, by checksums
+     * @return Class loaders, by numbers of classpaths of the layers
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private Map<Set<Integer>, ClassLoader> layers(
+        final Map<String, SortedSet<Integer>> found,
+        final Map<String, URL> urls) {
+        final Map<Set<Integer>, SortedSet<String>> jars =
+            new HashMap<Set<Integer>, SortedSet<String>>(0);
+        for (final Map.Entry<String, SortedSet<Integer>> sha
+            : found.entrySet()) {
+            if (sha.getValue().size() >= this.min) {
+                if (!jars.containsKey(sha.getValue())) {
+                    jars.put(sha.getValue(), new TreeSet<String>());
+                }
+                jars.get(sha.getValue()).add(sha.getKey());
+            }
+        }
+        final List<Set<Integer>> order = new ArrayList<Set<Integer>>(
+            jars.keySet()
+        );
+        Collections.sort(
+            order,
+            new Comparator<Set<Integer>>() {
+                @Override
+                public int compare(final Set<Integer> left,
+                    final Set<Integer> right) {
+                    return right.size() - left.size();
+                }
+            }
+        );
+        final Map<Set<Integer>, String> keys =
+            new HashMap<Set<Integer>, String>(0);
+        final Map<Set<Integer>, ClassLoader> layers =
+            new HashMap<Set<Integer>, ClassLoader>(0);
+        for (final Set<Integer> layer : order) {
+            final Collection<Set<Integer>> above =
+                new LinkedList<Set<Integer>>();
+            for (final Set<Integer> other : order) {
+                if (other.size() > layer.size() && other.containsAll(layer)) {
+                    above.add(other);
+                }
+            }
+            final Collection<Set<Integer>> seen = ClassLoaders.nearest(above);
+            final SortedSet<String> over = new TreeSet<String>();
+            for (final Set<Integer> other : seen) {
+                over.add(keys.get(other));
+            }
+            final String key = String.format("%s%s", jars.get(layer), over);
+            keys.put(layer, key);
+            final Collection<URL> mine = new ArrayList<URL>(0);
+            for (final String sha : jars.get(layer)) {
+                mine.add(urls.get(sha));
+            }
+            layers.put(layer, this.shared(key, mine, this.join(seen, layers)));
+        }
+        return layers;
+    }
+
+    /**
+     * Get or make a shared class loader.
+     * @param key Its key
+     * @param urls Its JARs
+     * @param top Its parent
+     * @return The class loader
+     */
+    private ClassLoader shared(final String key, final Collection<URL> urls,
+        final ClassLoader top) {
+        synchronized (this.shared) {
+            ClassLoader loader = this.shared.get(key);
+            if (loader == null) {
+                loader = new URLClassLoader(
+                    urls.toArray(new URL[urls.size()]), top
+                );
+                this.shared.put(key, loader);
+                Logger.debug(
+                    this, "shared class loader #%d made for %s",
+                    this.shared.size(), urls
+                );
+            }
+            return loader;
+        }
+    }
+
+    /**
+     * Class loader, which sees all given layers.
+     * @param seen Layers to see
+     * @param layers Class loaders of all layers
+     * @return The class loader
+     */
+    private ClassLoader join(final Collection<Set<Integer>> seen,
+        final Map<Set<Integer>, ClassLoader> layers) {
+        final List<ClassLoader> tops = new ArrayList<ClassLoader>(seen.size());
+        for (final Set<Integer> layer : seen) {
+            tops.add(layers.get(layer));
+        }
+        final ClassLoader loader;
+        if (tops.isEmpty()) {
+            loader = this.parent;
+        } else if (tops.size() == 1) {
+            loader = tops.get(0);
+        } else {
+            loader = new ClassLoaders.Joined(this.parent, tops);
+        }
+        return loader;
+    }
+
+    /**
+     * Layers, which don't see any other of them, since other layers
+     * see them.
+     * @param layers Numbers of classpaths of layers
+     * @return Distinct layers, which have no others among them
+     */
+    private static Collection<Set<Integer>> nearest(
+        final Collection<Set<Integer>> layers) {
+        final Collection<Set<Integer>> nearest =
+            new LinkedHashSet<Set<Integer>>(layers.size());
+        for (final Set<Integer> layer : layers) {
+            boolean below = false;
+            for (final Set<Integer> other : layers) {
+                if (other.size() < layer.size() && layer.containsAll(other)) {
+                    below = true;
+                }
+            }
+            if (!below) {
+                nearest.add(layer);
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Class loader, which finds classes and resources in a few others,
+     * after its parent.
+     */
+    @ToString(of = "loaders")
+    private static final class Joined extends ClassLoader {
+        /**
+         * Class loaders to look in, in this order.
+         */
+        private final transient List<ClassLoader> loaders;
+        /**
+         * Ctor.
+         * @param prnt Parent
+         * @param all Class loaders to look in
+         */
+        Joined(final ClassLoader prnt, final List<ClassLoader> all) {
+            super(prnt);
+            this.loaders = all;
+        }
+        @Override
+        protected Class<?> findClass(final String name)
+            throws ClassNotFoundException {
+            Class<?> found = null;
+            final Iterator<ClassLoader> iter = this.loaders.iterator();
+            while (found == null && iter.hasNext()) {
+                try {
+                    found = iter.next().loadClass(name);
+                } catch (final ClassNotFoundException ex) {
+                    found = null;
+                }
+            }
+            if (found == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return found;
+        }
+        @Override
+        protected URL findResource(final String name) {
+            URL found = null;
+            final Iterator<ClassLoader> iter = this.loaders.iterator();
+            while (found == null && iter.hasNext()) {
+                found = iter.next().getResource(name);
+            }
+            return found;
+        }
+        @Override
+        protected Enumeration<URL> findResources(final String name)
+            throws IOException {
+            final Collection<URL> found = new LinkedHashSet<URL>(0);
+            for (final ClassLoader loader : this.loaders) {
+                found.addAll(Collections.list(loader.getResources(name)));
+            }
+            if (this.getParent() != null) {
+                found.removeAll(
+                    Collections.list(this.getParent().getResources(name))
+                );
+            }
+            return Collections.enumeration(found);
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ package com.jcabi.aether;
 
 import com.jcabi.aspects.Loggable;
 import java.io.File;
+import java.io.IOException;
 import java.util.AbstractSet;
 import java.util.Arrays;
 import java.util.Collection;
@@ -39,6 +40,8 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import org.apache.commons.lang3.StringUtils;
@@ -70,13 +73,24 @@ import org.sonatype.aether.version.VersionScheme;
  * is cached and never flushes. In order to resolve again (if you think that
  * content of repositories is changed), make a new instance of the class.
  *
+ * <p>When dependencies of the project change, use {@link #update(MavenProject)}
+ * to get a classpath of the changed project. Dependencies which didn't
+ * change are not resolved again, only conflicts between versions are:
+ *
+ * <pre> Classpath before = new Classpath(project, localRepo, "runtime");
+ * Classpath after = before.update(changed);</pre>
+ *
+ * <p>Every resolution is made by a new {@link Aether}, which is closed
+ * right after it, so the classpath doesn't keep connections and threads
+ * and doesn't need to be closed.
+ *
  * @author Yegor Bugayenko (yegor@tpc2.com)
  * @version $Id$
  * @since 0.7.16
  * @see Aether
  * @checkstyle ClassDataAbstractionCoupling (500 lines)
  */
-@EqualsAndHashCode(callSuper = false, of = { "project", "aether", "scopes" })
+@EqualsAndHashCode(callSuper = false, of = { "project", "home", "scopes" })
 @Loggable(
     value = Loggable.DEBUG,
     limit = 1, unit = TimeUnit.MINUTES,
@@ -91,14 +105,21 @@ public final class Classpath extends AbstractSet<File> {
     private final transient MavenProject project;
 
     /**
-     * Aether to work with.
+     * Artifact scopes to include.
      */
-    private final transient Aether aether;
+    private final transient Set<String> scopes;
 
     /**
-     * Artifact scopes to include.
+     * Local repository.
      */
-    private final transient Set<String> scopes;
+    private final transient File home;
+
+    /**
+     * Transitive dependencies of root artifacts resolved so far, shared
+     * with updated classpaths.
+     */
+    private final transient ConcurrentMap<Artifact, Collection<Artifact>>
+        resolved;
 
     /**
      * Public ctor.
@@ -119,10 +140,93 @@ public final class Classpath extends AbstractSet<File> {
      */
     public Classpath(final MavenProject prj,
         final File repo, final Collection<String> scps) {
+        this(
+            prj, repo, new HashSet<String>(scps),
+            new ConcurrentHashMap<Artifact, Collection<Artifact>>(0)
+        );
+    }
+
+    /**
+     * Private ctor.
+     * @param prj The Maven project
+     * @param repo Local repository location (directory path)
+     * @param scps All scopes to include
+     * @param cache Transitive dependencies of roots resolved so far
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private Classpath(final MavenProject prj, final File repo,
+        final Set<String> scps,
+        final ConcurrentMap<Artifact, Collection<Artifact>> cache) {
         super();
         this.project = prj;
-        this.aether = new Aether(prj, repo);
-        this.scopes = new HashSet<String>(scps);
+        this.home = repo;
+        this.scopes = scps;
+        this.resolved = cache;
+    }
+
+    /**
+     * Classpath of the changed project, with the same scopes.
+     *
+     * <p>Only root artifacts, which were not resolved by this classpath or
+     * its predecessors, are resolved. Transitive dependencies of the others
+     * are taken as they are, and conflicts between their versions are
+     * resolved again. Exclusions are applied to all of them again too. If
+     * remote repositories of the project changed, everything is resolved
+     * from scratch.
+     *
+     * @param prj Changed project
+     * @return New classpath
+     * @since 1.0
+     */
+    public Classpath update(final MavenProject prj) {
+        final Classpath updated;
+        if (prj.getRemoteProjectRepositories().equals(
+            this.project.getRemoteProjectRepositories()
+        )) {
+            updated = new Classpath(
+                prj, this.home, this.scopes, this.resolved
+            );
+        } else {
+            updated = new Classpath(prj, this.home, this.scopes);
+        }
+        return updated;
+    }
+
+    /**
+     * Classpath of the same project with other scopes, which shares
+     * resolved dependencies with this one.
+     *
+     * <p>Transitive dependencies of a root artifact don't depend on
+     * the scope it is declared in, so they are resolved once for all
+     * classpaths made from one another like this, no matter how many
+     * scopes they include:
+     *
+     * <pre> Classpath compile = new Classpath(project, localRepo, "compile");
+     * Classpath test = compile.scoped("compile", "test");</pre>
+     *
+     * @param scps The scopes to use, e.g. "runtime", "compile" etc
+     * @return New classpath
+     * @since 1.0
+     */
+    public Classpath scoped(final String... scps) {
+        return new Classpath(
+            this.project, this.home,
+            new HashSet<String>(Arrays.asList(scps)), this.resolved
+        );
+    }
+
+    /**
+     * Index of classes and resources of this classpath.
+     *
+     * <p>Indexes of JARs are stored in the local repository and shared by
+     * all classpaths which have the same JARs.
+     *
+     * @return The index
+     * @throws IOException If fails to read or store it
+     * @since 1.0
+     */
+    public ClassIndex index() throws IOException {
+        return new ClassIndex(this, new File(this.home, ClassIndex.DIR));
     }
 
     /**
@@ -130,7 +234,14 @@ public final class Classpath extends AbstractSet<File> {
      */
     @Override
     public String toString() {
-        return StringUtils.join(this.roots(), "\n");
+        final Aether aether = new Aether(this.project, this.home);
+        final String text;
+        try {
+            text = StringUtils.join(this.roots(aether), "\n");
+        } finally {
+            aether.close();
+        }
+        return text;
     }
 
     /**
@@ -168,8 +279,13 @@ public final class Classpath extends AbstractSet<File> {
         for (final String path : this.elements()) {
             files.add(new File(path));
         }
-        for (final Artifact artifact : this.artifacts()) {
-            files.add(artifact.getFile());
+        final Aether aether = new Aether(this.project, this.home);
+        try {
+            for (final Artifact artifact : this.artifacts(aether)) {
+                files.add(artifact.getFile());
+            }
+        } finally {
+            aether.close();
         }
         return files;
     }
@@ -206,13 +322,15 @@ public final class Classpath extends AbstractSet<File> {
      * <p>This method gets a full list of artifacts of the project,
      * including their transitive dependencies.
      *
+     * @param aether Aether to resolve with
      * @return The set of artifacts
      * @throws DependencyResolutionException If can't resolve some of them
      */
-    private Set<Artifact> artifacts() throws DependencyResolutionException {
+    private Set<Artifact> artifacts(final Aether aether)
+        throws DependencyResolutionException {
         final Set<Artifact> artifacts = new LinkedHashSet<Artifact>(0);
-        for (final RootArtifact root : this.roots()) {
-            for (final Artifact child : root.children()) {
+        for (final RootArtifact root : this.roots(aether)) {
+            for (final Artifact child : this.children(root)) {
                 if (Classpath.contains(child, artifacts)) {
                     final Artifact found = Classpath.find(child, artifacts);
                     if (found.getVersion().equals(child.getVersion())) {
@@ -233,6 +351,22 @@ public final class Classpath extends AbstractSet<File> {
         return artifacts;
     }
 
+    /**
+     * Transitive dependencies of the root artifact, resolved once.
+     * @param root The root artifact
+     * @return Its dependencies
+     * @throws DependencyResolutionException If can't resolve them
+     */
+    private Collection<Artifact> children(final RootArtifact root)
+        throws DependencyResolutionException {
+        Collection<Artifact> children = this.resolved.get(root.artifact());
+        if (children == null) {
+            children = root.children();
+            this.resolved.putIfAbsent(root.artifact(), children);
+        }
+        return children;
+    }
+
     /**
      * Find which artifact has newer version.
      * @param child One of the artifacts to compare.
@@ -262,33 +396,38 @@ public final class Classpath extends AbstractSet<File> {
      * their transitive dependencies (that's why they are called "root"
      * artifacts).
      *
+     * @param aether Aether to resolve them with
      * @return The set of root artifacts
      */
-    private Set<RootArtifact> roots() {
+    private Set<RootArtifact> roots(final Aether aether) {
         final Set<RootArtifact> roots = new LinkedHashSet<RootArtifact>(0);
         for (final Dependency dep : this.project.getDependencies()) {
             if (!this.scopes.contains(dep.getScope())) {
                 continue;
             }
-            roots.add(this.root(dep));
+            roots.add(Classpath.root(aether, dep));
         }
         return roots;
     }
 
     /**
      * Convert dependency to root artifact.
+     * @param aether Aether to resolve it with
      * @param dep Dependency
      * @return Root artifact
      */
-    private RootArtifact root(final Dependency dep) {
+    private static RootArtifact root(final Aether aether,
+        final Dependency dep) {
         return new RootArtifact(
-            this.aether,
-            new DefaultArtifact(
-                dep.getGroupId(),
-                dep.getArtifactId(),
-                dep.getClassifier(),
-                dep.getType(),
-                dep.getVersion()
+            aether,
+            ArtifactPool.SHARED.intern(
+                new DefaultArtifact(
+                    dep.getGroupId(),
+                    dep.getArtifactId(),
+                    dep.getClassifier(),
+                    dep.getType(),
+                    dep.getVersion()
+                )
             ),
             dep.getExclusions()
         );
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.aspects.Immutable;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Settings of the HTTP connection pool used by {@link Aether}.
+ *
+ * <p>The pool belongs to an instance of {@link Aether} and survives
+ * across all its resolutions, so TCP and TLS handshakes are made only
+ * once per host, not once per artifact:
+ *
+ * <pre> Aether aether = new Aether(
+ *   repositories, local,
+ *   new Connections(4, 32, 60000, 30000, 600000)
+ * );</pre>
+ *
+ * <p>All timeouts are in milliseconds. What transfers do over these
+ * connections, like hedging, retries and parallel downloads, is
+ * configured by {@link Transfers}.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(
+    of = { "host", "total", "alive", "idle", "request" }
+)
+public final class Connections {
+
+    /**
+     * Maximum number of connections to one host.
+     */
+    private final transient int host;
+
+    /**
+     * Maximum number of connections in total.
+     */
+    private final transient int total;
+
+    /**
+     * How long an idle connection stays in the pool, or zero
+     * if connections are not kept alive.
+     */
+    private final transient int alive;
+
+    /**
+     * How long an open connection may stay silent, also used as
+     * a connect timeout.
+     */
+    private final transient int idle;
+
+    /**
+     * Maximum duration of one request.
+     */
+    private final transient int request;
+
+    /**
+     * Public ctor, with default settings.
+     */
+    public Connections() {
+        // @checkstyle MagicNumber (1 line)
+        this(10, 100, 60000, 60000, 1800000);
+    }
+
+    /**
+     * Public ctor.
+     * @param hst Maximum number of connections to one host
+     * @param ttl Maximum number of connections in total
+     * @param alv Keep-alive timeout of idle pooled connections, zero
+     *  to disable keep-alive
+     * @param idl Idle timeout of open connections
+     * @param req Request timeout
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    public Connections(final int hst, final int ttl, final int alv,
+        final int idl, final int req) {
+        if (hst < 1 || ttl < hst) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "invalid connection limits: %d per host, %d in total",
+                    hst, ttl
+                )
+            );
+        }
+        this.host = hst;
+        this.total = ttl;
+        this.alive = alv;
+        this.idle = idl;
+        this.request = req;
+    }
+
+    /**
+     * Maximum number of connections to one host.
+     * @return Number of connections
+     */
+    public int perHost() {
+        return this.host;
+    }
+
+    /**
+     * Maximum number of connections in total.
+     * @return Number of connections
+     */
+    public int total() {
+        return this.total;
+    }
+
+    /**
+     * Keep-alive timeout of idle connections in the pool.
+     * @return Milliseconds, zero if keep-alive is disabled
+     */
+    public int keepAlive() {
+        return this.alive;
+    }
+
+    /**
+     * Idle timeout of open connections.
+     * @return Milliseconds
+     */
+    public int idle() {
+        return this.idle;
+    }
+
+    /**
+     * Request timeout.
+     * @return Milliseconds
+     */
+    public int request() {
+        return this.request;
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.aspects.Immutable;
+import com.jcabi.log.VerboseThreads;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Deadline of a resolution.
+ *
+ * <p>The deadline is checked by the transfer listener of the session, see
+ * {@link LogTransferListener}, every time a transfer is initiated or
+ * receives more bytes, so HTTP, S3 and wagon transfers which are still
+ * running when time is up are cancelled, see {@link Progress}. It is also
+ * enforced by an {@link Deadline.Alarm}, which interrupts the resolving
+ * thread when time is up, so that waiting for the lock of the local
+ * repository and for responses of silent remote repositories stops.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@Immutable
+@ToString(of = "nanos")
+@EqualsAndHashCode(of = { "start", "nanos" })
+final class Deadline {
+
+    /**
+     * No deadline.
+     */
+    public static final Deadline NEVER =
+        new Deadline(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+    /**
+     * Thread ringing alarms.
+     */
+    private static final ScheduledExecutorService TIMER =
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads("deadlines", true, Thread.NORM_PRIORITY)
+        );
+
+    /**
+     * When it started, in nanoseconds, see {@link System#nanoTime()}.
+     */
+    private final transient long start;
+
+    /**
+     * Time given, in nanoseconds.
+     */
+    private final transient long nanos;
+
+    /**
+     * Public ctor.
+     * @param timeout Time given, from now
+     * @param unit Unit of it
+     */
+    Deadline(final long timeout, final TimeUnit unit) {
+        this.start = System.nanoTime();
+        this.nanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Time left.
+     * @return Nanoseconds, zero or negative if time is up
+     */
+    public long left() {
+        return this.nanos - (System.nanoTime() - this.start);
+    }
+
+    /**
+     * Is time up?
+     * @return TRUE if it is
+     */
+    public boolean expired() {
+        return this.left() <= 0L;
+    }
+
+    /**
+     * Time given.
+     * @return Nanoseconds
+     */
+    public long timeout() {
+        return this.nanos;
+    }
+
+    /**
+     * Set an alarm, which interrupts the current thread when time is up.
+     * @return The alarm, which must be stopped by the same thread
+     */
+    public Deadline.Alarm alarm() {
+        final Deadline.Alarm alarm = new Deadline.Alarm();
+        if (this.nanos != Long.MAX_VALUE) {
+            alarm.schedule(this.left());
+        }
+        return alarm;
+    }
+
+    /**
+     * Alarm of a deadline.
+     */
+    @ToString(of = { "thread", "rang" })
+    @EqualsAndHashCode(of = "thread")
+    static final class Alarm implements Runnable {
+        /**
+         * Thread to interrupt.
+         */
+        private final transient Thread thread = Thread.currentThread();
+        /**
+         * Scheduled ringing, or NULL if it is not scheduled.
+         */
+        private transient Future<?> future;
+        /**
+         * Is it stopped?
+         */
+        private transient boolean stopped;
+        /**
+         * Did it ring?
+         */
+        private transient boolean rang;
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (!this.stopped) {
+                    this.rang = true;
+                    this.thread.interrupt();
+                }
+            }
+        }
+        /**
+         * Stop it, clearing the interrupted status of the thread if
+         * the alarm interrupted it.
+         * @return TRUE if it rang
+         */
+        public boolean stop() {
+            synchronized (this) {
+                this.stopped = true;
+                if (this.future != null) {
+                    this.future.cancel(false);
+                }
+                if (this.rang) {
+                    Thread.interrupted();
+                }
+                return this.rang;
+            }
+        }
+        /**
+         * Schedule it.
+         * @param delay Nanoseconds from now
+         */
+        private void schedule(final long delay) {
+            synchronized (this) {
+                this.future = Deadline.TIMER.schedule(
+                    this, Math.max(delay, 0L), TimeUnit.NANOSECONDS
+                );
+            }
+        }
+    }
+
+}
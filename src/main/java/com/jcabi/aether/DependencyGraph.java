@@ -0,0 +1,418 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyFilter;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Graph of resolved dependencies, in compact form.
+ *
+ * <p>Nodes are numbered from zero, where zero is the root. Every node
+ * refers to its coordinates, scope and optional flag, and is linked to its
+ * children and parents, for example:
+ *
+ * <pre> DependencyGraph graph = aether.graph(artifact, "runtime");
+ * for (int child : graph.children(graph.root())) {
+ *   System.out.println(graph.coordinates(child));
+ * }</pre>
+ *
+ * <p>Coordinates, files and scopes are kept once per graph and referred
+ * to by their numbers, while links are kept in {@code int} arrays, so even
+ * a graph of tens of thousands of nodes takes little memory. The graph
+ * doesn't keep nodes of Aether.
+ *
+ * <p>Nodes rejected by the filter are not in the graph, as well as their
+ * children, unless they are reachable through other nodes. A node
+ * reachable from a few parents is in the graph once.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "coords")
+@EqualsAndHashCode(of = { "coords", "coord", "first", "edges" })
+@SuppressWarnings("PMD.TooManyMethods")
+public final class DependencyGraph {
+
+    /**
+     * Bit of optional flag in flags of a node.
+     */
+    private static final int OPTIONAL = 0x80;
+
+    /**
+     * Mask of scope number in flags of a node.
+     */
+    private static final int SCOPE = 0x7f;
+
+    /**
+     * Distinct coordinates, as
+     * {@code groupId:artifactId:extension[:classifier]:version}.
+     */
+    private final transient String[] coords;
+
+    /**
+     * Files of distinct coordinates, or NULL if not resolved.
+     */
+    private final transient String[] files;
+
+    /**
+     * Distinct scopes.
+     */
+    private final transient String[] scopes;
+
+    /**
+     * Numbers of coordinates of nodes.
+     */
+    private final transient int[] coord;
+
+    /**
+     * Flags of nodes: number of scope and optional bit.
+     */
+    private final transient byte[] flags;
+
+    /**
+     * Positions of first children of nodes in {@link #edges}, with
+     * total number of edges at the end.
+     */
+    private final transient int[] first;
+
+    /**
+     * Children of nodes.
+     */
+    private final transient int[] edges;
+
+    /**
+     * Positions of first parents of nodes in {@link #back}, with total
+     * number of edges at the end.
+     */
+    private final transient int[] up;
+
+    /**
+     * Parents of nodes.
+     */
+    private final transient int[] back;
+
+    /**
+     * Ctor.
+     * @param root Root node of resolved dependencies
+     * @param filter Filter of nodes, or NULL to take all of them
+     */
+    DependencyGraph(final DependencyNode root, final DependencyFilter filter) {
+        final DependencyGraph.Builder builder =
+            new DependencyGraph.Builder(filter);
+        builder.visit(root, new LinkedList<DependencyNode>());
+        this.coords = builder.coords.toArray(new String[0]);
+        this.files = builder.files.toArray(new String[0]);
+        this.scopes = builder.scopes.toArray(new String[0]);
+        this.coord = DependencyGraph.ints(builder.coord);
+        this.flags = new byte[builder.flags.size()];
+        for (int idx = 0; idx < this.flags.length; ++idx) {
+            this.flags[idx] = builder.flags.get(idx);
+        }
+        final int size = this.coord.length;
+        final int[] from = DependencyGraph.ints(builder.from);
+        final int[] into = DependencyGraph.ints(builder.into);
+        this.first = DependencyGraph.offsets(from, size);
+        this.edges = DependencyGraph.targets(from, into, this.first);
+        this.up = DependencyGraph.offsets(into, size);
+        this.back = DependencyGraph.targets(into, from, this.up);
+    }
+
+    /**
+     * Number of the root node.
+     * @return Always zero
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * Number of nodes.
+     * @return Total
+     */
+    public int size() {
+        return this.coord.length;
+    }
+
+    /**
+     * Coordinates of the node.
+     * @param node Number of the node
+     * @return Coordinates, e.g. "junit:junit:jar:4.10"
+     */
+    public String coordinates(final int node) {
+        return this.coords[this.coord[node]];
+    }
+
+    /**
+     * Artifact of the node, with its file if resolved.
+     * @param node Number of the node
+     * @return Artifact, from {@link ArtifactPool}
+     */
+    public Artifact artifact(final int node) {
+        final int num = this.coord[node];
+        Artifact artifact = new DefaultArtifact(this.coords[num]);
+        if (this.files[num] != null) {
+            artifact = artifact.setFile(new File(this.files[num]));
+        }
+        return ArtifactPool.SHARED.intern(artifact);
+    }
+
+    /**
+     * Scope of the node.
+     * @param node Number of the node
+     * @return Scope, e.g. "compile", empty for the root without scope
+     */
+    public String scope(final int node) {
+        return this.scopes[this.flags[node] & DependencyGraph.SCOPE];
+    }
+
+    /**
+     * Is the node optional?
+     * @param node Number of the node
+     * @return TRUE if optional
+     */
+    public boolean optional(final int node) {
+        return (this.flags[node] & DependencyGraph.OPTIONAL) != 0;
+    }
+
+    /**
+     * Children of the node.
+     * @param node Number of the node
+     * @return Numbers of children, in order of declaration
+     */
+    public int[] children(final int node) {
+        return Arrays.copyOfRange(
+            this.edges, this.first[node], this.first[node + 1]
+        );
+    }
+
+    /**
+     * Parents of the node.
+     * @param node Number of the node
+     * @return Numbers of parents, empty for the root
+     */
+    public int[] parents(final int node) {
+        return Arrays.copyOfRange(
+            this.back, this.up[node], this.up[node + 1]
+        );
+    }
+
+    /**
+     * Convert list to array.
+     * @param list The list
+     * @return Array
+     */
+    private static int[] ints(final List<Integer> list) {
+        final int[] array = new int[list.size()];
+        for (int idx = 0; idx < array.length; ++idx) {
+            array[idx] = list.get(idx);
+        }
+        return array;
+    }
+
+    /**
+     * Positions of first edges of nodes, in edges sorted by their
+     * sources.
+     * @param sources Sources of edges
+     * @param size Number of nodes
+     * @return Positions, with total number of edges at the end
+     */
+    private static int[] offsets(final int[] sources, final int size) {
+        final int[] offsets = new int[size + 1];
+        for (final int source : sources) {
+            ++offsets[source + 1];
+        }
+        for (int idx = 0; idx < size; ++idx) {
+            offsets[idx + 1] += offsets[idx];
+        }
+        return offsets;
+    }
+
+    /**
+     * Targets of edges, sorted by their sources, in order of edges.
+     * @param sources Sources of edges
+     * @param targets Targets of edges
+     * @param offsets Positions of first edges of nodes
+     * @return Targets
+     */
+    private static int[] targets(final int[] sources, final int[] targets,
+        final int[] offsets) {
+        final int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        final int[] sorted = new int[targets.length];
+        for (int idx = 0; idx < sources.length; ++idx) {
+            sorted[next[sources[idx]]] = targets[idx];
+            ++next[sources[idx]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Collector of nodes and edges.
+     */
+    private static final class Builder {
+        /**
+         * Filter of nodes, or NULL.
+         */
+        private final transient DependencyFilter filter;
+        /**
+         * Numbers of visited nodes.
+         */
+        private final transient Map<DependencyNode, Integer> nodes =
+            new IdentityHashMap<DependencyNode, Integer>();
+        /**
+         * Numbers of distinct coordinates.
+         */
+        private final transient Map<String, Integer> known =
+            new HashMap<String, Integer>(0);
+        /**
+         * Distinct coordinates.
+         */
+        private final transient List<String> coords =
+            new ArrayList<String>(0);
+        /**
+         * Files of distinct coordinates.
+         */
+        private final transient List<String> files =
+            new ArrayList<String>(0);
+        /**
+         * Distinct scopes.
+         */
+        private final transient List<String> scopes =
+            new ArrayList<String>(0);
+        /**
+         * Numbers of coordinates of nodes.
+         */
+        private final transient List<Integer> coord =
+            new ArrayList<Integer>(0);
+        /**
+         * Flags of nodes.
+         */
+        private final transient List<Byte> flags = new ArrayList<Byte>(0);
+        /**
+         * Sources of edges.
+         */
+        private final transient List<Integer> from =
+            new ArrayList<Integer>(0);
+        /**
+         * Targets of edges.
+         */
+        private final transient List<Integer> into =
+            new ArrayList<Integer>(0);
+        /**
+         * Ctor.
+         * @param flt Filter of nodes, or NULL
+         */
+        Builder(final DependencyFilter flt) {
+            this.filter = flt;
+        }
+        /**
+         * Add the node and its accepted children, recursively.
+         * @param node The node
+         * @param path Parents of the node, the closest first
+         * @return Number of the node
+         */
+        public int visit(final DependencyNode node,
+            final LinkedList<DependencyNode> path) {
+            final int num = this.add(node);
+            path.addFirst(node);
+            for (final DependencyNode child : node.getChildren()) {
+                if (this.filter != null && !this.filter.accept(child, path)) {
+                    continue;
+                }
+                Integer target = this.nodes.get(child);
+                if (target == null) {
+                    target = this.visit(child, path);
+                }
+                this.from.add(num);
+                this.into.add(target);
+            }
+            path.removeFirst();
+            return num;
+        }
+        /**
+         * Register the node.
+         * @param node The node
+         * @return Its number
+         */
+        private int add(final DependencyNode node) {
+            final int num = this.coord.size();
+            this.nodes.put(node, num);
+            final Dependency dep = node.getDependency();
+            String name = "";
+            String file = null;
+            String scope = "";
+            int flag = 0;
+            if (dep != null) {
+                name = dep.getArtifact().toString();
+                if (dep.getArtifact().getFile() != null) {
+                    file = dep.getArtifact().getFile().getAbsolutePath();
+                }
+                scope = dep.getScope();
+                if (dep.isOptional()) {
+                    flag = DependencyGraph.OPTIONAL;
+                }
+            }
+            Integer idx = this.known.get(name);
+            if (idx == null) {
+                idx = this.coords.size();
+                this.known.put(name, idx);
+                this.coords.add(name);
+                this.files.add(file);
+            } else if (this.files.get(idx) == null) {
+                this.files.set(idx, file);
+            }
+            this.coord.add(idx);
+            int sidx = this.scopes.indexOf(scope);
+            if (sidx < 0) {
+                sidx = this.scopes.size();
+                this.scopes.add(scope);
+            }
+            this.flags.add((byte) (flag | sidx));
+            return num;
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.transfer.TransferCancelledException;
+import org.sonatype.aether.transfer.TransferEvent;
+import org.sonatype.aether.transfer.TransferListener;
+import org.sonatype.aether.transfer.TransferResource;
+
+/**
+ * Listener of transfers, which publishes their events.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "origin")
+@EqualsAndHashCode(of = { "origin", "events" })
+final class EventTransferListener implements TransferListener {
+
+    /**
+     * Original listener.
+     */
+    private final transient TransferListener origin;
+
+    /**
+     * Where to publish events.
+     */
+    private final transient ResolutionEvents events;
+
+    /**
+     * Ctor.
+     * @param listener Original listener
+     * @param evts Where to publish events
+     */
+    EventTransferListener(final TransferListener listener,
+        final ResolutionEvents evts) {
+        this.origin = listener;
+        this.events = evts;
+    }
+
+    @Override
+    public void transferInitiated(final TransferEvent event)
+        throws TransferCancelledException {
+        this.origin.transferInitiated(event);
+    }
+
+    @Override
+    public void transferStarted(final TransferEvent event)
+        throws TransferCancelledException {
+        this.publish(ResolutionEvent.Kind.TRANSFER_STARTED, event);
+        this.origin.transferStarted(event);
+    }
+
+    @Override
+    public void transferProgressed(final TransferEvent event)
+        throws TransferCancelledException {
+        this.publish(ResolutionEvent.Kind.TRANSFER_PROGRESSED, event);
+        this.origin.transferProgressed(event);
+    }
+
+    @Override
+    public void transferCorrupted(final TransferEvent event)
+        throws TransferCancelledException {
+        this.origin.transferCorrupted(event);
+    }
+
+    @Override
+    public void transferSucceeded(final TransferEvent event) {
+        this.origin.transferSucceeded(event);
+    }
+
+    @Override
+    public void transferFailed(final TransferEvent event) {
+        this.publish(ResolutionEvent.Kind.FAILED, event);
+        this.origin.transferFailed(event);
+    }
+
+    /**
+     * Publish an event of the transfer.
+     * @param kind Kind of the event
+     * @param event The transfer event
+     */
+    private void publish(final ResolutionEvent.Kind kind,
+        final TransferEvent event) {
+        final TransferResource res = event.getResource();
+        this.events.publish(
+            new ResolutionEvent(
+                kind,
+                String.format(
+                    "%s%s", res.getRepositoryUrl(), res.getResourceName()
+                ),
+                event.getTransferredBytes()
+            )
+        );
+    }
+
+}
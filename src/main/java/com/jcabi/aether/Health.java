@@ -0,0 +1,429 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Latency and failure statistics of remote repositories.
+ *
+ * <p>Repositories are ordered by their average latency, fastest first.
+ * Repositories we know nothing about keep their declared positions.
+ * A repository that failed {@link #THRESHOLD} times in a row is demoted
+ * to the end of the list for a while, and the penalty doubles with
+ * every next failure, until the repository responds again.
+ *
+ * <p>It is also a circuit breaker: a demoted repository which keeps
+ * failing, {@link #BREAKER} times in a row, gets no requests until its
+ * penalty expires, see {@link #allow(String)}. Then one trial request is
+ * allowed, and the circuit is closed if it succeeds, or opened again for
+ * a longer time if it fails. Before that, a demoted repository is still
+ * queried, after all others, so the only repository of a project is not
+ * suspended by a few failures of one artifact.
+ *
+ * <p>Only server errors and I/O errors are failures. Any other response,
+ * including "not found" and "forbidden", means the repository is alive.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString
+@EqualsAndHashCode(of = "records")
+final class Health {
+
+    /**
+     * How many failures in a row demote a repository.
+     */
+    private static final int THRESHOLD = 3;
+
+    /**
+     * How many failures in a row suspend requests to a demoted repository.
+     */
+    private static final int BREAKER = 5;
+
+    /**
+     * Maximum power of two in the penalty.
+     */
+    private static final int MAX_POWER = 4;
+
+    /**
+     * Base penalty, in milliseconds.
+     */
+    private static final long PENALTY = TimeUnit.MINUTES.toMillis(1L);
+
+    /**
+     * Weight of the latest sample in the average latency.
+     */
+    private static final double WEIGHT = 0.2d;
+
+    /**
+     * How many latest samples are kept for percentiles.
+     */
+    private static final int WINDOW = 100;
+
+    /**
+     * Minimum number of samples to calculate percentiles.
+     */
+    private static final int MIN_SAMPLES = 5;
+
+    /**
+     * Records, by repository ID.
+     */
+    private final transient ConcurrentMap<String, Health.Record> records =
+        new ConcurrentHashMap<String, Health.Record>(0);
+
+    /**
+     * Repository responded (including client errors, like "not found").
+     * @param repo Repository ID
+     * @param msec Latency in milliseconds
+     */
+    public void success(final String repo, final long msec) {
+        this.record(repo).success(msec);
+    }
+
+    /**
+     * Repository failed to respond properly.
+     * @param repo Repository ID
+     */
+    public void failure(final String repo) {
+        this.record(repo).failure();
+    }
+
+    /**
+     * Request to the repository is going to be retried.
+     * @param repo Repository ID
+     */
+    public void retried(final String repo) {
+        this.record(repo).retried();
+    }
+
+    /**
+     * Can we send a request to this repository now?
+     *
+     * <p>Requests are not allowed while the repository is demoted after
+     * {@link #BREAKER} failures in a row, and only one trial request is
+     * allowed at a time after the penalty expires, until it succeeds.
+     * Rejected requests are counted.
+     *
+     * @param repo Repository ID
+     * @return TRUE if allowed
+     */
+    public boolean allow(final String repo) {
+        final Health.Record rec = this.records.get(repo);
+        return rec == null || rec.allow();
+    }
+
+    /**
+     * Percentile of recent latencies of the repository.
+     * @param repo Repository ID
+     * @param pct Percentile, from 1 to 100
+     * @return Milliseconds, or -1 if there are not enough samples
+     */
+    public long percentile(final String repo, final int pct) {
+        final Health.Record rec = this.records.get(repo);
+        long msec = -1L;
+        if (rec != null) {
+            msec = rec.percentile(pct);
+        }
+        return msec;
+    }
+
+    /**
+     * Is this repository demoted now?
+     * @param repo Repository ID
+     * @return TRUE if demoted
+     */
+    public boolean demoted(final String repo) {
+        final Health.Record rec = this.records.get(repo);
+        return rec != null && rec.demoted();
+    }
+
+    /**
+     * Order repositories, healthy and fast first.
+     * @param repos Repositories in declaration order
+     * @return Repositories in routing order
+     */
+    public List<RemoteRepository> order(
+        final Collection<RemoteRepository> repos) {
+        final List<RemoteRepository> all =
+            new ArrayList<RemoteRepository>(repos);
+        final List<Integer> slots = new ArrayList<Integer>(all.size());
+        final List<RemoteRepository> known =
+            new ArrayList<RemoteRepository>(all.size());
+        final Map<String, Double> latencies = new HashMap<String, Double>(0);
+        for (int idx = 0; idx < all.size(); ++idx) {
+            final Health.Record rec = this.records.get(all.get(idx).getId());
+            if (rec != null) {
+                slots.add(idx);
+                known.add(all.get(idx));
+                latencies.put(all.get(idx).getId(), rec.latency());
+            }
+        }
+        Collections.sort(known, new Health.ByLatency(latencies));
+        for (int idx = 0; idx < slots.size(); ++idx) {
+            all.set(slots.get(idx), known.get(idx));
+        }
+        final List<RemoteRepository> ordered =
+            new ArrayList<RemoteRepository>(all.size());
+        final List<RemoteRepository> demoted =
+            new ArrayList<RemoteRepository>(0);
+        for (final RemoteRepository repo : all) {
+            if (this.demoted(repo.getId())) {
+                demoted.add(repo);
+            } else {
+                ordered.add(repo);
+            }
+        }
+        ordered.addAll(demoted);
+        return ordered;
+    }
+
+    /**
+     * Statistics of the repository.
+     * @param repo Repository ID
+     * @return Snapshot of statistics
+     */
+    public RepositoryStats stats(final String repo) {
+        final Health.Record rec = this.records.get(repo);
+        final RepositoryStats stats;
+        if (rec == null) {
+            stats = new RepositoryStats(repo, 0L, 0L, 0L, false, 0L, 0L);
+        } else {
+            stats = rec.stats(repo);
+        }
+        return stats;
+    }
+
+    /**
+     * Get or create a record.
+     * @param repo Repository ID
+     * @return Record
+     */
+    private Health.Record record(final String repo) {
+        Health.Record rec = this.records.get(repo);
+        if (rec == null) {
+            this.records.putIfAbsent(repo, new Health.Record());
+            rec = this.records.get(repo);
+        }
+        return rec;
+    }
+
+    /**
+     * Statistics of one repository.
+     */
+    private static final class Record {
+        /**
+         * Total requests.
+         */
+        private transient long requests;
+        /**
+         * Failed requests.
+         */
+        private transient long failures;
+        /**
+         * Failures in a row.
+         */
+        private transient int streak;
+        /**
+         * Average latency.
+         */
+        private transient double latency;
+        /**
+         * Demoted until this moment, in milliseconds.
+         */
+        private transient long until;
+        /**
+         * Retried requests.
+         */
+        private transient long retries;
+        /**
+         * Requests rejected while demoted.
+         */
+        private transient long rejected;
+        /**
+         * When the latest trial request was allowed, in milliseconds.
+         */
+        private transient long probe;
+        /**
+         * Latest latencies, a ring buffer.
+         */
+        private final transient long[] window = new long[Health.WINDOW];
+        /**
+         * Total number of latency samples.
+         */
+        private transient int samples;
+        /**
+         * Successful response.
+         * @param msec Latency
+         */
+        public synchronized void success(final long msec) {
+            if (this.requests == this.failures) {
+                this.latency = msec;
+            } else {
+                this.latency += Health.WEIGHT * (msec - this.latency);
+            }
+            ++this.requests;
+            this.streak = 0;
+            this.until = 0L;
+            this.probe = 0L;
+            this.window[this.samples % Health.WINDOW] = msec;
+            ++this.samples;
+        }
+        /**
+         * Percentile of latest latencies.
+         * @param pct Percentile
+         * @return Milliseconds or -1 if not enough samples
+         */
+        public synchronized long percentile(final int pct) {
+            long msec = -1L;
+            if (this.samples >= Health.MIN_SAMPLES) {
+                final long[] sorted = Arrays.copyOf(
+                    this.window, Math.min(this.samples, Health.WINDOW)
+                );
+                Arrays.sort(sorted);
+                // @checkstyle MagicNumber (1 line)
+                final int idx = (int) Math.ceil(pct * sorted.length / 100.0d);
+                msec = sorted[Math.max(idx - 1, 0)];
+            }
+            return msec;
+        }
+        /**
+         * Failure.
+         */
+        public synchronized void failure() {
+            ++this.requests;
+            ++this.failures;
+            ++this.streak;
+            if (this.streak >= Health.THRESHOLD) {
+                this.until = System.currentTimeMillis() + (Health.PENALTY
+                    << Math.min(this.streak - Health.THRESHOLD,
+                    Health.MAX_POWER));
+            }
+        }
+        /**
+         * Request is going to be retried.
+         */
+        public synchronized void retried() {
+            ++this.retries;
+        }
+        /**
+         * Can we send a request now?
+         * @return TRUE if allowed
+         */
+        public synchronized boolean allow() {
+            boolean allow = true;
+            if (this.streak >= Health.BREAKER) {
+                final long now = System.currentTimeMillis();
+                if (now < this.until || now - this.probe < Health.PENALTY) {
+                    ++this.rejected;
+                    allow = false;
+                } else {
+                    this.probe = now;
+                }
+            }
+            return allow;
+        }
+        /**
+         * Is it demoted now?
+         * @return TRUE if demoted
+         */
+        public synchronized boolean demoted() {
+            return this.until > System.currentTimeMillis();
+        }
+        /**
+         * Average latency, infinite if it never responded.
+         * @return Milliseconds
+         */
+        public synchronized double latency() {
+            final double msec;
+            if (this.requests == this.failures) {
+                msec = Double.MAX_VALUE;
+            } else {
+                msec = this.latency;
+            }
+            return msec;
+        }
+        /**
+         * Snapshot.
+         * @param repo Repository ID
+         * @return Statistics
+         */
+        public synchronized RepositoryStats stats(final String repo) {
+            return new RepositoryStats(
+                repo, this.requests, this.failures,
+                Math.round(this.latency), this.demoted(),
+                this.retries, this.rejected
+            );
+        }
+    }
+
+    /**
+     * Comparator of repositories by their average latency.
+     */
+    private static final class ByLatency
+        implements Comparator<RemoteRepository> {
+        /**
+         * Latencies, by repository ID.
+         */
+        private final transient Map<String, Double> latencies;
+        /**
+         * Ctor.
+         * @param map Latencies
+         */
+        ByLatency(final Map<String, Double> map) {
+            this.latencies = map;
+        }
+        @Override
+        public int compare(final RemoteRepository left,
+            final RemoteRepository right) {
+            return Double.compare(
+                this.latencies.get(left.getId()),
+                this.latencies.get(right.getId())
+            );
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Hedged completion of a transfer.
+ *
+ * <p>If the repository doesn't start responding within the configured
+ * percentile of its recent latencies (see {@link Transfers#hedged(int)}),
+ * the same file is requested from an equivalent mirror. The first transfer
+ * that completes with a valid checksum wins, and the other one is
+ * cancelled.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString
+@EqualsAndHashCode(of = { "primary", "pool" })
+final class Hedge {
+
+    /**
+     * Minimum delay before a hedged request, in milliseconds.
+     */
+    private static final long MIN_DELAY = 100L;
+
+    /**
+     * The transfer, already started.
+     */
+    private final transient HttpTransfer primary;
+
+    /**
+     * Pool of connections.
+     */
+    private final transient HttpPool pool;
+
+    /**
+     * Ctor.
+     * @param transfer Started transfer
+     * @param hpool Pool of connections
+     */
+    Hedge(final HttpTransfer transfer, final HttpPool hpool) {
+        this.primary = transfer;
+        this.pool = hpool;
+    }
+
+    /**
+     * Complete the transfer, hedging it if necessary.
+     * @throws IOException If fails
+     * @throws InterruptedException If interrupted
+     */
+    public void finish() throws IOException, InterruptedException {
+        final int pct = this.pool.transfers().hedge();
+        final String rid = this.primary.repository().getId();
+        final RemoteRepository mirror = this.mirror(rid);
+        final long pctl = this.pool.health().percentile(rid, pct);
+        final long delay = Math.max(pctl, Hedge.MIN_DELAY);
+        if (pct == 0 || mirror == null || pctl < 0L
+            || this.primary.responded(delay)) {
+            this.primary.finish();
+        } else {
+            Logger.info(
+                this, "%s is silent for %dms, hedging with %s",
+                this.primary, delay, mirror.getId()
+            );
+            this.race(this.primary.mirror(mirror));
+        }
+    }
+
+    /**
+     * Let two transfers race, the first complete one wins.
+     * @param second The second transfer, not started yet
+     * @throws IOException If both fail
+     * @throws InterruptedException If interrupted
+     */
+    private void race(final HttpTransfer second)
+        throws IOException, InterruptedException {
+        second.start();
+        final List<HttpTransfer> running = new ArrayList<HttpTransfer>(
+            Arrays.asList(this.primary, second)
+        );
+        IOException error = null;
+        boolean won = false;
+        try {
+            while (!won && !running.isEmpty()) {
+                final HttpTransfer next = this.primary.next();
+                if (!running.remove(next)) {
+                    continue;
+                }
+                try {
+                    next.finish();
+                    won = true;
+                } catch (final IOException ex) {
+                    error = ex;
+                }
+            }
+        } finally {
+            for (final HttpTransfer other : running) {
+                other.cancel();
+            }
+        }
+        if (!won) {
+            throw error;
+        }
+    }
+
+    /**
+     * Find an equivalent mirror, which is not demoted.
+     * @param rid Repository ID
+     * @return Mirror or NULL if none
+     */
+    private RemoteRepository mirror(final String rid) {
+        RemoteRepository found = null;
+        for (final RemoteRepository repo : this.pool.equivalents(rid)) {
+            if (!this.pool.health().demoted(repo.getId())) {
+                found = repo;
+                break;
+            }
+        }
+        return found;
+    }
+
+}
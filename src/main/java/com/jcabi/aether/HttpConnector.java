@@ -0,0 +1,334 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.transfer.TransferListener;
+import org.sonatype.aether.util.layout.MavenDefaultLayout;
+import org.sonatype.aether.util.layout.RepositoryLayout;
+
+/**
+ * Connector to an HTTP repository, working through a shared
+ * {@link HttpPool}.
+ *
+ * <p>All downloads requested in one call are started concurrently,
+ * within the limits of the pool. Closing the connector doesn't close
+ * any connections, they stay in the pool for next resolutions.
+ *
+ * <p>A download broken in the middle of the file is resumed a few
+ * times, asking the repository only for the missing
+ * bytes, see {@link HttpTransfer#progressed()}. Other connection problems
+ * and server errors are retried with a random exponential delay, see
+ * {@link Transfers#retried(int)}. Requests to a repository that keeps
+ * failing are rejected immediately, see {@link Health#allow(String)}.
+ *
+ * <p>Groups of downloaded artifacts are recorded in {@link Routes}, and
+ * the connector doesn't ask its repository for groups known to be served
+ * by other repositories.
+ *
+ * <p>Transfers are reported to the transfer listener of the session,
+ * which may cancel them, see {@link Progress}.
+ *
+ * <p>Uploads are not supported.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ * @checkstyle ClassDataAbstractionCoupling (500 lines)
+ */
+@ToString(of = "repo")
+@EqualsAndHashCode(of = { "repo", "pool" })
+final class HttpConnector implements RepositoryConnector {
+
+    /**
+     * Layout of the repository.
+     */
+    private static final RepositoryLayout LAYOUT = new MavenDefaultLayout();
+
+    /**
+     * How many times to resume a broken download.
+     */
+    private static final int RESUMES = 3;
+
+    /**
+     * Delays between retries.
+     */
+    private static final Backoff BACKOFF = new Backoff();
+
+    /**
+     * The repository.
+     */
+    private final transient RemoteRepository repo;
+
+    /**
+     * Pool of connections.
+     */
+    private final transient HttpPool pool;
+
+    /**
+     * Skip artifacts of groups served by other repositories?
+     */
+    private final transient boolean routed;
+
+    /**
+     * Transfer listener of the session, or NULL if there is none.
+     */
+    private final transient TransferListener listener;
+
+    /**
+     * Ctor.
+     * @param remote The repository
+     * @param hpool Pool of connections
+     * @param rtd Skip artifacts of groups served by other repositories
+     * @param lsnr Transfer listener, or NULL if there is none
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    HttpConnector(final RemoteRepository remote, final HttpPool hpool,
+        final boolean rtd, final TransferListener lsnr) {
+        this.repo = remote;
+        this.pool = hpool;
+        this.routed = rtd;
+        this.listener = lsnr;
+    }
+
+    @Override
+    public void get(final Collection<? extends ArtifactDownload> artifacts,
+        final Collection<? extends MetadataDownload> metadatas) {
+        final List<HttpTransfer> transfers = new ArrayList<HttpTransfer>(0);
+        final List<Object> downloads = new ArrayList<Object>(0);
+        final List<String> groups = new ArrayList<String>(0);
+        if (artifacts != null) {
+            for (final ArtifactDownload dnl : artifacts) {
+                downloads.add(dnl);
+                groups.add(dnl.getArtifact().getGroupId());
+                transfers.add(this.transfer(dnl));
+            }
+        }
+        if (metadatas != null) {
+            for (final MetadataDownload dnl : metadatas) {
+                downloads.add(dnl);
+                groups.add(null);
+                transfers.add(this.transfer(dnl));
+            }
+        }
+        final Exception[] errors = new Exception[transfers.size()];
+        for (int idx = 0; idx < transfers.size(); ++idx) {
+            errors[idx] = this.start(transfers.get(idx), groups.get(idx));
+        }
+        final Outcomes outcomes = new Outcomes(this.repo);
+        for (int idx = 0; idx < transfers.size(); ++idx) {
+            if (errors[idx] == null) {
+                errors[idx] = this.finish(transfers.get(idx));
+                if (errors[idx] == null
+                    && downloads.get(idx) instanceof ArtifactDownload) {
+                    this.pool.routes().learn(
+                        this.repo.getId(), groups.get(idx)
+                    );
+                }
+            }
+            outcomes.report(downloads.get(idx), errors[idx]);
+        }
+    }
+
+    @Override
+    public void put(final Collection<? extends ArtifactUpload> artifacts,
+        final Collection<? extends MetadataUpload> metadatas) {
+        new Outcomes(this.repo).unsupported(artifacts, metadatas);
+    }
+
+    @Override
+    public void close() {
+        // connections stay in the pool
+    }
+
+    /**
+     * Make a transfer for artifact download.
+     * @param dnl The download
+     * @return Transfer
+     */
+    private HttpTransfer transfer(final ArtifactDownload dnl) {
+        final File file;
+        if (dnl.isExistenceCheck()) {
+            file = null;
+        } else {
+            file = dnl.getFile();
+        }
+        return new HttpTransfer(
+            this.pool, this.repo,
+            HttpConnector.LAYOUT.getPath(dnl.getArtifact()),
+            file, dnl.getChecksumPolicy(), this.listener
+        );
+    }
+
+    /**
+     * Make a transfer for metadata download.
+     * @param dnl The download
+     * @return Transfer
+     */
+    private HttpTransfer transfer(final MetadataDownload dnl) {
+        return new HttpTransfer(
+            this.pool, this.repo,
+            HttpConnector.LAYOUT.getPath(dnl.getMetadata()),
+            dnl.getFile(), dnl.getChecksumPolicy(), this.listener
+        );
+    }
+
+    /**
+     * Start the transfer, unless it's an artifact of a group served by
+     * other repositories.
+     * @param transfer The transfer
+     * @param group Group ID of the artifact, or NULL if it's not
+     *  an artifact, but metadata, which is never routed
+     * @return Exception or NULL if started
+     */
+    private Exception start(final HttpTransfer transfer, final String group) {
+        Exception error = null;
+        if (this.routed && group != null
+            && this.pool.routes().skip(this.repo.getId(), group)) {
+            error = new FileNotFoundException(
+                String.format(
+                    "%s is not served by %s", group, this.repo.getId()
+                )
+            );
+        } else if (!this.pool.health().allow(this.repo.getId())) {
+            error = new IOException(
+                String.format(
+                    "%s keeps failing, requests to it are suspended",
+                    this.repo.getId()
+                )
+            );
+        } else {
+            try {
+                transfer.start();
+            } catch (final IOException ex) {
+                error = ex;
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                error = ex;
+            }
+        }
+        return error;
+    }
+
+    /**
+     * Complete the transfer, hedging it if necessary, resuming it
+     * if the connection breaks in the middle of the file and retrying it
+     * if it fails for a reason that may go away.
+     * @param transfer The transfer
+     * @return Exception or NULL if succeeded
+     */
+    private Exception finish(final HttpTransfer transfer) {
+        Exception error = null;
+        int resumes = 0;
+        int retries = 0;
+        while (true) {
+            try {
+                if (resumes + retries > 0) {
+                    transfer.start();
+                }
+                new Hedge(transfer, this.pool).finish();
+                error = null;
+                break;
+            } catch (final IOException ex) {
+                error = ex;
+                if (transfer.progressed() && resumes < HttpConnector.RESUMES) {
+                    ++resumes;
+                    Logger.info(
+                        this, "%s broken, resuming: %s",
+                        transfer, ex.getMessage()
+                    );
+                } else if (this.retry(transfer, retries, ex)) {
+                    ++retries;
+                } else {
+                    break;
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                transfer.cancel();
+                error = ex;
+                break;
+            }
+        }
+        return error;
+    }
+
+    /**
+     * Wait before the next attempt of a failed transfer, if it makes sense
+     * to try again.
+     *
+     * <p>A transfer is not retried if the repository is demoted by now,
+     * but {@link Health#allow(String)} is not asked again, since the
+     * attempt was allowed already, and asking again would take the slot
+     * of the trial request or count the retry as a rejected request.
+     *
+     * @param transfer The transfer
+     * @param attempt How many times it was retried already
+     * @param error The failure
+     * @return TRUE if it should be retried now
+     */
+    private boolean retry(final HttpTransfer transfer, final int attempt,
+        final IOException error) {
+        final String rid = this.repo.getId();
+        boolean retry = transfer.retriable()
+            && attempt < this.pool.transfers().retries()
+            && !this.pool.health().demoted(rid);
+        if (retry) {
+            final long delay = HttpConnector.BACKOFF.delay(attempt);
+            Logger.info(
+                this, "%s failed, retry #%d in %[ms]s: %s",
+                transfer, attempt + 1, delay, error.getMessage()
+            );
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+                this.pool.health().retried(rid);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                retry = false;
+            }
+        }
+        return retry;
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.aspects.Immutable;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.spi.connector.RepositoryConnectorFactory;
+import org.sonatype.aether.transfer.NoRepositoryConnectorException;
+
+/**
+ * Factory of connectors to HTTP repositories, working through
+ * the pool of {@link Aether}.
+ *
+ * <p>The factory takes {@link HttpPool} from the configuration
+ * properties of the session. If there is no pool in the session,
+ * the factory gives way to other connectors. Routing by groupId
+ * (see {@link Routes}) is enabled unless {@link Routes#BYPASS} property
+ * is set to TRUE.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode
+public final class HttpConnectorFactory implements RepositoryConnectorFactory {
+
+    /**
+     * Priority, higher than the one of other HTTP connectors.
+     */
+    private static final int PRIORITY = 1000;
+
+    @Override
+    public RepositoryConnector newInstance(
+        final RepositorySystemSession session,
+        final RemoteRepository repository)
+        throws NoRepositoryConnectorException {
+        final Object pool = session.getConfigProperties().get(HttpPool.KEY);
+        if (!(pool instanceof HttpPool)
+            || !"default".equals(repository.getContentType())
+            || !repository.getProtocol().matches("https?")) {
+            throw new NoRepositoryConnectorException(repository);
+        }
+        return new HttpConnector(
+            repository, HttpPool.class.cast(pool),
+            !Boolean.TRUE.equals(
+                session.getConfigProperties().get(Routes.BYPASS)
+            ),
+            session.getTransferListener()
+        );
+    }
+
+    @Override
+    public int getPriority() {
+        return HttpConnectorFactory.PRIORITY;
+    }
+
+}
@@ -0,0 +1,380 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.AsyncHttpClientConfig;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Pool of HTTP connections, shared by all resolutions of one
+ * {@link Aether}.
+ *
+ * <p>The pool is passed to {@link HttpConnectorFactory} through
+ * the configuration properties of a session, under {@link #KEY}.
+ * The underlying client is created lazily, on first use.
+ *
+ * <p>Limits are enforced with semaphores, so a transfer waits for
+ * a free connection instead of failing. Transfers report latency and
+ * failures of repositories to {@link #health()}.
+ *
+ * <p>The pool also keeps S3 clients, used by {@link S3ConnectorFactory},
+ * see {@link #s3()}.
+ *
+ * <p>The client and S3 clients keep threads and connections, which must
+ * be released by {@link #close()}. The pool can't be used after that.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = { "conns", "trs" })
+@EqualsAndHashCode(of = { "conns", "trs" })
+final class HttpPool implements Closeable {
+
+    /**
+     * Name of session configuration property with the pool.
+     */
+    public static final String KEY = "jcabi.aether.pool";
+
+    /**
+     * Connection settings.
+     */
+    private final transient Connections conns;
+
+    /**
+     * Transfer settings.
+     */
+    private final transient Transfers trs;
+
+    /**
+     * Permits for all connections.
+     */
+    private final transient Semaphore all;
+
+    /**
+     * Permits per host.
+     */
+    private final transient ConcurrentMap<String, Semaphore> hosts;
+
+    /**
+     * Statistics of repositories.
+     */
+    private final transient Health hlth;
+
+    /**
+     * Index of groups served by repositories.
+     */
+    private final transient Routes rts;
+
+    /**
+     * Equivalent mirrors, by repository ID.
+     */
+    private final transient ConcurrentMap<String, List<RemoteRepository>>
+        mirrors;
+
+    /**
+     * Repositories registered, by their owners, which are forgotten
+     * when nobody else refers to them.
+     */
+    private final transient Map<Object, Collection<RemoteRepository>> owners;
+
+    /**
+     * The client, created on demand.
+     */
+    private transient AsyncHttpClient http;
+
+    /**
+     * S3 downloads, created on demand.
+     */
+    private transient S3Ranges ranges;
+
+    /**
+     * Is it closed?
+     */
+    private transient boolean closed;
+
+    /**
+     * Ctor.
+     * @param cns Connection settings
+     * @param transfers Transfer settings
+     * @param routes Index of groups served by repositories
+     */
+    HttpPool(final Connections cns, final Transfers transfers,
+        final Routes routes) {
+        this.conns = cns;
+        this.trs = transfers;
+        this.all = new Semaphore(cns.total(), true);
+        this.hosts = new ConcurrentHashMap<String, Semaphore>(0);
+        this.hlth = new Health();
+        this.rts = routes;
+        this.mirrors =
+            new ConcurrentHashMap<String, List<RemoteRepository>>(0);
+        this.owners =
+            new WeakHashMap<Object, Collection<RemoteRepository>>(0);
+    }
+
+    /**
+     * S3 downloads, with clients shared by all resolutions.
+     * @return S3 ranges
+     */
+    public synchronized S3Ranges s3() {
+        this.open();
+        if (this.ranges == null) {
+            this.ranges = new S3Ranges(
+                this.trs.range(), this.conns.perHost(), this.trs.endpoint()
+            );
+        }
+        return this.ranges;
+    }
+
+    /**
+     * Connection settings.
+     * @return Settings
+     */
+    public Connections connections() {
+        return this.conns;
+    }
+
+    /**
+     * Transfer settings.
+     * @return Settings
+     */
+    public Transfers transfers() {
+        return this.trs;
+    }
+
+    /**
+     * Register repositories, to find equivalent mirrors among them.
+     *
+     * <p>HTTP repositories are equivalent if they are mirrors of
+     * the same set of repositories. An HTTP repository which is the only
+     * one mirrored by an HTTP mirror is equivalent to it too, after other
+     * mirrors, so hedging works with mirrors from Maven settings, which
+     * replace repositories one by one. Repositories registered by the owner
+     * before and missing in the new list are forgotten, while repositories
+     * of other owners, which share this pool, stay.
+     *
+     * @param owner Who registers them, e.g. {@link Aether}
+     * @param repos All repositories of the owner
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void register(final Object owner,
+        final Collection<RemoteRepository> repos) {
+        synchronized (this.owners) {
+            this.owners.put(owner, new ArrayList<RemoteRepository>(repos));
+            final Map<String, RemoteRepository> all =
+                new LinkedHashMap<String, RemoteRepository>(0);
+            for (final Collection<RemoteRepository> list
+                : this.owners.values()) {
+                for (final RemoteRepository repo : list) {
+                    all.put(repo.getId(), repo);
+                }
+            }
+            final Map<Set<String>, List<RemoteRepository>> groups =
+                new HashMap<Set<String>, List<RemoteRepository>>(0);
+            for (final RemoteRepository repo : all.values()) {
+                if (repo.getMirroredRepositories().isEmpty()
+                    || !repo.getProtocol().matches("https?")) {
+                    continue;
+                }
+                final Set<String> ids = new TreeSet<String>();
+                for (final RemoteRepository mirrored
+                    : repo.getMirroredRepositories()) {
+                    ids.add(mirrored.getId());
+                }
+                if (!groups.containsKey(ids)) {
+                    groups.put(ids, new ArrayList<RemoteRepository>(1));
+                }
+                groups.get(ids).add(repo);
+            }
+            final Map<String, List<RemoteRepository>> found =
+                new HashMap<String, List<RemoteRepository>>(0);
+            for (final List<RemoteRepository> group : groups.values()) {
+                for (final RemoteRepository repo : group) {
+                    final List<RemoteRepository> others =
+                        new ArrayList<RemoteRepository>(group);
+                    others.remove(repo);
+                    final List<RemoteRepository> mirrored =
+                        repo.getMirroredRepositories();
+                    if (mirrored.size() == 1
+                        && mirrored.get(0).getProtocol().matches("https?")) {
+                        others.add(mirrored.get(0));
+                    }
+                    found.put(repo.getId(), others);
+                }
+            }
+            this.mirrors.putAll(found);
+            this.mirrors.keySet().retainAll(found.keySet());
+        }
+    }
+
+    /**
+     * Mirrors equivalent to the repository.
+     * @param repo Repository ID
+     * @return Equivalent mirrors, maybe empty
+     */
+    public List<RemoteRepository> equivalents(final String repo) {
+        List<RemoteRepository> list = this.mirrors.get(repo);
+        if (list == null) {
+            list = Collections.emptyList();
+        }
+        return list;
+    }
+
+    /**
+     * Index of groups served by repositories, learned by transfers.
+     * @return Routes
+     */
+    public Routes routes() {
+        return this.rts;
+    }
+
+    /**
+     * Statistics of repositories, collected by transfers.
+     * @return Statistics
+     */
+    public Health health() {
+        return this.hlth;
+    }
+
+    /**
+     * Get the client.
+     *
+     * <p>The idle timeout of open connections is set by a deprecated
+     * setter, since this version of the client has no other one.
+     *
+     * @return HTTP client
+     */
+    @SuppressWarnings("deprecation")
+    public synchronized AsyncHttpClient client() {
+        this.open();
+        if (this.http == null) {
+            this.http = new AsyncHttpClient(
+                new AsyncHttpClientConfig.Builder()
+                    .setMaximumConnectionsPerHost(this.conns.perHost())
+                    .setMaximumConnectionsTotal(this.conns.total())
+                    .setAllowPoolingConnection(this.conns.keepAlive() > 0)
+                    .setIdleConnectionInPoolTimeoutInMs(this.conns.keepAlive())
+                    .setIdleConnectionTimeoutInMs(this.conns.idle())
+                    .setRequestTimeoutInMs(this.conns.request())
+                    .setConnectionTimeoutInMs(this.conns.idle())
+                    .setFollowRedirects(true)
+                    .setMaxRequestRetry(0)
+                    .setCompressionEnabled(false)
+                    .setUserAgent("jcabi-aether")
+                    .build()
+            );
+        }
+        return this.http;
+    }
+
+    /**
+     * Close the client and S3 clients, and stop their threads.
+     */
+    @Override
+    public synchronized void close() {
+        this.closed = true;
+        if (this.http != null) {
+            this.http.close();
+            this.http = null;
+        }
+        if (this.ranges != null) {
+            this.ranges.close();
+            this.ranges = null;
+        }
+    }
+
+    /**
+     * Take a connection to the host, waiting for a free one if necessary.
+     * @param host The host
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void acquire(final String host) throws InterruptedException {
+        this.all.acquire();
+        try {
+            this.host(host).acquire();
+        } catch (final InterruptedException ex) {
+            this.all.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Return a connection to the host, taken by {@link #acquire(String)}.
+     * @param host The host
+     */
+    public void release(final String host) {
+        this.host(host).release();
+        this.all.release();
+    }
+
+    /**
+     * Make sure the pool is not closed.
+     */
+    private void open() {
+        if (this.closed) {
+            throw new IllegalStateException("the pool is closed");
+        }
+    }
+
+    /**
+     * Semaphore of the host.
+     * @param host The host
+     * @return Semaphore
+     */
+    private Semaphore host(final String host) {
+        Semaphore sem = this.hosts.get(host);
+        if (sem == null) {
+            this.hosts.putIfAbsent(
+                host, new Semaphore(this.conns.perHost(), true)
+            );
+            sem = this.hosts.get(host);
+        }
+        return sem;
+    }
+
+}
@@ -0,0 +1,901 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import com.ning.http.client.AsyncHandler;
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.HttpResponseBodyPart;
+import com.ning.http.client.HttpResponseHeaders;
+import com.ning.http.client.HttpResponseStatus;
+import com.ning.http.client.ProxyServer;
+import com.ning.http.client.Realm;
+import com.ning.http.client.Response;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.io.FileUtils;
+import org.sonatype.aether.repository.Authentication;
+import org.sonatype.aether.repository.Proxy;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.transfer.TransferListener;
+
+/**
+ * One file transfer from an HTTP repository.
+ *
+ * <p>The transfer is started by {@link #start()}, which returns as soon
+ * as a connection is taken from the pool, and is completed by
+ * {@link #finish()}, which waits for the response, verifies SHA-1 checksum
+ * according to the policy and moves the file into its place. A missing file
+ * is reported with {@link FileNotFoundException}.
+ *
+ * <p>The same file may be requested from an equivalent mirror,
+ * see {@link #mirror(RemoteRepository)} and {@link Hedge}.
+ *
+ * <p>Content is received into {@code <name>.<repository>.part} next to
+ * the target file. When the server provides a validator ({@code ETag} or
+ * {@code Last-Modified}) it is saved next to the partial file, and the
+ * partial file is kept if the connection breaks. The next {@link #start()}
+ * asks only for the missing bytes with {@code Range} and {@code If-Range}
+ * headers, and the server either sends them (206) or the entire file again
+ * (200), if it has changed meanwhile. See {@link #progressed()}.
+ * Partial files of the file are deleted as soon as it is received from
+ * any repository, and partial files which nobody touched for a day are
+ * deleted, together with their validators, when another file is
+ * downloaded into the same directory.
+ *
+ * <p>Every attempt is reported to the transfer listener of the session,
+ * which may cancel it, see {@link Progress}. A cancelled transfer is
+ * neither resumed nor retried.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ * @checkstyle ClassDataAbstractionCoupling (500 lines)
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+final class HttpTransfer {
+
+    /**
+     * HTTP OK.
+     */
+    private static final int OK = 200;
+
+    /**
+     * HTTP Partial Content.
+     */
+    private static final int PARTIAL = 206;
+
+    /**
+     * HTTP Not Found.
+     */
+    private static final int NOT_FOUND = 404;
+
+    /**
+     * First HTTP code of client errors.
+     */
+    private static final int CLIENT_ERROR = 400;
+
+    /**
+     * HTTP Request Timeout.
+     */
+    private static final int TIMEOUT = 408;
+
+    /**
+     * HTTP Too Many Requests.
+     */
+    private static final int TOO_MANY = 429;
+
+    /**
+     * First HTTP code of server errors.
+     */
+    private static final int SERVER_ERROR = 500;
+
+    /**
+     * Encoding of validator files.
+     */
+    private static final String UTF = "UTF-8";
+
+    /**
+     * Size of the buffer for reading partial files.
+     */
+    private static final int BUFFER = 8192;
+
+    /**
+     * Age of abandoned partial files, in milliseconds.
+     */
+    private static final long STALE = TimeUnit.DAYS.toMillis(1L);
+
+    /**
+     * Pool of connections.
+     */
+    private final transient HttpPool pool;
+
+    /**
+     * The repository.
+     */
+    private final transient RemoteRepository repo;
+
+    /**
+     * Path of the file in the repository.
+     */
+    private final transient URI path;
+
+    /**
+     * Absolute URL of the file.
+     */
+    private final transient String url;
+
+    /**
+     * Target file, or NULL if it's an existence check.
+     */
+    private final transient File file;
+
+    /**
+     * Checksum policy.
+     */
+    private final transient String policy;
+
+    /**
+     * Transfer listener of the session, or NULL if there is none.
+     */
+    private final transient TransferListener listener;
+
+    /**
+     * Completed transfers of this file, this one and its mirrors.
+     */
+    private final transient BlockingQueue<HttpTransfer> done;
+
+    /**
+     * Response handler, when started.
+     */
+    private transient HttpTransfer.Sink sink;
+
+    /**
+     * Progress of the current attempt, when started.
+     */
+    private transient Progress progress;
+
+    /**
+     * Response future, when started.
+     */
+    private transient Future<Integer> future;
+
+    /**
+     * Size of the partial file when the transfer was started.
+     */
+    private transient long offset;
+
+    /**
+     * Ctor.
+     * @param hpool Pool of connections
+     * @param remote The repository
+     * @param rel Path of the file in the repository
+     * @param target Target file, or NULL for existence check
+     * @param plc Checksum policy
+     * @param lsnr Transfer listener, or NULL if there is none
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    HttpTransfer(final HttpPool hpool, final RemoteRepository remote,
+        final URI rel, final File target, final String plc,
+        final TransferListener lsnr) {
+        this(
+            hpool, remote, rel, target, plc, lsnr,
+            new LinkedBlockingQueue<HttpTransfer>()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param hpool Pool of connections
+     * @param remote The repository
+     * @param rel Path of the file in the repository
+     * @param target Target file, or NULL for existence check
+     * @param plc Checksum policy
+     * @param lsnr Transfer listener, or NULL if there is none
+     * @param queue Queue of completed transfers of the file
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private HttpTransfer(final HttpPool hpool, final RemoteRepository remote,
+        final URI rel, final File target, final String plc,
+        final TransferListener lsnr, final BlockingQueue<HttpTransfer> queue) {
+        this.pool = hpool;
+        this.repo = remote;
+        this.path = rel;
+        this.url = HttpTransfer.url(remote, rel);
+        this.file = target;
+        this.policy = plc;
+        this.listener = lsnr;
+        this.done = queue;
+    }
+
+    @Override
+    public String toString() {
+        return this.url;
+    }
+
+    /**
+     * Start the transfer.
+     * @throws IOException If fails to start, {@link InterruptedIOException}
+     *  if cancelled by the listener
+     * @throws InterruptedException If interrupted while waiting for
+     *  a free connection
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    public void start() throws IOException, InterruptedException {
+        this.progress = new Progress(
+            this.listener, this.repo.getUrl(), this.path.toString(), this.file
+        );
+        try {
+            this.progress.initiated();
+        } catch (final InterruptedIOException ex) {
+            this.progress.failed(ex);
+            throw ex;
+        }
+        final String host = URI.create(this.url).getHost();
+        this.pool.acquire(host);
+        this.sink = new HttpTransfer.Sink(host, this.progress);
+        try {
+            final AsyncHttpClient.BoundRequestBuilder req;
+            if (this.file == null) {
+                req = this.pool.client().prepareHead(this.url);
+            } else {
+                req = this.pool.client().prepareGet(this.url);
+                this.offset = this.resume(req);
+            }
+            this.done.remove(this);
+            this.future = this.prepare(req).execute(this.sink);
+        } catch (final IOException ex) {
+            this.sink.done();
+            this.progress.failed(ex);
+            throw ex;
+        // @checkstyle IllegalCatch (1 line)
+        } catch (final RuntimeException ex) {
+            this.sink.done();
+            this.progress.failed(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * The repository of this transfer.
+     * @return Repository
+     */
+    public RemoteRepository repository() {
+        return this.repo;
+    }
+
+    /**
+     * Make the same transfer from another repository.
+     *
+     * <p>Completed transfers of the file are reported to the same queue,
+     * see {@link #next()}.
+     *
+     * @param mirror Equivalent repository
+     * @return New transfer, not started yet
+     */
+    public HttpTransfer mirror(final RemoteRepository mirror) {
+        return new HttpTransfer(
+            this.pool, mirror, this.path, this.file, this.policy,
+            this.listener, this.done
+        );
+    }
+
+    /**
+     * Wait for the repository to start responding.
+     * @param msec How long to wait, in milliseconds
+     * @return TRUE if it responded or failed, FALSE if it's still silent
+     * @throws InterruptedException If interrupted
+     */
+    public boolean responded(final long msec) throws InterruptedException {
+        return this.sink.responded(msec);
+    }
+
+    /**
+     * Wait for the next completed transfer of this file, either this one or
+     * one of its mirrors.
+     * @return Completed transfer
+     * @throws InterruptedException If interrupted
+     */
+    public HttpTransfer next() throws InterruptedException {
+        return this.done.take();
+    }
+
+    /**
+     * Did the last attempt receive some content that can be resumed?
+     *
+     * <p>It makes sense to {@link #start()} the transfer again if it
+     * failed in the middle of the file, only the rest will be requested.
+     *
+     * @return TRUE if the partial file grew and can be resumed
+     */
+    public boolean progressed() {
+        return this.file != null && !this.cancelled()
+            && this.validator().exists()
+            && this.part().length() > this.offset;
+    }
+
+    /**
+     * Did the last attempt fail for a reason that may go away, like
+     * a broken connection or a server error?
+     * @return TRUE if it makes sense to try again
+     */
+    public boolean retriable() {
+        int code = 0;
+        if (this.sink != null) {
+            code = this.sink.code();
+        }
+        return !this.cancelled() && (code == 0
+            || code >= HttpTransfer.SERVER_ERROR
+            || code == HttpTransfer.TIMEOUT || code == HttpTransfer.TOO_MANY);
+    }
+
+    /**
+     * Abort the transfer and delete what was received.
+     */
+    public void cancel() {
+        if (this.future != null) {
+            this.future.cancel(true);
+        }
+        if (this.sink != null) {
+            this.sink.discard();
+            this.sink.done();
+        }
+        if (this.progress != null) {
+            this.progress.failed(
+                new IOException(String.format("%s cancelled", this.url))
+            );
+        }
+    }
+
+    /**
+     * Wait for the transfer to complete and put the file in place.
+     * @throws IOException If fails, {@link FileNotFoundException} if
+     *  the file is absent in the repository
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void finish() throws IOException, InterruptedException {
+        try {
+            this.complete();
+        } catch (final IOException ex) {
+            this.progress.failed(ex);
+            throw ex;
+        }
+        this.progress.succeeded();
+    }
+
+    /**
+     * Wait for the response, check it and put the file in place.
+     * @throws IOException If fails
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private void complete() throws IOException, InterruptedException {
+        try {
+            this.future.get();
+        } catch (final ExecutionException ex) {
+            this.sink.close();
+            if (this.file != null && !this.validator().exists()) {
+                this.sink.discard();
+            }
+            throw new IOException(this.url, ex.getCause());
+        }
+        final int code = this.sink.code();
+        if (code == HttpTransfer.NOT_FOUND) {
+            this.sink.discard();
+            throw new FileNotFoundException(this.url);
+        }
+        if (code != HttpTransfer.OK && code != HttpTransfer.PARTIAL) {
+            this.sink.discard();
+            throw new IOException(
+                String.format("HTTP %d at %s", code, this.url)
+            );
+        }
+        if (this.file != null) {
+            this.verify();
+            this.sink.move(this.file);
+        }
+    }
+
+    /**
+     * Was the current attempt cancelled by the listener?
+     * @return TRUE if it was
+     */
+    private boolean cancelled() {
+        return this.progress != null && this.progress.cancelled();
+    }
+
+    /**
+     * Verify checksum of the downloaded file, according to the policy.
+     * @throws IOException If checksum doesn't match and policy is "fail"
+     * @throws InterruptedException If interrupted
+     */
+    private void verify() throws IOException, InterruptedException {
+        if (RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals(this.policy)) {
+            return;
+        }
+        final String expected = this.checksum();
+        final String actual = this.sink.sha();
+        if (expected == null || expected.equalsIgnoreCase(actual)) {
+            return;
+        }
+        final String msg = String.format(
+            "SHA-1 mismatch at %s: expected %s, actual %s",
+            this.url, expected, actual
+        );
+        if (RepositoryPolicy.CHECKSUM_POLICY_FAIL.equals(this.policy)) {
+            this.sink.discard();
+            throw new IOException(msg);
+        }
+        Logger.warn(this, "%s", msg);
+    }
+
+    /**
+     * Fetch SHA-1 checksum published next to the file.
+     * @return Checksum or NULL if absent
+     * @throws IOException If fails
+     * @throws InterruptedException If interrupted
+     */
+    private String checksum() throws IOException, InterruptedException {
+        final String host = URI.create(this.url).getHost();
+        this.pool.acquire(host);
+        final Response resp;
+        try {
+            resp = this.prepare(
+                this.pool.client().prepareGet(
+                    String.format("%s.sha1", this.url)
+                )
+            ).execute().get();
+        } catch (final ExecutionException ex) {
+            throw new IOException(this.url, ex.getCause());
+        } finally {
+            this.pool.release(host);
+        }
+        String sha = null;
+        if (resp.getStatusCode() == HttpTransfer.OK) {
+            final String body = resp.getResponseBody().trim();
+            if (!body.isEmpty()) {
+                sha = body.split("\\s+")[0];
+            }
+        }
+        return sha;
+    }
+
+    /**
+     * Ask only for the missing part of the file, if there is a partial
+     * file received earlier from this repository.
+     * @param req The request
+     * @return Size of the partial file, which is going to be resumed
+     * @throws IOException If fails
+     */
+    private long resume(final AsyncHttpClient.BoundRequestBuilder req)
+        throws IOException {
+        final File part = this.part();
+        final File tag = this.validator();
+        long size = 0L;
+        if (part.length() > 0L && tag.exists()) {
+            size = part.length();
+            req.addHeader("Range", String.format("bytes=%d-", size));
+            req.addHeader(
+                "If-Range", FileUtils.readFileToString(tag, HttpTransfer.UTF)
+            );
+            Logger.debug(this, "resuming %s from byte #%d", this.url, size);
+        }
+        return size;
+    }
+
+    /**
+     * Delete partial files and their validators in the directory of the
+     * target file, which either belong to the target file or were not
+     * modified for a day.
+     *
+     * <p>It lists the directory, so it runs only when a partial file was
+     * received, not with every request.
+     *
+     * @param prefix Prefix of names of files of the target file
+     */
+    private void purge(final String prefix) {
+        final File[] files = this.file.getParentFile().listFiles();
+        final long before = System.currentTimeMillis() - HttpTransfer.STALE;
+        if (files != null) {
+            for (final File left : files) {
+                final String name = left.getName();
+                if ((name.endsWith(".part") || name.endsWith(".part.tag"))
+                    && (name.startsWith(prefix)
+                    || left.lastModified() < before)) {
+                    FileUtils.deleteQuietly(left);
+                }
+            }
+        }
+    }
+
+    /**
+     * Partial file, where the content is received.
+     * @return File
+     */
+    private File part() {
+        return new File(
+            this.file.getParentFile(),
+            String.format(
+                "%s.%s.part", this.file.getName(),
+                this.repo.getId().replaceAll("[^\\w.-]", "_")
+            )
+        );
+    }
+
+    /**
+     * File with the validator of the partial file.
+     * @return File
+     */
+    private File validator() {
+        final File part = this.part();
+        return new File(
+            part.getParentFile(), String.format("%s.tag", part.getName())
+        );
+    }
+
+    /**
+     * Add authentication and proxy of the repository to the request.
+     * @param req The request
+     * @return The same request
+     */
+    private AsyncHttpClient.BoundRequestBuilder prepare(
+        final AsyncHttpClient.BoundRequestBuilder req) {
+        final Authentication auth = this.repo.getAuthentication();
+        if (auth != null && auth.getUsername() != null) {
+            req.setRealm(
+                new Realm.RealmBuilder()
+                    .setPrincipal(auth.getUsername())
+                    .setPassword(auth.getPassword())
+                    .setUsePreemptiveAuth(true)
+                    .setScheme(Realm.AuthScheme.BASIC)
+                    .build()
+            );
+        }
+        final Proxy proxy = this.repo.getProxy();
+        if (proxy != null) {
+            final Authentication pauth = proxy.getAuthentication();
+            if (pauth == null) {
+                req.setProxyServer(
+                    new ProxyServer(proxy.getHost(), proxy.getPort())
+                );
+            } else {
+                req.setProxyServer(
+                    new ProxyServer(
+                        proxy.getHost(), proxy.getPort(),
+                        pauth.getUsername(), pauth.getPassword()
+                    )
+                );
+            }
+        }
+        return req;
+    }
+
+    /**
+     * Make absolute URL of the file.
+     * @param remote The repository
+     * @param path Relative path
+     * @return URL
+     */
+    private static String url(final RemoteRepository remote, final URI path) {
+        final StringBuilder url = new StringBuilder(remote.getUrl());
+        if (url.charAt(url.length() - 1) != '/') {
+            url.append('/');
+        }
+        return url.append(path.toString()).toString();
+    }
+
+    /**
+     * Handler writing response body into the partial file.
+     */
+    private final class Sink implements AsyncHandler<Integer> {
+        /**
+         * Host of the connection.
+         */
+        private final transient String host;
+        /**
+         * Progress of the attempt.
+         */
+        private final transient Progress progress;
+        /**
+         * When the request was started, in milliseconds.
+         */
+        private final transient long begin;
+        /**
+         * Connection returned to the pool already?
+         */
+        private final transient AtomicBoolean released;
+        /**
+         * Released when the status is received or the request fails.
+         */
+        private final transient CountDownLatch status;
+        /**
+         * Digest of the content.
+         */
+        private final transient MessageDigest digest;
+        /**
+         * Stream to the partial file.
+         */
+        private transient OutputStream stream;
+        /**
+         * HTTP status code.
+         */
+        private transient int code;
+        /**
+         * Ctor.
+         * @param hst Host of the connection
+         * @param prgs Progress of the attempt
+         */
+        Sink(final String hst, final Progress prgs) {
+            this.host = hst;
+            this.progress = prgs;
+            this.begin = System.currentTimeMillis();
+            this.released = new AtomicBoolean();
+            this.status = new CountDownLatch(1);
+            try {
+                this.digest = MessageDigest.getInstance("SHA-1");
+            } catch (final NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        @Override
+        public void onThrowable(final Throwable error) {
+            this.close();
+            this.done();
+            if (this.status.getCount() > 0L) {
+                HttpTransfer.this.pool.health().failure(
+                    HttpTransfer.this.repo.getId()
+                );
+                this.status.countDown();
+            }
+            HttpTransfer.this.done.offer(HttpTransfer.this);
+        }
+        @Override
+        public AsyncHandler.STATE onStatusReceived(
+            final HttpResponseStatus stat) {
+            this.code = stat.getStatusCode();
+            final String rid = HttpTransfer.this.repo.getId();
+            if (this.code >= HttpTransfer.SERVER_ERROR) {
+                HttpTransfer.this.pool.health().failure(rid);
+            } else {
+                HttpTransfer.this.pool.health().success(
+                    rid, System.currentTimeMillis() - this.begin
+                );
+            }
+            this.status.countDown();
+            return AsyncHandler.STATE.CONTINUE;
+        }
+        @Override
+        public AsyncHandler.STATE onHeadersReceived(
+            final HttpResponseHeaders headers) throws IOException {
+            if (this.code < HttpTransfer.CLIENT_ERROR) {
+                this.started(headers);
+            }
+            if (HttpTransfer.this.file != null) {
+                if (this.code == HttpTransfer.OK) {
+                    this.restart(headers);
+                } else if (this.code == HttpTransfer.PARTIAL) {
+                    this.append(headers);
+                }
+            }
+            return AsyncHandler.STATE.CONTINUE;
+        }
+        @Override
+        public AsyncHandler.STATE onBodyPartReceived(
+            final HttpResponseBodyPart part) throws IOException {
+            if (this.stream != null) {
+                final byte[] bytes = part.getBodyPartBytes();
+                this.digest.update(bytes);
+                this.stream.write(bytes);
+                this.progress.progressed(bytes, bytes.length);
+            }
+            return AsyncHandler.STATE.CONTINUE;
+        }
+        @Override
+        public Integer onCompleted() {
+            this.close();
+            this.done();
+            HttpTransfer.this.done.offer(HttpTransfer.this);
+            return this.code;
+        }
+        /**
+         * Wait for the status.
+         * @param msec How long to wait
+         * @return TRUE if status received or request failed
+         * @throws InterruptedException If interrupted
+         */
+        public boolean responded(final long msec)
+            throws InterruptedException {
+            return this.status.await(msec, TimeUnit.MILLISECONDS);
+        }
+        /**
+         * HTTP status code.
+         * @return Code
+         */
+        public int code() {
+            return this.code;
+        }
+        /**
+         * SHA-1 of the received content.
+         * @return Hex digest
+         */
+        public String sha() {
+            final StringBuilder hex = new StringBuilder();
+            for (final byte bte : this.digest.digest()) {
+                hex.append(String.format("%02x", bte));
+            }
+            return hex.toString();
+        }
+        /**
+         * Return the connection to the pool, if not yet.
+         */
+        public void done() {
+            if (this.released.compareAndSet(false, true)) {
+                HttpTransfer.this.pool.release(this.host);
+            }
+        }
+        /**
+         * Move received content to the target file.
+         * @param target Target file
+         * @throws IOException If fails
+         */
+        public void move(final File target) throws IOException {
+            if (target.exists() && !target.delete()) {
+                throw new IOException(
+                    String.format("can't delete %s", target)
+                );
+            }
+            FileUtils.moveFile(HttpTransfer.this.part(), target);
+            FileUtils.deleteQuietly(HttpTransfer.this.validator());
+            HttpTransfer.this.purge(String.format("%s.", target.getName()));
+        }
+        /**
+         * Delete received content.
+         */
+        public void discard() {
+            this.close();
+            if (HttpTransfer.this.file != null) {
+                FileUtils.deleteQuietly(HttpTransfer.this.part());
+                FileUtils.deleteQuietly(HttpTransfer.this.validator());
+            }
+        }
+        /**
+         * Close the stream.
+         */
+        public void close() {
+            if (this.stream != null) {
+                try {
+                    this.stream.close();
+                } catch (final IOException ex) {
+                    Logger.warn(
+                        this, "can't close %s: %s",
+                        HttpTransfer.this.part(), ex
+                    );
+                }
+            }
+        }
+        /**
+         * Report the start of the transfer, with the size of the file.
+         * @param headers Response headers
+         * @throws IOException If cancelled by the listener
+         */
+        private void started(final HttpResponseHeaders headers)
+            throws IOException {
+            long start = 0L;
+            if (this.code == HttpTransfer.PARTIAL) {
+                start = HttpTransfer.this.offset;
+            }
+            long length = -1L;
+            final String header = headers.getHeaders()
+                .getFirstValue("Content-Length");
+            if (header != null && header.trim().matches("\\d+")) {
+                length = start + Long.parseLong(header.trim());
+            }
+            this.progress.started(start, length);
+        }
+        /**
+         * Receive the entire file from the beginning, saving its validator
+         * so that it can be resumed later.
+         * @param headers Response headers
+         * @throws IOException If fails
+         */
+        private void restart(final HttpResponseHeaders headers)
+            throws IOException {
+            final File dir = HttpTransfer.this.file.getParentFile();
+            if (dir.mkdirs()) {
+                Logger.debug(this, "%s created", dir);
+            }
+            final File tag = HttpTransfer.this.validator();
+            String valid = headers.getHeaders().getFirstValue("ETag");
+            if (valid == null || valid.startsWith("W/")) {
+                valid = headers.getHeaders().getFirstValue("Last-Modified");
+            }
+            if (valid == null) {
+                FileUtils.deleteQuietly(tag);
+            } else {
+                FileUtils.writeStringToFile(tag, valid, HttpTransfer.UTF);
+            }
+            this.stream = new FileOutputStream(HttpTransfer.this.part());
+        }
+        /**
+         * Append the rest of the file to the partial file received earlier.
+         * @param headers Response headers
+         * @throws IOException If fails
+         */
+        private void append(final HttpResponseHeaders headers)
+            throws IOException {
+            final String range = headers.getHeaders()
+                .getFirstValue("Content-Range");
+            final File part = HttpTransfer.this.part();
+            if (range == null || !range.startsWith(
+                String.format("bytes %d-", HttpTransfer.this.offset)
+            )) {
+                FileUtils.deleteQuietly(HttpTransfer.this.validator());
+                throw new IOException(
+                    String.format(
+                        "unexpected range '%s' at %s, while %d bytes in %s",
+                        range, HttpTransfer.this.url,
+                        HttpTransfer.this.offset, part
+                    )
+                );
+            }
+            final InputStream input = new FileInputStream(part);
+            try {
+                final byte[] buf = new byte[HttpTransfer.BUFFER];
+                while (true) {
+                    final int len = input.read(buf);
+                    if (len < 0) {
+                        break;
+                    }
+                    this.digest.update(buf, 0, len);
+                }
+            } finally {
+                input.close();
+            }
+            this.stream = new FileOutputStream(part, true);
+        }
+    }
+
+}
@@ -31,14 +31,19 @@ package com.jcabi.aether;
 
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
+import com.jcabi.log.Logger;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.sonatype.aether.transfer.AbstractTransferListener;
+import org.sonatype.aether.transfer.TransferCancelledException;
 import org.sonatype.aether.transfer.TransferEvent;
 
 /**
  * Logger of transfer events.
  *
+ * <p>Transfers are cancelled when the deadline of the resolution is
+ * missed, see {@link Deadline}.
+ *
  * @author Yegor Bugayenko (yegor@tpc2.com)
  * @version $Id$
  * @since 0.1.6
@@ -48,6 +53,46 @@ import org.sonatype.aether.transfer.TransferEvent;
 @EqualsAndHashCode(callSuper = false)
 final class LogTransferListener extends AbstractTransferListener {
 
+    /**
+     * Deadline of the resolution.
+     */
+    private final transient Deadline deadline;
+
+    /**
+     * Public ctor, without a deadline.
+     */
+    LogTransferListener() {
+        this(Deadline.NEVER);
+    }
+
+    /**
+     * Public ctor.
+     * @param dline Deadline of the resolution
+     * @since 1.0
+     */
+    LogTransferListener(final Deadline dline) {
+        super();
+        this.deadline = dline;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void transferInitiated(final TransferEvent event)
+        throws TransferCancelledException {
+        this.check(event);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void transferProgressed(final TransferEvent event)
+        throws TransferCancelledException {
+        this.check(event);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -75,4 +120,22 @@ final class LogTransferListener extends AbstractTransferListener {
         // nothing to do
     }
 
+    /**
+     * Cancel the transfer if the deadline is missed.
+     * @param event The event
+     * @throws TransferCancelledException If it is
+     */
+    private void check(final TransferEvent event)
+        throws TransferCancelledException {
+        if (this.deadline.expired()) {
+            throw new TransferCancelledException(
+                Logger.format(
+                    "%s cancelled, deadline of %[nano]s missed",
+                    event.getResource().getResourceName(),
+                    this.deadline.timeout()
+                )
+            );
+        }
+    }
+
 }
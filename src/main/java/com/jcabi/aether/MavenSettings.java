@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.settings.SettingsUtils;
+import org.apache.maven.settings.TrackableBase;
+import org.apache.maven.settings.building.DefaultSettingsBuilderFactory;
+import org.apache.maven.settings.building.DefaultSettingsBuildingRequest;
+import org.apache.maven.settings.building.SettingsBuilder;
+import org.apache.maven.settings.building.SettingsBuildingException;
+import org.apache.maven.settings.building.SettingsBuildingRequest;
+import org.apache.maven.settings.building.SettingsBuildingResult;
+
+/**
+ * Maven settings, from user, global and interpolated settings files.
+ *
+ * <p>The user settings file is {@code ~/.m2/settings.xml}, unless
+ * {@code org.apache.maven.user-settings} system property points to
+ * another one. The global one is set by
+ * {@code org.apache.maven.global-settings} system property. The
+ * interpolated one, {@code interpolated-settings.xml}, is made by Maven
+ * Invoker Plugin in the parent of the current directory.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString
+@EqualsAndHashCode
+final class MavenSettings {
+
+    /**
+     * Name of interpolated settings file.
+     */
+    private static final String INTERPOLATED = "interpolated-settings.xml";
+
+    /**
+     * Load effective settings from all files.
+     * @return Maven settings
+     */
+    public Settings load() {
+        final SettingsBuilder builder =
+            new DefaultSettingsBuilderFactory().newInstance();
+        final SettingsBuildingRequest request =
+            new DefaultSettingsBuildingRequest();
+        request.setUserSettingsFile(MavenSettings.user());
+        final File global = MavenSettings.global();
+        if (global != null) {
+            request.setGlobalSettingsFile(global);
+        }
+        final SettingsBuildingResult result;
+        try {
+            result = builder.build(request);
+        } catch (final SettingsBuildingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return MavenSettings.invokers(builder, result);
+    }
+
+    /**
+     * Files the settings are loaded from, existing or not.
+     * @return Files
+     */
+    public Collection<File> files() {
+        final Collection<File> files = new ArrayList<File>(3);
+        files.add(MavenSettings.user().getAbsoluteFile());
+        final File global = MavenSettings.global();
+        if (global != null) {
+            files.add(global.getAbsoluteFile());
+        }
+        files.add(MavenSettings.interpolated().getAbsoluteFile());
+        return files;
+    }
+
+    /**
+     * User settings file.
+     * @return File
+     */
+    private static File user() {
+        final String user =
+            System.getProperty("org.apache.maven.user-settings");
+        final File file;
+        if (user == null) {
+            file = new File(
+                new File(
+                    System.getProperty("user.home")
+                ).getAbsoluteFile(),
+                "/.m2/settings.xml"
+            );
+        } else {
+            file = new File(user);
+        }
+        return file;
+    }
+
+    /**
+     * Global settings file.
+     * @return File or NULL if not set
+     */
+    private static File global() {
+        final String global =
+            System.getProperty("org.apache.maven.global-settings");
+        File file = null;
+        if (global != null) {
+            file = new File(global);
+        }
+        return file;
+    }
+
+    /**
+     * Interpolated settings file of Maven Invoker Plugin.
+     * @return File
+     */
+    private static File interpolated() {
+        return new File(
+            new File(System.getProperty("user.dir"))
+                .getAbsoluteFile().getParentFile(),
+            MavenSettings.INTERPOLATED
+        );
+    }
+
+    /**
+     * Apply maven invoker settings.
+     * @param builder Settings builder.
+     * @param result User and global settings.
+     * @return User, global and invoker settings.
+     */
+    private static Settings invokers(final SettingsBuilder builder,
+        final SettingsBuildingResult result) {
+        Settings main = result.getEffectiveSettings();
+        final File file = MavenSettings.interpolated();
+        if (file.isFile()) {
+            final DefaultSettingsBuildingRequest irequest =
+                new DefaultSettingsBuildingRequest();
+            irequest.setUserSettingsFile(file);
+            try {
+                final Settings isettings = builder.build(irequest)
+                    .getEffectiveSettings();
+                SettingsUtils.merge(isettings, main, TrackableBase.USER_LEVEL);
+                main = isettings;
+            } catch (final SettingsBuildingException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return main;
+    }
+
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+
+/**
+ * In-memory cache of results parsed from {@code maven-metadata.xml},
+ * shared by all sessions of one repository system.
+ *
+ * <p>Every result expires according to update policies of repositories
+ * it was resolved from, the strictest of them wins: {@code always}
+ * means the result expires immediately, {@code never} means it never
+ * expires, {@code daily} means it expires at the next midnight and
+ * {@code interval:N} means in N minutes. The update policy of the
+ * session, if set, overrides policies of repositories. Unknown policies
+ * are treated as {@code daily}, as Maven does. Results resolved without
+ * remote repositories expire immediately.
+ *
+ * <p>Expired results are kept for a while, until replaced by fresh ones,
+ * so they can be used while fresh ones are resolved, see
+ * {@link Snapshots#stale(long)}. Results expired longer than that are
+ * dropped, and so are the least recently used results, when there are
+ * too many of them.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "entries")
+@EqualsAndHashCode(of = "entries")
+final class MetadataCache {
+
+    /**
+     * Prefix of interval policies.
+     */
+    private static final String INTERVAL =
+        String.format("%s:", RepositoryPolicy.UPDATE_POLICY_INTERVAL);
+
+    /**
+     * Default maximum number of results.
+     */
+    private static final int MAX = 10000;
+
+    /**
+     * Default time to keep expired results, in milliseconds.
+     */
+    private static final long KEEP = TimeUnit.DAYS.toMillis(1L);
+
+    /**
+     * Cached results, by keys, the least recently used first.
+     */
+    private final transient MetadataCache.Entries entries;
+
+    /**
+     * How long expired results are kept, in milliseconds.
+     */
+    private final transient long keep;
+
+    /**
+     * When expired results were dropped last time, in milliseconds.
+     */
+    private transient long swept;
+
+    /**
+     * Ctor, with default limits.
+     */
+    MetadataCache() {
+        this(MetadataCache.MAX, MetadataCache.KEEP);
+    }
+
+    /**
+     * Ctor.
+     * @param max Maximum number of results
+     * @param msec How long expired results are kept, in milliseconds
+     */
+    MetadataCache(final int max, final long msec) {
+        this.entries = new MetadataCache.Entries(max);
+        this.keep = msec;
+    }
+
+    /**
+     * Get cached result.
+     * @param key The key
+     * @param now Current time, in milliseconds
+     * @return The result or NULL if absent or expired
+     */
+    public Object get(final String key, final long now) {
+        return this.get(key, now, 0L);
+    }
+
+    /**
+     * Get cached result, which may be expired not longer than the given
+     * time ago.
+     * @param key The key
+     * @param now Current time, in milliseconds
+     * @param stale Maximum staleness, in milliseconds
+     * @return The result or NULL if absent or expired too long ago
+     */
+    public synchronized Object get(final String key, final long now,
+        final long stale) {
+        final MetadataCache.Entry entry = this.entries.get(key);
+        Object value = null;
+        if (entry != null) {
+            if (entry.expires <= now - this.keep) {
+                this.entries.remove(key);
+            } else if (entry.expires > now - stale) {
+                value = entry.value;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Cache the result, replacing the previous one.
+     * @param key The key
+     * @param value The result
+     * @param expires When it expires, in milliseconds
+     */
+    public synchronized void put(final String key, final Object value,
+        final long expires) {
+        this.entries.put(key, new MetadataCache.Entry(value, expires));
+        final long now = System.currentTimeMillis();
+        if (now - this.swept > TimeUnit.MINUTES.toMillis(1L)) {
+            this.swept = now;
+            final Iterator<MetadataCache.Entry> iterator =
+                this.entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expires <= now - this.keep) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * How many results are cached.
+     * @return Number of results
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Key of the result.
+     * @param session The session
+     * @param artifact Artifact being resolved
+     * @param repos Repositories it is resolved from
+     * @param context Request context
+     * @return The key
+     */
+    public static String key(final RepositorySystemSession session,
+        final Artifact artifact, final Collection<RemoteRepository> repos,
+        final String context) {
+        final StringBuilder key = new StringBuilder(0)
+            .append(session.getLocalRepository().getBasedir())
+            .append(' ').append(artifact)
+            .append(' ').append(context)
+            .append(' ').append(
+                session.getConfigProperties().get(Routes.BYPASS)
+            );
+        for (final RemoteRepository repo : repos) {
+            key.append(' ').append(repo.getId())
+                .append('@').append(repo.getUrl());
+        }
+        return key.toString();
+    }
+
+    /**
+     * When results resolved from these repositories expire.
+     * @param session The session
+     * @param repos Repositories
+     * @param snapshot Snapshot policies matter
+     * @param release Release policies matter
+     * @param now Current time, in milliseconds
+     * @return Time of expiration, in milliseconds
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    public static long expires(final RepositorySystemSession session,
+        final Collection<RemoteRepository> repos, final boolean snapshot,
+        final boolean release, final long now) {
+        long expires = Long.MAX_VALUE;
+        if (repos.isEmpty()) {
+            expires = now;
+        } else if (session.getUpdatePolicy() == null) {
+            for (final RemoteRepository repo : repos) {
+                if (snapshot) {
+                    expires = Math.min(
+                        expires,
+                        MetadataCache.expires(repo.getPolicy(true), now)
+                    );
+                }
+                if (release) {
+                    expires = Math.min(
+                        expires,
+                        MetadataCache.expires(repo.getPolicy(false), now)
+                    );
+                }
+            }
+        } else {
+            expires = MetadataCache.expires(session.getUpdatePolicy(), now);
+        }
+        return expires;
+    }
+
+    /**
+     * When results expire by this update policy.
+     * @param policy Update policy, e.g. "daily" or "interval:30"
+     * @param now Current time, in milliseconds
+     * @return Time of expiration, in milliseconds
+     */
+    public static long expires(final String policy, final long now) {
+        final long expires;
+        if (RepositoryPolicy.UPDATE_POLICY_ALWAYS.equals(policy)) {
+            expires = now;
+        } else if (RepositoryPolicy.UPDATE_POLICY_NEVER.equals(policy)) {
+            expires = Long.MAX_VALUE;
+        } else if (policy != null && policy.startsWith(MetadataCache.INTERVAL)
+            && policy.substring(MetadataCache.INTERVAL.length())
+                .matches("\\d+")) {
+            expires = now + TimeUnit.MINUTES.toMillis(
+                Long.parseLong(
+                    policy.substring(MetadataCache.INTERVAL.length())
+                )
+            );
+        } else {
+            final Calendar midnight = Calendar.getInstance();
+            midnight.setTimeInMillis(now);
+            midnight.set(Calendar.HOUR_OF_DAY, 0);
+            midnight.set(Calendar.MINUTE, 0);
+            midnight.set(Calendar.SECOND, 0);
+            midnight.set(Calendar.MILLISECOND, 0);
+            midnight.add(Calendar.DAY_OF_MONTH, 1);
+            expires = midnight.getTimeInMillis();
+        }
+        return expires;
+    }
+
+    /**
+     * When results expire by the policy of repository.
+     * @param policy Policy of repository
+     * @param now Current time, in milliseconds
+     * @return Time of expiration, in milliseconds
+     */
+    private static long expires(final RepositoryPolicy policy,
+        final long now) {
+        long expires = Long.MAX_VALUE;
+        if (policy.isEnabled()) {
+            expires = MetadataCache.expires(policy.getUpdatePolicy(), now);
+        }
+        return expires;
+    }
+
+    /**
+     * Results in access order, with limited number of them.
+     */
+    private static final class Entries
+        extends LinkedHashMap<String, MetadataCache.Entry> {
+        /**
+         * Serialization marker.
+         */
+        private static final long serialVersionUID = 0x4f3a12e5b7c9d801L;
+        /**
+         * Maximum number of results.
+         */
+        private final transient int max;
+        /**
+         * Ctor.
+         * @param limit Maximum number of results
+         */
+        Entries(final int limit) {
+            // @checkstyle MagicNumber (1 line)
+            super(16, 0.75f, true);
+            this.max = limit;
+        }
+        @Override
+        protected boolean removeEldestEntry(
+            final Map.Entry<String, MetadataCache.Entry> eldest) {
+            return this.size() > this.max;
+        }
+    }
+
+    /**
+     * Cached result.
+     */
+    private static final class Entry {
+        /**
+         * The result.
+         */
+        private final transient Object value;
+        /**
+         * When it expires, in milliseconds.
+         */
+        private final transient long expires;
+        /**
+         * Ctor.
+         * @param val The result
+         * @param exp When it expires
+         */
+        Entry(final Object val, final long exp) {
+            this.value = val;
+            this.expires = exp;
+        }
+    }
+
+}
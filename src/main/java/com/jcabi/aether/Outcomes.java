@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.transfer.ArtifactNotFoundException;
+import org.sonatype.aether.transfer.ArtifactTransferException;
+import org.sonatype.aether.transfer.MetadataNotFoundException;
+import org.sonatype.aether.transfer.MetadataTransferException;
+
+/**
+ * Outcomes of transfers, reported to downloads and uploads of
+ * a repository connector.
+ *
+ * <p>A {@link FileNotFoundException} is reported as "not found", any other
+ * exception as a failed transfer.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "repo")
+@EqualsAndHashCode(of = "repo")
+final class Outcomes {
+
+    /**
+     * The repository.
+     */
+    private final transient RemoteRepository repo;
+
+    /**
+     * Ctor.
+     * @param remote The repository
+     */
+    Outcomes(final RemoteRepository remote) {
+        this.repo = remote;
+    }
+
+    /**
+     * Report the outcome of the transfer to the download.
+     * @param download Artifact or metadata download
+     * @param error Exception or NULL if succeeded
+     */
+    public void report(final Object download, final Exception error) {
+        if (download instanceof ArtifactDownload) {
+            final ArtifactDownload dnl = ArtifactDownload.class.cast(download);
+            if (error instanceof FileNotFoundException) {
+                dnl.setException(
+                    new ArtifactNotFoundException(dnl.getArtifact(), this.repo)
+                );
+            } else if (error != null) {
+                dnl.setException(
+                    new ArtifactTransferException(
+                        dnl.getArtifact(), this.repo, error
+                    )
+                );
+            }
+        } else {
+            final MetadataDownload dnl = MetadataDownload.class.cast(download);
+            if (error instanceof FileNotFoundException) {
+                dnl.setException(
+                    new MetadataNotFoundException(dnl.getMetadata(), this.repo)
+                );
+            } else if (error != null) {
+                dnl.setException(
+                    new MetadataTransferException(
+                        dnl.getMetadata(), this.repo, error
+                    )
+                );
+            }
+        }
+    }
+
+    /**
+     * Fail all uploads, since they are not supported.
+     * @param artifacts Artifact uploads or NULL
+     * @param metadatas Metadata uploads or NULL
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void unsupported(
+        final Collection<? extends ArtifactUpload> artifacts,
+        final Collection<? extends MetadataUpload> metadatas) {
+        final IOException error = new IOException(
+            "uploads are not supported by jcabi-aether"
+        );
+        if (artifacts != null) {
+            for (final ArtifactUpload upl : artifacts) {
+                upl.setException(
+                    new ArtifactTransferException(
+                        upl.getArtifact(), this.repo, error
+                    )
+                );
+            }
+        }
+        if (metadatas != null) {
+            for (final MetadataUpload upl : metadatas) {
+                upl.setException(
+                    new MetadataTransferException(
+                        upl.getMetadata(), this.repo, error
+                    )
+                );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,549 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.ToString;
+import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.SessionListener;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.proxy.ProxyInfo;
+import org.apache.maven.wagon.proxy.ProxyInfoProvider;
+import org.apache.maven.wagon.repository.Repository;
+import org.apache.maven.wagon.resource.Resource;
+
+/**
+ * Wagon borrowing connected wagons from a {@link WagonPool}.
+ *
+ * <p>When connected, it takes an idle wagon already connected to the same
+ * repository from the pool, or connects a new one. When disconnected or
+ * released, the wagon goes back to the pool, still connected, unless any
+ * of its transfers failed, since its connection may be broken. Timeouts,
+ * interactivity and listeners are applied to the borrowed wagon for as
+ * long as it is borrowed.
+ *
+ * <p>Files are downloaded by {@link S3Ranges}, if possible, and then
+ * replayed to transfer listeners, so that they can calculate checksums
+ * of them, exactly as if they were downloaded by the wagon.
+ *
+ * <p>The class is not thread-safe, like any other wagon.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ * @checkstyle ClassDataAbstractionCoupling (500 lines)
+ */
+@ToString(of = { "key", "origin" })
+@SuppressWarnings({ "PMD.TooManyMethods", "PMD.ExcessivePublicCount" })
+final class PooledWagon implements Wagon {
+
+    /**
+     * The pool.
+     */
+    private final transient WagonPool pool;
+
+    /**
+     * Parallel downloads by ranges.
+     */
+    private final transient S3Ranges ranges;
+
+    /**
+     * Transfer listeners.
+     */
+    private final transient Collection<TransferListener> transfers =
+        new CopyOnWriteArrayList<TransferListener>();
+
+    /**
+     * Session listeners.
+     */
+    private final transient Collection<SessionListener> sessions =
+        new CopyOnWriteArrayList<SessionListener>();
+
+    /**
+     * Connection timeout.
+     */
+    private transient int timeout = Wagon.DEFAULT_CONNECTION_TIMEOUT;
+
+    /**
+     * Read timeout.
+     */
+    private transient int rtimeout = Wagon.DEFAULT_READ_TIMEOUT;
+
+    /**
+     * Interactive?
+     */
+    private transient boolean interactive = true;
+
+    /**
+     * Key of the repository, when connected.
+     */
+    private transient String key;
+
+    /**
+     * Borrowed wagon, when connected.
+     */
+    private transient Wagon origin;
+
+    /**
+     * Did any transfer of the borrowed wagon fail?
+     */
+    private transient boolean failed;
+
+    /**
+     * Repository, when connected.
+     */
+    private transient Repository repo;
+
+    /**
+     * Authentication, when connected.
+     */
+    private transient AuthenticationInfo auth;
+
+    /**
+     * Ctor.
+     * @param wpool The pool
+     * @param rngs Parallel downloads by ranges
+     */
+    PooledWagon(final WagonPool wpool, final S3Ranges rngs) {
+        this.pool = wpool;
+        this.ranges = rngs;
+    }
+
+    @Override
+    public void get(final String resource, final File dest)
+        throws TransferFailedException, ResourceDoesNotExistException,
+        AuthorizationException {
+        final Wagon wagon = this.origin();
+        try {
+            final long size = this.ranges.get(
+                this.repo, this.auth, resource, dest
+            );
+            if (size < 0L) {
+                wagon.get(resource, dest);
+            } else {
+                this.replay(resource, dest, size);
+            }
+        } catch (final TransferFailedException ex) {
+            throw this.fail(ex);
+        }
+    }
+
+    @Override
+    public boolean getIfNewer(final String resource, final File dest,
+        final long stamp) throws TransferFailedException,
+        ResourceDoesNotExistException, AuthorizationException {
+        try {
+            return this.origin().getIfNewer(resource, dest, stamp);
+        } catch (final TransferFailedException ex) {
+            throw this.fail(ex);
+        }
+    }
+
+    @Override
+    public void put(final File source, final String dest)
+        throws TransferFailedException, ResourceDoesNotExistException,
+        AuthorizationException {
+        try {
+            this.origin().put(source, dest);
+        } catch (final TransferFailedException ex) {
+            throw this.fail(ex);
+        }
+    }
+
+    @Override
+    public void putDirectory(final File source, final String dest)
+        throws TransferFailedException, ResourceDoesNotExistException,
+        AuthorizationException {
+        try {
+            this.origin().putDirectory(source, dest);
+        } catch (final TransferFailedException ex) {
+            throw this.fail(ex);
+        }
+    }
+
+    @Override
+    public boolean resourceExists(final String resource)
+        throws TransferFailedException, AuthorizationException {
+        try {
+            return this.origin().resourceExists(resource);
+        } catch (final TransferFailedException ex) {
+            throw this.fail(ex);
+        }
+    }
+
+    @Override
+    public List<String> getFileList(final String dir)
+        throws TransferFailedException, ResourceDoesNotExistException,
+        AuthorizationException {
+        try {
+            return this.origin().getFileList(dir);
+        } catch (final TransferFailedException ex) {
+            throw this.fail(ex);
+        }
+    }
+
+    @Override
+    public boolean supportsDirectoryCopy() {
+        return this.origin != null && this.origin.supportsDirectoryCopy();
+    }
+
+    @Override
+    public Repository getRepository() {
+        Repository repo = null;
+        if (this.origin != null) {
+            repo = this.origin.getRepository();
+        }
+        return repo;
+    }
+
+    @Override
+    public void connect(final Repository source)
+        throws ConnectionException, AuthenticationException {
+        this.connect(source, null, (ProxyInfoProvider) null);
+    }
+
+    @Override
+    public void connect(final Repository source, final ProxyInfo proxy)
+        throws ConnectionException, AuthenticationException {
+        this.connect(source, null, proxy);
+    }
+
+    @Override
+    public void connect(final Repository source,
+        final ProxyInfoProvider proxy)
+        throws ConnectionException, AuthenticationException {
+        this.connect(source, null, proxy);
+    }
+
+    @Override
+    public void connect(final Repository source,
+        final AuthenticationInfo info)
+        throws ConnectionException, AuthenticationException {
+        this.connect(source, info, (ProxyInfoProvider) null);
+    }
+
+    @Override
+    public void connect(final Repository source,
+        final AuthenticationInfo info, final ProxyInfo proxy)
+        throws ConnectionException, AuthenticationException {
+        this.connect(source, info, new PooledWagon.FixedProxy(proxy));
+    }
+
+    @Override
+    public void connect(final Repository source,
+        final AuthenticationInfo info, final ProxyInfoProvider proxy)
+        throws ConnectionException, AuthenticationException {
+        if (this.origin != null) {
+            this.disconnect();
+        }
+        ProxyInfo through = null;
+        if (proxy != null) {
+            through = proxy.getProxyInfo(source.getProtocol());
+        }
+        final String name = WagonPool.key(source, info, through);
+        Wagon wagon = this.pool.take(name);
+        if (wagon == null) {
+            wagon = this.pool.create();
+            this.attach(wagon);
+            try {
+                wagon.connect(source, info, proxy);
+            } catch (final ConnectionException ex) {
+                this.detach(wagon);
+                throw ex;
+            } catch (final AuthenticationException ex) {
+                this.detach(wagon);
+                throw ex;
+            }
+        } else {
+            this.attach(wagon);
+        }
+        this.key = name;
+        this.failed = false;
+        this.origin = wagon;
+        this.repo = source;
+        this.auth = info;
+    }
+
+    @Override
+    @Deprecated
+    public void openConnection()
+        throws ConnectionException, AuthenticationException {
+        this.origin().openConnection();
+    }
+
+    @Override
+    public void disconnect() {
+        if (this.origin != null) {
+            this.detach(this.origin);
+            if (this.failed) {
+                this.pool.discard(this.origin);
+            } else {
+                this.pool.put(this.key, this.origin);
+            }
+            this.origin = null;
+            this.key = null;
+            this.repo = null;
+            this.auth = null;
+        }
+    }
+
+    @Override
+    public void setTimeout(final int msec) {
+        this.timeout = msec;
+        if (this.origin != null) {
+            this.origin.setTimeout(msec);
+        }
+    }
+
+    @Override
+    public int getTimeout() {
+        return this.timeout;
+    }
+
+    @Override
+    public void setReadTimeout(final int msec) {
+        this.rtimeout = msec;
+        if (this.origin != null) {
+            this.origin.setReadTimeout(msec);
+        }
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return this.rtimeout;
+    }
+
+    @Override
+    public void addSessionListener(final SessionListener listener) {
+        this.sessions.add(listener);
+        if (this.origin != null) {
+            this.origin.addSessionListener(listener);
+        }
+    }
+
+    @Override
+    public void removeSessionListener(final SessionListener listener) {
+        this.sessions.remove(listener);
+        if (this.origin != null) {
+            this.origin.removeSessionListener(listener);
+        }
+    }
+
+    @Override
+    public boolean hasSessionListener(final SessionListener listener) {
+        return this.sessions.contains(listener);
+    }
+
+    @Override
+    public void addTransferListener(final TransferListener listener) {
+        this.transfers.add(listener);
+        if (this.origin != null) {
+            this.origin.addTransferListener(listener);
+        }
+    }
+
+    @Override
+    public void removeTransferListener(final TransferListener listener) {
+        this.transfers.remove(listener);
+        if (this.origin != null) {
+            this.origin.removeTransferListener(listener);
+        }
+    }
+
+    @Override
+    public boolean hasTransferListener(final TransferListener listener) {
+        return this.transfers.contains(listener);
+    }
+
+    @Override
+    public boolean isInteractive() {
+        return this.interactive;
+    }
+
+    @Override
+    public void setInteractive(final boolean flag) {
+        this.interactive = flag;
+        if (this.origin != null) {
+            this.origin.setInteractive(flag);
+        }
+    }
+
+    /**
+     * Borrowed wagon.
+     * @return Wagon
+     */
+    private Wagon origin() {
+        if (this.origin == null) {
+            throw new IllegalStateException("wagon is not connected");
+        }
+        return this.origin;
+    }
+
+    /**
+     * Remember that a transfer of the borrowed wagon failed, so that it
+     * is discarded instead of being returned to the pool.
+     * @param error The failure
+     * @return The same failure
+     */
+    private TransferFailedException fail(final TransferFailedException error) {
+        this.failed = true;
+        return error;
+    }
+
+    /**
+     * Apply our settings and listeners to the borrowed wagon.
+     * @param wagon The wagon
+     */
+    private void attach(final Wagon wagon) {
+        wagon.setTimeout(this.timeout);
+        wagon.setReadTimeout(this.rtimeout);
+        wagon.setInteractive(this.interactive);
+        for (final TransferListener listener : this.transfers) {
+            wagon.addTransferListener(listener);
+        }
+        for (final SessionListener listener : this.sessions) {
+            wagon.addSessionListener(listener);
+        }
+    }
+
+    /**
+     * Remove our listeners from the borrowed wagon.
+     * @param wagon The wagon
+     */
+    private void detach(final Wagon wagon) {
+        for (final TransferListener listener : this.transfers) {
+            wagon.removeTransferListener(listener);
+        }
+        for (final SessionListener listener : this.sessions) {
+            wagon.removeSessionListener(listener);
+        }
+    }
+
+    /**
+     * Report the downloaded file to transfer listeners, as if it was
+     * being downloaded now.
+     * @param resource Path of the file in the repository
+     * @param dest The file
+     * @param size Size of the file
+     * @throws TransferFailedException If fails to read the file
+     */
+    private void replay(final String resource, final File dest,
+        final long size) throws TransferFailedException {
+        final Resource res = new Resource(resource);
+        res.setContentLength(size);
+        final TransferEvent event = this.event(
+            res, dest, TransferEvent.TRANSFER_PROGRESS
+        );
+        for (final TransferListener listener : this.transfers) {
+            listener.transferInitiated(
+                this.event(res, dest, TransferEvent.TRANSFER_INITIATED)
+            );
+            listener.transferStarted(
+                this.event(res, dest, TransferEvent.TRANSFER_STARTED)
+            );
+        }
+        try {
+            final InputStream input = new FileInputStream(dest);
+            try {
+                // @checkstyle MagicNumber (1 line)
+                final byte[] buf = new byte[8192];
+                while (true) {
+                    final int len = input.read(buf);
+                    if (len < 0) {
+                        break;
+                    }
+                    for (final TransferListener listener : this.transfers) {
+                        listener.transferProgress(event, buf, len);
+                    }
+                }
+            } finally {
+                input.close();
+            }
+        } catch (final IOException ex) {
+            throw new TransferFailedException(dest.toString(), ex);
+        }
+        for (final TransferListener listener : this.transfers) {
+            listener.transferCompleted(
+                this.event(res, dest, TransferEvent.TRANSFER_COMPLETED)
+            );
+        }
+    }
+
+    /**
+     * Make transfer event of a download.
+     * @param res The resource
+     * @param dest The file
+     * @param type Type of the event
+     * @return Event
+     */
+    private TransferEvent event(final Resource res, final File dest,
+        final int type) {
+        final TransferEvent event = new TransferEvent(
+            this, res, type, TransferEvent.REQUEST_GET
+        );
+        event.setLocalFile(dest);
+        return event;
+    }
+
+    /**
+     * Provider of the same proxy for all protocols.
+     */
+    private static final class FixedProxy implements ProxyInfoProvider {
+        /**
+         * The proxy or NULL.
+         */
+        private final transient ProxyInfo proxy;
+        /**
+         * Ctor.
+         * @param info The proxy or NULL
+         */
+        FixedProxy(final ProxyInfo info) {
+            this.proxy = info;
+        }
+        @Override
+        public ProxyInfo getProxyInfo(final String protocol) {
+            return this.proxy;
+        }
+    }
+
+}
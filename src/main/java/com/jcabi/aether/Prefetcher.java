@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Background resolutions, which give way to foreground ones.
+ *
+ * <p>Resolutions run one by one in a daemon thread of the lowest priority.
+ * A background resolution starts only when it can take the lock of the
+ * local repository immediately, so it never waits in line with foreground
+ * resolutions, and it holds the lock for one root artifact at a time.
+ * Artifacts already queued, or being resolved in foreground, are skipped.
+ *
+ * <p>A background resolution gives way to a foreground one, which has to
+ * wait for the lock, see {@link #yield()}: the background thread is
+ * interrupted, exactly as by a deadline, and releases the lock. The
+ * resolution starts again once the lock is free, with all files
+ * downloaded so far already in the local repository.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "queued")
+@EqualsAndHashCode(of = "lock")
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class Prefetcher {
+
+    /**
+     * Pause between attempts to take the lock, in milliseconds.
+     */
+    private static final long PAUSE = 100L;
+
+    /**
+     * Lock of the local repository.
+     */
+    private final transient ReentrantLock lock;
+
+    /**
+     * Keys of queued resolutions.
+     */
+    private final transient Set<String> queued;
+
+    /**
+     * Numbers of foreground resolutions, by keys.
+     */
+    private final transient ConcurrentMap<String, AtomicInteger> active;
+
+    /**
+     * Background thread.
+     */
+    private final transient ExecutorService executor;
+
+    /**
+     * The thread running the background resolution, or NULL if it is not
+     * running now.
+     */
+    private transient Thread worker;
+
+    /**
+     * Did the current background resolution give way to a foreground one?
+     */
+    private transient boolean yielded;
+
+    /**
+     * Ctor.
+     * @param lck Lock of the local repository
+     */
+    Prefetcher(final ReentrantLock lck) {
+        this.lock = lck;
+        this.queued = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>(0)
+        );
+        this.active = new ConcurrentHashMap<String, AtomicInteger>(0);
+        this.executor = Executors.newSingleThreadExecutor(
+            new VerboseThreads("prefetch", true, Thread.MIN_PRIORITY)
+        );
+    }
+
+    /**
+     * Queue background resolution, unless it's queued already.
+     * @param key Key of the resolution, e.g. coordinates of the artifact
+     * @param task The resolution
+     */
+    public void submit(final String key, final Callable<?> task) {
+        if (this.queued.add(key)) {
+            this.executor.submit(
+                new VerboseRunnable(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            Prefetcher.this.run(key, task);
+                        }
+                    },
+                    true, false
+                )
+            );
+        }
+    }
+
+    /**
+     * Foreground resolution started.
+     * @param key Key of the resolution
+     */
+    public void started(final String key) {
+        this.active.putIfAbsent(key, new AtomicInteger());
+        this.active.get(key).incrementAndGet();
+    }
+
+    /**
+     * Foreground resolution finished.
+     * @param key Key of the resolution
+     */
+    public void finished(final String key) {
+        final AtomicInteger count = this.active.get(key);
+        if (count != null && count.decrementAndGet() <= 0) {
+            this.active.remove(key, count);
+        }
+    }
+
+    /**
+     * Stop the background thread, dropping queued resolutions and
+     * interrupting the running one.
+     */
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Make the background resolution give way, if it's running, since
+     * the current thread is going to wait for the lock.
+     *
+     * <p>Nothing happens if it is called by the background resolution
+     * itself.
+     */
+    public void yield() {
+        synchronized (this.queued) {
+            if (this.worker != null
+                && !this.worker.equals(Thread.currentThread())) {
+                this.yielded = true;
+                this.worker.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Take the lock, if it's free and nobody waits for it.
+     * @return TRUE if taken
+     */
+    private boolean acquire() {
+        return !this.lock.hasQueuedThreads() && this.lock.tryLock();
+    }
+
+    /**
+     * Run the resolution when the lock is free, and again after it gives
+     * way to a foreground one.
+     * @param key Key of the resolution
+     * @param task The resolution
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void run(final String key, final Callable<?> task) {
+        try {
+            boolean done = false;
+            while (!done) {
+                while (!this.active.containsKey(key) && !this.acquire()) {
+                    TimeUnit.MILLISECONDS.sleep(Prefetcher.PAUSE);
+                }
+                if (this.lock.isHeldByCurrentThread()) {
+                    done = this.attempt(key, task);
+                } else {
+                    Logger.debug(this, "%s is resolved in foreground", key);
+                    done = true;
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        // @checkstyle IllegalCatch (1 line)
+        } catch (final Exception ex) {
+            Logger.warn(
+                this, "failed to prefetch %s: %s", key, ex.getMessage()
+            );
+        } finally {
+            this.queued.remove(key);
+        }
+    }
+
+    /**
+     * Run the resolution once, with the lock taken already, and release
+     * the lock.
+     * @param key Key of the resolution
+     * @param task The resolution
+     * @return TRUE if done, FALSE if it gave way to a foreground one
+     * @throws Exception If fails
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    private boolean attempt(final String key, final Callable<?> task)
+        throws Exception {
+        synchronized (this.queued) {
+            this.worker = Thread.currentThread();
+            this.yielded = false;
+        }
+        Exception error = null;
+        try {
+            task.call();
+        // @checkstyle IllegalCatch (1 line)
+        } catch (final Exception ex) {
+            error = ex;
+        } finally {
+            this.lock.unlock();
+        }
+        final boolean yld;
+        synchronized (this.queued) {
+            this.worker = null;
+            yld = this.yielded;
+        }
+        if (yld) {
+            Thread.interrupted();
+        }
+        final boolean again = yld && error != null;
+        if (again) {
+            Logger.debug(this, "%s gave way to a foreground resolution", key);
+        } else if (error != null) {
+            throw error;
+        }
+        return !again;
+    }
+
+}
@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.sonatype.aether.transfer.TransferCancelledException;
+import org.sonatype.aether.transfer.TransferEvent;
+import org.sonatype.aether.transfer.TransferListener;
+import org.sonatype.aether.util.listener.DefaultTransferEvent;
+import org.sonatype.aether.util.listener.DefaultTransferResource;
+
+/**
+ * Progress of one transfer, reported to the transfer listener of
+ * the session, see {@link LogTransferListener} and
+ * {@link EventTransferListener}.
+ *
+ * <p>The listener may cancel the transfer when it is initiated, started or
+ * progressed, e.g. when the deadline of the resolution is missed. The
+ * cancellation is reported as {@link InterruptedIOException}, and the
+ * transfer should not be retried or resumed after it, see
+ * {@link #cancelled()}. The transfer is reported as succeeded or failed
+ * only once.
+ *
+ * <p>The class is thread-safe, ranges of a file may be received in
+ * parallel.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = { "resource", "bytes" })
+@EqualsAndHashCode(of = "resource")
+final class Progress {
+
+    /**
+     * The listener, or NULL if there is none.
+     */
+    private final transient TransferListener listener;
+
+    /**
+     * The file being transferred.
+     */
+    private final transient DefaultTransferResource resource;
+
+    /**
+     * Bytes transferred so far.
+     */
+    private transient long bytes;
+
+    /**
+     * Was it cancelled by the listener?
+     */
+    private transient boolean cancel;
+
+    /**
+     * Is it reported as succeeded or failed?
+     */
+    private transient boolean over;
+
+    /**
+     * Ctor.
+     * @param lsnr The listener, or NULL if there is none
+     * @param url URL of the repository
+     * @param name Path of the file in the repository
+     * @param file Local file, or NULL if it's an existence check
+     */
+    Progress(final TransferListener lsnr, final String url,
+        final String name, final File file) {
+        this.listener = lsnr;
+        this.resource = new DefaultTransferResource(url, name, file, null);
+    }
+
+    /**
+     * Transfer is about to start.
+     * @throws InterruptedIOException If cancelled by the listener
+     */
+    public synchronized void initiated() throws InterruptedIOException {
+        if (this.listener != null) {
+            try {
+                this.listener.transferInitiated(
+                    this.event(TransferEvent.EventType.INITIATED)
+                );
+            } catch (final TransferCancelledException ex) {
+                throw this.cancelled(ex);
+            }
+        }
+    }
+
+    /**
+     * Transfer started, the repository responded.
+     * @param offset Bytes received earlier, if it's resumed
+     * @param length Size of the file, or -1 if it's not known
+     * @throws InterruptedIOException If cancelled by the listener
+     */
+    public synchronized void started(final long offset, final long length)
+        throws InterruptedIOException {
+        this.bytes = offset;
+        this.resource.setContentLength(length);
+        if (this.listener != null) {
+            try {
+                this.listener.transferStarted(
+                    this.event(TransferEvent.EventType.STARTED)
+                );
+            } catch (final TransferCancelledException ex) {
+                throw this.cancelled(ex);
+            }
+        }
+    }
+
+    /**
+     * More bytes received.
+     * @param data Buffer with the bytes
+     * @param len How many of them
+     * @throws InterruptedIOException If cancelled by the listener
+     */
+    public synchronized void progressed(final byte[] data, final int len)
+        throws InterruptedIOException {
+        this.bytes += len;
+        if (this.listener != null) {
+            try {
+                this.listener.transferProgressed(
+                    this.event(TransferEvent.EventType.PROGRESSED)
+                        .setDataBuffer(ByteBuffer.wrap(data, 0, len))
+                );
+            } catch (final TransferCancelledException ex) {
+                throw this.cancelled(ex);
+            }
+        }
+    }
+
+    /**
+     * Transfer succeeded, unless it's reported already.
+     */
+    public synchronized void succeeded() {
+        if (!this.over) {
+            this.over = true;
+            if (this.listener != null) {
+                this.listener.transferSucceeded(
+                    this.event(TransferEvent.EventType.SUCCEEDED)
+                );
+            }
+        }
+    }
+
+    /**
+     * Transfer failed, unless it's reported already.
+     * @param error The failure
+     */
+    public synchronized void failed(final Exception error) {
+        if (!this.over) {
+            this.over = true;
+            if (this.listener != null) {
+                this.listener.transferFailed(
+                    this.event(TransferEvent.EventType.FAILED)
+                        .setException(error)
+                );
+            }
+        }
+    }
+
+    /**
+     * Was it cancelled by the listener?
+     * @return TRUE if it was
+     */
+    public synchronized boolean cancelled() {
+        return this.cancel;
+    }
+
+    /**
+     * Make an event.
+     * @param type Type of it
+     * @return Event
+     */
+    private DefaultTransferEvent event(final TransferEvent.EventType type) {
+        return new DefaultTransferEvent()
+            .setType(type)
+            .setRequestType(TransferEvent.RequestType.GET)
+            .setResource(this.resource)
+            .setTransferredBytes(this.bytes);
+    }
+
+    /**
+     * Remember the cancellation.
+     * @param cause Cancellation by the listener
+     * @return Exception to throw
+     */
+    private InterruptedIOException cancelled(
+        final TransferCancelledException cause) {
+        this.cancel = true;
+        final InterruptedIOException error =
+            new InterruptedIOException(cause.getMessage());
+        error.initCause(cause);
+        return error;
+    }
+
+}
@@ -144,10 +144,10 @@ public final class Repository {
         remote.setRepositoryManager(this.manager);
         final List<RemoteRepository> remotes =
             new LinkedList<RemoteRepository>();
-        remote.setMirroredRepositories(remotes);
         for (final SimpleRepository repo : this.mirrored) {
             remotes.add(repo.remote());
         }
+        remote.setMirroredRepositories(remotes);
         return remote;
     }
 }
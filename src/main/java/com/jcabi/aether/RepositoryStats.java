@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.aspects.Immutable;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Statistics of one remote repository, as seen by {@link Aether}.
+ *
+ * <p>Instances are snapshots, returned by {@link Aether#statistics()} in
+ * the order repositories are queried.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(
+    of = {
+        "identifier", "total", "failed", "msec",
+        "demote", "retry", "reject"
+    }
+)
+public final class RepositoryStats {
+
+    /**
+     * Repository ID.
+     */
+    private final transient String identifier;
+
+    /**
+     * Total requests.
+     */
+    private final transient long total;
+
+    /**
+     * Failed requests.
+     */
+    private final transient long failed;
+
+    /**
+     * Average latency in milliseconds.
+     */
+    private final transient long msec;
+
+    /**
+     * Is it demoted now?
+     */
+    private final transient boolean demote;
+
+    /**
+     * Retried requests.
+     */
+    private final transient long retry;
+
+    /**
+     * Requests rejected while demoted.
+     */
+    private final transient long reject;
+
+    /**
+     * Public ctor.
+     * @param name Repository ID
+     * @param requests Total number of requests
+     * @param failures Number of failed requests
+     * @param latency Average latency in milliseconds
+     * @param demoted Is it demoted because of failures
+     * @param retries Number of retried requests
+     * @param rejected Number of requests rejected while demoted
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    public RepositoryStats(final String name, final long requests,
+        final long failures, final long latency, final boolean demoted,
+        final long retries, final long rejected) {
+        this.identifier = name;
+        this.total = requests;
+        this.failed = failures;
+        this.msec = latency;
+        this.demote = demoted;
+        this.retry = retries;
+        this.reject = rejected;
+    }
+
+    /**
+     * Repository ID.
+     * @return ID
+     */
+    public String id() {
+        return this.identifier;
+    }
+
+    /**
+     * Total number of requests made.
+     * @return Number of requests
+     */
+    public long requests() {
+        return this.total;
+    }
+
+    /**
+     * Number of requests failed with errors (missing artifacts are
+     * not errors).
+     * @return Number of failures
+     */
+    public long failures() {
+        return this.failed;
+    }
+
+    /**
+     * Average latency, giving more weight to recent requests.
+     * @return Milliseconds
+     */
+    public long latency() {
+        return this.msec;
+    }
+
+    /**
+     * Is it temporarily moved to the end of the list because of
+     * repeated failures?
+     * @return TRUE if demoted
+     */
+    public boolean demoted() {
+        return this.demote;
+    }
+
+    /**
+     * Number of requests retried after connection problems or
+     * server errors.
+     * @return Number of retries
+     */
+    public long retries() {
+        return this.retry;
+    }
+
+    /**
+     * Number of requests that failed immediately, without going to the
+     * network, because the repository was demoted (its circuit breaker
+     * was open).
+     * @return Number of rejected requests
+     */
+    public long rejected() {
+        return this.reject;
+    }
+
+}
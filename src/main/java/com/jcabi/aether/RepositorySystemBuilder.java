@@ -34,8 +34,6 @@ import com.jcabi.aspects.Loggable;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.maven.repository.internal.DefaultArtifactDescriptorReader;
-import org.apache.maven.repository.internal.DefaultVersionRangeResolver;
-import org.apache.maven.repository.internal.DefaultVersionResolver;
 import org.sonatype.aether.RepositorySystem;
 import org.sonatype.aether.connector.async.AsyncRepositoryConnectorFactory;
 import org.sonatype.aether.connector.file.FileRepositoryConnectorFactory;
@@ -53,15 +51,66 @@ import org.sonatype.aether.spi.connector.RepositoryConnectorFactory;
 /**
  * Builder of {@link RepositorySystem} class.
  *
+ * <p>Connectors for S3 repositories, together with the wagon bridge,
+ * Plexus and AWS SDK behind them, are registered only when they are
+ * asked for, so that their classes are not even loaded when all
+ * repositories are HTTP/S or FILE.
+ *
  * @author Yegor Bugayenko (yegor@tpc2.com)
  * @version $Id$
  * @since 0.1.6
  */
 @Immutable
 @ToString
-@EqualsAndHashCode
+@EqualsAndHashCode(of = { "conns", "trs", "amazon" })
 final class RepositorySystemBuilder {
 
+    /**
+     * Settings of connections.
+     */
+    private final transient Connections conns;
+
+    /**
+     * Settings of transfers.
+     */
+    private final transient Transfers trs;
+
+    /**
+     * Register connectors for S3 repositories?
+     */
+    private final transient boolean amazon;
+
+    /**
+     * Public ctor, with default settings of connections and transfers.
+     */
+    RepositorySystemBuilder() {
+        this(new Connections(), new Transfers());
+    }
+
+    /**
+     * Public ctor, with S3 connectors.
+     * @param connections Settings of connections
+     * @param transfers Settings of transfers
+     */
+    RepositorySystemBuilder(final Connections connections,
+        final Transfers transfers) {
+        this(connections, transfers, true);
+    }
+
+    /**
+     * Public ctor.
+     * @param connections Settings of connections
+     * @param transfers Settings of transfers
+     * @param s3 Register connectors for S3 repositories
+     * @since 1.0
+     */
+    RepositorySystemBuilder(final Connections connections,
+        final Transfers transfers, final boolean s3) {
+        this.conns = connections;
+        this.trs = transfers;
+        this.amazon = s3;
+    }
+
     /**
      * Build it.
      * @return The repo system.
@@ -75,31 +124,26 @@ final class RepositorySystemBuilder {
         );
         locator.addService(
             RepositoryConnectorFactory.class,
-            AsyncRepositoryConnectorFactory.class
-        );
-        locator.addService(
-            WagonProvider.class,
-            AmazonWagonProvider.class
-        );
-        locator.addService(
-            WagonConfigurator.class,
-            PlexusWagonConfigurator.class
+            HttpConnectorFactory.class
         );
         locator.addService(
             RepositoryConnectorFactory.class,
-            WagonRepositoryConnectorFactory.class
+            AsyncRepositoryConnectorFactory.class
         );
+        if (this.amazon) {
+            this.s3(locator);
+        }
         locator.addService(
             RepositorySystem.class,
             DefaultRepositorySystem.class
         );
         locator.addService(
             VersionResolver.class,
-            DefaultVersionResolver.class
+            CachedVersionResolver.class
         );
         locator.addService(
             VersionRangeResolver.class,
-            DefaultVersionRangeResolver.class
+            CachedVersionRangeResolver.class
         );
         locator.addService(
             ArtifactDescriptorReader.class,
@@ -113,4 +157,27 @@ final class RepositorySystemBuilder {
         return system;
     }
 
+    /**
+     * Register connectors for S3 repositories.
+     * @param locator The locator to register them in
+     */
+    private void s3(final DefaultServiceLocator locator) {
+        locator.addService(
+            RepositoryConnectorFactory.class,
+            S3ConnectorFactory.class
+        );
+        locator.setServices(
+            WagonProvider.class,
+            new AmazonWagonProvider(this.conns, this.trs)
+        );
+        locator.addService(
+            WagonConfigurator.class,
+            PlexusWagonConfigurator.class
+        );
+        locator.addService(
+            RepositoryConnectorFactory.class,
+            WagonRepositoryConnectorFactory.class
+        );
+    }
+
 }
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.aspects.Immutable;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Event of a resolution, see {@link ResolutionEvents}.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = { "kind", "subject", "bytes", "time" })
+public final class ResolutionEvent {
+
+    /**
+     * Kinds of events.
+     */
+    public enum Kind {
+        /**
+         * Resolution of a root artifact started, the subject is the root.
+         */
+        COLLECTION_STARTED,
+        /**
+         * Dependency found and its descriptor read, the subject is
+         * the dependency.
+         */
+        NODE_DISCOVERED,
+        /**
+         * Transfer started, the subject is the URL of the file.
+         */
+        TRANSFER_STARTED,
+        /**
+         * Transfer received more bytes, the subject is the URL of the file.
+         */
+        TRANSFER_PROGRESSED,
+        /**
+         * Artifact is in the local repository, the subject is the artifact.
+         */
+        ARTIFACT_RESOLVED,
+        /**
+         * Artifact, transfer or resolution of a root artifact failed.
+         */
+        FAILED;
+    }
+
+    /**
+     * Kind of the event.
+     */
+    private final transient ResolutionEvent.Kind kind;
+
+    /**
+     * What it is about.
+     */
+    private final transient String subject;
+
+    /**
+     * Bytes transferred so far, if it is about a transfer.
+     */
+    private final transient long bytes;
+
+    /**
+     * When it happened, in milliseconds.
+     */
+    private final transient long time;
+
+    /**
+     * Public ctor.
+     * @param knd Kind of the event
+     * @param subj What it is about
+     * @param trans Bytes transferred so far, or zero
+     */
+    public ResolutionEvent(final ResolutionEvent.Kind knd, final String subj,
+        final long trans) {
+        this.kind = knd;
+        this.subject = subj;
+        this.bytes = trans;
+        this.time = System.currentTimeMillis();
+    }
+
+    /**
+     * Kind of the event.
+     * @return Kind
+     */
+    public ResolutionEvent.Kind kind() {
+        return this.kind;
+    }
+
+    /**
+     * What it is about: coordinates of an artifact or URL of a file.
+     * @return Subject
+     */
+    public String subject() {
+        return this.subject;
+    }
+
+    /**
+     * Bytes transferred so far.
+     * @return Bytes, zero if it is not about a transfer
+     */
+    public long bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * When it happened.
+     * @return Milliseconds since epoch
+     */
+    public long time() {
+        return this.time;
+    }
+
+}
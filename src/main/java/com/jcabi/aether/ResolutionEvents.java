@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+
+/**
+ * Publisher of events of resolutions, with back pressure.
+ *
+ * <p>It is a counterpart of {@code Flow.Publisher}, which is not available
+ * in this version of Java. Every subscriber gets events in the order they
+ * happened, in a thread of the publisher, and only as many as it requested:
+ *
+ * <pre> aether.events().subscribe(
+ *   new ResolutionSubscriber() {
+ *     private ResolutionSubscription sub;
+ *     public void onSubscribe(ResolutionSubscription subscription) {
+ *       this.sub = subscription;
+ *       this.sub.request(1L);
+ *     }
+ *     public void onNext(ResolutionEvent event) {
+ *       System.out.println(event);
+ *       this.sub.request(1L);
+ *     }
+ *   }
+ * );</pre>
+ *
+ * <p>Resolutions never wait for subscribers. Events which a subscriber
+ * didn't request yet are buffered, up to {@link #BUFFER} of them, and
+ * newer events are dropped when the buffer is full, see
+ * {@link #dropped()}. A subscriber which throws a runtime exception is
+ * cancelled.
+ *
+ * <p>Events of an Aether of a tenant are published to its own
+ * subscribers and then to subscribers of all tenants, see
+ * {@link Tenants#events()}.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "subscriptions")
+public final class ResolutionEvents {
+
+    /**
+     * Maximum number of events buffered for one subscriber.
+     */
+    public static final int BUFFER = 1024;
+
+    /**
+     * Current subscriptions.
+     */
+    private final transient Collection<ResolutionEvents.Subscription>
+        subscriptions =
+            new CopyOnWriteArrayList<ResolutionEvents.Subscription>();
+
+    /**
+     * Threads delivering events.
+     */
+    private final transient ExecutorService executor =
+        Executors.newCachedThreadPool(
+            new VerboseThreads("events", true, Thread.NORM_PRIORITY)
+        );
+
+    /**
+     * Events dropped so far.
+     */
+    private final transient AtomicLong drops = new AtomicLong();
+
+    /**
+     * Publisher which gets all events of this one too, or NULL if none.
+     */
+    private final transient ResolutionEvents upstream;
+
+    /**
+     * Public ctor.
+     */
+    public ResolutionEvents() {
+        this(null);
+    }
+
+    /**
+     * Ctor.
+     * @param parent Publisher which gets all events of this one too,
+     *  or NULL if none
+     */
+    ResolutionEvents(final ResolutionEvents parent) {
+        this.upstream = parent;
+    }
+
+    /**
+     * Subscribe.
+     * @param subscriber The subscriber
+     */
+    public void subscribe(final ResolutionSubscriber subscriber) {
+        final ResolutionEvents.Subscription subscription =
+            new ResolutionEvents.Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        this.subscriptions.add(subscription);
+    }
+
+    /**
+     * How many events were dropped, since subscribers didn't keep up
+     * with them.
+     * @return Total, for all subscribers
+     */
+    public long dropped() {
+        return this.drops.get();
+    }
+
+    /**
+     * Give the event to all subscribers, and to the upstream publisher,
+     * without waiting for them.
+     * @param event The event
+     */
+    void publish(final ResolutionEvent event) {
+        for (final ResolutionEvents.Subscription subscription
+            : this.subscriptions) {
+            subscription.offer(event);
+        }
+        if (this.upstream != null) {
+            this.upstream.publish(event);
+        }
+    }
+
+    /**
+     * Subscription of one subscriber.
+     */
+    @ToString(of = "subscriber")
+    private final class Subscription
+        implements ResolutionSubscription, Runnable {
+        /**
+         * The subscriber.
+         */
+        private final transient ResolutionSubscriber subscriber;
+        /**
+         * Events not delivered yet.
+         */
+        private final transient Queue<ResolutionEvent> queue =
+            new ArrayBlockingQueue<ResolutionEvent>(ResolutionEvents.BUFFER);
+        /**
+         * Events requested and not delivered yet.
+         */
+        private final transient AtomicLong demand = new AtomicLong();
+        /**
+         * Requests to deliver, non-zero while delivering.
+         */
+        private final transient AtomicInteger pending = new AtomicInteger();
+        /**
+         * Is it cancelled?
+         */
+        private final transient AtomicBoolean cancelled = new AtomicBoolean();
+        /**
+         * Ctor.
+         * @param sbr The subscriber
+         */
+        Subscription(final ResolutionSubscriber sbr) {
+            this.subscriber = sbr;
+        }
+        @Override
+        public void request(final long count) {
+            if (count <= 0L) {
+                throw new IllegalArgumentException(
+                    String.format("can't request %d events", count)
+                );
+            }
+            while (true) {
+                final long now = this.demand.get();
+                long next = now + count;
+                if (next < 0L) {
+                    next = Long.MAX_VALUE;
+                }
+                if (this.demand.compareAndSet(now, next)) {
+                    break;
+                }
+            }
+            this.deliver();
+        }
+        @Override
+        public void cancel() {
+            if (this.cancelled.compareAndSet(false, true)) {
+                ResolutionEvents.this.subscriptions.remove(this);
+                this.queue.clear();
+            }
+        }
+        @Override
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        public void run() {
+            int missed = 1;
+            while (missed != 0) {
+                while (!this.cancelled.get() && this.demand.get() > 0L) {
+                    final ResolutionEvent event = this.queue.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    if (this.demand.get() != Long.MAX_VALUE) {
+                        this.demand.decrementAndGet();
+                    }
+                    try {
+                        this.subscriber.onNext(event);
+                    // @checkstyle IllegalCatch (1 line)
+                    } catch (final RuntimeException ex) {
+                        Logger.warn(
+                            this, "%s failed, cancelled: %[exception]s",
+                            this.subscriber, ex
+                        );
+                        this.cancel();
+                    }
+                }
+                missed = this.pending.addAndGet(-missed);
+            }
+        }
+        /**
+         * Buffer the event and deliver it, if requested.
+         * @param event The event
+         */
+        public void offer(final ResolutionEvent event) {
+            if (!this.cancelled.get()) {
+                if (this.queue.offer(event)) {
+                    this.deliver();
+                } else {
+                    ResolutionEvents.this.drops.incrementAndGet();
+                }
+            }
+        }
+        /**
+         * Deliver buffered events, in a thread of the publisher, unless
+         * it is being done already.
+         */
+        private void deliver() {
+            if (this.pending.getAndIncrement() == 0) {
+                ResolutionEvents.this.executor.execute(this);
+            }
+        }
+    }
+
+}
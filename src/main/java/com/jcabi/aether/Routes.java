@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Index of groups served by remote repositories.
+ *
+ * <p>The index is kept in a properties file, where keys are repository IDs
+ * and values are comma-separated groupIds, for example:
+ *
+ * <pre> internal=com.example.*,com.example-labs
+ * central=org.apache,junit</pre>
+ *
+ * <p>A groupId matches only itself, while a groupId followed by
+ * {@code .*} matches itself and all groups inside it, like
+ * {@code com.example.tools} above. The file may be written by hand, and
+ * it is extended automatically every time a repository serves an artifact
+ * of a new group, which is always added as an exact groupId. When a group
+ * is known to be served by some repositories, the others are not asked
+ * for its artifacts at all, see {@link #skip(String, String)}. Metadata
+ * is not routed, since versions of a group may come from many
+ * repositories.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "file")
+@EqualsAndHashCode(of = "file")
+final class Routes {
+
+    /**
+     * Name of session configuration property, which disables routing
+     * when set to TRUE.
+     */
+    public static final String BYPASS = "jcabi.aether.routes.bypass";
+
+    /**
+     * Name of the file in a local repository.
+     */
+    public static final String NAME = "jcabi-aether-routes.properties";
+
+    /**
+     * Suffix of groups which match their subgroups too.
+     */
+    private static final String ALL = ".*";
+
+    /**
+     * File with the index.
+     */
+    private final transient File file;
+
+    /**
+     * Groups, by repository ID.
+     */
+    private final transient ConcurrentMap<String, Set<String>> groups;
+
+    /**
+     * How many times repositories were skipped.
+     */
+    private final transient AtomicLong skipped;
+
+    /**
+     * Ctor.
+     * @param path File with the index, may be absent
+     */
+    Routes(final File path) {
+        this.file = path;
+        this.groups = new ConcurrentHashMap<String, Set<String>>(0);
+        this.skipped = new AtomicLong();
+        this.load();
+    }
+
+    /**
+     * How many times repositories were skipped so far.
+     * @return Total number of skips
+     */
+    public long skips() {
+        return this.skipped.get();
+    }
+
+    /**
+     * Shall this repository be skipped for this group?
+     *
+     * <p>It is skipped if the group is known to be served by other
+     * repositories, and not by this one.
+     *
+     * @param repo Repository ID
+     * @param group Group ID of an artifact
+     * @return TRUE if the repository doesn't have the group
+     */
+    public boolean skip(final String repo, final String group) {
+        boolean owned = false;
+        boolean mine = false;
+        for (final Map.Entry<String, Set<String>> ent
+            : this.groups.entrySet()) {
+            if (Routes.matches(ent.getValue(), group)) {
+                owned = true;
+                if (ent.getKey().equals(repo)) {
+                    mine = true;
+                    break;
+                }
+            }
+        }
+        final boolean skip = owned && !mine;
+        if (skip) {
+            this.skipped.incrementAndGet();
+        }
+        return skip;
+    }
+
+    /**
+     * The repository served an artifact of the group.
+     * @param repo Repository ID
+     * @param group Group ID
+     */
+    public void learn(final String repo, final String group) {
+        Set<String> set = this.groups.get(repo);
+        if (set == null) {
+            this.groups.putIfAbsent(repo, new CopyOnWriteArraySet<String>());
+            set = this.groups.get(repo);
+        }
+        if (!Routes.matches(set, group) && set.add(group)) {
+            Logger.info(this, "%s serves %s", repo, group);
+            this.save();
+        }
+    }
+
+    /**
+     * Does any of the groups match the group?
+     * @param set Groups, exact or followed by {@code .*}
+     * @param group Group ID
+     * @return TRUE if matches
+     */
+    private static boolean matches(final Collection<String> set,
+        final String group) {
+        boolean matches = false;
+        for (final String known : set) {
+            if (known.endsWith(Routes.ALL)) {
+                final String base = known.substring(
+                    0, known.length() - Routes.ALL.length()
+                );
+                matches = group.equals(base)
+                    || group.startsWith(String.format("%s.", base));
+            } else {
+                matches = group.equals(known);
+            }
+            if (matches) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Load the index from the file.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    private void load() {
+        if (!this.file.exists()) {
+            return;
+        }
+        final Properties props = new Properties();
+        try {
+            final InputStream input = new FileInputStream(this.file);
+            try {
+                props.load(input);
+            } finally {
+                input.close();
+            }
+        } catch (final IOException ex) {
+            Logger.warn(this, "failed to read %s: %s", this.file, ex);
+        }
+        for (final String repo : props.stringPropertyNames()) {
+            final Set<String> set = new CopyOnWriteArraySet<String>();
+            for (final String group
+                : StringUtils.split(props.getProperty(repo), ", ")) {
+                set.add(group);
+            }
+            this.groups.put(repo, set);
+        }
+    }
+
+    /**
+     * Save the index to the file.
+     */
+    private synchronized void save() {
+        final Properties props = new Properties();
+        for (final Map.Entry<String, Set<String>> ent
+            : this.groups.entrySet()) {
+            props.setProperty(
+                ent.getKey(),
+                StringUtils.join(new TreeSet<String>(ent.getValue()), ',')
+            );
+        }
+        try {
+            if (this.file.getParentFile().mkdirs()) {
+                Logger.debug(this, "%s created", this.file.getParentFile());
+            }
+            final OutputStream output = new FileOutputStream(this.file);
+            try {
+                props.store(output, "groupIds served by repositories");
+            } finally {
+                output.close();
+            }
+        } catch (final IOException ex) {
+            Logger.warn(this, "failed to save %s: %s", this.file, ex);
+        }
+    }
+
+}
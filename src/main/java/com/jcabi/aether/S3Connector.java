@@ -0,0 +1,527 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import com.jcabi.log.Logger;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.sonatype.aether.repository.Authentication;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.ArtifactUpload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.spi.connector.MetadataUpload;
+import org.sonatype.aether.spi.connector.RepositoryConnector;
+import org.sonatype.aether.transfer.TransferListener;
+import org.sonatype.aether.util.layout.MavenDefaultLayout;
+import org.sonatype.aether.util.layout.RepositoryLayout;
+
+/**
+ * Connector to an S3 repository, {@code s3://bucket/path}, working through
+ * S3 clients of a shared {@link HttpPool}.
+ *
+ * <p>All downloads requested in one call run concurrently, in threads
+ * shared by all S3 connectors of the pool, up to
+ * {@link Connections#perHost()} at a time. Existence of files is checked
+ * with HEAD requests. Files are downloaded by {@link S3Ranges} into partial
+ * files, verified against their SHA-1 checksums according to the policy
+ * and moved into their places.
+ *
+ * <p>Like {@link HttpConnector}, the connector doesn't request artifacts
+ * of groups served by other repositories, if routing is enabled (see
+ * {@link Routes}), and doesn't request anything from a repository which
+ * keeps failing (see {@link Health}).
+ *
+ * <p>Downloads and existence checks are reported to the transfer listener
+ * of the session, which may cancel them, see {@link Progress}.
+ *
+ * <p>Uploads are not supported.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ * @checkstyle ClassDataAbstractionCoupling (500 lines)
+ * @checkstyle ClassFanOutComplexity (500 lines)
+ */
+@ToString(of = "repo")
+@EqualsAndHashCode(of = { "repo", "pool", "routed" })
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class S3Connector implements RepositoryConnector {
+
+    /**
+     * Layout of the repository.
+     */
+    private static final RepositoryLayout LAYOUT = new MavenDefaultLayout();
+
+    /**
+     * HTTP Not Found.
+     */
+    private static final int NOT_FOUND = 404;
+
+    /**
+     * Lowest HTTP status of server errors.
+     */
+    private static final int SERVER_ERROR = 500;
+
+    /**
+     * Size of the buffer.
+     */
+    private static final int BUFFER = 8192;
+
+    /**
+     * The repository.
+     */
+    private final transient RemoteRepository repo;
+
+    /**
+     * Pool of connections.
+     */
+    private final transient HttpPool pool;
+
+    /**
+     * S3 client.
+     */
+    private final transient AmazonS3 client;
+
+    /**
+     * Bucket.
+     */
+    private final transient String bucket;
+
+    /**
+     * Directory of the repository in the bucket.
+     */
+    private final transient String base;
+
+    /**
+     * Skip artifacts of groups served by other repositories?
+     */
+    private final transient boolean routed;
+
+    /**
+     * Transfer listener of the session, or NULL if there is none.
+     */
+    private final transient TransferListener listener;
+
+    /**
+     * Ctor.
+     * @param remote The repository, with authentication
+     * @param hpool Pool of connections
+     * @param rtd Skip artifacts of groups served by other repositories
+     * @param lsnr Transfer listener, or NULL if there is none
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    S3Connector(final RemoteRepository remote, final HttpPool hpool,
+        final boolean rtd, final TransferListener lsnr) {
+        this.repo = remote;
+        this.pool = hpool;
+        this.routed = rtd;
+        this.listener = lsnr;
+        final URI uri = URI.create(remote.getUrl());
+        this.bucket = uri.getAuthority();
+        this.base = uri.getPath();
+        final Authentication auth = remote.getAuthentication();
+        this.client = hpool.s3().client(
+            remote.getUrl(), auth.getUsername(), auth.getPassword()
+        );
+    }
+
+    @Override
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void get(final Collection<? extends ArtifactDownload> artifacts,
+        final Collection<? extends MetadataDownload> metadatas) {
+        final List<Object> downloads = new ArrayList<Object>(0);
+        final List<Future<Exception>> futures =
+            new ArrayList<Future<Exception>>(0);
+        if (artifacts != null) {
+            for (final ArtifactDownload dnl : artifacts) {
+                File file = null;
+                if (!dnl.isExistenceCheck()) {
+                    file = dnl.getFile();
+                }
+                downloads.add(dnl);
+                futures.add(
+                    this.pool.s3().submit(
+                        new S3Connector.Download(
+                            S3Connector.LAYOUT.getPath(dnl.getArtifact()),
+                            dnl.getArtifact().getGroupId(),
+                            file, dnl.getChecksumPolicy()
+                        )
+                    )
+                );
+            }
+        }
+        if (metadatas != null) {
+            for (final MetadataDownload dnl : metadatas) {
+                downloads.add(dnl);
+                futures.add(
+                    this.pool.s3().submit(
+                        new S3Connector.Download(
+                            S3Connector.LAYOUT.getPath(dnl.getMetadata()),
+                            null, dnl.getFile(), dnl.getChecksumPolicy()
+                        )
+                    )
+                );
+            }
+        }
+        final Outcomes outcomes = new Outcomes(this.repo);
+        for (int idx = 0; idx < futures.size(); ++idx) {
+            outcomes.report(
+                downloads.get(idx), S3Connector.outcome(futures.get(idx))
+            );
+        }
+    }
+
+    @Override
+    public void put(final Collection<? extends ArtifactUpload> artifacts,
+        final Collection<? extends MetadataUpload> metadatas) {
+        new Outcomes(this.repo).unsupported(artifacts, metadatas);
+    }
+
+    @Override
+    public void close() {
+        // threads and clients stay in the pool
+    }
+
+    /**
+     * Is it a failure of the repository, an I/O or a server error, rather
+     * than an error response to this request only?
+     * @param error The error
+     * @return TRUE if the repository failed
+     */
+    private static boolean failure(final IOException error) {
+        final int idx = ExceptionUtils.indexOfType(
+            error, AmazonServiceException.class
+        );
+        return idx < 0 || AmazonServiceException.class.cast(
+            ExceptionUtils.getThrowableList(error).get(idx)
+        ).getStatusCode() >= S3Connector.SERVER_ERROR;
+    }
+
+    /**
+     * Check that the object exists, with a HEAD request.
+     * @param key Key of the object
+     * @throws IOException If fails, {@link FileNotFoundException} if there
+     *  is no such object
+     */
+    private void exists(final String key) throws IOException {
+        try {
+            this.client.getObjectMetadata(this.bucket, key);
+        } catch (final AmazonServiceException ex) {
+            if (ex.getStatusCode() == S3Connector.NOT_FOUND) {
+                throw new FileNotFoundException(this.uri(key));
+            }
+            throw new IOException(this.uri(key), ex);
+        } catch (final AmazonClientException ex) {
+            throw new IOException(this.uri(key), ex);
+        }
+    }
+
+    /**
+     * Download the object, verify its checksum and put it in place.
+     * @param key Key of the object
+     * @param file Target file
+     * @param policy Checksum policy
+     * @param progress Progress of the download
+     * @throws IOException If fails
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private void download(final String key, final File file,
+        final String policy, final Progress progress) throws IOException {
+        final File part = new File(
+            file.getParentFile(),
+            String.format(
+                "%s.%s.s3", file.getName(),
+                this.repo.getId().replaceAll("[^\\w.-]", "_")
+            )
+        );
+        try {
+            this.pool.s3().get(this.client, this.bucket, key, part, progress);
+            this.verify(key, part, policy);
+            if (file.exists() && !file.delete()) {
+                throw new IOException(String.format("can't delete %s", file));
+            }
+            FileUtils.moveFile(part, file);
+        } finally {
+            FileUtils.deleteQuietly(part);
+        }
+    }
+
+    /**
+     * Verify SHA-1 checksum of the downloaded file, according to the policy.
+     * @param key Key of the object
+     * @param file Downloaded file
+     * @param policy Checksum policy
+     * @throws IOException If checksum doesn't match and policy is "fail"
+     */
+    private void verify(final String key, final File file,
+        final String policy) throws IOException {
+        if (!RepositoryPolicy.CHECKSUM_POLICY_IGNORE.equals(policy)) {
+            final String expected = this.checksum(key);
+            final String actual = S3Connector.sha(file);
+            if (expected != null && !expected.equalsIgnoreCase(actual)) {
+                final String msg = String.format(
+                    "SHA-1 mismatch at %s: expected %s, actual %s",
+                    this.uri(key), expected, actual
+                );
+                if (RepositoryPolicy.CHECKSUM_POLICY_FAIL.equals(policy)) {
+                    throw new IOException(msg);
+                }
+                Logger.warn(this, "%s", msg);
+            }
+        }
+    }
+
+    /**
+     * Fetch SHA-1 checksum published next to the object.
+     * @param key Key of the object
+     * @return Checksum or NULL if absent
+     * @throws IOException If fails
+     */
+    private String checksum(final String key) throws IOException {
+        final String name = String.format("%s.sha1", key);
+        String sha = null;
+        try {
+            final S3Object object = this.client.getObject(this.bucket, name);
+            final InputStream input = object.getObjectContent();
+            try {
+                final String body = IOUtils.toString(input, "UTF-8").trim();
+                if (!body.isEmpty()) {
+                    sha = body.split("\\s+")[0];
+                }
+            } finally {
+                input.close();
+            }
+        } catch (final AmazonServiceException ex) {
+            if (ex.getStatusCode() != S3Connector.NOT_FOUND) {
+                throw new IOException(this.uri(name), ex);
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(this.uri(name), ex);
+        }
+        return sha;
+    }
+
+    /**
+     * URI of the object, for messages.
+     * @param key Key of the object
+     * @return URI
+     */
+    private String uri(final String key) {
+        return String.format("s3://%s/%s", this.bucket, key);
+    }
+
+    /**
+     * SHA-1 of the file.
+     * @param file The file
+     * @return Hex digest
+     * @throws IOException If fails to read
+     */
+    private static String sha(final File file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        final InputStream input = new FileInputStream(file);
+        try {
+            final byte[] buf = new byte[S3Connector.BUFFER];
+            while (true) {
+                final int len = input.read(buf);
+                if (len < 0) {
+                    break;
+                }
+                digest.update(buf, 0, len);
+            }
+        } finally {
+            input.close();
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (final byte bte : digest.digest()) {
+            hex.append(String.format("%02x", bte));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Wait for the download to complete.
+     * @param future The download
+     * @return Exception or NULL if succeeded
+     */
+    private static Exception outcome(final Future<Exception> future) {
+        Exception error;
+        try {
+            error = future.get();
+        } catch (final ExecutionException ex) {
+            error = new IOException(ex.getCause());
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            error = ex;
+        }
+        return error;
+    }
+
+    /**
+     * One download, or existence check.
+     */
+    private final class Download implements Callable<Exception> {
+        /**
+         * Path of the file in the repository.
+         */
+        private final transient URI path;
+        /**
+         * Group ID of the artifact, or NULL for metadata.
+         */
+        private final transient String group;
+        /**
+         * Target file, or NULL for existence check.
+         */
+        private final transient File file;
+        /**
+         * Checksum policy.
+         */
+        private final transient String policy;
+        /**
+         * Ctor.
+         * @param rel Path of the file in the repository
+         * @param grp Group ID of the artifact, or NULL for metadata
+         * @param target Target file, or NULL for existence check
+         * @param plc Checksum policy
+         * @checkstyle ParameterNumber (3 lines)
+         */
+        Download(final URI rel, final String grp, final File target,
+            final String plc) {
+            this.path = rel;
+            this.group = grp;
+            this.file = target;
+            this.policy = plc;
+        }
+        @Override
+        public Exception call() {
+            final String rid = S3Connector.this.repo.getId();
+            final HttpPool hpool = S3Connector.this.pool;
+            final Exception error;
+            if (S3Connector.this.routed && this.group != null
+                && hpool.routes().skip(rid, this.group)) {
+                error = new FileNotFoundException(
+                    String.format("%s is not served by %s", this.group, rid)
+                );
+            } else if (!hpool.health().allow(rid)) {
+                error = new IOException(
+                    String.format(
+                        "%s keeps failing, requests to it are suspended", rid
+                    )
+                );
+            } else {
+                error = this.fetch();
+                if (error == null && this.group != null) {
+                    hpool.routes().learn(rid, this.group);
+                }
+            }
+            return error;
+        }
+        /**
+         * Download the file, or check its existence, and report the
+         * outcome to the health of the repository and to the listener.
+         *
+         * <p>A download cancelled by the listener is not a failure of
+         * the repository, and neither is an error response other than
+         * a server error, like "forbidden" for a missing object.
+         *
+         * @return Exception or NULL if succeeded
+         */
+        private Exception fetch() {
+            final String key = S3Ranges.key(
+                S3Connector.this.base, this.path.toString()
+            );
+            final String rid = S3Connector.this.repo.getId();
+            final Health health = S3Connector.this.pool.health();
+            final Progress progress = new Progress(
+                S3Connector.this.listener, S3Connector.this.repo.getUrl(),
+                this.path.toString(), this.file
+            );
+            final long begin = System.currentTimeMillis();
+            Exception error = null;
+            try {
+                progress.initiated();
+                if (this.file == null) {
+                    S3Connector.this.exists(key);
+                } else {
+                    S3Connector.this.download(
+                        key, this.file, this.policy, progress
+                    );
+                }
+                health.success(rid, System.currentTimeMillis() - begin);
+                progress.succeeded();
+            } catch (final FileNotFoundException ex) {
+                health.success(rid, System.currentTimeMillis() - begin);
+                error = ex;
+            } catch (final IOException ex) {
+                if (progress.cancelled()) {
+                    Logger.debug(this, "%s cancelled", key);
+                } else if (S3Connector.failure(ex)) {
+                    health.failure(rid);
+                } else {
+                    health.success(rid, System.currentTimeMillis() - begin);
+                }
+                error = ex;
+            }
+            if (error != null) {
+                progress.failed(error);
+            }
+            return error;
+        }
+    }
+
+}
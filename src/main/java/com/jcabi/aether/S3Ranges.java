@@ -0,0 +1,683 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceClient;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.repository.Repository;
+
+/**
+ * Parallel downloads of S3 objects by byte ranges.
+ *
+ * <p>An object is requested by ranges of the given size, or entirely
+ * if the size is zero. The first range
+ * tells the size of the entire object, and the rest of the ranges, if any,
+ * are requested in parallel while the first one is being received. Every
+ * range is written into the file by its offset. An object smaller than
+ * one range is received with one request, like without ranges. The rest
+ * of the ranges are requested only if the object still has the ETag of
+ * the first one, so that a file is never put together from two versions
+ * of the object.
+ *
+ * <p>Received bytes are reported to the {@link Progress} of the download,
+ * from all threads receiving its ranges, and a download cancelled by
+ * the listener stops with {@link java.io.InterruptedIOException}.
+ *
+ * <p>Files which are always small, like POMs, metadata, checksums and
+ * signatures, are requested entirely, without ranges, since their size is
+ * not known before the first response and a range would only add a
+ * partial response to parse.
+ *
+ * <p>Threads receiving ranges are shared by all downloads and stop when
+ * they are idle. So are threads downloading entire files for
+ * {@link S3Connector}, see {@link #submit(Callable)}. Clients keep their
+ * connections until {@link #close()}.
+ *
+ * <p>One S3 client is made for every bucket and credentials, and is
+ * shared by all downloads from it. Clients are known by a digest of their
+ * credentials, not by the credentials.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ * @checkstyle ClassDataAbstractionCoupling (500 lines)
+ */
+@ToString(of = { "part", "threads", "endpoint" })
+@EqualsAndHashCode(of = { "part", "threads", "endpoint" })
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class S3Ranges {
+
+    /**
+     * HTTP Not Found.
+     */
+    private static final int NOT_FOUND = 404;
+
+    /**
+     * HTTP Requested Range Not Satisfiable, for empty objects.
+     */
+    private static final int BAD_RANGE = 416;
+
+    /**
+     * Size of the buffer.
+     */
+    private static final int BUFFER = 8192;
+
+    /**
+     * How long an idle thread waits for ranges before it stops, in seconds.
+     */
+    private static final long IDLE = 30L;
+
+    /**
+     * Names of files which are always small and never requested by ranges.
+     */
+    private static final Pattern SMALL = Pattern.compile(
+        ".*\\.(pom|xml|sha1|md5|asc)$"
+    );
+
+    /**
+     * Size of one range in bytes, zero if disabled.
+     */
+    private final transient long part;
+
+    /**
+     * Maximum number of ranges received in parallel.
+     */
+    private final transient int threads;
+
+    /**
+     * S3 endpoint, NULL or empty for the default one.
+     */
+    private final transient String endpoint;
+
+    /**
+     * Threads receiving ranges.
+     */
+    private final transient ExecutorService executor;
+
+    /**
+     * Threads downloading files.
+     */
+    private final transient ExecutorService files;
+
+    /**
+     * S3 clients, by key of repository.
+     */
+    private final transient ConcurrentMap<String, AmazonS3> clients;
+
+    /**
+     * Ctor.
+     * @param size Size of one range, zero to disable ranges
+     * @param max Maximum number of ranges received in parallel
+     */
+    S3Ranges(final long size, final int max) {
+        this(size, max, null);
+    }
+
+    /**
+     * Ctor.
+     * @param size Size of one range, zero to disable ranges
+     * @param max Maximum number of ranges received in parallel
+     * @param url S3 endpoint, NULL or empty for the default one
+     */
+    S3Ranges(final long size, final int max, final String url) {
+        this.part = size;
+        this.threads = max;
+        this.endpoint = url;
+        this.executor = S3Ranges.threads(
+            max, new VerboseThreads("s3-ranges", true, Thread.NORM_PRIORITY)
+        );
+        this.files = S3Ranges.threads(
+            max, new VerboseThreads("s3-files", true, Thread.NORM_PRIORITY)
+        );
+        this.clients = new ConcurrentHashMap<String, AmazonS3>(0);
+    }
+
+    /**
+     * Download the file of a wagon repository by ranges.
+     * @param repo The repository
+     * @param auth Authentication or NULL
+     * @param resource Path of the file in the repository
+     * @param dest Where to save it
+     * @return Size of the file, or -1 if it can't be downloaded by ranges
+     * @throws TransferFailedException If fails
+     * @throws ResourceDoesNotExistException If there is no such file
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    public long get(final Repository repo, final AuthenticationInfo auth,
+        final String resource, final File dest)
+        throws TransferFailedException, ResourceDoesNotExistException {
+        long size = -1L;
+        if (this.part > 0L && auth != null && auth.getUserName() != null
+            && auth.getPassword() != null) {
+            final String bucket = repo.getHost();
+            final String key = S3Ranges.key(repo.getBasedir(), resource);
+            try {
+                size = this.get(
+                    this.client(
+                        repo.getUrl(), auth.getUserName(), auth.getPassword()
+                    ),
+                    bucket, key, dest,
+                    new Progress(null, repo.getUrl(), resource, dest)
+                );
+            } catch (final FileNotFoundException ex) {
+                throw new ResourceDoesNotExistException(ex.getMessage(), ex);
+            } catch (final IOException ex) {
+                throw new TransferFailedException(ex.getMessage(), ex);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Download the object by ranges, or entirely if ranges are disabled.
+     * @param client S3 client
+     * @param bucket Bucket
+     * @param key Key of the object
+     * @param dest Where to save it
+     * @param progress Progress of the download
+     * @return Size of the object
+     * @throws IOException If fails, {@link FileNotFoundException} if there
+     *  is no such object
+     * @checkstyle ParameterNumber (5 lines)
+     */
+    public long get(final AmazonS3 client, final String bucket,
+        final String key, final File dest, final Progress progress)
+        throws IOException {
+        final boolean whole = this.part == 0L
+            || S3Ranges.SMALL.matcher(key).matches();
+        final S3Object first = S3Ranges.first(
+            client, this.request(bucket, key, 0L, whole)
+        );
+        long size = 0L;
+        if (first == null) {
+            progress.started(0L, 0L);
+            S3Ranges.allocate(dest, 0L);
+        } else if (whole) {
+            S3Ranges.allocate(dest, 0L);
+            long expected = -1L;
+            final Object length = S3Ranges.header(first, "Content-Length");
+            if (length != null) {
+                expected = Long.parseLong(length.toString().trim());
+            }
+            progress.started(0L, expected);
+            size = S3Ranges.write(first, 0L, expected, dest, progress);
+        } else {
+            size = S3Ranges.total(first);
+            progress.started(0L, size);
+            this.download(client, first, size, dest, progress);
+        }
+        Logger.debug(
+            this, "%s downloaded from s3://%s/%s, %d byte(s)",
+            dest, bucket, key, size
+        );
+        return size;
+    }
+
+    /**
+     * Run a download of a file in one of the threads shared by all
+     * connectors, up to the maximum number of them at a time.
+     * @param task The download
+     * @param <T> Type of the result
+     * @return Future result
+     */
+    public <T> Future<T> submit(final Callable<T> task) {
+        return this.files.submit(task);
+    }
+
+    /**
+     * Get or make S3 client.
+     * @param url URL of the repository
+     * @param user Access key
+     * @param secret Secret key
+     * @return Client
+     */
+    public AmazonS3 client(final String url, final String user,
+        final String secret) {
+        final String name = S3Ranges.name(url, user, secret);
+        AmazonS3 client = this.clients.get(name);
+        if (client == null) {
+            final ClientConfiguration config = new ClientConfiguration();
+            config.setMaxConnections(this.threads + 1);
+            final AmazonS3Client fresh = new AmazonS3Client(
+                new BasicAWSCredentials(user, secret), config
+            );
+            if (this.endpoint != null && !this.endpoint.isEmpty()) {
+                fresh.setEndpoint(this.endpoint);
+            }
+            this.clients.putIfAbsent(name, fresh);
+            client = this.clients.get(name);
+        }
+        return client;
+    }
+
+    /**
+     * Stop all threads and shut all clients down.
+     */
+    public void close() {
+        this.executor.shutdownNow();
+        this.files.shutdownNow();
+        for (final AmazonS3 client : this.clients.values()) {
+            if (client instanceof AmazonWebServiceClient) {
+                AmazonWebServiceClient.class.cast(client).shutdown();
+            }
+        }
+        this.clients.clear();
+    }
+
+    /**
+     * Unique name of the client.
+     * @param url URL of the repository
+     * @param user Access key
+     * @param secret Secret key
+     * @return Hex digest of the bucket and credentials
+     */
+    private static String name(final String url, final String user,
+        final String secret) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+            digest.update(
+                String.format(
+                    "%s\u0000%s\u0000%s", URI.create(url).getAuthority(),
+                    user, secret
+                ).getBytes("UTF-8")
+            );
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        } catch (final UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (final byte bte : digest.digest()) {
+            hex.append(String.format("%02x", bte));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Threads which stop when they are idle.
+     * @param max Maximum number of threads
+     * @param factory Factory of threads
+     * @return Executor
+     */
+    private static ExecutorService threads(final int max,
+        final ThreadFactory factory) {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            max, max, S3Ranges.IDLE, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), factory
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Key of the object in the bucket.
+     * @param base Directory of the repository in the bucket, or NULL
+     * @param resource Path of the file in the repository
+     * @return Key
+     */
+    public static String key(final String base, final String resource) {
+        String dir = "";
+        if (base != null) {
+            dir = base.replaceAll("^/+|/+$", "");
+        }
+        final String key;
+        if (dir.isEmpty()) {
+            key = resource;
+        } else {
+            key = String.format("%s/%s", dir, resource);
+        }
+        return key;
+    }
+
+    /**
+     * Request the first range, or the entire object.
+     * @param client S3 client
+     * @param request Request of the range
+     * @return Object, or NULL if the object is empty
+     * @throws IOException If fails
+     */
+    private static S3Object first(final AmazonS3 client,
+        final GetObjectRequest request) throws IOException {
+        final String uri = String.format(
+            "s3://%s/%s", request.getBucketName(), request.getKey()
+        );
+        S3Object object = null;
+        try {
+            object = client.getObject(request);
+        } catch (final AmazonServiceException ex) {
+            if (ex.getStatusCode() == S3Ranges.NOT_FOUND) {
+                throw new FileNotFoundException(uri);
+            }
+            if (ex.getStatusCode() != S3Ranges.BAD_RANGE) {
+                throw new IOException(uri, ex);
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(uri, ex);
+        }
+        return object;
+    }
+
+    /**
+     * Receive the first range and request the rest of them in parallel.
+     * @param client S3 client
+     * @param first First range, already requested
+     * @param size Size of the object
+     * @param dest Where to save it
+     * @param progress Progress of the download
+     * @throws IOException If fails
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private void download(final AmazonS3 client, final S3Object first,
+        final long size, final File dest, final Progress progress)
+        throws IOException {
+        final String uri = String.format(
+            "s3://%s/%s", first.getBucketName(), first.getKey()
+        );
+        final Collection<Future<Long>> parts = new LinkedList<Future<Long>>();
+        try {
+            S3Ranges.allocate(dest, size);
+            for (long start = this.part; start < size;
+                start += this.part) {
+                parts.add(
+                    this.executor.submit(
+                        new S3Ranges.Part(
+                            client, first, start, size, dest, progress
+                        )
+                    )
+                );
+            }
+            S3Ranges.write(
+                first, 0L, Math.min(this.part, size), dest, progress
+            );
+            for (final Future<Long> future : parts) {
+                future.get();
+            }
+        } catch (final IOException ex) {
+            S3Ranges.cancel(parts);
+            throw ex;
+        } catch (final ExecutionException ex) {
+            S3Ranges.cancel(parts);
+            throw new IOException(uri, ex.getCause());
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            S3Ranges.cancel(parts);
+            throw new IOException(uri, ex);
+        }
+    }
+
+    /**
+     * Write the range into the file.
+     * @param object Requested range
+     * @param start Offset of the range
+     * @param expected Size of the range, or -1 if it's not known
+     * @param dest The file
+     * @param progress Progress of the download
+     * @return How many bytes were written
+     * @throws IOException If fails
+     * @checkstyle ParameterNumber (4 lines)
+     */
+    private static long write(final S3Object object, final long start,
+        final long expected, final File dest, final Progress progress)
+        throws IOException {
+        final InputStream input = object.getObjectContent();
+        final RandomAccessFile file = new RandomAccessFile(dest, "rw");
+        long total = 0L;
+        try {
+            file.seek(start);
+            final byte[] buf = new byte[S3Ranges.BUFFER];
+            while (true) {
+                final int len = input.read(buf);
+                if (len < 0) {
+                    break;
+                }
+                file.write(buf, 0, len);
+                total += len;
+                progress.progressed(buf, len);
+            }
+        } finally {
+            file.close();
+            input.close();
+        }
+        if (expected >= 0L && total != expected) {
+            throw new IOException(
+                String.format(
+                    "%d byte(s) received at offset %d instead of %d",
+                    total, start, expected
+                )
+            );
+        }
+        return total;
+    }
+
+    /**
+     * Request of a range.
+     * @param bucket Bucket
+     * @param key Key of the object
+     * @param start Offset of the range
+     * @param whole Request the entire object instead?
+     * @return Request
+     */
+    private GetObjectRequest request(final String bucket, final String key,
+        final long start, final boolean whole) {
+        final GetObjectRequest request = new GetObjectRequest(bucket, key);
+        if (!whole) {
+            request.setRange(start, start + this.part - 1L);
+        }
+        return request;
+    }
+
+    /**
+     * Create the file of the given size, and its directory.
+     * @param dest The file
+     * @param size Size in bytes
+     * @throws IOException If fails
+     */
+    private static void allocate(final File dest, final long size)
+        throws IOException {
+        final File dir = dest.getAbsoluteFile().getParentFile();
+        if (dir.mkdirs()) {
+            Logger.debug(S3Ranges.class, "%s created", dir);
+        }
+        final RandomAccessFile file = new RandomAccessFile(dest, "rw");
+        try {
+            file.setLength(size);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Size of the entire object, from the response to the first range.
+     * @param object First range
+     * @return Size in bytes
+     */
+    private static long total(final S3Object object) {
+        final Object range = S3Ranges.header(object, "Content-Range");
+        final long size;
+        if (range == null) {
+            size = object.getObjectMetadata().getContentLength();
+        } else {
+            final String text = range.toString();
+            size = Long.parseLong(
+                text.substring(text.lastIndexOf('/') + 1).trim()
+            );
+        }
+        return size;
+    }
+
+    /**
+     * HTTP header of the response, in any case.
+     * @param object Response
+     * @param name Name of the header
+     * @return Value or NULL if absent
+     */
+    private static Object header(final S3Object object, final String name) {
+        Object value = null;
+        for (final Map.Entry<String, Object> header
+            : object.getObjectMetadata().getRawMetadata().entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                value = header.getValue();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Cancel all ranges.
+     * @param parts Ranges being received
+     */
+    private static void cancel(final Collection<Future<Long>> parts) {
+        for (final Future<Long> future : parts) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * One range, received in a separate thread.
+     */
+    private final class Part implements Callable<Long> {
+        /**
+         * S3 client.
+         */
+        private final transient AmazonS3 client;
+        /**
+         * First range of the object.
+         */
+        private final transient S3Object first;
+        /**
+         * Offset of the range.
+         */
+        private final transient long start;
+        /**
+         * Size of the entire object.
+         */
+        private final transient long size;
+        /**
+         * The file.
+         */
+        private final transient File dest;
+        /**
+         * Progress of the download.
+         */
+        private final transient Progress progress;
+        /**
+         * Ctor.
+         * @param clnt S3 client
+         * @param object First range of the object
+         * @param offset Offset of this range
+         * @param total Size of the entire object
+         * @param file The file
+         * @param prgs Progress of the download
+         * @checkstyle ParameterNumber (3 lines)
+         */
+        Part(final AmazonS3 clnt, final S3Object object, final long offset,
+            final long total, final File file, final Progress prgs) {
+            this.client = clnt;
+            this.first = object;
+            this.start = offset;
+            this.size = total;
+            this.dest = file;
+            this.progress = prgs;
+        }
+        @Override
+        public Long call() throws IOException {
+            final GetObjectRequest request = S3Ranges.this.request(
+                this.first.getBucketName(), this.first.getKey(),
+                this.start, false
+            );
+            request.setMatchingETagConstraints(
+                Collections.singletonList(
+                    this.first.getObjectMetadata().getETag()
+                )
+            );
+            final S3Object object;
+            try {
+                object = this.client.getObject(request);
+            } catch (final AmazonClientException ex) {
+                throw new IOException(ex);
+            }
+            if (object == null) {
+                throw new IOException(
+                    String.format(
+                        "s3://%s/%s changed while being downloaded",
+                        this.first.getBucketName(), this.first.getKey()
+                    )
+                );
+            }
+            return S3Ranges.write(
+                object, this.start,
+                Math.min(S3Ranges.this.part, this.size - this.start),
+                this.dest, this.progress
+            );
+        }
+    }
+
+}
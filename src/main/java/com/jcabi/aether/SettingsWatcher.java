@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Watcher of settings files, which runs an action when any of them is
+ * created, modified or deleted.
+ *
+ * <p>Directories of the files are watched by {@link WatchService} in
+ * a background thread, until the watcher is closed. Files in missing
+ * directories are not watched. When a watched directory is deleted, its
+ * files are considered changed, and they are not watched anymore, while
+ * files in other directories are.
+ *
+ * <p>{@link WatchService} is available since Java 7.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "files")
+@EqualsAndHashCode(of = { "files", "action" })
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class SettingsWatcher implements Closeable {
+
+    /**
+     * Watched files, absolute.
+     */
+    private final transient Set<File> files;
+
+    /**
+     * Action to run on changes, with errors logged and swallowed.
+     */
+    private final transient Runnable action;
+
+    /**
+     * Watch service.
+     */
+    private final transient WatchService service;
+
+    /**
+     * How many directories are watched.
+     */
+    private final transient int dirs;
+
+    /**
+     * Thread of the watcher.
+     */
+    private final transient ExecutorService executor;
+
+    /**
+     * Ctor.
+     * @param watched Files to watch
+     * @param act Action to run when they change
+     * @throws IOException If can't watch their directories
+     */
+    SettingsWatcher(final Collection<File> watched, final Runnable act)
+        throws IOException {
+        this.files = new HashSet<File>(watched.size());
+        this.action = new VerboseRunnable(act, true, true);
+        this.service = FileSystems.getDefault().newWatchService();
+        final Set<File> parents = new HashSet<File>(watched.size());
+        for (final File file : watched) {
+            final File abs = file.getAbsoluteFile();
+            this.files.add(abs);
+            final File dir = abs.getParentFile();
+            if (dir != null && dir.isDirectory() && parents.add(dir)) {
+                dir.toPath().register(
+                    this.service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE
+                );
+            }
+        }
+        this.dirs = parents.size();
+        this.executor = Executors.newSingleThreadExecutor(
+            new VerboseThreads(SettingsWatcher.class)
+        );
+        this.executor.submit(
+            new VerboseRunnable(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        SettingsWatcher.this.watch();
+                    }
+                },
+                true, false
+            )
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.executor.shutdownNow();
+        this.service.close();
+    }
+
+    /**
+     * Wait for changes and run the action, until closed or until no
+     * directories are left to watch.
+     */
+    private void watch() {
+        int left = this.dirs;
+        while (left > 0) {
+            try {
+                final WatchKey key = this.service.take();
+                boolean changed = this.changed(key);
+                if (!key.reset()) {
+                    Logger.warn(
+                        this, "%s is not watched anymore", key.watchable()
+                    );
+                    changed = true;
+                    --left;
+                }
+                if (changed) {
+                    this.action.run();
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                left = 0;
+            } catch (final ClosedWatchServiceException ex) {
+                left = 0;
+            }
+        }
+        Logger.debug(this, "stopped watching %[list]s", this.files);
+    }
+
+    /**
+     * Any of the watched files changed?
+     * @param key Signalled key
+     * @return TRUE if changed
+     */
+    private boolean changed(final WatchKey key) {
+        final Path dir = Path.class.cast(key.watchable());
+        boolean changed = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            final Object name = event.context();
+            if (name instanceof Path && this.files.contains(
+                dir.resolve(Path.class.cast(name)).toFile().getAbsoluteFile()
+            )) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.aspects.Immutable;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Settings of resolution of SNAPSHOT versions by {@link Aether}.
+ *
+ * <pre> Aether aether = new Aether(
+ *   repositories, local, new Connections(), new Transfers(),
+ *   new Snapshots().stale(TimeUnit.HOURS.toMillis(1L))
+ * );</pre>
+ *
+ * <p>By default, a SNAPSHOT version is resolved again, with a request to
+ * the repository, as soon as its update policy requires it. Stale versions
+ * are served while they are resolved in background with
+ * {@link #stale(long)}, see {@link CachedVersionResolver}.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = "msec")
+public final class Snapshots {
+
+    /**
+     * Maximum staleness of SNAPSHOT versions, in milliseconds, or zero
+     * if stale versions are not used.
+     */
+    private final transient long msec;
+
+    /**
+     * Public ctor, with default settings.
+     */
+    public Snapshots() {
+        this(0L);
+    }
+
+    /**
+     * Private ctor.
+     * @param stale Maximum staleness in milliseconds, zero to disable
+     */
+    private Snapshots(final long stale) {
+        this.msec = stale;
+    }
+
+    /**
+     * Same settings, with SNAPSHOT versions served stale while refreshed.
+     *
+     * <p>When update policy of a repository requires to check SNAPSHOT
+     * metadata again, the version resolved last time is used immediately,
+     * if it expired not longer than the given time ago, and the metadata
+     * is checked in background. The next resolution gets the fresh
+     * version. Versions resolved by other instances of {@link Aether}, or
+     * before restart, are not known, so the first resolution of
+     * a SNAPSHOT always waits for its metadata.
+     *
+     * @param stale Maximum staleness in milliseconds, zero to disable
+     * @return New settings
+     */
+    public Snapshots stale(final long stale) {
+        if (stale < 0L) {
+            throw new IllegalArgumentException(
+                String.format("invalid staleness %d", stale)
+            );
+        }
+        return new Snapshots(stale);
+    }
+
+    /**
+     * How long after expiration SNAPSHOT versions may be used.
+     * @return Milliseconds, zero if stale versions are not used
+     */
+    public long staleness() {
+        return this.msec;
+    }
+
+}
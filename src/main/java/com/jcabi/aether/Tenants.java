@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.ToString;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Aethers of many tenants, with their own remote repositories and
+ * credentials, over one local repository and shared caches.
+ *
+ * <p>Every tenant gets its own {@link Aether}, with its own repositories
+ * and authentication, while the local repository, the repository system
+ * with its cache of versions and metadata, HTTP connections, statistics
+ * of repositories and routes are shared by all of them:
+ *
+ * <pre> Tenants tenants = new Tenants(localRepo);
+ * tenants.register("team-a", reposOfTeamA);
+ * tenants.register("team-b", reposOfTeamB);
+ * List&lt;Artifact&gt; deps = tenants.aether("team-a").resolve(
+ *   new DefaultArtifact("junit", "junit-dep", "", "jar", "4.10"),
+ *   JavaScopes.RUNTIME
+ * );</pre>
+ *
+ * <p>Repositories of tenants are identified by their URLs and credentials,
+ * not by IDs given to them by tenants, see {@link Topology#identified()}.
+ * An artifact downloaded for one tenant is found in the local repository
+ * by every tenant which has the same repository, with the same
+ * credentials, and is not visible to other tenants. So the more tenants
+ * use a repository, the more often its artifacts, descriptors and
+ * metadata are found in caches.
+ *
+ * <p>S3 connectors are always registered, since any tenant may need them.
+ *
+ * <p>Connections and threads shared by tenants are released by
+ * {@link #close()}, which callers must call when tenants are not needed
+ * anymore.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "tenants")
+public final class Tenants implements Closeable {
+
+    /**
+     * Aether with everything shared and no repositories.
+     */
+    private final transient Aether base;
+
+    /**
+     * Aethers of tenants, by their names.
+     */
+    private final transient ConcurrentMap<String, Aether> tenants;
+
+    /**
+     * Public ctor.
+     * @param repo Local repository location (directory path)
+     */
+    public Tenants(final File repo) {
+        this(repo, new Connections());
+    }
+
+    /**
+     * Public ctor.
+     * @param repo Local repository location (directory path)
+     * @param conns Settings of HTTP connection pool
+     */
+    public Tenants(final File repo, final Connections conns) {
+        this(repo, conns, new Transfers());
+    }
+
+    /**
+     * Public ctor.
+     * @param repo Local repository location (directory path)
+     * @param conns Settings of HTTP connection pool
+     * @param trs Settings of transfers
+     */
+    public Tenants(final File repo, final Connections conns,
+        final Transfers trs) {
+        this(repo, conns, trs, new Snapshots());
+    }
+
+    /**
+     * Public ctor.
+     * @param repo Local repository location (directory path)
+     * @param conns Settings of HTTP connection pool
+     * @param trs Settings of transfers
+     * @param snaps Settings of SNAPSHOT versions
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    public Tenants(final File repo, final Connections conns,
+        final Transfers trs, final Snapshots snaps) {
+        this.base = new Aether(
+            Collections.<RemoteRepository>emptyList(), repo, conns, trs,
+            snaps, true
+        );
+        this.tenants = new ConcurrentHashMap<String, Aether>(0);
+    }
+
+    /**
+     * Register a tenant, or replace its repositories.
+     * @param tenant Name of the tenant
+     * @param repos Its remote repositories, with their authentication
+     * @return Aether of the tenant
+     */
+    public Aether register(final String tenant,
+        final Collection<RemoteRepository> repos) {
+        final Aether aether = new Aether(repos, this.base);
+        this.tenants.put(tenant, aether);
+        return aether;
+    }
+
+    /**
+     * Aether of the tenant.
+     * @param tenant Name of the tenant
+     * @return Its Aether
+     */
+    public Aether aether(final String tenant) {
+        final Aether aether = this.tenants.get(tenant);
+        if (aether == null) {
+            throw new IllegalArgumentException(
+                String.format("tenant '%s' is not registered", tenant)
+            );
+        }
+        return aether;
+    }
+
+    /**
+     * Names of all registered tenants.
+     * @return Names
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(this.tenants.keySet());
+    }
+
+    /**
+     * Close connections and stop threads shared by all tenants.
+     *
+     * <p>Resolutions of tenants are not possible after that.
+     */
+    @Override
+    public void close() {
+        this.base.close();
+    }
+
+    /**
+     * Progress of resolutions of all tenants.
+     *
+     * <p>Events of one tenant only are published by its Aether, see
+     * {@link Aether#events()}.
+     *
+     * @return Publisher of events
+     */
+    public ResolutionEvents events() {
+        return this.base.events();
+    }
+
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.maven.settings.Mirror;
+import org.apache.maven.settings.Settings;
+import org.sonatype.aether.repository.Authentication;
+import org.sonatype.aether.repository.Proxy;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.repository.DefaultMirrorSelector;
+import org.sonatype.aether.util.repository.DefaultProxySelector;
+
+/**
+ * Remote repositories of {@link Aether}, with mirrors and proxies from
+ * Maven settings applied.
+ *
+ * <p>The topology is built once, when {@link Aether} is created, and never
+ * changes; when settings are reloaded, see {@link Aether#watch()}, it is
+ * replaced by a new one as a whole. Repositories are copied, so later
+ * changes of the original objects don't affect it, and repositories with
+ * unsupported protocols are dropped. Every resolution gets the same
+ * instances of {@link RemoteRepository}, which must not be modified.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "remotes")
+@EqualsAndHashCode(of = "remotes")
+final class Topology {
+
+    /**
+     * Supported protocols.
+     */
+    private static final Pattern PROTOCOLS = Pattern.compile("https?|file|s3");
+
+    /**
+     * Bytes of SHA-1 in identities of repositories.
+     */
+    private static final int IDENTITY = 8;
+
+    /**
+     * Supported remote repositories, in declaration order.
+     */
+    private final transient List<RemoteRepository> remotes;
+
+    /**
+     * Ctor.
+     * @param repos Remote repositories, as declared
+     * @param settings Maven settings with mirrors and proxies
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    Topology(final Collection<RemoteRepository> repos,
+        final Settings settings) {
+        final DefaultMirrorSelector mirrors = Topology.mirrors(settings);
+        final DefaultProxySelector proxies = Topology.proxies(settings);
+        final List<RemoteRepository> list =
+            new ArrayList<RemoteRepository>(repos.size());
+        for (final RemoteRepository repo : repos) {
+            RemoteRepository remote = mirrors.getMirror(repo);
+            if (remote == null) {
+                remote = repo;
+            }
+            remote = new Repository(remote).remote();
+            if (proxies != null) {
+                remote.setProxy(proxies.getProxy(remote));
+                for (final RemoteRepository mirrored
+                    : remote.getMirroredRepositories()) {
+                    mirrored.setProxy(proxies.getProxy(mirrored));
+                }
+            }
+            if (Topology.PROTOCOLS.matcher(remote.getProtocol()).matches()) {
+                list.add(remote);
+            } else {
+                Logger.warn(
+                    this,
+                    "%s ignored (only S3, HTTP/S, and FILE are supported)",
+                    remote
+                );
+            }
+        }
+        this.remotes = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Private ctor.
+     * @param list Repositories, which nobody else refers to
+     */
+    private Topology(final List<RemoteRepository> list) {
+        this.remotes = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Supported remote repositories, in declaration order.
+     * @return Repositories, the same list every time
+     */
+    public List<RemoteRepository> repositories() {
+        return this.remotes;
+    }
+
+    /**
+     * Is there a repository with this protocol?
+     * @param protocol Protocol, for example "s3"
+     * @return TRUE if at least one repository uses it
+     */
+    public boolean has(final String protocol) {
+        boolean has = false;
+        for (final RemoteRepository remote : this.remotes) {
+            if (protocol.equals(remote.getProtocol())) {
+                has = true;
+                break;
+            }
+        }
+        return has;
+    }
+
+    /**
+     * The same topology, with repositories identified by what they are,
+     * instead of what they are called.
+     *
+     * <p>The ID of every repository is a digest of its URL and all its
+     * credentials (user, password, private key and its passphrase), so
+     * repositories of different owners are known under the same ID if and
+     * only if they are the same, with the same access, and everything keyed
+     * by ID, like artifacts in the local repository, is shared by them,
+     * see {@link Tenants}. Owners with the same user but another password
+     * don't share anything, since one of the passwords may be wrong.
+     *
+     * @return New topology
+     * @since 1.0
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public Topology identified() {
+        final List<RemoteRepository> list =
+            new ArrayList<RemoteRepository>(this.remotes.size());
+        for (final RemoteRepository remote : this.remotes) {
+            final RemoteRepository copy = new Repository(remote).remote();
+            copy.setId(Topology.identity(remote));
+            list.add(copy);
+        }
+        return new Topology(list);
+    }
+
+    /**
+     * Identity of the repository.
+     * @param remote The repository
+     * @return ID, the same for the same URL and credentials
+     */
+    private static String identity(final RemoteRepository remote) {
+        final StringBuilder text = new StringBuilder(remote.getUrl());
+        if (!text.toString().endsWith("/")) {
+            text.append('/');
+        }
+        final Authentication auth = remote.getAuthentication();
+        if (auth != null) {
+            text.append('\u0000').append(auth.getUsername())
+                .append('\u0000').append(auth.getPassword())
+                .append('\u0000').append(auth.getPrivateKeyFile())
+                .append('\u0000').append(auth.getPassphrase());
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+            digest.update(text.toString().getBytes("UTF-8"));
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        } catch (final UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        final StringBuilder hex = new StringBuilder("repo-");
+        final byte[] bytes = digest.digest();
+        for (int idx = 0; idx < Topology.IDENTITY; ++idx) {
+            hex.append(String.format("%02x", bytes[idx]));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Setup mirrors based on maven settings.
+     * @param settings Settings to use
+     * @return Mirror selector
+     */
+    private static DefaultMirrorSelector mirrors(final Settings settings) {
+        final DefaultMirrorSelector selector =
+            new DefaultMirrorSelector();
+        final List<Mirror> mirrors = settings.getMirrors();
+        Logger.warn(Topology.class, "mirrors: %s", mirrors);
+        if (mirrors != null) {
+            for (final Mirror mirror : mirrors) {
+                selector.add(
+                    mirror.getId(), mirror.getUrl(), mirror.getLayout(), false,
+                    mirror.getMirrorOf(), mirror.getMirrorOfLayouts()
+                );
+            }
+        }
+        return selector;
+    }
+
+    /**
+     * Setup proxy based on maven settings.
+     * @param settings Settings to use
+     * @return Proxy selector or NULL if there is no active proxy
+     */
+    private static DefaultProxySelector proxies(final Settings settings) {
+        final org.apache.maven.settings.Proxy proxy =
+            settings.getActiveProxy();
+        DefaultProxySelector selector = null;
+        if (proxy != null) {
+            selector = new DefaultProxySelector();
+            selector.add(
+                new Proxy(
+                    proxy.getProtocol(),
+                    proxy.getHost(),
+                    proxy.getPort(),
+                    new Authentication(proxy.getUsername(), proxy.getPassword())
+                ), proxy.getNonProxyHosts()
+            );
+        }
+        return selector;
+    }
+
+}
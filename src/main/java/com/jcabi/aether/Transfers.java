@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.aspects.Immutable;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Settings of transfers made by {@link Aether}, on top of its pool of
+ * HTTP connections (see {@link Connections}).
+ *
+ * <pre> Aether aether = new Aether(
+ *   repositories, local, new Connections(),
+ *   new Transfers().hedged(95).retried(3)
+ * );</pre>
+ *
+ * <p>Hedged requests to equivalent mirrors are enabled with
+ * {@link #hedged(int)}, retries of failed requests are configured with
+ * {@link #retried(int)}, parallel downloads of large S3 objects with
+ * {@link #ranged(long)}, and S3-compatible servers other than Amazon are
+ * used with {@link #s3(String)}.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = { "hdg", "tries", "part", "point" })
+public final class Transfers {
+
+    /**
+     * Percentile of latency that triggers a hedged request, or zero
+     * if hedging is disabled.
+     */
+    private final transient int hdg;
+
+    /**
+     * How many times a failed request is retried.
+     */
+    private final transient int tries;
+
+    /**
+     * Size of ranges in parallel downloads, in bytes, or zero if
+     * parallel downloads are disabled.
+     */
+    private final transient long part;
+
+    /**
+     * S3 endpoint, or empty for Amazon S3.
+     */
+    private final transient String point;
+
+    /**
+     * Public ctor, with default settings.
+     */
+    public Transfers() {
+        // @checkstyle MagicNumber (1 line)
+        this(0, 2, 16L << 20, "");
+    }
+
+    /**
+     * Private ctor.
+     * @param pct Percentile of latency for hedging, zero to disable
+     * @param rtr How many times to retry a failed request
+     * @param size Size of ranges in parallel downloads, zero to disable
+     * @param url S3 endpoint, empty for Amazon S3
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    private Transfers(final int pct, final int rtr, final long size,
+        final String url) {
+        this.hdg = pct;
+        this.tries = rtr;
+        this.part = size;
+        this.point = url;
+    }
+
+    /**
+     * Same settings, with hedged requests enabled.
+     *
+     * <p>When a repository doesn't start to respond within the given
+     * percentile of its recent response times, the same file is requested
+     * from an equivalent mirror, and the first complete response with
+     * a valid checksum wins. Two repositories are equivalent if they are
+     * mirrors of the same repositories, see
+     * {@code RemoteRepository.getMirroredRepositories()}. A mirror from
+     * Maven settings, which replaces one repository, is also equivalent to
+     * that repository, as declared, so the repository itself is requested
+     * when the mirror is slow. Don't enable hedging if the repository must
+     * be reached only through the mirror.
+     *
+     * @param pct Percentile of latency, e.g. 95
+     * @return New settings
+     */
+    public Transfers hedged(final int pct) {
+        // @checkstyle MagicNumber (1 line)
+        if (pct < 1 || pct > 100) {
+            throw new IllegalArgumentException(
+                String.format("invalid percentile %d", pct)
+            );
+        }
+        return new Transfers(pct, this.tries, this.part, this.point);
+    }
+
+    /**
+     * Same settings, with another number of retries.
+     *
+     * <p>A request that failed because of a connection problem or a server
+     * error (5xx) is retried after a random delay, which grows
+     * exponentially with every attempt. A repository that keeps failing
+     * is considered down for a while, and requests to it fail immediately,
+     * until one trial request succeeds. By default a request is retried
+     * twice.
+     *
+     * @param count How many times to retry, zero to disable retries
+     * @return New settings
+     */
+    public Transfers retried(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                String.format("invalid number of retries %d", count)
+            );
+        }
+        return new Transfers(this.hdg, count, this.part, this.point);
+    }
+
+    /**
+     * Same settings, with another size of ranges in parallel downloads.
+     *
+     * <p>S3 objects larger than this size are downloaded as a number of
+     * byte ranges of this size, in parallel, up to
+     * {@link Connections#perHost()} at a time, and written to disk by
+     * offset. Checksum of the entire file is verified when all ranges are
+     * received. By default objects larger than 16Mb are downloaded in
+     * parallel.
+     *
+     * @param size Size of one range in bytes, zero to disable
+     * @return New settings
+     */
+    public Transfers ranged(final long size) {
+        if (size < 0L) {
+            throw new IllegalArgumentException(
+                String.format("invalid size of range %d", size)
+            );
+        }
+        return new Transfers(this.hdg, this.tries, size, this.point);
+    }
+
+    /**
+     * Same settings, with another S3 endpoint.
+     *
+     * <p>Repositories with {@code s3://bucket/path} URLs are fetched from
+     * this endpoint instead of Amazon S3, for example from a local
+     * S3-compatible server. Buckets are addressed by path if their names
+     * are not valid host names.
+     *
+     * @param url Endpoint, e.g. "http://localhost:9000", or empty for
+     *  Amazon S3
+     * @return New settings
+     */
+    public Transfers s3(final String url) {
+        return new Transfers(this.hdg, this.tries, this.part, url);
+    }
+
+    /**
+     * Percentile of latency that triggers a hedged request.
+     * @return Percentile, zero if hedging is disabled
+     */
+    public int hedge() {
+        return this.hdg;
+    }
+
+    /**
+     * How many times a failed request is retried.
+     * @return Number of retries
+     */
+    public int retries() {
+        return this.tries;
+    }
+
+    /**
+     * Size of ranges in parallel downloads.
+     * @return Bytes, zero if parallel downloads are disabled
+     */
+    public long range() {
+        return this.part;
+    }
+
+    /**
+     * S3 endpoint.
+     * @return URL, or empty for Amazon S3
+     */
+    public String endpoint() {
+        return this.point;
+    }
+
+}
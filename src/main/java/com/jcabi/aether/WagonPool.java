@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.jcabi.log.Logger;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.proxy.ProxyInfo;
+import org.apache.maven.wagon.repository.Repository;
+
+/**
+ * Bounded pool of connected wagons, by repository.
+ *
+ * <p>A wagon connected to a repository keeps its client and connections,
+ * so it can be reused for the same repository and the same credentials,
+ * instead of connecting a new one. At most the given number of idle wagons
+ * are kept for every repository, extra ones are disconnected.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ * @since 1.0
+ */
+@ToString(of = "max")
+@EqualsAndHashCode(of = { "max", "idle" })
+final class WagonPool {
+
+    /**
+     * Maximum number of idle wagons per repository.
+     */
+    private final transient int max;
+
+    /**
+     * Factory of new wagons.
+     */
+    private final transient Callable<Wagon> factory;
+
+    /**
+     * Idle connected wagons, by key of repository.
+     */
+    private final transient ConcurrentMap<String, BlockingQueue<Wagon>> idle;
+
+    /**
+     * Ctor.
+     * @param size Maximum number of idle wagons per repository
+     * @param fct Factory of new wagons
+     */
+    WagonPool(final int size, final Callable<Wagon> fct) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                String.format("invalid size of the pool: %d", size)
+            );
+        }
+        this.max = size;
+        this.factory = fct;
+        this.idle = new ConcurrentHashMap<String, BlockingQueue<Wagon>>(0);
+    }
+
+    /**
+     * Key of a repository.
+     *
+     * <p>Wagons are reused only for the same repository with the same
+     * credentials and the same proxy. The credentials are not kept in the
+     * key, only their digest.
+     *
+     * @param repo The repository
+     * @param auth Authentication or NULL
+     * @return Key
+     */
+    public static String key(final Repository repo,
+        final AuthenticationInfo auth) {
+        return WagonPool.key(repo, auth, null);
+    }
+
+    /**
+     * Key of a repository, connected through a proxy.
+     * @param repo The repository
+     * @param auth Authentication or NULL
+     * @param proxy Proxy or NULL
+     * @return Key
+     */
+    public static String key(final Repository repo,
+        final AuthenticationInfo auth, final ProxyInfo proxy) {
+        final StringBuilder text = new StringBuilder(repo.getUrl());
+        if (auth != null) {
+            text.append('\u0000').append(auth.getUserName())
+                .append('\u0000').append(auth.getPassword())
+                .append('\u0000').append(auth.getPrivateKey())
+                .append('\u0000').append(auth.getPassphrase());
+        }
+        if (proxy != null) {
+            text.append('\u0000').append(proxy.getType())
+                .append('\u0000').append(proxy.getHost())
+                .append('\u0000').append(proxy.getPort())
+                .append('\u0000').append(proxy.getUserName())
+                .append('\u0000').append(proxy.getPassword())
+                .append('\u0000').append(proxy.getNonProxyHosts());
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+            digest.update(text.toString().getBytes("UTF-8"));
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        } catch (final UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        final StringBuilder key = new StringBuilder(repo.getId())
+            .append(' ');
+        for (final byte bte : digest.digest()) {
+            key.append(String.format("%02x", bte));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Take an idle connected wagon.
+     * @param key Key of the repository
+     * @return Wagon or NULL if there are no idle wagons
+     */
+    public Wagon take(final String key) {
+        return this.queue(key).poll();
+    }
+
+    /**
+     * Make a new wagon, not connected yet.
+     * @return Wagon
+     * @throws ConnectionException If fails
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    public Wagon create() throws ConnectionException {
+        try {
+            return this.factory.call();
+        // @checkstyle IllegalCatch (1 line)
+        } catch (final Exception ex) {
+            throw new ConnectionException("can't create a wagon", ex);
+        }
+    }
+
+    /**
+     * Return a connected wagon to the pool, or disconnect it if there
+     * are enough idle wagons for the repository already.
+     * @param key Key of the repository
+     * @param wagon The wagon
+     */
+    public void put(final String key, final Wagon wagon) {
+        if (!this.queue(key).offer(wagon)) {
+            this.discard(wagon);
+        }
+    }
+
+    /**
+     * Disconnect a wagon, which must not be reused, for example because
+     * its transfer failed and its connection may be broken.
+     * @param wagon The wagon
+     */
+    public void discard(final Wagon wagon) {
+        try {
+            wagon.disconnect();
+        } catch (final ConnectionException ex) {
+            Logger.warn(this, "can't disconnect %s: %s", wagon, ex);
+        }
+    }
+
+    /**
+     * Queue of idle wagons.
+     * @param key Key of the repository
+     * @return Queue
+     */
+    private BlockingQueue<Wagon> queue(final String key) {
+        BlockingQueue<Wagon> queue = this.idle.get(key);
+        if (queue == null) {
+            this.idle.putIfAbsent(key, new ArrayBlockingQueue<Wagon>(this.max));
+            queue = this.idle.get(key);
+        }
+        return queue;
+    }
+
+}
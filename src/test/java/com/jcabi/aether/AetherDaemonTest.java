@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.artifact.JavaScopes;
+
+/**
+ * Test case for {@link AetherDaemon}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class AetherDaemonTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * AetherDaemon can resolve artifacts for clients.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void resolvesArtifactsForClients() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "served", "1.0");
+        final AetherDaemon daemon = new AetherDaemon(
+            new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                this.temp.newFolder()
+            ),
+            0
+        );
+        try {
+            final File file = this.temp.newFile();
+            daemon.publish(file);
+            final List<Artifact> deps = new AetherClient(file)
+                .resolve(
+                    new DefaultArtifact("com.example:served:1.0"),
+                    JavaScopes.RUNTIME
+                );
+            MatcherAssert.assertThat(deps, Matchers.hasSize(1));
+            MatcherAssert.assertThat(
+                deps.get(0).getFile().exists(),
+                Matchers.is(true)
+            );
+        } finally {
+            daemon.close();
+            repo.close();
+        }
+    }
+
+    /**
+     * AetherClient can report failed resolutions.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = IOException.class)
+    public void reportsFailedResolutions() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        final AetherDaemon daemon = new AetherDaemon(
+            new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                this.temp.newFolder()
+            ),
+            0
+        );
+        try {
+            new AetherClient(daemon.port(), daemon.token()).resolve(
+                new DefaultArtifact("com.example:absent:1.0"),
+                JavaScopes.RUNTIME
+            );
+        } finally {
+            daemon.close();
+            repo.close();
+        }
+    }
+
+    /**
+     * AetherDaemon can refuse requests without its token.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void refusesRequestsWithoutToken() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "secret", "1.0");
+        final AetherDaemon daemon = new AetherDaemon(
+            new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                this.temp.newFolder()
+            ),
+            0
+        );
+        try {
+            final String query = String.format(
+                "http://127.0.0.1:%d%s?artifact=%s&scope=%s",
+                daemon.port(), AetherDaemon.PATH,
+                "com.example:secret:1.0", JavaScopes.RUNTIME
+            );
+            MatcherAssert.assertThat(
+                AetherDaemonTest.status(query, "GET", daemon.token()),
+                Matchers.is(HttpURLConnection.HTTP_BAD_METHOD)
+            );
+            MatcherAssert.assertThat(
+                AetherDaemonTest.status(query, "POST", null),
+                Matchers.is(HttpURLConnection.HTTP_FORBIDDEN)
+            );
+            MatcherAssert.assertThat(
+                AetherDaemonTest.status(query, "POST", "wrong"),
+                Matchers.is(HttpURLConnection.HTTP_FORBIDDEN)
+            );
+            MatcherAssert.assertThat(repo.requests(), Matchers.is(0));
+        } finally {
+            daemon.close();
+            repo.close();
+        }
+    }
+
+    /**
+     * AetherDaemon can save its port and token for owner only.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void publishesTokenPrivately() throws Exception {
+        final AetherDaemon daemon = new AetherDaemon(
+            new Aether(
+                Collections.<RemoteRepository>emptyList(),
+                this.temp.newFolder()
+            ),
+            0, "secret"
+        );
+        try {
+            final File file = new File(this.temp.getRoot(), "daemon");
+            daemon.publish(file);
+            MatcherAssert.assertThat(
+                FileUtils.readLines(file),
+                Matchers.contains(String.valueOf(daemon.port()), "secret")
+            );
+            MatcherAssert.assertThat(
+                new AetherClient(file),
+                Matchers.equalTo(new AetherClient(daemon.port(), "secret"))
+            );
+        } finally {
+            daemon.close();
+        }
+    }
+
+    /**
+     * Send a request with an empty body and get its status.
+     * @param url URL
+     * @param method HTTP method
+     * @param token Token to send, maybe NULL
+     * @return HTTP status
+     * @throws Exception If fails
+     */
+    private static int status(final String url, final String method,
+        final String token) throws Exception {
+        final HttpURLConnection conn =
+            HttpURLConnection.class.cast(new URL(url).openConnection());
+        try {
+            conn.setRequestMethod(method);
+            if (token != null) {
+                conn.setRequestProperty(AetherDaemon.HEADER, token);
+            }
+            return conn.getResponseCode();
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+}
@@ -35,13 +35,20 @@ import com.jcabi.log.VerboseThreads;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.project.MavenProject;
 import org.hamcrest.CustomMatcher;
 import org.hamcrest.Matcher;
@@ -224,6 +231,699 @@ public final class AetherTest {
         );
     }
 
+    /**
+     * Aether can reuse HTTP connections across resolutions.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void reusesConnectionsAcrossResolutions() throws Exception {
+        final String group = "com.example";
+        final MkRepository repo = new MkRepository(this.temp.newFolder())
+            .artifact(group, "first", "1.0")
+            .artifact(group, "second", "1.0");
+        try {
+            final Aether aether = new Aether(
+                Collections.singleton(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                this.temp.newFolder(),
+                // @checkstyle MagicNumber (1 line)
+                new Connections(1, 1, 60000, 60000, 60000)
+            );
+            aether.resolve(
+                new DefaultArtifact("com.example:first:jar:1.0"),
+                JavaScopes.RUNTIME
+            );
+            aether.resolve(
+                new DefaultArtifact("com.example:second:jar:1.0"),
+                JavaScopes.RUNTIME
+            );
+            MatcherAssert.assertThat(
+                repo.requests(),
+                Matchers.greaterThan(1)
+            );
+            MatcherAssert.assertThat(repo.connections(), Matchers.is(1));
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can avoid repositories that don't serve a group.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void routesGroupsToTheirRepositories() throws Exception {
+        final String group = "com.example.routed";
+        final String version = "2.0";
+        final MkRepository empty = new MkRepository(this.temp.newFolder());
+        final MkRepository full = new MkRepository(this.temp.newFolder())
+            .artifact(group, "alpha", version)
+            .artifact(group, "beta", version);
+        final String type = "default";
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("empty", type, empty.url()),
+                    new RemoteRepository("full", type, full.url())
+                ),
+                this.temp.newFolder()
+            );
+            aether.resolve(
+                new DefaultArtifact(group, "alpha", "jar", version),
+                JavaScopes.RUNTIME
+            );
+            final int before = empty.requests();
+            MatcherAssert.assertThat(
+                aether.resolve(
+                    new DefaultArtifact(group, "beta", "jar", version),
+                    JavaScopes.RUNTIME
+                ),
+                Matchers.not(Matchers.<Artifact>empty())
+            );
+            MatcherAssert.assertThat(empty.requests(), Matchers.is(before));
+        } finally {
+            empty.close();
+            full.close();
+        }
+    }
+
+    /**
+     * Aether can read metadata of a group from all repositories, even
+     * when its artifacts are routed to one of them.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void resolvesRangesFromAllRepositories() throws Exception {
+        final String group = "com.example.ranged";
+        final String name = "lib";
+        final MkRepository old = new MkRepository(this.temp.newFolder())
+            .artifact(group, name, "1.0");
+        final MkRepository fresh = new MkRepository(this.temp.newFolder())
+            .artifact(group, name, "2.0");
+        final String path = "com/example/ranged/lib/maven-metadata.xml";
+        // @checkstyle LineLength (1 line)
+        final String xml = "<metadata><groupId>com.example.ranged</groupId><artifactId>lib</artifactId><versioning><versions><version>%s</version></versions></versioning></metadata>";
+        old.file(path, String.format(xml, "1.0").getBytes("UTF-8"));
+        fresh.file(path, String.format(xml, "2.0").getBytes("UTF-8"));
+        final String type = "default";
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("old", type, old.url()),
+                    new RemoteRepository("fresh", type, fresh.url())
+                ),
+                this.temp.newFolder()
+            );
+            aether.resolve(
+                new DefaultArtifact(group, name, "jar", "1.0"),
+                JavaScopes.RUNTIME
+            );
+            MatcherAssert.assertThat(
+                aether.resolve(
+                    new DefaultArtifact(group, name, "jar", "[1.0,3.0)"),
+                    JavaScopes.RUNTIME
+                ).get(0).getVersion(),
+                Matchers.equalTo("2.0")
+            );
+        } finally {
+            old.close();
+            fresh.close();
+        }
+    }
+
+    /**
+     * Aether can hedge requests to a stalled mirror.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void hedgesStalledMirror() throws Exception {
+        final String group = "com.example.hedged";
+        final String version = "1.0";
+        final String[] names = {"one", "two", "three", "stalled"};
+        final MkRepository slow = new MkRepository(this.temp.newFolder());
+        final MkRepository fast = new MkRepository(this.temp.newFolder());
+        for (final String name : names) {
+            slow.artifact(group, name, version);
+            fast.artifact(group, name, version);
+        }
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    AetherTest.mirror("slow", slow.url()),
+                    AetherTest.mirror("fast", fast.url())
+                ),
+                this.temp.newFolder(), new Connections(),
+                // @checkstyle MagicNumber (1 line)
+                new Transfers().hedged(95)
+            );
+            for (int idx = 0; idx < names.length - 1; ++idx) {
+                aether.resolve(
+                    new DefaultArtifact(group, names[idx], "jar", version),
+                    JavaScopes.RUNTIME
+                );
+            }
+            // @checkstyle MagicNumber (1 line)
+            slow.stall(TimeUnit.SECONDS.toMillis(10L));
+            final long start = System.currentTimeMillis();
+            MatcherAssert.assertThat(
+                aether.resolve(
+                    new DefaultArtifact(group, "stalled", "jar", version),
+                    JavaScopes.RUNTIME
+                ),
+                Matchers.not(Matchers.<Artifact>empty())
+            );
+            MatcherAssert.assertThat(
+                System.currentTimeMillis() - start,
+                // @checkstyle MagicNumber (1 line)
+                Matchers.lessThan(TimeUnit.SECONDS.toMillis(5L))
+            );
+        } finally {
+            slow.close();
+            fast.close();
+        }
+    }
+
+    /**
+     * Aether can hedge requests to a stalled mirror with the repository
+     * it replaces.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void hedgesStalledMirrorWithDeclaredRepository() throws Exception {
+        final String group = "com.example.declared";
+        final String version = "1.0";
+        final String[] names = {"one", "two", "three", "stalled"};
+        final MkRepository mirror = new MkRepository(this.temp.newFolder());
+        final MkRepository origin = new MkRepository(this.temp.newFolder());
+        for (final String name : names) {
+            mirror.artifact(group, name, version);
+            origin.artifact(group, name, version);
+        }
+        try {
+            final RemoteRepository remote = new RemoteRepository(
+                "mirror", "default", mirror.url()
+            );
+            remote.setMirroredRepositories(
+                Collections.singletonList(
+                    new RemoteRepository("origin", "default", origin.url())
+                )
+            );
+            final Aether aether = new Aether(
+                Arrays.asList(remote),
+                this.temp.newFolder(), new Connections(),
+                // @checkstyle MagicNumber (1 line)
+                new Transfers().hedged(95)
+            );
+            for (int idx = 0; idx < names.length - 1; ++idx) {
+                aether.resolve(
+                    new DefaultArtifact(group, names[idx], "jar", version),
+                    JavaScopes.RUNTIME
+                );
+            }
+            // @checkstyle MagicNumber (1 line)
+            mirror.stall(TimeUnit.SECONDS.toMillis(10L));
+            final long start = System.currentTimeMillis();
+            MatcherAssert.assertThat(
+                aether.resolve(
+                    new DefaultArtifact(group, "stalled", "jar", version),
+                    JavaScopes.RUNTIME
+                ),
+                Matchers.not(Matchers.<Artifact>empty())
+            );
+            MatcherAssert.assertThat(
+                System.currentTimeMillis() - start,
+                // @checkstyle MagicNumber (1 line)
+                Matchers.lessThan(TimeUnit.SECONDS.toMillis(5L))
+            );
+        } finally {
+            mirror.close();
+            origin.close();
+        }
+    }
+
+    /**
+     * Aether can retry requests failed with server errors.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void retriesServerErrors() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "flaky", "1.0").fail(2);
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("flaky", "default", repo.url())
+                ),
+                this.temp.newFolder()
+            );
+            MatcherAssert.assertThat(
+                aether.resolve(
+                    new DefaultArtifact("com.example:flaky:1.0"),
+                    JavaScopes.RUNTIME
+                ),
+                Matchers.not(Matchers.<Artifact>empty())
+            );
+            MatcherAssert.assertThat(
+                aether.statistics().get(0).retries(),
+                Matchers.is(2L)
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can resume a download broken in the middle of the file.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void resumesBrokenDownloads() throws Exception {
+        final String path = "com/example/large/1.0/large-1.0.jar";
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[100 * 1024];
+        new Random().nextBytes(content);
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "large", "1.0")
+            .file(path, content)
+            .drop(path);
+        final File local = this.temp.newFolder();
+        try {
+            new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                local
+            ).resolve(
+                new DefaultArtifact("com.example:large:1.0"),
+                JavaScopes.RUNTIME
+            );
+            MatcherAssert.assertThat(repo.partials(), Matchers.equalTo(1));
+            MatcherAssert.assertThat(
+                FileUtils.readFileToByteArray(new File(local, path)),
+                Matchers.equalTo(content)
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can resolve artifacts from S3 repositories natively.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void resolvesFromS3Repository() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        final String base = "aether_test/repo/com/example/stored/1.0";
+        repo.file(
+            String.format("%s/stored-1.0.pom", base),
+            // @checkstyle LineLength (1 line)
+            "<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId><artifactId>stored</artifactId><version>1.0</version></project>"
+                .getBytes("UTF-8")
+        ).file(
+            String.format("%s/stored-1.0.jar", base),
+            "com.example:stored:1.0".getBytes("UTF-8")
+        );
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository(
+                        "s3", "default", "s3://aether_test/repo"
+                    ).setAuthentication(new Authentication("key", "secret"))
+                ),
+                this.temp.newFolder(), new Connections(),
+                new Transfers().s3(repo.url())
+            );
+            MatcherAssert.assertThat(
+                aether.resolve(
+                    new DefaultArtifact("com.example:stored:1.0"),
+                    JavaScopes.RUNTIME
+                ),
+                Matchers.not(Matchers.<Artifact>empty())
+            );
+            MatcherAssert.assertThat(
+                aether.statistics().get(0).requests(),
+                Matchers.greaterThan(0L)
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can prefetch artifacts into the local repository.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void prefetchesArtifactsInBackground() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "early", "1.0");
+        final File local = this.temp.newFolder();
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                local
+            );
+            aether.prefetch(
+                Arrays.<Artifact>asList(
+                    new DefaultArtifact("com.example:early:1.0")
+                ),
+                JavaScopes.RUNTIME
+            );
+            final File jar = new File(
+                local, "com/example/early/1.0/early-1.0.jar"
+            );
+            // @checkstyle MagicNumber (1 line)
+            for (int attempt = 0; attempt < 100 && !jar.exists(); ++attempt) {
+                TimeUnit.MILLISECONDS.sleep(100L);
+            }
+            MatcherAssert.assertThat(jar.exists(), Matchers.is(true));
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can prefetch the same artifact in different scopes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void prefetchesArtifactInEveryScope() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "probe", "1.0").file(
+            "com/example/tested/1.0/tested-1.0.pom",
+            // @checkstyle LineLength (1 line)
+            "<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId><artifactId>tested</artifactId><version>1.0</version><dependencies><dependency><groupId>com.example</groupId><artifactId>probe</artifactId><version>1.0</version><scope>runtime</scope></dependency></dependencies></project>"
+                .getBytes("UTF-8")
+        ).file(
+            "com/example/tested/1.0/tested-1.0.jar",
+            "com.example:tested:1.0".getBytes("UTF-8")
+        );
+        final File local = this.temp.newFolder();
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                local
+            );
+            final Collection<Artifact> artifacts = Arrays.<Artifact>asList(
+                new DefaultArtifact("com.example:tested:1.0")
+            );
+            aether.prefetch(artifacts, JavaScopes.COMPILE);
+            aether.prefetch(artifacts, JavaScopes.RUNTIME);
+            final File jar = new File(
+                local, "com/example/probe/1.0/probe-1.0.jar"
+            );
+            // @checkstyle MagicNumber (1 line)
+            for (int attempt = 0; attempt < 100 && !jar.exists(); ++attempt) {
+                TimeUnit.MILLISECONDS.sleep(100L);
+            }
+            MatcherAssert.assertThat(jar.exists(), Matchers.is(true));
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can pause a background resolution while a foreground one
+     * waits for the local repository.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void prefetchGivesWayToForegroundResolutions() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "slow", "1.0")
+            .artifact("com.example", "urgent", "1.0");
+        final File local = this.temp.newFolder();
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                local
+            );
+            // @checkstyle MagicNumber (1 line)
+            repo.stall(500L);
+            aether.prefetch(
+                Arrays.<Artifact>asList(
+                    new DefaultArtifact("com.example:slow:1.0")
+                ),
+                JavaScopes.RUNTIME
+            );
+            // @checkstyle MagicNumber (1 line)
+            for (int attempt = 0; attempt < 100 && repo.requests() == 0;
+                ++attempt) {
+                TimeUnit.MILLISECONDS.sleep(10L);
+            }
+            repo.stall(0L);
+            aether.resolve(
+                new DefaultArtifact("com.example:urgent:1.0"),
+                JavaScopes.RUNTIME
+            );
+            final File jar = new File(
+                local, "com/example/slow/1.0/slow-1.0.jar"
+            );
+            MatcherAssert.assertThat(jar.exists(), Matchers.is(false));
+            // @checkstyle MagicNumber (1 line)
+            for (int attempt = 0; attempt < 100 && !jar.exists(); ++attempt) {
+                TimeUnit.MILLISECONDS.sleep(100L);
+            }
+            MatcherAssert.assertThat(jar.exists(), Matchers.is(true));
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can give up when time is up, releasing the local repository.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void abortsResolutionWhenTimeIsUp() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "late", "1.0");
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                this.temp.newFolder()
+            );
+            final Artifact artifact =
+                new DefaultArtifact("com.example:late:1.0");
+            // @checkstyle MagicNumber (1 line)
+            repo.stall(TimeUnit.SECONDS.toMillis(30L));
+            final long start = System.currentTimeMillis();
+            try {
+                aether.resolve(
+                    artifact, JavaScopes.RUNTIME, 1L, TimeUnit.SECONDS
+                );
+                Assert.fail("resolved despite the stalled repository");
+            } catch (final ResolutionTimeoutException ex) {
+                MatcherAssert.assertThat(
+                    System.currentTimeMillis() - start,
+                    // @checkstyle MagicNumber (1 line)
+                    Matchers.lessThan(TimeUnit.SECONDS.toMillis(5L))
+                );
+            }
+            MatcherAssert.assertThat(
+                Thread.currentThread().isInterrupted(),
+                Matchers.is(false)
+            );
+            repo.stall(0L);
+            MatcherAssert.assertThat(
+                aether.resolve(artifact, JavaScopes.RUNTIME),
+                Matchers.not(Matchers.<Artifact>empty())
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can publish progress of resolutions.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void publishesProgressOfResolutions() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "watched", "1.0");
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                this.temp.newFolder()
+            );
+            final BlockingQueue<ResolutionEvent.Kind> kinds =
+                new LinkedBlockingQueue<ResolutionEvent.Kind>();
+            aether.events().subscribe(
+                new ResolutionSubscriber() {
+                    @Override
+                    public void onSubscribe(final ResolutionSubscription sub) {
+                        sub.request(Long.MAX_VALUE);
+                    }
+                    @Override
+                    public void onNext(final ResolutionEvent event) {
+                        kinds.add(event.kind());
+                    }
+                }
+            );
+            aether.resolve(
+                new DefaultArtifact("com.example:watched:1.0"),
+                JavaScopes.RUNTIME
+            );
+            final Collection<ResolutionEvent.Kind> seen =
+                new LinkedList<ResolutionEvent.Kind>();
+            while (true) {
+                final ResolutionEvent.Kind kind =
+                    kinds.poll(1L, TimeUnit.SECONDS);
+                if (kind == null) {
+                    break;
+                }
+                seen.add(kind);
+            }
+            MatcherAssert.assertThat(
+                seen,
+                Matchers.hasItems(
+                    ResolutionEvent.Kind.COLLECTION_STARTED,
+                    ResolutionEvent.Kind.NODE_DISCOVERED,
+                    ResolutionEvent.Kind.TRANSFER_STARTED,
+                    ResolutionEvent.Kind.ARTIFACT_RESOLVED
+                )
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can publish dependencies found in the graph.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void publishesDiscoveredDependencies() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "leaf", "1.0").file(
+            "com/example/trunk/1.0/trunk-1.0.pom",
+            // @checkstyle LineLength (1 line)
+            "<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId><artifactId>trunk</artifactId><version>1.0</version><dependencies><dependency><groupId>com.example</groupId><artifactId>leaf</artifactId><version>1.0</version></dependency></dependencies></project>"
+                .getBytes("UTF-8")
+        ).file(
+            "com/example/trunk/1.0/trunk-1.0.jar",
+            "com.example:trunk:1.0".getBytes("UTF-8")
+        );
+        try {
+            final Aether aether = new Aether(
+                Arrays.asList(
+                    new RemoteRepository("mk", "default", repo.url())
+                ),
+                this.temp.newFolder()
+            );
+            final BlockingQueue<String> nodes =
+                new LinkedBlockingQueue<String>();
+            aether.events().subscribe(
+                new ResolutionSubscriber() {
+                    @Override
+                    public void onSubscribe(final ResolutionSubscription sub) {
+                        sub.request(Long.MAX_VALUE);
+                    }
+                    @Override
+                    public void onNext(final ResolutionEvent event) {
+                        if (event.kind()
+                            == ResolutionEvent.Kind.NODE_DISCOVERED) {
+                            nodes.add(event.subject());
+                        }
+                    }
+                }
+            );
+            aether.resolve(
+                new DefaultArtifact("com.example:trunk:1.0"),
+                JavaScopes.RUNTIME
+            );
+            final Collection<String> seen = new LinkedList<String>();
+            while (true) {
+                final String node = nodes.poll(1L, TimeUnit.SECONDS);
+                if (node == null) {
+                    break;
+                }
+                seen.add(node);
+            }
+            MatcherAssert.assertThat(
+                seen,
+                Matchers.hasItems(
+                    "com.example:trunk:jar:1.0",
+                    "com.example:leaf:jar:1.0"
+                )
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Aether can let the JVM exit when it is closed.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void letsJvmExitWhenClosed() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "closed", "1.0");
+        final Process proc = new ProcessBuilder(
+            new File(System.getProperty("java.home"), "bin/java").getPath(),
+            "-cp", System.getProperty("java.class.path"),
+            AetherTest.Resolve.class.getName(),
+            repo.url(), this.temp.newFolder().getPath()
+        ).redirectErrorStream(true).start();
+        final ExecutorService exec = Executors.newSingleThreadExecutor(
+            new VerboseThreads(AetherTest.class)
+        );
+        try {
+            final Future<Integer> code = exec.submit(
+                new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        IOUtils.copy(proc.getInputStream(), System.out);
+                        return proc.waitFor();
+                    }
+                }
+            );
+            // @checkstyle MagicNumber (1 line)
+            MatcherAssert.assertThat(
+                code.get(1L, TimeUnit.MINUTES), Matchers.is(0)
+            );
+        } finally {
+            proc.destroy();
+            exec.shutdownNow();
+            repo.close();
+        }
+    }
+
+    /**
+     * Make a mirror of Maven Central.
+     * @param name ID of the mirror
+     * @param url URL of it
+     * @return Repository
+     */
+    private static RemoteRepository mirror(final String name,
+        final String url) {
+        final RemoteRepository repo = new RemoteRepository(
+            name, "default", url
+        );
+        repo.setMirroredRepositories(
+            Collections.singletonList(
+                new RemoteRepository(
+                    "central", "default", "http://repo1.maven.org/maven2/"
+                )
+            )
+        );
+        return repo;
+    }
+
     /**
      * Make mock maven project.
      * @return The project
@@ -274,4 +974,35 @@ public final class AetherTest {
         return project;
     }
 
+    /**
+     * Resolution in another JVM, which must exit when it's done.
+     */
+    public static final class Resolve {
+        /**
+         * Ctor.
+         */
+        private Resolve() {
+            // utility class
+        }
+        /**
+         * Resolve an artifact from the repository and close the Aether.
+         * @param args URL of the repository and the local repository
+         * @throws Exception If fails
+         */
+        public static void main(final String... args) throws Exception {
+            final Aether aether = new Aether(
+                Arrays.asList(new RemoteRepository("mk", "default", args[0])),
+                new File(args[1])
+            );
+            try {
+                aether.resolve(
+                    new DefaultArtifact("com.example:closed:1.0"),
+                    JavaScopes.RUNTIME
+                );
+            } finally {
+                aether.close();
+            }
+        }
+    }
+
 }
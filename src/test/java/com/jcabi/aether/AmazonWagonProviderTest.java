@@ -0,0 +1,369 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.observers.ChecksumObserver;
+import org.apache.maven.wagon.proxy.ProxyInfo;
+import org.apache.maven.wagon.proxy.ProxyInfoProvider;
+import org.apache.maven.wagon.repository.Repository;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link AmazonWagonProvider}.
+ *
+ * <p>S3 wagons are replaced with stand-ins, which count connections, and
+ * S3 itself with {@link MkRepository}.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class AmazonWagonProviderTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * AmazonWagonProvider can reuse connected wagons for the same repository.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void reusesConnectedWagons() throws Exception {
+        final AmazonWagonProviderTest.Wagons wagons =
+            new AmazonWagonProviderTest.Wagons();
+        final AmazonWagonProvider provider =
+            new AmazonWagonProvider(
+                new WagonPool(1, wagons), new S3Ranges(0L, 1)
+            );
+        final Repository repo = new Repository("s3", "s3://bucket/repo");
+        for (int idx = 0; idx < 2; ++idx) {
+            final Wagon wagon = provider.lookup("s3");
+            wagon.connect(repo, new AuthenticationInfo());
+            wagon.resourceExists("a/b/c.pom");
+            wagon.disconnect();
+            provider.release(wagon);
+        }
+        MatcherAssert.assertThat(wagons.all(), Matchers.hasSize(1));
+        final Wagon origin = wagons.all().get(0);
+        Mockito.verify(origin).connect(
+            Mockito.any(Repository.class),
+            Mockito.any(AuthenticationInfo.class),
+            Mockito.any(ProxyInfoProvider.class)
+        );
+        Mockito.verify(origin, Mockito.times(2)).resourceExists("a/b/c.pom");
+        Mockito.verify(origin, Mockito.never()).disconnect();
+    }
+
+    /**
+     * AmazonWagonProvider can keep wagons of different repositories apart.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsRepositoriesApart() throws Exception {
+        final AmazonWagonProviderTest.Wagons wagons =
+            new AmazonWagonProviderTest.Wagons();
+        final AmazonWagonProvider provider =
+            new AmazonWagonProvider(
+                new WagonPool(1, wagons), new S3Ranges(0L, 1)
+            );
+        for (final String bucket : new String[] {"first", "second", "first"}) {
+            final Wagon wagon = provider.lookup("s3");
+            wagon.connect(
+                new Repository(bucket, String.format("s3://%s/", bucket))
+            );
+            provider.release(wagon);
+        }
+        MatcherAssert.assertThat(wagons.all(), Matchers.hasSize(2));
+    }
+
+    /**
+     * AmazonWagonProvider can disconnect wagons that don't fit into the pool.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void disconnectsExtraWagons() throws Exception {
+        final AmazonWagonProviderTest.Wagons wagons =
+            new AmazonWagonProviderTest.Wagons();
+        final AmazonWagonProvider provider =
+            new AmazonWagonProvider(
+                new WagonPool(1, wagons), new S3Ranges(0L, 1)
+            );
+        final Repository repo = new Repository("busy", "s3://busy/");
+        final Wagon first = provider.lookup("s3");
+        final Wagon second = provider.lookup("s3");
+        first.connect(repo);
+        second.connect(repo);
+        provider.release(first);
+        provider.release(second);
+        MatcherAssert.assertThat(wagons.all(), Matchers.hasSize(2));
+        Mockito.verify(wagons.all().get(0), Mockito.never()).disconnect();
+        Mockito.verify(wagons.all().get(1)).disconnect();
+    }
+
+    /**
+     * AmazonWagonProvider can keep wagons of other credentials and proxies
+     * apart.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsCredentialsApart() throws Exception {
+        final AmazonWagonProviderTest.Wagons wagons =
+            new AmazonWagonProviderTest.Wagons();
+        final AmazonWagonProvider provider =
+            new AmazonWagonProvider(
+                new WagonPool(1, wagons), new S3Ranges(0L, 1)
+            );
+        final Repository repo = new Repository("s3", "s3://secure/");
+        final ProxyInfo proxy = new ProxyInfo();
+        proxy.setHost("proxy.example.com");
+        for (final String password : new String[] {"Aa", "BB", "Aa"}) {
+            final AuthenticationInfo auth = new AuthenticationInfo();
+            auth.setUserName("key");
+            auth.setPassword(password);
+            final Wagon wagon = provider.lookup("s3");
+            wagon.connect(repo, auth);
+            provider.release(wagon);
+        }
+        MatcherAssert.assertThat(wagons.all(), Matchers.hasSize(2));
+        final Wagon wagon = provider.lookup("s3");
+        wagon.connect(repo, (AuthenticationInfo) null, proxy);
+        provider.release(wagon);
+        // @checkstyle MagicNumber (1 line)
+        MatcherAssert.assertThat(wagons.all(), Matchers.hasSize(3));
+    }
+
+    /**
+     * AmazonWagonProvider can discard wagons whose transfer failed.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void discardsFailedWagons() throws Exception {
+        final AmazonWagonProviderTest.Wagons wagons =
+            new AmazonWagonProviderTest.Wagons();
+        final AmazonWagonProvider provider =
+            new AmazonWagonProvider(
+                new WagonPool(1, wagons), new S3Ranges(0L, 1)
+            );
+        final Repository repo = new Repository("broken", "s3://broken/");
+        final Wagon first = provider.lookup("s3");
+        first.connect(repo);
+        Mockito.doThrow(new TransferFailedException("connection reset"))
+            .when(wagons.all().get(0)).resourceExists(Mockito.anyString());
+        try {
+            first.resourceExists("a/b/c.pom");
+            Assert.fail("transfer didn't fail");
+        } catch (final TransferFailedException ex) {
+            provider.release(first);
+        }
+        final Wagon second = provider.lookup("s3");
+        second.connect(repo);
+        provider.release(second);
+        MatcherAssert.assertThat(wagons.all(), Matchers.hasSize(2));
+        Mockito.verify(wagons.all().get(0)).disconnect();
+        Mockito.verify(wagons.all().get(1), Mockito.never()).disconnect();
+    }
+
+    /**
+     * AmazonWagonProvider can download large objects by ranges in parallel.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void downloadsLargeObjectsByRanges() throws Exception {
+        final MkRepository s3 = new MkRepository(this.temp.newFolder());
+        final String path = "com/example/big/1.0/big-1.0.jar";
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[300 * 1024];
+        new Random().nextBytes(content);
+        s3.file(String.format("aether_test/repo/%s", path), content);
+        final AmazonWagonProviderTest.Wagons wagons =
+            new AmazonWagonProviderTest.Wagons();
+        try {
+            final Wagon wagon = new AmazonWagonProvider(
+                new WagonPool(1, wagons),
+                // @checkstyle MagicNumber (1 line)
+                new S3Ranges(100 * 1024, 2, s3.url())
+            ).lookup("s3");
+            final ChecksumObserver sha = new ChecksumObserver("SHA-1");
+            wagon.addTransferListener(sha);
+            final AuthenticationInfo auth = new AuthenticationInfo();
+            auth.setUserName("key");
+            auth.setPassword("secret");
+            wagon.connect(new Repository("s3", "s3://aether_test/repo"), auth);
+            final File dest = new File(this.temp.newFolder(), "big.jar");
+            wagon.get(path, dest);
+            MatcherAssert.assertThat(
+                FileUtils.readFileToByteArray(dest),
+                Matchers.equalTo(content)
+            );
+            // @checkstyle MagicNumber (1 line)
+            MatcherAssert.assertThat(s3.partials(), Matchers.equalTo(3));
+            MatcherAssert.assertThat(
+                sha.getActualChecksum(),
+                Matchers.equalTo(MkRepository.sha(content))
+            );
+            Mockito.verify(wagons.all().get(0), Mockito.never()).get(
+                Mockito.anyString(), Mockito.any(File.class)
+            );
+        } finally {
+            s3.close();
+        }
+    }
+
+    /**
+     * AmazonWagonProvider can download small files entirely, without ranges.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void downloadsSmallFilesEntirely() throws Exception {
+        final MkRepository s3 = new MkRepository(this.temp.newFolder());
+        final String path = "com/example/big/1.0/big-1.0.pom";
+        final byte[] content = "<project/>".getBytes("UTF-8");
+        s3.file(String.format("aether_test/repo/%s", path), content);
+        try {
+            final Wagon wagon = new AmazonWagonProvider(
+                new WagonPool(1, new AmazonWagonProviderTest.Wagons()),
+                // @checkstyle MagicNumber (1 line)
+                new S3Ranges(100 * 1024, 2, s3.url())
+            ).lookup("s3");
+            wagon.connect(
+                new Repository("s3", "s3://aether_test/repo"),
+                AmazonWagonProviderTest.auth()
+            );
+            final File dest = new File(this.temp.newFolder(), "big.pom");
+            wagon.get(path, dest);
+            MatcherAssert.assertThat(
+                FileUtils.readFileToByteArray(dest),
+                Matchers.equalTo(content)
+            );
+            MatcherAssert.assertThat(s3.partials(), Matchers.equalTo(0));
+        } finally {
+            s3.close();
+        }
+    }
+
+    /**
+     * AmazonWagonProvider can refuse to put together an object which
+     * changed while its ranges were being downloaded.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = TransferFailedException.class)
+    public void refusesObjectsChangedDuringDownload() throws Exception {
+        final MkRepository s3 = new MkRepository(this.temp.newFolder());
+        final String path = "com/example/big/2.0/big-2.0.jar";
+        final String key = String.format("aether_test/repo/%s", path);
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[300 * 1024];
+        new Random().nextBytes(content);
+        s3.file(key, content);
+        final byte[] fresh = content.clone();
+        new Random().nextBytes(fresh);
+        s3.change(key, fresh);
+        try {
+            final Wagon wagon = new AmazonWagonProvider(
+                new WagonPool(1, new AmazonWagonProviderTest.Wagons()),
+                // @checkstyle MagicNumber (1 line)
+                new S3Ranges(100 * 1024, 2, s3.url())
+            ).lookup("s3");
+            wagon.connect(
+                new Repository("s3", "s3://aether_test/repo"),
+                AmazonWagonProviderTest.auth()
+            );
+            wagon.get(path, new File(this.temp.newFolder(), "big.jar"));
+        } finally {
+            s3.close();
+        }
+    }
+
+    /**
+     * AmazonWagonProvider can ignore unknown protocols.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void ignoresUnknownProtocols() throws Exception {
+        MatcherAssert.assertThat(
+            new AmazonWagonProvider().lookup("ftp"),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * Credentials of S3.
+     * @return Authentication
+     */
+    private static AuthenticationInfo auth() {
+        final AuthenticationInfo auth = new AuthenticationInfo();
+        auth.setUserName("key");
+        auth.setPassword("secret");
+        return auth;
+    }
+
+    /**
+     * Factory of stand-in wagons.
+     */
+    private static final class Wagons implements Callable<Wagon> {
+        /**
+         * Wagons created.
+         */
+        private final transient List<Wagon> created =
+            new LinkedList<Wagon>();
+        @Override
+        public Wagon call() {
+            final Wagon wagon = Mockito.mock(Wagon.class);
+            this.created.add(wagon);
+            return wagon;
+        }
+        /**
+         * All wagons created so far.
+         * @return Wagons
+         */
+        public List<Wagon> all() {
+            return this.created;
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Test case for {@link ArtifactPool}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class ArtifactPoolTest {
+
+    /**
+     * ArtifactPool can give the same instance for equal artifacts.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void givesSameInstanceForEqualArtifacts() throws Exception {
+        final ArtifactPool pool = new ArtifactPool();
+        final Artifact first = pool.intern(
+            new DefaultArtifact("com.example:pooled:jar:1.0")
+                .setFile(new File("pooled.jar"))
+        );
+        MatcherAssert.assertThat(
+            pool.intern(
+                new DefaultArtifact("com.example:pooled:jar:1.0")
+                    .setFile(new File("pooled.jar"))
+            ),
+            Matchers.sameInstance(first)
+        );
+        MatcherAssert.assertThat(
+            pool.intern(new DefaultArtifact("com.example:pooled:jar:1.0")),
+            Matchers.not(Matchers.sameInstance(first))
+        );
+        MatcherAssert.assertThat(pool.size(), Matchers.equalTo(2));
+    }
+
+    /**
+     * ArtifactPool can share strings of coordinates between artifacts.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sharesStringsOfCoordinates() throws Exception {
+        final ArtifactPool pool = new ArtifactPool();
+        final Artifact first = pool.intern(
+            new DefaultArtifact("com.example:one:1.0")
+        );
+        final Artifact second = pool.intern(
+            new DefaultArtifact("com.example:two:1.0")
+        );
+        MatcherAssert.assertThat(
+            second.getGroupId(),
+            Matchers.sameInstance(first.getGroupId())
+        );
+        MatcherAssert.assertThat(
+            second.getVersion(),
+            Matchers.sameInstance(first.getVersion())
+        );
+    }
+
+}
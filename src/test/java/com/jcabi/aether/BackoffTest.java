@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Backoff}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class BackoffTest {
+
+    /**
+     * Backoff can make random delays growing exponentially up to the cap.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void growsDelaysUpToTheCap() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final Backoff backoff = new Backoff(10L, 50L);
+        // @checkstyle MagicNumber (1 line)
+        for (int idx = 0; idx < 100; ++idx) {
+            MatcherAssert.assertThat(
+                backoff.delay(0),
+                Matchers.allOf(
+                    Matchers.greaterThanOrEqualTo(0L),
+                    // @checkstyle MagicNumber (1 line)
+                    Matchers.lessThanOrEqualTo(10L)
+                )
+            );
+            MatcherAssert.assertThat(
+                backoff.delay(2),
+                // @checkstyle MagicNumber (1 line)
+                Matchers.lessThanOrEqualTo(40L)
+            );
+            MatcherAssert.assertThat(
+                backoff.delay(Integer.MAX_VALUE),
+                // @checkstyle MagicNumber (1 line)
+                Matchers.lessThanOrEqualTo(50L)
+            );
+        }
+    }
+
+    /**
+     * Backoff can reject invalid delays.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidDelays() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        new Backoff(100L, 10L);
+    }
+
+}
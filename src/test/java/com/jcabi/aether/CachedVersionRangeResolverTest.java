@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.impl.VersionRangeResolver;
+import org.sonatype.aether.repository.LocalRepository;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.resolution.VersionRangeRequest;
+import org.sonatype.aether.resolution.VersionRangeResult;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Test case for {@link CachedVersionRangeResolver}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class CachedVersionRangeResolverTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * CachedVersionRangeResolver can resolve the same range once inside
+     * the policy window.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void resolvesRangeOnceInPolicyWindow() throws Exception {
+        final VersionRangeResolver origin = this.origin();
+        final VersionRangeResolver resolver =
+            new CachedVersionRangeResolver(origin);
+        final RepositorySystemSession session = this.session(null);
+        final VersionRangeRequest request = CachedVersionRangeResolverTest
+            .request(RepositoryPolicy.UPDATE_POLICY_DAILY);
+        final VersionRangeResult first =
+            resolver.resolveVersionRange(session, request);
+        MatcherAssert.assertThat(
+            resolver.resolveVersionRange(
+                this.session(null),
+                CachedVersionRangeResolverTest.request(
+                    RepositoryPolicy.UPDATE_POLICY_DAILY
+                )
+            ),
+            Matchers.sameInstance(first)
+        );
+        Mockito.verify(origin, Mockito.times(1)).resolveVersionRange(
+            Mockito.any(RepositorySystemSession.class),
+            Mockito.any(VersionRangeRequest.class)
+        );
+    }
+
+    /**
+     * CachedVersionRangeResolver can resolve every time when policy
+     * of the session says so.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void resolvesAlwaysWhenSessionRequires() throws Exception {
+        final VersionRangeResolver origin = this.origin();
+        final VersionRangeResolver resolver =
+            new CachedVersionRangeResolver(origin);
+        final RepositorySystemSession session =
+            this.session(RepositoryPolicy.UPDATE_POLICY_ALWAYS);
+        final VersionRangeRequest request = CachedVersionRangeResolverTest
+            .request(RepositoryPolicy.UPDATE_POLICY_NEVER);
+        resolver.resolveVersionRange(session, request);
+        resolver.resolveVersionRange(session, request);
+        Mockito.verify(origin, Mockito.times(2)).resolveVersionRange(
+            Mockito.any(RepositorySystemSession.class),
+            Mockito.any(VersionRangeRequest.class)
+        );
+    }
+
+    /**
+     * CachedVersionRangeResolver can keep results in the cache of the
+     * session, shared with other resolvers.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sharesCacheOfSession() throws Exception {
+        final VersionRangeResolver origin = this.origin();
+        final RepositorySystemSession session = this.session(null);
+        session.getConfigProperties().put(
+            CachedVersionRangeResolver.CACHE, new MetadataCache()
+        );
+        final VersionRangeResult first = new CachedVersionRangeResolver(origin)
+            .resolveVersionRange(
+                session, CachedVersionRangeResolverTest.request(
+                    RepositoryPolicy.UPDATE_POLICY_DAILY
+                )
+            );
+        MatcherAssert.assertThat(
+            new CachedVersionRangeResolver(origin).resolveVersionRange(
+                session, CachedVersionRangeResolverTest.request(
+                    RepositoryPolicy.UPDATE_POLICY_DAILY
+                )
+            ),
+            Matchers.sameInstance(first)
+        );
+    }
+
+    /**
+     * CachedVersionRangeResolver can resolve plain versions without
+     * caching them.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void doesNotCachePlainVersions() throws Exception {
+        final VersionRangeResolver origin = this.origin();
+        final VersionRangeResolver resolver =
+            new CachedVersionRangeResolver(origin);
+        final VersionRangeRequest request = new VersionRangeRequest(
+            new DefaultArtifact("com.example:ranged:1.0"),
+            CachedVersionRangeResolverTest.request(
+                RepositoryPolicy.UPDATE_POLICY_NEVER
+            ).getRepositories(),
+            "project"
+        );
+        resolver.resolveVersionRange(this.session(null), request);
+        resolver.resolveVersionRange(this.session(null), request);
+        Mockito.verify(origin, Mockito.times(2)).resolveVersionRange(
+            Mockito.any(RepositorySystemSession.class),
+            Mockito.any(VersionRangeRequest.class)
+        );
+    }
+
+    /**
+     * Mock original resolver, with new result every time.
+     * @return Resolver
+     * @throws Exception If fails
+     */
+    private VersionRangeResolver origin() throws Exception {
+        final VersionRangeResolver origin =
+            Mockito.mock(VersionRangeResolver.class);
+        Mockito.doAnswer(
+            new Answer<VersionRangeResult>() {
+                @Override
+                public VersionRangeResult answer(
+                    final InvocationOnMock inv) {
+                    return new VersionRangeResult(
+                        VersionRangeRequest.class.cast(inv.getArguments()[1])
+                    );
+                }
+            }
+        ).when(origin).resolveVersionRange(
+            Mockito.any(RepositorySystemSession.class),
+            Mockito.any(VersionRangeRequest.class)
+        );
+        return origin;
+    }
+
+    /**
+     * Mock session.
+     * @param policy Update policy of the session
+     * @return Session
+     * @throws Exception If fails
+     */
+    private RepositorySystemSession session(final String policy)
+        throws Exception {
+        final RepositorySystemSession session =
+            Mockito.mock(RepositorySystemSession.class);
+        Mockito.doReturn(new LocalRepository(this.temp.getRoot()))
+            .when(session).getLocalRepository();
+        final Map<String, Object> props = new HashMap<String, Object>(0);
+        Mockito.doReturn(props).when(session).getConfigProperties();
+        Mockito.doReturn(policy).when(session).getUpdatePolicy();
+        return session;
+    }
+
+    /**
+     * Make a request of range.
+     * @param policy Update policy of the repository
+     * @return Request
+     */
+    private static VersionRangeRequest request(final String policy) {
+        final RemoteRepository repo =
+            new RemoteRepository("remote", "default", "http://localhost/");
+        repo.setPolicy(
+            false,
+            new RepositoryPolicy(
+                true, policy, RepositoryPolicy.CHECKSUM_POLICY_WARN
+            )
+        );
+        repo.setPolicy(
+            true,
+            new RepositoryPolicy(
+                false, policy, RepositoryPolicy.CHECKSUM_POLICY_WARN
+            )
+        );
+        return new VersionRangeRequest(
+            new DefaultArtifact("com.example:ranged:[1.0,2.0)"),
+            Arrays.asList(repo), "project"
+        );
+    }
+
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.impl.VersionResolver;
+import org.sonatype.aether.repository.LocalRepository;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.resolution.VersionRequest;
+import org.sonatype.aether.resolution.VersionResult;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Test case for {@link CachedVersionResolver}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class CachedVersionResolverTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * CachedVersionResolver can serve stale SNAPSHOT version and refresh
+     * it in background.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void servesStaleSnapshotWhileRefreshing() throws Exception {
+        final VersionResolver origin = Mockito.mock(VersionResolver.class);
+        Mockito.doAnswer(
+            new Answer<VersionResult>() {
+                @Override
+                public VersionResult answer(final InvocationOnMock inv) {
+                    return new VersionResult(
+                        VersionRequest.class.cast(inv.getArguments()[1])
+                    ).setVersion("1.0-20130101.000000-1");
+                }
+            }
+        ).when(origin).resolveVersion(
+            Mockito.any(RepositorySystemSession.class),
+            Mockito.any(VersionRequest.class)
+        );
+        final VersionResolver resolver = new CachedVersionResolver(origin);
+        final RepositorySystemSession session = this.session();
+        final VersionResult first = resolver.resolveVersion(
+            session, CachedVersionResolverTest.request()
+        );
+        MatcherAssert.assertThat(
+            resolver.resolveVersion(
+                session, CachedVersionResolverTest.request()
+            ),
+            Matchers.sameInstance(first)
+        );
+        // @checkstyle MagicNumber (1 line)
+        Mockito.verify(origin, Mockito.timeout(5000L).times(2))
+            .resolveVersion(
+                Mockito.any(RepositorySystemSession.class),
+                Mockito.any(VersionRequest.class)
+            );
+    }
+
+    /**
+     * CachedVersionResolver can refresh stale SNAPSHOT version only while
+     * the local repository is not locked.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void refreshesOnlyWhenRepositoryIsFree() throws Exception {
+        final VersionResolver origin = Mockito.mock(VersionResolver.class);
+        Mockito.doAnswer(
+            new Answer<VersionResult>() {
+                @Override
+                public VersionResult answer(final InvocationOnMock inv) {
+                    return new VersionResult(
+                        VersionRequest.class.cast(inv.getArguments()[1])
+                    ).setVersion("1.0-20130101.000000-1");
+                }
+            }
+        ).when(origin).resolveVersion(
+            Mockito.any(RepositorySystemSession.class),
+            Mockito.any(VersionRequest.class)
+        );
+        final VersionResolver resolver = new CachedVersionResolver(origin);
+        final RepositorySystemSession session = this.session();
+        final ReentrantLock lock = new ReentrantLock();
+        session.getConfigProperties().put(CachedVersionResolver.LOCK, lock);
+        resolver.resolveVersion(session, CachedVersionResolverTest.request());
+        lock.lock();
+        try {
+            resolver.resolveVersion(
+                session, CachedVersionResolverTest.request()
+            );
+            TimeUnit.SECONDS.sleep(1L);
+            Mockito.verify(origin, Mockito.times(1)).resolveVersion(
+                Mockito.any(RepositorySystemSession.class),
+                Mockito.any(VersionRequest.class)
+            );
+        } finally {
+            lock.unlock();
+        }
+        // @checkstyle MagicNumber (1 line)
+        Mockito.verify(origin, Mockito.timeout(5000L).times(2))
+            .resolveVersion(
+                Mockito.any(RepositorySystemSession.class),
+                Mockito.any(VersionRequest.class)
+            );
+    }
+
+    /**
+     * CachedVersionResolver can refresh stale SNAPSHOT version in the
+     * thread given by the session.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void refreshesInThreadOfSession() throws Exception {
+        final BlockingQueue<String> threads =
+            new LinkedBlockingQueue<String>();
+        final VersionResolver origin = Mockito.mock(VersionResolver.class);
+        Mockito.doAnswer(
+            new Answer<VersionResult>() {
+                @Override
+                public VersionResult answer(final InvocationOnMock inv) {
+                    threads.add(Thread.currentThread().getName());
+                    return new VersionResult(
+                        VersionRequest.class.cast(inv.getArguments()[1])
+                    ).setVersion("1.0-20130101.000000-1");
+                }
+            }
+        ).when(origin).resolveVersion(
+            Mockito.any(RepositorySystemSession.class),
+            Mockito.any(VersionRequest.class)
+        );
+        final String name = "own-refresh";
+        final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        return new Thread(runnable, name);
+                    }
+                }
+            );
+        try {
+            final VersionResolver resolver =
+                new CachedVersionResolver(origin);
+            final RepositorySystemSession session = this.session();
+            session.getConfigProperties().put(
+                CachedVersionResolver.EXECUTOR, executor
+            );
+            resolver.resolveVersion(
+                session, CachedVersionResolverTest.request()
+            );
+            resolver.resolveVersion(
+                session, CachedVersionResolverTest.request()
+            );
+            threads.take();
+            MatcherAssert.assertThat(
+                // @checkstyle MagicNumber (1 line)
+                threads.poll(5L, TimeUnit.SECONDS),
+                Matchers.equalTo(name)
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Mock session, which accepts stale versions and requires to check
+     * them every time.
+     * @return Session
+     */
+    private RepositorySystemSession session() {
+        final RepositorySystemSession session =
+            Mockito.mock(RepositorySystemSession.class);
+        Mockito.doReturn(new LocalRepository(this.temp.getRoot()))
+            .when(session).getLocalRepository();
+        final Map<String, Object> props = new HashMap<String, Object>(0);
+        props.put(CachedVersionResolver.STALE, TimeUnit.HOURS.toMillis(1L));
+        Mockito.doReturn(props).when(session).getConfigProperties();
+        Mockito.doReturn(RepositoryPolicy.UPDATE_POLICY_ALWAYS)
+            .when(session).getUpdatePolicy();
+        return session;
+    }
+
+    /**
+     * Make a request of SNAPSHOT version.
+     * @return Request
+     */
+    private static VersionRequest request() {
+        return new VersionRequest(
+            new DefaultArtifact("com.example:changing:1.0-SNAPSHOT"),
+            Arrays.asList(
+                new RemoteRepository("remote", "default", "http://localhost/")
+            ),
+            "project"
+        );
+    }
+
+}
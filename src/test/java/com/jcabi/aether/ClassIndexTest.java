@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test case for {@link ClassIndex}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class ClassIndexTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * ClassIndex can find providers of classes and resources.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void findsProvidersOfClasses() throws Exception {
+        final String dup = "com/example/Dup.class";
+        final File first = this.jar("first.jar", dup, "com/example/A.class");
+        final File second = this.jar("second.jar", dup, "log.properties");
+        final File classes = this.temp.newFolder("classes");
+        FileUtils.writeStringToFile(
+            new File(classes, "com/example/Main.class"), "main"
+        );
+        final ClassIndex index = new ClassIndex(
+            Arrays.asList(classes, first, second), this.temp.newFolder("idx")
+        );
+        MatcherAssert.assertThat(
+            index.jars(dup),
+            Matchers.contains(first, second)
+        );
+        MatcherAssert.assertThat(
+            index.jars("log.properties"),
+            Matchers.contains(second)
+        );
+        MatcherAssert.assertThat(
+            index.jars("com/example/Main.class"),
+            Matchers.contains(classes)
+        );
+        MatcherAssert.assertThat(
+            index.jars("com/example/Absent.class"),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            index.duplicates().keySet(),
+            Matchers.contains(dup)
+        );
+    }
+
+    /**
+     * ClassIndex can reuse stored indexes of equal JARs.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void reusesStoredIndexes() throws Exception {
+        final String name = "org/demo/Shared.class";
+        final File dir = this.temp.newFolder("stored");
+        new ClassIndex(Arrays.asList(this.jar("a/lib.jar", name)), dir);
+        final File copy = this.jar("b/lib.jar", name);
+        MatcherAssert.assertThat(
+            new ClassIndex(Arrays.asList(copy), dir).jars(name),
+            Matchers.contains(copy)
+        );
+        MatcherAssert.assertThat(dir.list(), Matchers.arrayWithSize(1));
+    }
+
+    /**
+     * Make a JAR with empty entries, the same for the same names.
+     * @param path Relative path of it
+     * @param names Names of entries
+     * @return The file
+     * @throws Exception If fails
+     */
+    private File jar(final String path, final String... names)
+        throws Exception {
+        final File file = new File(this.temp.getRoot(), path);
+        file.getParentFile().mkdirs();
+        final ZipOutputStream zip =
+            new ZipOutputStream(new FileOutputStream(file));
+        try {
+            for (final String name : names) {
+                final ZipEntry entry = new ZipEntry(name);
+                entry.setTime(0L);
+                zip.putNextEntry(entry);
+                zip.closeEntry();
+            }
+        } finally {
+            zip.close();
+        }
+        return file;
+    }
+
+}
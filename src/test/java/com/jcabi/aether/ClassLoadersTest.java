@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test case for {@link ClassLoaders}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class ClassLoadersTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * ClassLoaders can load common JARs by one shared parent.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sharesCommonJars() throws Exception {
+        final File common = this.jar("first/common.jar", "common");
+        final File copy = this.jar("second/common.jar", "common");
+        final File one = this.jar("first/one.jar", "one");
+        final File two = this.jar("second/two.jar", "two");
+        final ClassLoader parent = this.getClass().getClassLoader();
+        final List<ClassLoader> loaders = new ClassLoaders(parent).loaders(
+            ClassLoadersTest.classpaths(
+                new File[] {one, common},
+                new File[] {copy, two},
+                new File[] {this.jar("third/three.jar", "three")}
+            )
+        );
+        final ClassLoader shared = loaders.get(0).getParent();
+        MatcherAssert.assertThat(shared, Matchers.not(parent));
+        MatcherAssert.assertThat(
+            loaders.get(1).getParent(),
+            Matchers.sameInstance(shared)
+        );
+        MatcherAssert.assertThat(
+            Arrays.asList(((URLClassLoader) shared).getURLs()),
+            Matchers.contains(common.toURI().toURL())
+        );
+        MatcherAssert.assertThat(
+            Arrays.asList(((URLClassLoader) loaders.get(1)).getURLs()),
+            Matchers.contains(two.toURI().toURL())
+        );
+        MatcherAssert.assertThat(
+            loaders.get(2).getParent(),
+            Matchers.sameInstance(parent)
+        );
+    }
+
+    /**
+     * ClassLoaders can keep shared parents of different sets of common
+     * JARs apart.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void separatesDifferentCommonJars() throws Exception {
+        final File first = this.jar("first.jar", "first");
+        final File second = this.jar("second.jar", "second");
+        final ClassLoaders factory = new ClassLoaders(
+            this.getClass().getClassLoader()
+        );
+        final List<ClassLoader> loaders = factory.loaders(
+            ClassLoadersTest.classpaths(
+                new File[] {first, second},
+                new File[] {first, second},
+                new File[] {first}
+            )
+        );
+        MatcherAssert.assertThat(
+            loaders.get(1).getParent(),
+            Matchers.sameInstance(loaders.get(0).getParent())
+        );
+        final URLClassLoader own = (URLClassLoader) loaders.get(2).getParent();
+        MatcherAssert.assertThat(
+            Arrays.asList(own.getURLs()),
+            Matchers.contains(first.toURI().toURL())
+        );
+        MatcherAssert.assertThat(
+            factory.loaders(
+                ClassLoadersTest.classpaths(
+                    new File[] {second, first},
+                    new File[] {first, second},
+                    new File[] {first}
+                )
+            ).get(0).getParent(),
+            Matchers.sameInstance(loaders.get(0).getParent())
+        );
+        MatcherAssert.assertThat(
+            ((URLClassLoader) loaders.get(0)).getURLs(),
+            Matchers.emptyArray()
+        );
+    }
+
+    /**
+     * ClassLoaders can load every common JAR once, when classpaths share
+     * different sets of them.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void loadsOverlappingCommonJarsOnce() throws Exception {
+        final String[] classes = {
+            Checksums.class.getName(),
+            Deadline.class.getName(),
+            Routes.class.getName(),
+        };
+        final File[] jars = new File[classes.length];
+        for (int idx = 0; idx < classes.length; ++idx) {
+            jars[idx] = this.jar(classes[idx]);
+        }
+        final List<ClassLoader> loaders = new ClassLoaders(null).loaders(
+            ClassLoadersTest.classpaths(
+                new File[] {jars[0], jars[1]},
+                new File[] {jars[0], jars[2]},
+                new File[] {jars[1], jars[2]}
+            )
+        );
+        final int[][] found = {{0, 1}, {0, 2}, {1, 2}};
+        for (int idx = 0; idx < classes.length; ++idx) {
+            final Class<?> loaded = loaders.get(found[idx][0])
+                .loadClass(classes[idx]);
+            MatcherAssert.assertThat(
+                loaded.getClassLoader(),
+                Matchers.not(Checksums.class.getClassLoader())
+            );
+            MatcherAssert.assertThat(
+                loaders.get(found[idx][1]).loadClass(classes[idx]),
+                Matchers.<Class<?>>sameInstance(loaded)
+            );
+        }
+        MatcherAssert.assertThat(
+            loaders.get(0).getResource(
+                classes[2].replace('.', '/').concat(".class")
+            ),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * Make a list of classpaths.
+     * @param jars JARs of every classpath
+     * @return Classpaths
+     */
+    private static List<List<File>> classpaths(final File[]... jars) {
+        final List<List<File>> paths = new ArrayList<List<File>>(jars.length);
+        for (final File[] files : jars) {
+            paths.add(Arrays.asList(files));
+        }
+        return paths;
+    }
+
+    /**
+     * Make a JAR-like file.
+     * @param path Relative path of it
+     * @param content Its content
+     * @return The file
+     * @throws Exception If fails
+     */
+    private File jar(final String path, final String content)
+        throws Exception {
+        final File file = new File(this.temp.getRoot(), path);
+        FileUtils.writeStringToFile(file, content);
+        return file;
+    }
+
+    /**
+     * Make a JAR with a class from the classpath.
+     * @param name Name of the class
+     * @return The file
+     * @throws Exception If fails
+     */
+    private File jar(final String name) throws Exception {
+        final String path = name.replace('.', '/').concat(".class");
+        final File file = this.temp.newFile(name.concat(".jar"));
+        final JarOutputStream jar = new JarOutputStream(
+            new FileOutputStream(file)
+        );
+        try {
+            jar.putNextEntry(new JarEntry(path));
+            IOUtils.copy(
+                this.getClass().getClassLoader().getResourceAsStream(path),
+                jar
+            );
+            jar.closeEntry();
+        } finally {
+            jar.close();
+        }
+        return file;
+    }
+
+}
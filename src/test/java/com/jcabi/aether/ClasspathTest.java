@@ -41,6 +41,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
 import org.sonatype.aether.util.artifact.JavaScopes;
 
 /**
@@ -250,6 +251,111 @@ public final class ClasspathTest {
         );
     }
 
+    /**
+     * Classpath can be updated with changed dependencies.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void updatesWithChangedDependencies() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        final String group = "com.example";
+        repo.artifact(group, "kept", "1.0").artifact(group, "added", "1.0");
+        try {
+            final Dependency kept = this.dependency(group, "kept", "1.0");
+            final Classpath before = new Classpath(
+                this.project(repo.url(), kept),
+                this.temp.newFolder(), JavaScopes.TEST
+            );
+            MatcherAssert.assertThat(
+                before,
+                Matchers.<File>hasItem(
+                    Matchers.hasToString(Matchers.endsWith("kept-1.0.jar"))
+                )
+            );
+            final Classpath after = before.update(
+                this.project(
+                    repo.url(), kept, this.dependency(group, "added", "1.0")
+                )
+            );
+            MatcherAssert.assertThat(
+                after,
+                Matchers.<File>hasItems(
+                    Matchers.hasToString(Matchers.endsWith("kept-1.0.jar")),
+                    Matchers.hasToString(Matchers.endsWith("added-1.0.jar"))
+                )
+            );
+            MatcherAssert.assertThat(
+                before,
+                Matchers.not(
+                    Matchers.<File>hasItem(
+                        Matchers.hasToString(
+                            Matchers.endsWith("added-1.0.jar")
+                        )
+                    )
+                )
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Classpath can make classpaths of other scopes without resolving
+     * dependencies again.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sharesResolvedDependenciesBetweenScopes() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        final String group = "com.example";
+        final String version = "1.0-SNAPSHOT";
+        repo.artifact(group, "main", version).artifact(group, "tests", "1.0");
+        try {
+            final Dependency main = this.dependency(group, "main", version);
+            main.setScope(JavaScopes.COMPILE);
+            final MavenProject project = this.project(
+                repo.url(), main, this.dependency(group, "tests", "1.0")
+            );
+            final RemoteRepository remote = new RemoteRepository(
+                "maven-central", "default", repo.url()
+            );
+            remote.setPolicy(
+                true,
+                new RepositoryPolicy(
+                    true, RepositoryPolicy.UPDATE_POLICY_ALWAYS,
+                    RepositoryPolicy.CHECKSUM_POLICY_FAIL
+                )
+            );
+            Mockito.doReturn(Arrays.asList(remote))
+                .when(project).getRemoteProjectRepositories();
+            final File local = this.temp.newFolder();
+            final Classpath all = new Classpath(
+                project, local, JavaScopes.COMPILE, JavaScopes.TEST
+            );
+            MatcherAssert.assertThat(all, Matchers.hasSize(3));
+            final int before = repo.requests();
+            MatcherAssert.assertThat(
+                all.scoped(JavaScopes.COMPILE),
+                Matchers.<File>contains(
+                    Matchers.hasToString(
+                        Matchers.endsWith("main-1.0-SNAPSHOT.jar")
+                    )
+                )
+            );
+            MatcherAssert.assertThat(repo.requests(), Matchers.is(before));
+            MatcherAssert.assertThat(
+                new Classpath(project, local, JavaScopes.COMPILE),
+                Matchers.hasSize(1)
+            );
+            MatcherAssert.assertThat(
+                repo.requests(),
+                Matchers.greaterThan(before)
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
     /**
      * Create test dependency.
      * @param group Dependency group
@@ -274,16 +380,24 @@ public final class ClasspathTest {
      * @throws Exception If there is some problem inside
      */
     private MavenProject project(final Dependency... dep) throws Exception {
+        return this.project("http://repo1.maven.org/maven2/", dep);
+    }
+
+    /**
+     * Creates project with these dependencies and one repository.
+     * @param url URL of the repository
+     * @param dep Dependencies to add to the project
+     * @return Maven project mocked
+     * @throws Exception If there is some problem inside
+     */
+    private MavenProject project(final String url, final Dependency... dep)
+        throws Exception {
         final MavenProject project = Mockito.mock(MavenProject.class);
         Mockito.doReturn(Arrays.asList("/some/path/as/directory"))
             .when(project).getTestClasspathElements();
         Mockito.doReturn(Arrays.asList(dep)).when(project).getDependencies();
         final List<RemoteRepository> repos = Arrays.asList(
-            new RemoteRepository(
-                "maven-central",
-                "default",
-                "http://repo1.maven.org/maven2/"
-            )
+            new RemoteRepository("maven-central", "default", url)
         );
         Mockito.doReturn(repos).when(project).getRemoteProjectRepositories();
         return project;
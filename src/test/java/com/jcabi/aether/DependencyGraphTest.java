@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sonatype.aether.graph.Dependency;
+import org.sonatype.aether.graph.DependencyNode;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.artifact.JavaScopes;
+import org.sonatype.aether.util.filter.ScopeDependencyFilter;
+
+/**
+ * Test case for {@link DependencyGraph}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class DependencyGraphTest {
+
+    /**
+     * DependencyGraph can link nodes to children and parents.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void linksChildrenAndParents() throws Exception {
+        final DependencyNode shared = DependencyGraphTest.node(
+            "com.example:shared:1.0", JavaScopes.COMPILE, false
+        );
+        final DependencyNode first = DependencyGraphTest.node(
+            "com.example:first:1.0", JavaScopes.COMPILE, false, shared
+        );
+        final DependencyNode second = DependencyGraphTest.node(
+            "com.example:second:1.0", JavaScopes.RUNTIME, true, shared
+        );
+        final DependencyGraph graph = new DependencyGraph(
+            DependencyGraphTest.node(
+                "com.example:root:1.0", JavaScopes.COMPILE, false,
+                first, second
+            ),
+            null
+        );
+        MatcherAssert.assertThat(graph.size(), Matchers.equalTo(4));
+        final int[] children = graph.children(graph.root());
+        MatcherAssert.assertThat(children.length, Matchers.equalTo(2));
+        MatcherAssert.assertThat(
+            graph.coordinates(children[1]),
+            Matchers.equalTo("com.example:second:jar:1.0")
+        );
+        MatcherAssert.assertThat(
+            graph.optional(children[1]), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            graph.scope(children[1]), Matchers.equalTo(JavaScopes.RUNTIME)
+        );
+        final int common = graph.children(children[0])[0];
+        MatcherAssert.assertThat(
+            graph.children(children[1])[0], Matchers.equalTo(common)
+        );
+        MatcherAssert.assertThat(
+            graph.parents(common).length, Matchers.equalTo(2)
+        );
+        MatcherAssert.assertThat(
+            graph.parents(graph.root()).length, Matchers.equalTo(0)
+        );
+        MatcherAssert.assertThat(
+            graph.artifact(common).getFile(),
+            Matchers.equalTo(
+                new File("com.example:shared:1.0").getAbsoluteFile()
+            )
+        );
+    }
+
+    /**
+     * DependencyGraph can skip nodes rejected by the filter.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void skipsRejectedNodes() throws Exception {
+        final DependencyGraph graph = new DependencyGraph(
+            DependencyGraphTest.node(
+                "com.example:top:1.0", JavaScopes.COMPILE, false,
+                DependencyGraphTest.node(
+                    "junit:junit:4.10", JavaScopes.TEST, false,
+                    DependencyGraphTest.node(
+                        "org.hamcrest:hamcrest-core:1.1",
+                        JavaScopes.COMPILE, false
+                    )
+                )
+            ),
+            new ScopeDependencyFilter(JavaScopes.TEST)
+        );
+        MatcherAssert.assertThat(graph.size(), Matchers.equalTo(1));
+    }
+
+    /**
+     * Mock node, with a file named as its coordinates.
+     * @param coords Coordinates of the artifact
+     * @param scope Scope
+     * @param optional Is it optional
+     * @param children Children
+     * @return The node
+     */
+    private static DependencyNode node(final String coords,
+        final String scope, final boolean optional,
+        final DependencyNode... children) {
+        final DependencyNode node = Mockito.mock(DependencyNode.class);
+        Mockito.doReturn(
+            new Dependency(
+                new DefaultArtifact(coords).setFile(new File(coords)),
+                scope, optional
+            )
+        ).when(node).getDependency();
+        final List<DependencyNode> list = Arrays.asList(children);
+        Mockito.doReturn(list).when(node).getChildren();
+        return node;
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.sonatype.aether.repository.RemoteRepository;
+
+/**
+ * Test case for {@link Health}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class HealthTest {
+
+    /**
+     * Health can put faster repositories first.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void ordersRepositoriesByLatency() throws Exception {
+        final Health health = new Health();
+        // @checkstyle MagicNumber (2 lines)
+        health.success("slow", 900L);
+        health.success("fast", 20L);
+        MatcherAssert.assertThat(
+            HealthTest.ids(
+                health.order(
+                    Arrays.asList(
+                        HealthTest.repo("slow"),
+                        HealthTest.repo("unknown"),
+                        HealthTest.repo("fast")
+                    )
+                )
+            ),
+            Matchers.contains("fast", "unknown", "slow")
+        );
+    }
+
+    /**
+     * Health can demote a repository that keeps failing.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void demotesFailingRepository() throws Exception {
+        final Health health = new Health();
+        final String broken = "broken";
+        health.success(broken, 1L);
+        final int failures = 3;
+        for (int idx = 0; idx < failures; ++idx) {
+            health.failure(broken);
+        }
+        MatcherAssert.assertThat(
+            HealthTest.ids(
+                health.order(
+                    Arrays.asList(
+                        HealthTest.repo(broken), HealthTest.repo("other")
+                    )
+                )
+            ),
+            Matchers.contains("other", broken)
+        );
+        MatcherAssert.assertThat(
+            health.stats(broken).demoted(),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            health.stats(broken).failures(),
+            Matchers.is((long) failures)
+        );
+        health.success(broken, 1L);
+        MatcherAssert.assertThat(health.demoted(broken), Matchers.is(false));
+    }
+
+    /**
+     * Health can tell statistics of different repositories apart.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void comparesStatsByValues() throws Exception {
+        final Health health = new Health();
+        health.success("first", 1L);
+        health.failure("second");
+        MatcherAssert.assertThat(
+            health.stats("first"),
+            Matchers.allOf(
+                Matchers.equalTo(health.stats("first")),
+                Matchers.not(Matchers.equalTo(health.stats("second")))
+            )
+        );
+    }
+
+    /**
+     * Health can reject requests to a demoted repository which keeps
+     * failing.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rejectsRequestsToDemotedRepository() throws Exception {
+        final Health health = new Health();
+        final String down = "down";
+        MatcherAssert.assertThat(health.allow(down), Matchers.is(true));
+        // @checkstyle MagicNumber (1 line)
+        for (int idx = 0; idx < 3; ++idx) {
+            health.retried(down);
+            health.failure(down);
+        }
+        MatcherAssert.assertThat(health.demoted(down), Matchers.is(true));
+        MatcherAssert.assertThat(health.allow(down), Matchers.is(true));
+        health.failure(down);
+        health.failure(down);
+        MatcherAssert.assertThat(health.allow(down), Matchers.is(false));
+        MatcherAssert.assertThat(health.allow(down), Matchers.is(false));
+        MatcherAssert.assertThat(
+            health.stats(down).rejected(),
+            Matchers.is(2L)
+        );
+        MatcherAssert.assertThat(
+            health.stats(down).retries(),
+            // @checkstyle MagicNumber (1 line)
+            Matchers.is(3L)
+        );
+        health.success(down, 1L);
+        MatcherAssert.assertThat(health.allow(down), Matchers.is(true));
+    }
+
+    /**
+     * Make a repository.
+     * @param name ID of it
+     * @return Repository
+     */
+    private static RemoteRepository repo(final String name) {
+        return new RemoteRepository(
+            name, "default", String.format("http://%s.example.com/", name)
+        );
+    }
+
+    /**
+     * IDs of repositories.
+     * @param repos Repositories
+     * @return IDs
+     */
+    private static List<String> ids(final List<RemoteRepository> repos) {
+        final List<String> ids = new ArrayList<String>(repos.size());
+        for (final RemoteRepository repo : repos) {
+            ids.add(repo.getId());
+        }
+        return ids;
+    }
+
+}
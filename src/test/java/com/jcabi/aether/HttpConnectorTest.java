@@ -0,0 +1,362 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.transfer.AbstractTransferListener;
+import org.sonatype.aether.transfer.TransferCancelledException;
+import org.sonatype.aether.transfer.TransferEvent;
+import org.sonatype.aether.transfer.TransferListener;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Test case for {@link HttpConnector}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class HttpConnectorTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * HttpConnector can report a failed existence check.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void reportsFailedExistenceCheck() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        final String url = repo.url();
+        repo.close();
+        final ArtifactDownload dnl = new ArtifactDownload(
+            new DefaultArtifact("com.example:absent:1.0"), "",
+            new File(this.temp.newFolder(), "absent-1.0.jar"),
+            RepositoryPolicy.CHECKSUM_POLICY_FAIL
+        ).setExistenceCheck(true);
+        this.connector(new RemoteRepository("down", "default", url)).get(
+            Collections.singletonList(dnl),
+            Collections.<MetadataDownload>emptyList()
+        );
+        MatcherAssert.assertThat(dnl.getException(), Matchers.notNullValue());
+    }
+
+    /**
+     * HttpConnector can delete partial files which are not needed anymore.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deletesAbandonedPartialFiles() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "parted", "1.0");
+        final File dir = this.temp.newFolder();
+        final File other = new File(dir, "parted-1.0.jar.other.part");
+        FileUtils.writeStringToFile(other, "com.exa", "UTF-8");
+        FileUtils.writeStringToFile(
+            new File(dir, "parted-1.0.jar.other.part.tag"), "\"x\"", "UTF-8"
+        );
+        final File stale = new File(dir, "parted-0.9.jar.mk.part");
+        FileUtils.writeStringToFile(stale, "com", "UTF-8");
+        final File fresh = new File(dir, "parted-0.8.jar.mk.part");
+        FileUtils.writeStringToFile(fresh, "co", "UTF-8");
+        MatcherAssert.assertThat(
+            stale.setLastModified(
+                System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2L)
+            ),
+            Matchers.is(true)
+        );
+        try {
+            final ArtifactDownload dnl = new ArtifactDownload(
+                new DefaultArtifact("com.example:parted:1.0"), "",
+                new File(dir, "parted-1.0.jar"),
+                RepositoryPolicy.CHECKSUM_POLICY_FAIL
+            );
+            this.connector(
+                new RemoteRepository("mk", "default", repo.url())
+            ).get(
+                Collections.singletonList(dnl),
+                Collections.<MetadataDownload>emptyList()
+            );
+            MatcherAssert.assertThat(dnl.getException(), Matchers.nullValue());
+            MatcherAssert.assertThat(
+                dir.list(),
+                Matchers.arrayContainingInAnyOrder(
+                    "parted-1.0.jar", fresh.getName()
+                )
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * HttpConnector can report transfers to the listener of the session.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void reportsTransfersToListener() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "heard", "1.0");
+        final Collection<TransferEvent.EventType> types =
+            new LinkedList<TransferEvent.EventType>();
+        try {
+            final ArtifactDownload dnl = new ArtifactDownload(
+                new DefaultArtifact("com.example:heard:1.0"), "",
+                new File(this.temp.newFolder(), "heard-1.0.jar"),
+                RepositoryPolicy.CHECKSUM_POLICY_FAIL
+            );
+            this.connector(
+                new RemoteRepository("mk", "default", repo.url()), 0,
+                new AbstractTransferListener() {
+                    @Override
+                    public void transferInitiated(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                    @Override
+                    public void transferStarted(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                    @Override
+                    public void transferProgressed(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                    @Override
+                    public void transferSucceeded(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                }
+            ).get(
+                Collections.singletonList(dnl),
+                Collections.<MetadataDownload>emptyList()
+            );
+            MatcherAssert.assertThat(dnl.getException(), Matchers.nullValue());
+            MatcherAssert.assertThat(
+                types,
+                Matchers.hasItems(
+                    TransferEvent.EventType.INITIATED,
+                    TransferEvent.EventType.STARTED,
+                    TransferEvent.EventType.PROGRESSED,
+                    TransferEvent.EventType.SUCCEEDED
+                )
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * HttpConnector can stop a transfer cancelled by the listener, without
+     * retrying or resuming it.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void stopsTransfersCancelledByListener() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "cancelled", "1.0");
+        final Collection<TransferEvent.EventType> types =
+            new LinkedList<TransferEvent.EventType>();
+        try {
+            final ArtifactDownload dnl = new ArtifactDownload(
+                new DefaultArtifact("com.example:cancelled:1.0"), "",
+                new File(this.temp.newFolder(), "cancelled-1.0.jar"),
+                RepositoryPolicy.CHECKSUM_POLICY_FAIL
+            );
+            this.connector(
+                new RemoteRepository("mk", "default", repo.url()), 2,
+                new AbstractTransferListener() {
+                    @Override
+                    public void transferProgressed(final TransferEvent event)
+                        throws TransferCancelledException {
+                        throw new TransferCancelledException("enough");
+                    }
+                    @Override
+                    public void transferFailed(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                }
+            ).get(
+                Collections.singletonList(dnl),
+                Collections.<MetadataDownload>emptyList()
+            );
+            MatcherAssert.assertThat(
+                dnl.getException(), Matchers.notNullValue()
+            );
+            MatcherAssert.assertThat(repo.requests(), Matchers.equalTo(1));
+            MatcherAssert.assertThat(
+                types, Matchers.contains(TransferEvent.EventType.FAILED)
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * HttpConnector can cancel a transfer which is still receiving bytes
+     * when the deadline is missed, through the listener of the session.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void cancelsTransfersPastDeadline() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        // @checkstyle MagicNumber (1 line)
+        final byte[] content = new byte[1 << 16];
+        repo.file("com/example/slow/1.0/slow-1.0.jar", content);
+        // @checkstyle MagicNumber (1 line)
+        repo.crawl(100L);
+        try {
+            final ArtifactDownload dnl = new ArtifactDownload(
+                new DefaultArtifact("com.example:slow:1.0"), "",
+                new File(this.temp.newFolder(), "slow-1.0.jar"),
+                RepositoryPolicy.CHECKSUM_POLICY_IGNORE
+            );
+            final long start = System.currentTimeMillis();
+            this.connector(
+                new RemoteRepository("mk", "default", repo.url()), 2,
+                new LogTransferListener(
+                    // @checkstyle MagicNumber (1 line)
+                    new Deadline(500L, TimeUnit.MILLISECONDS)
+                )
+            ).get(
+                Collections.singletonList(dnl),
+                Collections.<MetadataDownload>emptyList()
+            );
+            MatcherAssert.assertThat(
+                System.currentTimeMillis() - start,
+                // @checkstyle MagicNumber (1 line)
+                Matchers.lessThan(TimeUnit.SECONDS.toMillis(3L))
+            );
+            MatcherAssert.assertThat(
+                ExceptionUtils.indexOfThrowable(
+                    dnl.getException(), TransferCancelledException.class
+                ),
+                Matchers.greaterThanOrEqualTo(0)
+            );
+            MatcherAssert.assertThat(repo.requests(), Matchers.equalTo(1));
+            MatcherAssert.assertThat(
+                dnl.getFile().exists(), Matchers.is(false)
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * HttpConnector can give the connection back to the pool when
+     * a transfer fails to start with a runtime exception.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(timeout = 10000L)
+    public void releasesConnectionsOfFailedStarts() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        final HttpPool pool = new HttpPool(
+            // @checkstyle MagicNumber (1 line)
+            new Connections(1, 1, 60000, 60000, 60000), new Transfers(),
+            new Routes(new File(this.temp.newFolder(), Routes.NAME))
+        );
+        pool.close();
+        final HttpConnector connector = new HttpConnector(
+            new RemoteRepository("mk", "default", repo.url()),
+            pool, false, null
+        );
+        int failures = 0;
+        try {
+            for (int attempt = 0; attempt < 2; ++attempt) {
+                try {
+                    connector.get(
+                        Collections.singletonList(
+                            new ArtifactDownload(
+                                new DefaultArtifact("com.example:lost:1.0"),
+                                "",
+                                new File(this.temp.newFolder(), "lost.jar"),
+                                RepositoryPolicy.CHECKSUM_POLICY_IGNORE
+                            )
+                        ),
+                        Collections.<MetadataDownload>emptyList()
+                    );
+                } catch (final IllegalStateException ex) {
+                    ++failures;
+                }
+            }
+        } finally {
+            repo.close();
+        }
+        MatcherAssert.assertThat(failures, Matchers.equalTo(2));
+    }
+
+    /**
+     * Make a connector without retries.
+     * @param remote The repository
+     * @return Connector
+     * @throws Exception If fails
+     */
+    private HttpConnector connector(final RemoteRepository remote)
+        throws Exception {
+        return this.connector(remote, 0, null);
+    }
+
+    /**
+     * Make a connector.
+     * @param remote The repository
+     * @param retries How many times to retry failed transfers
+     * @param listener Transfer listener or NULL
+     * @return Connector
+     * @throws Exception If fails
+     */
+    private HttpConnector connector(final RemoteRepository remote,
+        final int retries, final TransferListener listener) throws Exception {
+        return new HttpConnector(
+            remote,
+            new HttpPool(
+                new Connections(), new Transfers().retried(retries),
+                new Routes(new File(this.temp.newFolder(), Routes.NAME))
+            ),
+            false, listener
+        );
+    }
+
+}
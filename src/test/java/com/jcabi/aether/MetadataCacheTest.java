@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+
+/**
+ * Test case for {@link MetadataCache}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class MetadataCacheTest {
+
+    /**
+     * MetadataCache can calculate expiration by update policies.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void expiresByUpdatePolicies() throws Exception {
+        final long now = System.currentTimeMillis();
+        // @checkstyle MagicNumber (3 lines)
+        MatcherAssert.assertThat(
+            MetadataCache.expires("interval:30", now),
+            Matchers.equalTo(now + TimeUnit.MINUTES.toMillis(30L))
+        );
+        MatcherAssert.assertThat(
+            MetadataCache.expires(RepositoryPolicy.UPDATE_POLICY_ALWAYS, now),
+            Matchers.equalTo(now)
+        );
+        MatcherAssert.assertThat(
+            MetadataCache.expires(RepositoryPolicy.UPDATE_POLICY_DAILY, now),
+            Matchers.allOf(
+                Matchers.greaterThan(now),
+                Matchers.lessThanOrEqualTo(now + TimeUnit.DAYS.toMillis(1L))
+            )
+        );
+    }
+
+    /**
+     * MetadataCache can take the strictest policy of repositories.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void takesStrictestPolicy() throws Exception {
+        final long now = System.currentTimeMillis();
+        final RemoteRepository hourly =
+            new RemoteRepository("hourly", "default", "http://localhost/h/");
+        hourly.setPolicy(
+            false,
+            new RepositoryPolicy(
+                true, "interval:60", RepositoryPolicy.CHECKSUM_POLICY_WARN
+            )
+        );
+        final RemoteRepository never =
+            new RemoteRepository("never", "default", "http://localhost/n/");
+        never.setPolicy(
+            false,
+            new RepositoryPolicy(
+                true, RepositoryPolicy.UPDATE_POLICY_NEVER,
+                RepositoryPolicy.CHECKSUM_POLICY_WARN
+            )
+        );
+        final RepositorySystemSession session =
+            Mockito.mock(RepositorySystemSession.class);
+        // @checkstyle MagicNumber (5 lines)
+        MatcherAssert.assertThat(
+            MetadataCache.expires(
+                session, Arrays.asList(never, hourly), false, true, now
+            ),
+            Matchers.equalTo(now + TimeUnit.HOURS.toMillis(1L))
+        );
+        MatcherAssert.assertThat(
+            MetadataCache.expires(
+                session, Collections.<RemoteRepository>emptyList(),
+                false, true, now
+            ),
+            Matchers.equalTo(now)
+        );
+    }
+
+    /**
+     * MetadataCache can give expired results only if stale ones are
+     * accepted.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void givesExpiredResultsOnlyIfStale() throws Exception {
+        final MetadataCache cache = new MetadataCache();
+        final long now = System.currentTimeMillis();
+        cache.put("fresh", "a", now + 1L);
+        cache.put("stale", "b", now);
+        MatcherAssert.assertThat(
+            cache.get("fresh", now), Matchers.notNullValue()
+        );
+        MatcherAssert.assertThat(
+            cache.get("fresh", now + 1L), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            cache.get("stale", now), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            cache.get("stale", now, 1L), Matchers.notNullValue()
+        );
+    }
+
+    /**
+     * MetadataCache can drop the least recently used results, when there
+     * are too many of them.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void dropsLeastRecentlyUsedResults() throws Exception {
+        final MetadataCache cache = new MetadataCache(2, 0L);
+        final long now = System.currentTimeMillis();
+        cache.put("first", "a", Long.MAX_VALUE);
+        cache.put("second", "b", Long.MAX_VALUE);
+        cache.get("first", now);
+        cache.put("third", "c", Long.MAX_VALUE);
+        MatcherAssert.assertThat(cache.size(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(
+            cache.get("second", now), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            cache.get("first", now), Matchers.notNullValue()
+        );
+    }
+
+    /**
+     * MetadataCache can drop results expired too long ago.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void dropsResultsExpiredLongAgo() throws Exception {
+        final long keep = TimeUnit.MINUTES.toMillis(1L);
+        final MetadataCache cache = new MetadataCache(Integer.MAX_VALUE, keep);
+        final long now = System.currentTimeMillis();
+        cache.put("old", "a", now - keep);
+        cache.put("recent", "b", now - 1L);
+        MatcherAssert.assertThat(cache.size(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(
+            cache.get("recent", now, keep), Matchers.notNullValue()
+        );
+        MatcherAssert.assertThat(
+            cache.get("recent", now + keep, Long.MAX_VALUE),
+            Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(cache.size(), Matchers.equalTo(0));
+    }
+
+}
@@ -0,0 +1,517 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Local Maven repository served over HTTP, for tests.
+ *
+ * <p>The repository counts requests and distinct client connections, so
+ * tests can verify how the connector talks to it.
+ *
+ * <p>Files are served with MD5 {@code ETag}, as S3 does, and
+ * {@code Range} requests without {@code If-Range} or with a matching one
+ * are answered with partial content. Requests with {@code If-Match} of
+ * another ETag are answered with "412 Precondition Failed". Paths are
+ * also keys in buckets, so the repository may stand in for S3 with
+ * path-style requests.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class MkRepository implements Closeable {
+
+    /**
+     * Size of pieces of slow responses, in bytes.
+     */
+    private static final int PIECE = 1024;
+
+    /**
+     * Directory with files.
+     */
+    private final transient File home;
+
+    /**
+     * HTTP server.
+     */
+    private final transient HttpServer server;
+
+    /**
+     * Client ports seen, one per TCP connection.
+     */
+    private final transient Set<Integer> ports;
+
+    /**
+     * Total requests received.
+     */
+    private final transient AtomicInteger total;
+
+    /**
+     * Delay before every response, in milliseconds.
+     */
+    private final transient AtomicLong delay;
+
+    /**
+     * Pause between pieces of every response body, in milliseconds.
+     */
+    private final transient AtomicLong pace;
+
+    /**
+     * Paths to break in the middle of the next download.
+     */
+    private final transient Set<String> drops;
+
+    /**
+     * New content of files, to replace them once they are requested.
+     */
+    private final transient ConcurrentMap<String, byte[]> changes;
+
+    /**
+     * Partial responses sent.
+     */
+    private final transient AtomicInteger partials;
+
+    /**
+     * How many next requests to answer with a server error.
+     */
+    private final transient AtomicInteger errors;
+
+    /**
+     * Ctor.
+     * @param dir Directory to keep files in
+     * @throws IOException If fails to start
+     */
+    MkRepository(final File dir) throws IOException {
+        this.home = dir;
+        this.ports = Collections.newSetFromMap(
+            new ConcurrentHashMap<Integer, Boolean>(0)
+        );
+        this.total = new AtomicInteger();
+        this.delay = new AtomicLong();
+        this.pace = new AtomicLong();
+        this.drops = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>(0)
+        );
+        this.changes = new ConcurrentHashMap<String, byte[]>(0);
+        this.partials = new AtomicInteger();
+        this.errors = new AtomicInteger();
+        this.server = HttpServer.create(
+            new InetSocketAddress("127.0.0.1", 0), 0
+        );
+        this.server.createContext("/", new MkRepository.Files());
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+    }
+
+    /**
+     * Base URL of the repository, with a trailing slash.
+     * @return URL
+     */
+    public String url() {
+        return String.format(
+            "http://127.0.0.1:%d/",
+            this.server.getAddress().getPort()
+        );
+    }
+
+    /**
+     * Add a JAR artifact with its POM and SHA-1 checksums.
+     * @param group Group ID
+     * @param name Artifact ID
+     * @param version Version
+     * @return This repository
+     * @throws IOException If fails
+     */
+    public MkRepository artifact(final String group, final String name,
+        final String version) throws IOException {
+        final String base = String.format(
+            "%s/%s/%s/%2$s-%3$s",
+            group.replace('.', '/'), name, version
+        );
+        this.file(
+            String.format("%s.pom", base),
+            String.format(
+                // @checkstyle LineLength (1 line)
+                "<project><modelVersion>4.0.0</modelVersion><groupId>%s</groupId><artifactId>%s</artifactId><version>%s</version></project>",
+                group, name, version
+            ).getBytes("UTF-8")
+        );
+        this.file(
+            String.format("%s.jar", base),
+            String.format("%s:%s:%s", group, name, version).getBytes("UTF-8")
+        );
+        return this;
+    }
+
+    /**
+     * Add a file and its SHA-1 checksum.
+     * @param path Relative path in the repository
+     * @param content Content of the file
+     * @return This repository
+     * @throws IOException If fails
+     */
+    public MkRepository file(final String path, final byte[] content)
+        throws IOException {
+        FileUtils.writeByteArrayToFile(new File(this.home, path), content);
+        FileUtils.writeStringToFile(
+            new File(this.home, String.format("%s.sha1", path)),
+            MkRepository.sha(content),
+            "UTF-8"
+        );
+        return this;
+    }
+
+    /**
+     * SHA-1 of the content, in hex.
+     * @param content The content
+     * @return Hex digest
+     */
+    public static String sha(final byte[] content) {
+        return MkRepository.digest("SHA-1", content);
+    }
+
+    /**
+     * Digest of the content, in hex.
+     * @param algorithm Digest algorithm
+     * @param content The content
+     * @return Hex digest
+     */
+    private static String digest(final String algorithm,
+        final byte[] content) {
+        final StringBuilder hex = new StringBuilder();
+        try {
+            for (final byte bte
+                : MessageDigest.getInstance(algorithm).digest(content)) {
+                hex.append(String.format("%02x", bte));
+            }
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Add header to the response, spelled exactly as S3 does.
+     *
+     * <p>{@link Headers} turns names like "ETag" into "Etag", while AWS
+     * SDK looks for them case-sensitively, so the header goes straight
+     * into the map behind it.
+     *
+     * @param exchange The exchange
+     * @param name Name of the header
+     * @param value Value of the header
+     */
+    @SuppressWarnings("unchecked")
+    private static void header(final HttpExchange exchange,
+        final String name, final String value) {
+        try {
+            final Field field = Headers.class.getDeclaredField("map");
+            field.setAccessible(true);
+            ((Map<String, List<String>>) field.get(
+                exchange.getResponseHeaders()
+            )).put(name, Collections.singletonList(value));
+        } catch (final NoSuchFieldException ex) {
+            throw new IllegalStateException(ex);
+        } catch (final IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Stall every next response for the given time.
+     * @param msec Delay in milliseconds, zero to respond immediately
+     * @return This repository
+     */
+    public MkRepository stall(final long msec) {
+        this.delay.set(msec);
+        return this;
+    }
+
+    /**
+     * Send every next response body slowly, in small pieces.
+     * @param msec Pause between pieces in milliseconds, zero to send
+     *  bodies at once
+     * @return This repository
+     */
+    public MkRepository crawl(final long msec) {
+        this.pace.set(msec);
+        return this;
+    }
+
+    /**
+     * Break the connection in the middle of the next download of the file.
+     * @param path Relative path in the repository
+     * @return This repository
+     */
+    public MkRepository drop(final String path) {
+        this.drops.add(String.format("/%s", path));
+        return this;
+    }
+
+    /**
+     * Replace the file with new content right after the next request of
+     * it, once the response to it is already made from the old content.
+     * @param path Relative path in the repository
+     * @param content New content
+     * @return This repository
+     */
+    public MkRepository change(final String path, final byte[] content) {
+        this.changes.put(String.format("/%s", path), content.clone());
+        return this;
+    }
+
+    /**
+     * Answer the next requests with "503 Service Unavailable".
+     * @param count How many requests to fail
+     * @return This repository
+     */
+    public MkRepository fail(final int count) {
+        this.errors.set(count);
+        return this;
+    }
+
+    /**
+     * How many partial responses (206) were sent.
+     * @return Number of responses
+     */
+    public int partials() {
+        return this.partials.get();
+    }
+
+    /**
+     * How many TCP connections were opened by clients.
+     * @return Number of connections
+     */
+    public int connections() {
+        return this.ports.size();
+    }
+
+    /**
+     * How many HTTP requests were received.
+     * @return Number of requests
+     */
+    public int requests() {
+        return this.total.get();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+
+    /**
+     * Write bytes in small pieces, with pauses between them.
+     * @param out Where to write
+     * @param body Bytes
+     * @param offset First byte to write
+     * @param length How many bytes to write
+     * @param pause Pause in milliseconds
+     * @throws IOException If fails or interrupted
+     * @checkstyle ParameterNumber (3 lines)
+     */
+    private static void crawl(final OutputStream out, final byte[] body,
+        final int offset, final int length, final long pause)
+        throws IOException {
+        for (int pos = offset; pos < offset + length;
+            pos += MkRepository.PIECE) {
+            out.write(
+                body, pos, Math.min(MkRepository.PIECE, offset + length - pos)
+            );
+            out.flush();
+            try {
+                TimeUnit.MILLISECONDS.sleep(pause);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Handler serving files from the home directory.
+     */
+    private final class Files implements HttpHandler {
+        @Override
+        public void handle(final HttpExchange exchange) throws IOException {
+            MkRepository.this.total.incrementAndGet();
+            MkRepository.this.ports.add(
+                exchange.getRemoteAddress().getPort()
+            );
+            try {
+                TimeUnit.MILLISECONDS.sleep(MkRepository.this.delay.get());
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+            final File file = new File(
+                MkRepository.this.home,
+                exchange.getRequestURI().getPath()
+            );
+            if (MkRepository.this.errors.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+            } else if (file.isFile()) {
+                final byte[] body = FileUtils.readFileToByteArray(file);
+                final String etag = String.format(
+                    "\"%s\"", MkRepository.digest("MD5", body)
+                );
+                final byte[] fresh = MkRepository.this.changes.remove(
+                    exchange.getRequestURI().getPath()
+                );
+                if (fresh != null) {
+                    FileUtils.writeByteArrayToFile(file, fresh);
+                }
+                final String match = exchange.getRequestHeaders()
+                    .getFirst("If-Match");
+                MkRepository.header(exchange, "ETag", etag);
+                if (match != null
+                    && !etag.equals(String.format("\"%s\"", match))
+                    && !etag.equals(match)) {
+                    final byte[] error = String.format(
+                        "<Error><Code>PreconditionFailed</Code>%s</Error>",
+                        "<Message>ETag doesn't match</Message>"
+                    ).getBytes("UTF-8");
+                    exchange.sendResponseHeaders(412, error.length);
+                    exchange.getResponseBody().write(error);
+                } else if ("HEAD".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().add(
+                        "Content-Length", Integer.toString(body.length)
+                    );
+                    exchange.sendResponseHeaders(200, -1);
+                } else {
+                    this.send(exchange, body, this.range(exchange, etag, body));
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        }
+        /**
+         * Send the body, or its range.
+         * @param exchange The exchange
+         * @param body Entire file
+         * @param range First and last bytes to send, or NULL for all
+         * @throws IOException If fails
+         */
+        private void send(final HttpExchange exchange, final byte[] body,
+            final int[] range) throws IOException {
+            int offset = 0;
+            int length = body.length;
+            if (range == null) {
+                exchange.sendResponseHeaders(200, length);
+            } else {
+                offset = range[0];
+                length = range[1] - range[0] + 1;
+                MkRepository.this.partials.incrementAndGet();
+                MkRepository.header(
+                    exchange, "Content-Range",
+                    String.format(
+                        "bytes %d-%d/%d", range[0], range[1], body.length
+                    )
+                );
+                exchange.sendResponseHeaders(206, length);
+            }
+            final OutputStream out = exchange.getResponseBody();
+            if (MkRepository.this.drops.remove(
+                exchange.getRequestURI().getPath()
+            )) {
+                out.write(body, offset, length / 2);
+                out.flush();
+                throw new IOException("connection dropped on purpose");
+            }
+            final long pause = MkRepository.this.pace.get();
+            if (pause > 0L) {
+                MkRepository.crawl(out, body, offset, length, pause);
+            } else {
+                out.write(body, offset, length);
+            }
+            out.close();
+        }
+        /**
+         * Range requested by the client, if its If-Range is absent or
+         * matches the ETag.
+         * @param exchange The exchange
+         * @param etag ETag of the file
+         * @param body Entire file
+         * @return First and last bytes, or NULL if the entire file is
+         *  requested
+         */
+        private int[] range(final HttpExchange exchange, final String etag,
+            final byte[] body) {
+            final String header = exchange.getRequestHeaders()
+                .getFirst("Range");
+            final String tag = exchange.getRequestHeaders()
+                .getFirst("If-Range");
+            int[] range = null;
+            if (header != null && (tag == null || etag.equals(tag))) {
+                final Matcher matcher = Pattern
+                    .compile("bytes=(\\d+)-(\\d*)").matcher(header);
+                if (matcher.matches()) {
+                    int last = body.length - 1;
+                    if (!matcher.group(2).isEmpty()) {
+                        last = Math.min(
+                            last, Integer.parseInt(matcher.group(2))
+                        );
+                    }
+                    range = new int[] {
+                        Integer.parseInt(matcher.group(1)), last,
+                    };
+                }
+            }
+            return range;
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link ResolutionEvents}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class ResolutionEventsTest {
+
+    /**
+     * ResolutionEvents can deliver only requested events.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deliversRequestedEvents() throws Exception {
+        final ResolutionEvents events = new ResolutionEvents();
+        final BlockingQueue<ResolutionEvent> received =
+            new LinkedBlockingQueue<ResolutionEvent>();
+        final AtomicReference<ResolutionSubscription> sub =
+            new AtomicReference<ResolutionSubscription>();
+        events.subscribe(
+            new ResolutionSubscriber() {
+                @Override
+                public void onSubscribe(final ResolutionSubscription subn) {
+                    sub.set(subn);
+                    subn.request(1L);
+                }
+                @Override
+                public void onNext(final ResolutionEvent event) {
+                    received.add(event);
+                }
+            }
+        );
+        for (final String name : new String[] {"first", "second", "third"}) {
+            events.publish(
+                new ResolutionEvent(
+                    ResolutionEvent.Kind.COLLECTION_STARTED, name, 0L
+                )
+            );
+        }
+        MatcherAssert.assertThat(
+            received.poll(1L, TimeUnit.MINUTES).subject(),
+            Matchers.equalTo("first")
+        );
+        MatcherAssert.assertThat(
+            received.poll(1L, TimeUnit.SECONDS),
+            Matchers.nullValue()
+        );
+        sub.get().request(2L);
+        MatcherAssert.assertThat(
+            received.poll(1L, TimeUnit.MINUTES).subject(),
+            Matchers.equalTo("second")
+        );
+        MatcherAssert.assertThat(
+            received.poll(1L, TimeUnit.MINUTES).subject(),
+            Matchers.equalTo("third")
+        );
+    }
+
+    /**
+     * ResolutionEvents can drop events of a subscriber that doesn't keep up,
+     * without waiting for it.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void dropsEventsOfSlowSubscribers() throws Exception {
+        final ResolutionEvents events = new ResolutionEvents();
+        events.subscribe(
+            new ResolutionSubscriber() {
+                @Override
+                public void onSubscribe(final ResolutionSubscription subn) {
+                    // nothing is requested
+                }
+                @Override
+                public void onNext(final ResolutionEvent event) {
+                    throw new IllegalStateException("not requested");
+                }
+            }
+        );
+        final int extra = 10;
+        for (int idx = 0; idx < ResolutionEvents.BUFFER + extra; ++idx) {
+            events.publish(
+                new ResolutionEvent(
+                    ResolutionEvent.Kind.TRANSFER_PROGRESSED, "file", idx
+                )
+            );
+        }
+        MatcherAssert.assertThat(
+            events.dropped(),
+            Matchers.equalTo((long) extra)
+        );
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test case for {@link Routes}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class RoutesTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Routes can skip repositories by configured prefixes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void skipsByConfiguredPrefixes() throws Exception {
+        final File file = this.temp.newFile();
+        FileUtils.writeStringToFile(
+            file, "internal=com.example.*, org.demo\n"
+        );
+        final Routes routes = new Routes(file);
+        final String central = "central";
+        MatcherAssert.assertThat(
+            routes.skip(central, "com.example.tools"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.skip("internal", "org.demo"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            routes.skip(central, "com.examples"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            routes.skip(central, "org.demo.tools"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(routes.skips(), Matchers.is(1L));
+    }
+
+    /**
+     * Routes can learn exact groups, leaving groups inside them to all
+     * repositories.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void learnsExactGroups() throws Exception {
+        final Routes routes = new Routes(
+            new File(this.temp.newFolder(), "exact.properties")
+        );
+        routes.learn("apache", "org.apache");
+        MatcherAssert.assertThat(
+            routes.skip("central", "org.apache.maven"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            routes.skip("central", "org.apache"),
+            Matchers.is(true)
+        );
+    }
+
+    /**
+     * Routes can learn groups and keep them in the file.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void learnsAndPersistsGroups() throws Exception {
+        final File file = new File(this.temp.newFolder(), "routes.properties");
+        new Routes(file).learn("sonatype", "com.jcabi");
+        final Routes routes = new Routes(file);
+        MatcherAssert.assertThat(
+            routes.skip("central", "com.jcabi"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            routes.skip("sonatype", "com.jcabi"),
+            Matchers.is(false)
+        );
+    }
+
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.aether.repository.Authentication;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.repository.RepositoryPolicy;
+import org.sonatype.aether.spi.connector.ArtifactDownload;
+import org.sonatype.aether.spi.connector.MetadataDownload;
+import org.sonatype.aether.transfer.AbstractTransferListener;
+import org.sonatype.aether.transfer.TransferEvent;
+import org.sonatype.aether.transfer.TransferListener;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+
+/**
+ * Test case for {@link S3Connector}.
+ *
+ * <p>S3 is replaced with {@link MkRepository}.
+ *
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class S3ConnectorTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * S3Connector can download an artifact and learn its group.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void downloadsArtifactsAndLearnsGroups() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.file(
+            "aether_test/repo/com/example/stored/1.0/stored-1.0.jar",
+            "com.example:stored:1.0".getBytes("UTF-8")
+        );
+        final HttpPool pool = this.pool(repo);
+        try {
+            final ArtifactDownload dnl = S3ConnectorTest.download(
+                new File(this.temp.newFolder(), "stored-1.0.jar")
+            );
+            S3ConnectorTest.connector(pool).get(
+                Collections.singletonList(dnl),
+                Collections.<MetadataDownload>emptyList()
+            );
+            MatcherAssert.assertThat(dnl.getException(), Matchers.nullValue());
+            MatcherAssert.assertThat(
+                FileUtils.readFileToString(dnl.getFile(), "UTF-8"),
+                Matchers.equalTo("com.example:stored:1.0")
+            );
+            MatcherAssert.assertThat(
+                pool.routes().skip("other", "com.example"),
+                Matchers.is(true)
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * S3Connector can skip artifacts of groups served by other repositories.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void skipsGroupsOfOtherRepositories() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        final HttpPool pool = this.pool(repo);
+        pool.routes().learn("elsewhere", "com.example");
+        try {
+            final ArtifactDownload dnl = S3ConnectorTest.download(
+                new File(this.temp.newFolder(), "stored-1.0.jar")
+            );
+            S3ConnectorTest.connector(pool).get(
+                Collections.singletonList(dnl),
+                Collections.<MetadataDownload>emptyList()
+            );
+            MatcherAssert.assertThat(
+                dnl.getException(), Matchers.notNullValue()
+            );
+            MatcherAssert.assertThat(repo.requests(), Matchers.equalTo(0));
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * S3Connector can report downloads to the listener of the session.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void reportsDownloadsToListener() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.file(
+            "aether_test/repo/com/example/stored/1.0/stored-1.0.jar",
+            "com.example:stored:1.0".getBytes("UTF-8")
+        );
+        final Collection<TransferEvent.EventType> types =
+            new LinkedList<TransferEvent.EventType>();
+        try {
+            final ArtifactDownload dnl = S3ConnectorTest.download(
+                new File(this.temp.newFolder(), "stored-1.0.jar")
+            );
+            S3ConnectorTest.connector(
+                this.pool(repo),
+                new AbstractTransferListener() {
+                    @Override
+                    public void transferInitiated(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                    @Override
+                    public void transferStarted(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                    @Override
+                    public void transferProgressed(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                    @Override
+                    public void transferSucceeded(final TransferEvent event) {
+                        types.add(event.getType());
+                    }
+                }
+            ).get(
+                Collections.singletonList(dnl),
+                Collections.<MetadataDownload>emptyList()
+            );
+            MatcherAssert.assertThat(dnl.getException(), Matchers.nullValue());
+            MatcherAssert.assertThat(
+                types,
+                Matchers.contains(
+                    TransferEvent.EventType.INITIATED,
+                    TransferEvent.EventType.STARTED,
+                    TransferEvent.EventType.PROGRESSED,
+                    TransferEvent.EventType.SUCCEEDED
+                )
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Make a pool working with the repository instead of S3.
+     * @param repo The repository
+     * @return Pool
+     * @throws Exception If fails
+     */
+    private HttpPool pool(final MkRepository repo) throws Exception {
+        return new HttpPool(
+            new Connections(), new Transfers().retried(0).s3(repo.url()),
+            new Routes(new File(this.temp.newFolder(), Routes.NAME))
+        );
+    }
+
+    /**
+     * Make a routed connector to the bucket.
+     * @param pool The pool
+     * @return Connector
+     */
+    private static S3Connector connector(final HttpPool pool) {
+        return S3ConnectorTest.connector(pool, null);
+    }
+
+    /**
+     * Make a routed connector to the bucket.
+     * @param pool The pool
+     * @param listener Transfer listener or NULL
+     * @return Connector
+     */
+    private static S3Connector connector(final HttpPool pool,
+        final TransferListener listener) {
+        return new S3Connector(
+            new RemoteRepository(
+                "s3", "default", "s3://aether_test/repo"
+            ).setAuthentication(new Authentication("key", "secret")),
+            pool, true, listener
+        );
+    }
+
+    /**
+     * Make a download of the artifact.
+     * @param file Target file
+     * @return Download
+     */
+    private static ArtifactDownload download(final File file) {
+        return new ArtifactDownload(
+            new DefaultArtifact("com.example:stored:1.0"), "", file,
+            RepositoryPolicy.CHECKSUM_POLICY_IGNORE
+        );
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test case for {@link SettingsWatcher}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class SettingsWatcherTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * SettingsWatcher can run the action when a watched file changes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void runsActionOnChange() throws Exception {
+        final File dir = this.temp.newFolder();
+        final File file = new File(dir, "settings.xml");
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Closeable watcher = new SettingsWatcher(
+            Arrays.asList(file),
+            new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            }
+        );
+        try {
+            FileUtils.writeStringToFile(new File(dir, "other.xml"), "x");
+            FileUtils.writeStringToFile(file, "<settings/>");
+            MatcherAssert.assertThat(
+                // @checkstyle MagicNumber (1 line)
+                latch.await(30L, TimeUnit.SECONDS),
+                Matchers.is(true)
+            );
+        } finally {
+            watcher.close();
+        }
+    }
+
+    /**
+     * SettingsWatcher can keep watching other directories when one of
+     * them is deleted.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsWatchingAfterDirectoryIsDeleted() throws Exception {
+        final File gone = this.temp.newFolder();
+        final File kept = this.temp.newFolder();
+        final File file = new File(kept, "settings.xml");
+        final BlockingQueue<Boolean> runs = new LinkedBlockingQueue<Boolean>();
+        final Closeable watcher = new SettingsWatcher(
+            Arrays.asList(new File(gone, "settings.xml"), file),
+            new Runnable() {
+                @Override
+                public void run() {
+                    runs.add(true);
+                }
+            }
+        );
+        try {
+            FileUtils.deleteDirectory(gone);
+            MatcherAssert.assertThat(
+                // @checkstyle MagicNumber (1 line)
+                runs.poll(30L, TimeUnit.SECONDS),
+                Matchers.notNullValue()
+            );
+            TimeUnit.SECONDS.sleep(1L);
+            runs.clear();
+            FileUtils.writeStringToFile(file, "<settings/>");
+            MatcherAssert.assertThat(
+                // @checkstyle MagicNumber (1 line)
+                runs.poll(30L, TimeUnit.SECONDS),
+                Matchers.notNullValue()
+            );
+        } finally {
+            watcher.close();
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.Authentication;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.resolution.DependencyResolutionException;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.artifact.JavaScopes;
+
+/**
+ * Test case for {@link Tenants}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class TenantsTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Tenants can share artifacts of the same repository, whatever
+     * tenants call it.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sharesArtifactsOfSameRepository() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "shared", "1.0");
+        try {
+            final Tenants tenants = new Tenants(this.temp.newFolder());
+            tenants.register(
+                "first",
+                Arrays.asList(
+                    new RemoteRepository("ours", "default", repo.url())
+                )
+            );
+            tenants.register(
+                "second",
+                Arrays.asList(
+                    new RemoteRepository("theirs", "default", repo.url())
+                )
+            );
+            final Artifact artifact =
+                new DefaultArtifact("com.example:shared:1.0");
+            MatcherAssert.assertThat(
+                tenants.aether("first").resolve(artifact, JavaScopes.RUNTIME),
+                Matchers.not(Matchers.<Artifact>empty())
+            );
+            final int before = repo.requests();
+            MatcherAssert.assertThat(
+                tenants.aether("second").resolve(
+                    artifact, JavaScopes.RUNTIME
+                ),
+                Matchers.not(Matchers.<Artifact>empty())
+            );
+            MatcherAssert.assertThat(repo.requests(), Matchers.is(before));
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Tenants can keep artifacts of a repository away from tenants which
+     * have the same user, but another password.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void separatesTenantsWithOtherPasswords() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "guarded", "1.0");
+        try {
+            final Tenants tenants = new Tenants(this.temp.newFolder());
+            final Artifact artifact =
+                new DefaultArtifact("com.example:guarded:1.0");
+            tenants.register(
+                "valid",
+                Arrays.asList(
+                    new RemoteRepository(
+                        "repo", "default", repo.url()
+                    ).setAuthentication(new Authentication("jeff", "good"))
+                )
+            ).resolve(artifact, JavaScopes.RUNTIME);
+            final int before = repo.requests();
+            tenants.register(
+                "revoked",
+                Arrays.asList(
+                    new RemoteRepository(
+                        "repo", "default", repo.url()
+                    ).setAuthentication(new Authentication("jeff", "bad"))
+                )
+            ).resolve(artifact, JavaScopes.RUNTIME);
+            MatcherAssert.assertThat(
+                repo.requests(),
+                Matchers.greaterThan(before)
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Tenants can hide artifacts of a repository from tenants which
+     * don't have it.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = DependencyResolutionException.class)
+    public void hidesArtifactsOfOtherRepositories() throws Exception {
+        final MkRepository full = new MkRepository(this.temp.newFolder());
+        final MkRepository empty = new MkRepository(this.temp.newFolder());
+        full.artifact("com.example", "private", "1.0");
+        try {
+            final Tenants tenants = new Tenants(this.temp.newFolder());
+            final Artifact artifact =
+                new DefaultArtifact("com.example:private:1.0");
+            tenants.register(
+                "owner",
+                Arrays.asList(
+                    new RemoteRepository("repo", "default", full.url())
+                )
+            ).resolve(artifact, JavaScopes.RUNTIME);
+            tenants.register(
+                "stranger",
+                Arrays.asList(
+                    new RemoteRepository("repo", "default", empty.url())
+                )
+            ).resolve(artifact, JavaScopes.RUNTIME);
+        } finally {
+            full.close();
+            empty.close();
+        }
+    }
+
+    /**
+     * Tenants can publish events of every tenant to its own subscribers
+     * only, and events of all of them to subscribers of all tenants.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void publishesEventsOfEveryTenantSeparately() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "alpha", "1.0")
+            .artifact("com.example", "beta", "1.0");
+        try {
+            final Tenants tenants = new Tenants(this.temp.newFolder());
+            final Aether first = tenants.register(
+                "first",
+                Arrays.asList(
+                    new RemoteRepository("repo", "default", repo.url())
+                )
+            );
+            final Aether second = tenants.register(
+                "second",
+                Arrays.asList(
+                    new RemoteRepository("repo", "default", repo.url())
+                )
+            );
+            final Collection<String> all = TenantsTest.roots(tenants.events());
+            final Collection<String> own = TenantsTest.roots(first.events());
+            first.resolve(
+                new DefaultArtifact("com.example:alpha:1.0"),
+                JavaScopes.RUNTIME
+            );
+            second.resolve(
+                new DefaultArtifact("com.example:beta:1.0"),
+                JavaScopes.RUNTIME
+            );
+            TimeUnit.SECONDS.sleep(1L);
+            MatcherAssert.assertThat(
+                own,
+                Matchers.contains("com.example:alpha:jar:1.0")
+            );
+            MatcherAssert.assertThat(
+                all,
+                Matchers.containsInAnyOrder(
+                    "com.example:alpha:jar:1.0",
+                    "com.example:beta:jar:1.0"
+                )
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Subscribe and collect root artifacts of resolutions started.
+     * @param events Publisher of events
+     * @return Roots, collected in background
+     */
+    private static Collection<String> roots(final ResolutionEvents events) {
+        final BlockingQueue<String> roots = new LinkedBlockingQueue<String>();
+        events.subscribe(
+            new ResolutionSubscriber() {
+                @Override
+                public void onSubscribe(final ResolutionSubscription sub) {
+                    sub.request(Long.MAX_VALUE);
+                }
+                @Override
+                public void onNext(final ResolutionEvent event) {
+                    if (event.kind()
+                        == ResolutionEvent.Kind.COLLECTION_STARTED) {
+                        roots.add(event.subject());
+                    }
+                }
+            }
+        );
+        return roots;
+    }
+
+}
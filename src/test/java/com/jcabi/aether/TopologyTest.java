@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2012-2017, jcabi.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met: 1) Redistributions of source code must retain the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer. 2) Redistributions in binary form must reproduce the above
+ * copyright notice, this list of conditions and the following
+ * disclaimer in the documentation and/or other materials provided
+ * with the distribution. 3) Neither the name of the jcabi.com nor
+ * the names of its contributors may be used to endorse or promote
+ * products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT
+ * NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND
+ * FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL
+ * THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jcabi.aether;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.apache.maven.settings.Mirror;
+import org.apache.maven.settings.Settings;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonatype.aether.artifact.Artifact;
+import org.sonatype.aether.repository.Authentication;
+import org.sonatype.aether.repository.RemoteRepository;
+import org.sonatype.aether.util.artifact.DefaultArtifact;
+import org.sonatype.aether.util.artifact.JavaScopes;
+
+/**
+ * Test case for {@link Topology}.
+ * @author Yegor Bugayenko (yegor@tpc2.com)
+ * @version $Id$
+ */
+public final class TopologyTest {
+
+    /**
+     * Temp dir.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Topology can drop repositories with unsupported protocols.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void dropsUnsupportedRepositories() throws Exception {
+        final Topology topology = new Topology(
+            Arrays.asList(
+                new RemoteRepository("web", "default", "http://localhost/"),
+                new RemoteRepository("ftp", "default", "ftp://localhost/")
+            ),
+            new Settings()
+        );
+        MatcherAssert.assertThat(topology.repositories(), Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+            topology.repositories().get(0).getId(),
+            Matchers.equalTo("web")
+        );
+    }
+
+    /**
+     * Topology can replace repositories with their mirrors.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void replacesRepositoriesWithMirrors() throws Exception {
+        final Mirror mirror = new Mirror();
+        mirror.setId("nexus");
+        mirror.setUrl("http://localhost/nexus/");
+        mirror.setMirrorOf("*");
+        final Settings settings = new Settings();
+        settings.addMirror(mirror);
+        final RemoteRepository remote = new Topology(
+            Arrays.asList(
+                new RemoteRepository("central", "default", "http://localhost/")
+            ),
+            settings
+        ).repositories().get(0);
+        MatcherAssert.assertThat(remote.getId(), Matchers.equalTo("nexus"));
+        MatcherAssert.assertThat(
+            remote.getMirroredRepositories(),
+            Matchers.hasSize(1)
+        );
+    }
+
+    /**
+     * Topology can give the same repositories every time, without
+     * building them again.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsRepositoriesBuiltOnce() throws Exception {
+        final RemoteRepository origin =
+            new RemoteRepository("local", "default", "file:///tmp/repo");
+        final Topology topology = new Topology(
+            Arrays.asList(origin), new Settings()
+        );
+        MatcherAssert.assertThat(
+            topology.repositories(),
+            Matchers.sameInstance(topology.repositories())
+        );
+        MatcherAssert.assertThat(
+            topology.repositories().get(0),
+            Matchers.not(Matchers.sameInstance(origin))
+        );
+    }
+
+    /**
+     * Topology can tell which protocols its repositories use.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void knowsProtocolsOfRepositories() throws Exception {
+        final Topology topology = new Topology(
+            Arrays.asList(
+                new RemoteRepository("web", "default", "https://localhost/"),
+                new RemoteRepository("s3", "default", "s3://bucket/repo")
+            ),
+            new Settings()
+        );
+        MatcherAssert.assertThat(topology.has("s3"), Matchers.is(true));
+        MatcherAssert.assertThat(
+            new Topology(topology.repositories().subList(0, 1), new Settings())
+                .has("s3"),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * Topology can identify repositories by their URLs and users.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void identifiesRepositoriesByUrls() throws Exception {
+        final RemoteRepository secured =
+            new RemoteRepository("b", "default", "http://localhost/repo/");
+        secured.setAuthentication(new Authentication("jeff", "secret"));
+        final RemoteRepository revoked =
+            new RemoteRepository("b", "default", "http://localhost/repo/");
+        revoked.setAuthentication(new Authentication("jeff", "revoked"));
+        final List<RemoteRepository> repos = new Topology(
+            Arrays.asList(
+                new RemoteRepository("a", "default", "http://localhost/repo"),
+                new RemoteRepository("b", "default", "http://localhost/repo/"),
+                secured,
+                revoked
+            ),
+            new Settings()
+        ).identified().repositories();
+        MatcherAssert.assertThat(
+            repos.get(0).getId(),
+            Matchers.equalTo(repos.get(1).getId())
+        );
+        MatcherAssert.assertThat(
+            repos.get(2).getId(),
+            Matchers.not(Matchers.equalTo(repos.get(1).getId()))
+        );
+        MatcherAssert.assertThat(
+            repos.get(3).getId(),
+            Matchers.not(Matchers.equalTo(repos.get(2).getId()))
+        );
+    }
+
+    /**
+     * Aether doesn't load AWS SDK when its topology has no S3
+     * repositories.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void resolvesFromHttpWithoutAmazonClasses() throws Exception {
+        final MkRepository repo = new MkRepository(this.temp.newFolder());
+        repo.artifact("com.example", "plain", "1.0");
+        final TopologyTest.Isolated loader = new TopologyTest.Isolated();
+        try {
+            final Class<?> artifact = loader.loadClass(
+                DefaultArtifact.class.getName()
+            );
+            final Object root = artifact.getConstructor(String.class)
+                .newInstance("com.example:plain:1.0");
+            final Object aether = loader.loadClass(Aether.class.getName())
+                .getConstructor(Collection.class, File.class)
+                .newInstance(
+                    Arrays.asList(
+                        loader.loadClass(RemoteRepository.class.getName())
+                            .getConstructor(
+                                String.class, String.class, String.class
+                            )
+                            .newInstance("mk", "default", repo.url())
+                    ),
+                    this.temp.newFolder()
+                );
+            MatcherAssert.assertThat(
+                (List<?>) aether.getClass().getMethod(
+                    "resolve",
+                    loader.loadClass(Artifact.class.getName()),
+                    String.class
+                ).invoke(aether, root, JavaScopes.RUNTIME),
+                Matchers.hasSize(1)
+            );
+            MatcherAssert.assertThat(
+                loader.loaded("com.amazonaws."),
+                Matchers.empty()
+            );
+            MatcherAssert.assertThat(
+                loader.loaded(Aether.class.getName()),
+                Matchers.not(Matchers.empty())
+            );
+        } finally {
+            repo.close();
+        }
+    }
+
+    /**
+     * Class loader of the classpath of tests, which doesn't share classes
+     * with the class loader of tests and remembers classes it loads.
+     */
+    private static final class Isolated extends URLClassLoader {
+        /**
+         * Names of loaded classes.
+         */
+        private final transient Set<String> names;
+        /**
+         * Ctor.
+         * @throws Exception If fails
+         */
+        Isolated() throws Exception {
+            super(
+                TopologyTest.classpath(),
+                ClassLoader.getSystemClassLoader().getParent()
+            );
+            this.names = new ConcurrentSkipListSet<String>();
+        }
+        /**
+         * Names of classes loaded so far.
+         * @param prefix Prefix of names
+         * @return Names, which start with the prefix
+         */
+        public Collection<String> loaded(final String prefix) {
+            final Collection<String> loaded = new LinkedList<String>();
+            for (final String name : this.names) {
+                if (name.startsWith(prefix)) {
+                    loaded.add(name);
+                }
+            }
+            return loaded;
+        }
+        @Override
+        protected Class<?> loadClass(final String name,
+            final boolean resolve) throws ClassNotFoundException {
+            final Class<?> type = super.loadClass(name, resolve);
+            this.names.add(name);
+            return type;
+        }
+    }
+
+    /**
+     * URLs of the classpath of tests.
+     * @return URLs
+     * @throws Exception If fails
+     */
+    private static URL[] classpath() throws Exception {
+        final String[] paths = System.getProperty("java.class.path")
+            .split(File.pathSeparator);
+        final URL[] urls = new URL[paths.length];
+        for (int idx = 0; idx < paths.length; ++idx) {
+            urls[idx] = new File(paths[idx]).toURI().toURL();
+        }
+        return urls;
+    }
+
+}